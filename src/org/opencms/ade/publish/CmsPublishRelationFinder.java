@@ -27,6 +27,7 @@
 
 package org.opencms.ade.publish;
 
+import org.opencms.db.CmsPublishClosure;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
@@ -41,8 +42,10 @@ import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -153,6 +156,9 @@ public class CmsPublishRelationFinder {
     /** The CMS context used by this object. */
     private CmsObject m_cms;
 
+    /** The relations, relation targets and parent folders, read in bulk. */
+    private CmsPublishClosure m_closure;
+
     /** Flag which controls whether unchanged resources in the original resource list should be kept or removed. */
     private boolean m_keepOriginalUnchangedResources;
 
@@ -180,6 +186,7 @@ public class CmsPublishRelationFinder {
         I_CmsPublishRelatedResourceProvider relProvider) {
 
         m_cms = cms;
+        m_closure = new CmsPublishClosure(cms.getRequestContext().getCurrentProject().getUuid());
         // put resources in a map with the structure id as a key
         m_originalResources = Sets.newHashSet(resources);
         for (CmsResource res : resources) {
@@ -255,24 +262,18 @@ public class CmsPublishRelationFinder {
 
         ResourceMap result = new ResourceMap();
         for (CmsResource resource : relatedResources.keySet()) {
-            result.get(resource).add(resource);
-            result.get(resource).addAll(relatedResources.get(resource));
-        }
-        int oldSize, newSize;
-        do {
-            ResourceMap newReachableResources = new ResourceMap();
-            oldSize = result.totalSize();
-            for (CmsResource source : result.keySet()) {
-                for (CmsResource target : result.get(source)) {
-                    // need to check if the key is present, otherwise we may get a ConcurrentModificationException
-                    if (result.containsKey(target)) {
-                        newReachableResources.get(source).addAll(result.get(target));
-                    }
+            Set<CmsResource> reachable = Sets.newHashSet();
+            reachable.add(resource);
+            Deque<CmsResource> toVisit = new ArrayDeque<CmsResource>(relatedResources.get(resource));
+            while (!toVisit.isEmpty()) {
+                CmsResource target = toVisit.pop();
+                // need to check if the key is present, because get() would add it
+                if (reachable.add(target) && relatedResources.containsKey(target)) {
+                    toVisit.addAll(relatedResources.get(target));
                 }
             }
-            newSize = newReachableResources.totalSize();
-            result = newReachableResources;
-        } while (oldSize < newSize);
+            result.put(resource, reachable);
+        }
         return result;
     }
 
@@ -287,18 +288,22 @@ public class CmsPublishRelationFinder {
         Set<CmsResource> resourcesToProcess = Sets.newHashSet(m_originalResources);
         Set<CmsResource> processedResources = Sets.newHashSet();
         while (!resourcesToProcess.isEmpty()) {
-            CmsResource currentResource = resourcesToProcess.iterator().next();
-            resourcesToProcess.remove(currentResource);
-            processedResources.add(currentResource);
-            if (!currentResource.getState().isDeleted()) {
-                Set<CmsResource> directlyRelatedResources = getDirectlyRelatedResources(currentResource);
-                for (CmsResource target : directlyRelatedResources) {
-                    if (!processedResources.contains(target)) {
-                        resourcesToProcess.add(target);
+            // read the relations and parent folders for all resources found in the last step at once
+            loadPublishClosure(resourcesToProcess);
+            Set<CmsResource> nextResources = Sets.newHashSet();
+            for (CmsResource currentResource : resourcesToProcess) {
+                processedResources.add(currentResource);
+                if (!currentResource.getState().isDeleted()) {
+                    Set<CmsResource> directlyRelatedResources = getDirectlyRelatedResources(currentResource);
+                    for (CmsResource target : directlyRelatedResources) {
+                        if (!processedResources.contains(target) && !resourcesToProcess.contains(target)) {
+                            nextResources.add(target);
+                        }
+                        relatedResources.get(currentResource).add(target);
                     }
-                    relatedResources.get(currentResource).add(target);
                 }
             }
+            resourcesToProcess = nextResources;
         }
         return relatedResources;
     }
@@ -338,6 +343,26 @@ public class CmsPublishRelationFinder {
 
     }
 
+    /**
+     * Returns the instance of the given resource which is already used in the resource maps, if any.<p>
+     *
+     * @param resource the resource, may be <code>null</code>
+     *
+     * @return the resource instance to use
+     */
+    private CmsResource getCachedResource(CmsResource resource) {
+
+        if (resource == null) {
+            return null;
+        }
+        CmsResource cached = m_resources.get(resource.getStructureId());
+        if (cached == null) {
+            m_resources.put(resource.getStructureId(), resource);
+            cached = resource;
+        }
+        return cached;
+    }
+
     /**
      * Gets the resources which are reachable from the original set of resources and are not unchanged.<p>
      *
@@ -369,7 +394,10 @@ public class CmsPublishRelationFinder {
     private Set<CmsResource> getDirectlyRelatedResources(CmsResource currentResource) {
 
         Set<CmsResource> directlyRelatedResources = Sets.newHashSet();
-        List<CmsRelation> relations = getRelationsFromResource(currentResource);
+        boolean loaded = m_closure.isLoaded(currentResource);
+        List<CmsRelation> relations = loaded
+        ? m_closure.getRelations(currentResource)
+        : getRelationsFromResource(currentResource);
         for (CmsRelation relation : relations) {
             LOG.info("Trying to read resource for relation " + relation.getTargetPath());
             CmsResource target = getResource(relation.getTargetId());
@@ -380,7 +408,9 @@ public class CmsPublishRelationFinder {
             }
         }
         try {
-            CmsResource parentFolder = m_cms.readParentFolder(currentResource.getStructureId());
+            CmsResource parentFolder = loaded
+            ? getCachedResource(m_closure.getParentFolder(currentResource))
+            : m_cms.readParentFolder(currentResource.getStructureId());
             if (parentFolder != null) { // parent folder of root folder is null
                 if (parentFolder.getState().isNew() || currentResource.isFile()) {
                     directlyRelatedResources.add(parentFolder);
@@ -432,6 +462,14 @@ public class CmsPublishRelationFinder {
 
         CmsResource resource = m_resources.get(structureId);
         if (resource == null) {
+            if (m_closure.hasResource(structureId)) {
+                // already read in bulk, null if it does not exist or can not be read
+                resource = m_closure.getResource(structureId);
+                if (resource != null) {
+                    m_resources.put(structureId, resource);
+                }
+                return resource;
+            }
             try {
                 resource = m_cms.readResource(structureId, CmsResourceFilter.ALL);
                 m_resources.put(structureId, resource);
@@ -456,6 +494,28 @@ public class CmsPublishRelationFinder {
         return false;
     }
 
+    /**
+     * Reads the relations, relation targets and parent folders of the given resources in bulk.<p>
+     *
+     * If this fails, they are read for every single resource later.<p>
+     *
+     * @param resources the resources to read the data for
+     */
+    private void loadPublishClosure(Collection<CmsResource> resources) {
+
+        List<CmsResource> toLoad = Lists.newArrayList();
+        for (CmsResource resource : resources) {
+            if (!resource.getState().isDeleted()) {
+                toLoad.add(resource);
+            }
+        }
+        try {
+            m_cms.loadPublishClosure(m_closure, toLoad);
+        } catch (CmsException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_READ_PUBLISH_CLOSURE_FAILED_0), e);
+        }
+    }
+
     /**
      * Removes those resources as keys from the resource map which also occur as related resources under a different key.<p>
      *
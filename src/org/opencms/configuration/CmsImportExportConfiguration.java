@@ -145,9 +145,15 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /** The node name of the export sub-configuration. */
     public static final String N_EXPORT = "export";
 
+    /** The node name of the export compression level node. */
+    public static final String N_EXPORT_COMPRESSIONLEVEL = "compressionlevel";
+
     /** The node name of the defaultexporttimestamps sub-configuration. */
     public static final String N_EXPORT_DEFAULTTIMESTAMPMODES = "defaulttimestampmodes";
 
+    /** The node name of the export parallelism node. */
+    public static final String N_EXPORT_PARALLELISM = "parallelism";
+
     /** The node name of the timestamp sub-configuration. */
     public static final String N_EXPORT_TIMESTAMPMODE = "timestampmode";
 
@@ -238,6 +244,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exporturl node. */
     public static final String N_STATICEXPORT_EXPORTURL = "exporturl";
 
+    /**  The node name of the static export exportworkers node. */
+    public static final String N_STATICEXPORT_EXPORTWORKERS = "exportworkers";
+
     /**  The node name of the static export exportworkpath node. */
     public static final String N_STATICEXPORT_EXPORTWORKPATH = "exportworkpath";
 
@@ -247,6 +256,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export header node. */
     public static final String N_STATICEXPORT_HEADER = "header";
 
+    /**  The node name of the static export linkcachesize node. */
+    public static final String N_STATICEXPORT_LINKCACHESIZE = "linkcachesize";
+
     /**  The node name of the static export export-rule modified node. */
     public static final String N_STATICEXPORT_MODIFIED = "modified-resources";
 
@@ -457,6 +469,15 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
                 + N_EXPORT_RESOURCETYPENAME,
             0);
 
+        digester.addCallMethod(
+            "*/" + N_IMPORTEXPORT + "/" + N_EXPORT + "/" + N_EXPORT_COMPRESSIONLEVEL,
+            "setExportCompressionLevel",
+            0);
+        digester.addCallMethod(
+            "*/" + N_IMPORTEXPORT + "/" + N_EXPORT + "/" + N_EXPORT_PARALLELISM,
+            "setExportParallelism",
+            0);
+
         digester.addCallMethod("*/" + N_IMPORTEXPORT + "/" + N_TEMP_EXPORTPONT_PATH, "addTempExportpointPath", 1);
         digester.addCallParam("*/" + N_IMPORTEXPORT + "/" + N_TEMP_EXPORTPONT_PATH, 0);
 
@@ -480,6 +501,10 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKPATH, "setExportWorkPath", 0);
         // exportbackups rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTBACKUPS, "setExportBackups", 0);
+        // exportworkers rule
+        digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_EXPORTWORKERS, "setExportWorkers", 0);
+        // linkcachesize rule
+        digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_LINKCACHESIZE, "setLinkCacheSize", 0);
         // default property rule
         digester.addCallMethod("*/" + N_STATICEXPORT + "/" + N_STATICEXPORT_DEFAULT, "setDefault", 0);
         // export suffix rule
@@ -862,6 +887,18 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             }
         }
 
+        // <compressionlevel> node
+        if (m_importExportManager.getExportCompressionLevelForConfiguration() != null) {
+            String compressionLevel = String.valueOf(m_importExportManager.getExportCompressionLevelForConfiguration());
+            exportElement.addElement(N_EXPORT_COMPRESSIONLEVEL).addText(compressionLevel);
+        }
+
+        // <parallelism> node
+        if (m_importExportManager.getExportParallelismForConfiguration() != null) {
+            String parallelism = String.valueOf(m_importExportManager.getExportParallelismForConfiguration());
+            exportElement.addElement(N_EXPORT_PARALLELISM).addText(parallelism);
+        }
+
         List<String> tempExportpointPaths = m_importExportManager.getTempExportPointPaths();
         for (String path : tempExportpointPaths) {
             importexportElement.addElement(N_TEMP_EXPORTPONT_PATH).addText(path);
@@ -903,6 +940,18 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             staticexportElement.addElement(N_STATICEXPORT_EXPORTBACKUPS).addText(exportBackupsUnmodified);
         }
 
+        // <exportworkers> node
+        if (m_staticExportManager.getExportWorkersForConfiguration() != null) {
+            String exportWorkers = String.valueOf(m_staticExportManager.getExportWorkersForConfiguration());
+            staticexportElement.addElement(N_STATICEXPORT_EXPORTWORKERS).addText(exportWorkers);
+        }
+
+        // <linkcachesize> node
+        if (m_staticExportManager.getLinkCacheSizeForConfiguration() != null) {
+            String linkCacheSize = String.valueOf(m_staticExportManager.getLinkCacheSizeForConfiguration());
+            staticexportElement.addElement(N_STATICEXPORT_LINKCACHESIZE).addText(linkCacheSize);
+        }
+
         // <defaultpropertyvalue> node
         staticexportElement.addElement(N_STATICEXPORT_DEFAULT).addText(m_staticExportManager.getDefault());
 
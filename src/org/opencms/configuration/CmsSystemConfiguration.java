@@ -170,6 +170,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the defaultusers expression. */
     public static final String N_DEFAULTUSERS = "defaultusers";
 
+    /** The node name for the Flex cache dependency tracking. */
+    public static final String N_DEPENDENCYTRACKING = "dependency-tracking";
+
     /** The node name for the detail page handler. */
     public static final String N_DETAIL_PAGE_HANDLER = "detail-page-handler";
 
@@ -371,6 +374,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for ACLS. */
     public static final String N_SIZE_ACLS = "size-accesscontrollists";
 
+    /** The number of folders in the driver manager's index of online child resources. */
+    public static final String N_SIZE_CHILDRESOURCEINDEX = "size-childresourceindex";
+
     /** The size of the memory monitor's cache for offline container pages. */
     public static final String N_SIZE_CONTAINERPAGE_OFFLINE = "size-containerpage-offline";
 
@@ -969,6 +975,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "setDeviceSelectorConfiguration",
             1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR, 0, A_CLASS);
+        // add flexcache dependency tracking
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEPENDENCYTRACKING,
+            "setDependencyTracking",
+            0);
 
         // set the FlexCacheConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_FLEXCACHE, "setCmsFlexCacheConfiguration");
@@ -1018,6 +1029,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "setPropertyListsCacheSize",
             0);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_ACLS, "setAclCacheSize", 0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CHILDRESOURCEINDEX,
+            "setChildResourceIndexSize",
+            0);
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_PERMISSIONS,
             "setPermissionCacheSize",
@@ -1412,6 +1427,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 A_CLASS,
                 m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration());
         }
+        if (m_cmsFlexCacheConfiguration.isDependencyTracking()) {
+            flexcacheElement.addElement(N_DEPENDENCYTRACKING).addText(Boolean.TRUE.toString());
+        }
 
         // create <http-authentication> node
         Element httpAuthenticationElement = systemElement.addElement(N_HTTP_AUTHENTICATION);
@@ -1451,6 +1469,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (m_cacheSettings.getConfiguredChildResourceIndexSize() > -1) {
+            cacheElement.addElement(N_SIZE_CHILDRESOURCEINDEX).setText(
+                Integer.toString(m_cacheSettings.getConfiguredChildResourceIndexSize()));
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
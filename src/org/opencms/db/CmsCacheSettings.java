@@ -37,6 +37,9 @@ public class CmsCacheSettings {
     /** The size of the memory monitor's cache for ACLs. */
     private int m_aclCacheSize;
 
+    /** The number of folders in the driver manager's index of online child resources. */
+    private int m_childResourceIndexSize = -1; // this configuration entry is optional
+
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
@@ -104,6 +107,33 @@ public class CmsCacheSettings {
         return m_cacheKeyGenerator;
     }
 
+    /**
+     * Returns the number of folders in the driver manager's index of online child resources.<p>
+     *
+     * Defaults to <code>64</code> if the configuration entry is missing, <code>0</code> disables the index.<p>
+     *
+     * @return the number of folders in the driver manager's index of online child resources
+     */
+    public int getChildResourceIndexSize() {
+
+        if (m_childResourceIndexSize < 0) {
+            return 64;
+        }
+        return m_childResourceIndexSize;
+    }
+
+    /**
+     * Returns the number of folders in the driver manager's index of online child resources.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the number of folders in the driver manager's index of online child resources
+     */
+    public int getConfiguredChildResourceIndexSize() {
+
+        return m_childResourceIndexSize;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      *
@@ -294,6 +324,20 @@ public class CmsCacheSettings {
         m_aclCacheSize = getIntValue(size, 1024);
     }
 
+    /**
+     * Sets the number of folders in the driver manager's index of online child resources.<p>
+     *
+     * @param size the number of folders, <code>0</code> disables the index
+     */
+    public void setChildResourceIndexSize(String size) {
+
+        try {
+            m_childResourceIndexSize = Math.max(0, Integer.parseInt(size.trim()));
+        } catch (NumberFormatException e) {
+            m_childResourceIndexSize = -1;
+        }
+    }
+
     /**
      * Sets the name of the class to generate cache keys.<p>
      *
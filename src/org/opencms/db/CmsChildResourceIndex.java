@@ -0,0 +1,474 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the child resources of folders in the online project.<p>
+ *
+ * For each indexed folder, the children are kept in pre-sorted views by root path, date released
+ * and date last modified, so that sorted reads, paging and top-N selections do not have to sort
+ * the full list of children.<p>
+ *
+ * The folder entries are immutable and are replaced as a whole on every change, so readers never need
+ * to synchronize. The index is maintained incrementally by the driver manager after each publish.<p>
+ */
+public class CmsChildResourceIndex {
+
+    /**
+     * The available sort orders of the child resources.<p>
+     */
+    public enum Order {
+
+        /** Sort by date last modified. */
+        DATE_LAST_MODIFIED,
+
+        /** Sort by date released, or by date last modified for resources without a release date. */
+        DATE_RELEASED,
+
+        /** Sort by root path. */
+        ROOT_PATH;
+    }
+
+    /**
+     * The children of a single folder.<p>
+     */
+    private static class FolderEntry {
+
+        /** The children by structure id. */
+        final Map<CmsUUID, CmsResource> m_byId;
+
+        /** The sorted views, indexed by {@link CmsChildResourceIndex#getViewIndex(Order, boolean)}. */
+        final CmsResource[][] m_sorted;
+
+        /**
+         * Creates a new folder entry.<p>
+         *
+         * @param children the children of the folder
+         */
+        FolderEntry(Collection<CmsResource> children) {
+
+            m_byId = new HashMap<CmsUUID, CmsResource>(children.size());
+            for (CmsResource child : children) {
+                m_byId.put(child.getStructureId(), child);
+            }
+            m_sorted = new CmsResource[2 * Order.values().length][];
+            for (Order order : Order.values()) {
+                for (boolean descending : new boolean[] {false, true}) {
+                    CmsResource[] sorted = m_byId.values().toArray(new CmsResource[m_byId.size()]);
+                    Arrays.sort(sorted, getComparator(order, descending));
+                    m_sorted[getViewIndex(order, descending)] = sorted;
+                }
+            }
+        }
+
+        /**
+         * Creates a copy of the given entry, with the given child removed and the other child added.<p>
+         *
+         * @param entry the entry to copy
+         * @param removeId the structure id of the child to remove, may be <code>null</code>
+         * @param add the child to add, may be <code>null</code>
+         */
+        FolderEntry(FolderEntry entry, CmsUUID removeId, CmsResource add) {
+
+            m_byId = new HashMap<CmsUUID, CmsResource>(entry.m_byId);
+            CmsResource removed = removeId != null ? m_byId.remove(removeId) : null;
+            if (add != null) {
+                CmsResource replaced = m_byId.put(add.getStructureId(), add);
+                if (replaced != null) {
+                    removed = replaced;
+                }
+            }
+            m_sorted = new CmsResource[2 * Order.values().length][];
+            for (Order order : Order.values()) {
+                for (boolean descending : new boolean[] {false, true}) {
+                    int view = getViewIndex(order, descending);
+                    m_sorted[view] = update(entry.m_sorted[view], getComparator(order, descending), removed, add);
+                }
+            }
+        }
+
+        /**
+         * Returns a copy of the sorted array with one element removed and one inserted at the right position.<p>
+         *
+         * @param sorted the sorted array
+         * @param comparator the comparator of the array
+         * @param remove the element to remove, may be <code>null</code>
+         * @param add the element to add, may be <code>null</code>
+         *
+         * @return the updated copy of the array
+         */
+        private static CmsResource[] update(
+            CmsResource[] sorted,
+            Comparator<CmsResource> comparator,
+            CmsResource remove,
+            CmsResource add) {
+
+            List<CmsResource> result = new ArrayList<CmsResource>(Arrays.asList(sorted));
+            if (remove != null) {
+                int pos = Collections.binarySearch(result, remove, comparator);
+                if ((pos >= 0) && result.get(pos).getStructureId().equals(remove.getStructureId())) {
+                    result.remove(pos);
+                } else {
+                    // should not happen, fall back to a linear search
+                    for (int i = 0; i < result.size(); i++) {
+                        if (result.get(i).getStructureId().equals(remove.getStructureId())) {
+                            result.remove(i);
+                            break;
+                        }
+                    }
+                }
+            }
+            if (add != null) {
+                int pos = Collections.binarySearch(result, add, comparator);
+                result.add(pos >= 0 ? pos : -(pos + 1), add);
+            }
+            return result.toArray(new CmsResource[result.size()]);
+        }
+    }
+
+    /** Compares resources by date last modified, then by root path. */
+    private static final Comparator<CmsResource> COMPARE_DATE_LAST_MODIFIED = new Comparator<CmsResource>() {
+
+        public int compare(CmsResource res1, CmsResource res2) {
+
+            int result = Long.compare(res1.getDateLastModified(), res2.getDateLastModified());
+            return result != 0 ? result : COMPARE_ROOT_PATH.compare(res1, res2);
+        }
+    };
+
+    /** Compares resources by date last modified descending, then by root path. */
+    private static final Comparator<CmsResource> COMPARE_DATE_LAST_MODIFIED_DESC = new Comparator<CmsResource>() {
+
+        public int compare(CmsResource res1, CmsResource res2) {
+
+            int result = Long.compare(res2.getDateLastModified(), res1.getDateLastModified());
+            return result != 0 ? result : COMPARE_ROOT_PATH.compare(res1, res2);
+        }
+    };
+
+    /** Compares resources by date released, or date last modified if not set, then by root path. */
+    private static final Comparator<CmsResource> COMPARE_DATE_RELEASED = new Comparator<CmsResource>() {
+
+        public int compare(CmsResource res1, CmsResource res2) {
+
+            int result = Long.compare(getDateReleasedOrModified(res1), getDateReleasedOrModified(res2));
+            return result != 0 ? result : COMPARE_ROOT_PATH.compare(res1, res2);
+        }
+    };
+
+    /** Compares resources by date released descending, or date last modified if not set, then by root path. */
+    private static final Comparator<CmsResource> COMPARE_DATE_RELEASED_DESC = new Comparator<CmsResource>() {
+
+        public int compare(CmsResource res1, CmsResource res2) {
+
+            int result = Long.compare(getDateReleasedOrModified(res2), getDateReleasedOrModified(res1));
+            return result != 0 ? result : COMPARE_ROOT_PATH.compare(res1, res2);
+        }
+    };
+
+    /** Compares resources by root path, then by structure id. */
+    private static final Comparator<CmsResource> COMPARE_ROOT_PATH = new Comparator<CmsResource>() {
+
+        public int compare(CmsResource res1, CmsResource res2) {
+
+            int result = res1.getRootPath().compareTo(res2.getRootPath());
+            return result != 0 ? result : res1.getStructureId().compareTo(res2.getStructureId());
+        }
+    };
+
+    /** The indexed folders by root path. */
+    private Map<String, FolderEntry> m_folders;
+
+    /** Counts the modifications of the index, used to detect concurrent modifications while reading. */
+    private volatile long m_modCount;
+
+    /**
+     * Creates a new child resource index.<p>
+     *
+     * @param maxFolders the maximum number of indexed folders, the least recently used folders are dropped first
+     */
+    public CmsChildResourceIndex(int maxFolders) {
+
+        Map<String, FolderEntry> folders = CmsCollectionsGenericWrapper.createLRUMap(maxFolders);
+        m_folders = Collections.synchronizedMap(folders);
+    }
+
+    /**
+     * Returns the comparator for the given sort order.<p>
+     *
+     * All comparators use the root path as secondary criterion, so the order of the children is always well defined.<p>
+     *
+     * @param order the sort order
+     *
+     * @return the comparator
+     */
+    public static Comparator<CmsResource> getComparator(Order order) {
+
+        return getComparator(order, false);
+    }
+
+    /**
+     * Returns the comparator for the given sort order and direction.<p>
+     *
+     * In descending order, only the dates are reversed: resources with the same date stay in ascending
+     * root path order, like a stable sort with {@link org.opencms.file.I_CmsResource#COMPARE_DATE_RELEASED}
+     * of a list sorted by root path.<p>
+     *
+     * @param order the sort order
+     * @param descending if the comparator should sort in descending order
+     *
+     * @return the comparator
+     */
+    public static Comparator<CmsResource> getComparator(Order order, boolean descending) {
+
+        if (descending) {
+            switch (order) {
+                case DATE_LAST_MODIFIED:
+                    return COMPARE_DATE_LAST_MODIFIED_DESC;
+                case DATE_RELEASED:
+                    return COMPARE_DATE_RELEASED_DESC;
+                case ROOT_PATH:
+                default:
+                    return Collections.reverseOrder(COMPARE_ROOT_PATH);
+            }
+        }
+        switch (order) {
+            case DATE_LAST_MODIFIED:
+                return COMPARE_DATE_LAST_MODIFIED;
+            case DATE_RELEASED:
+                return COMPARE_DATE_RELEASED;
+            case ROOT_PATH:
+            default:
+                return COMPARE_ROOT_PATH;
+        }
+    }
+
+    /**
+     * Returns the date used to sort the resource by the given order.<p>
+     *
+     * For {@link Order#DATE_RELEASED}, this is the date last modified for resources without a release date,
+     * as for {@link org.opencms.file.I_CmsResource#COMPARE_DATE_RELEASED}.<p>
+     *
+     * @param resource the resource
+     * @param order the sort order, must not be {@link Order#ROOT_PATH}
+     *
+     * @return the date used for sorting
+     */
+    public static long getDate(CmsResource resource, Order order) {
+
+        return order == Order.DATE_RELEASED ? getDateReleasedOrModified(resource) : resource.getDateLastModified();
+    }
+
+    /**
+     * Returns the position in a sorted list where a page starting after the given cursor resource begins.<p>
+     *
+     * @param sorted the list, sorted with the comparator of the given order and direction
+     * @param order the sort order
+     * @param descending if the list is sorted in descending order
+     * @param after the last resource of the previous page, or <code>null</code> to start with the first page
+     *
+     * @return the position of the first element of the page
+     *
+     * @see #getComparator(Order, boolean)
+     */
+    public static int getPageStart(List<CmsResource> sorted, Order order, boolean descending, CmsResource after) {
+
+        if (after == null) {
+            return 0;
+        }
+        int pos = Collections.binarySearch(sorted, after, getComparator(order, descending));
+        return pos >= 0 ? pos + 1 : -(pos + 1);
+    }
+
+    /**
+     * Removes all folders from the index.<p>
+     */
+    public void clear() {
+
+        synchronized (m_folders) {
+            m_modCount++;
+            m_folders.clear();
+        }
+    }
+
+    /**
+     * Returns the children of the given folder, sorted in the given order.<p>
+     *
+     * @param folderRootPath the root path of the folder
+     * @param order the sort order
+     *
+     * @return the unmodifiable, ascending sorted list of children, or <code>null</code> if the folder is not indexed
+     */
+    public List<CmsResource> getChildren(String folderRootPath, Order order) {
+
+        return getChildren(folderRootPath, order, false);
+    }
+
+    /**
+     * Returns the children of the given folder, sorted in the given order and direction.<p>
+     *
+     * @param folderRootPath the root path of the folder
+     * @param order the sort order
+     * @param descending if the children should be sorted in descending order
+     *
+     * @return the unmodifiable sorted list of children, or <code>null</code> if the folder is not indexed
+     *
+     * @see #getComparator(Order, boolean)
+     */
+    public List<CmsResource> getChildren(String folderRootPath, Order order, boolean descending) {
+
+        FolderEntry entry = m_folders.get(folderRootPath);
+        if (entry == null) {
+            return null;
+        }
+        return Collections.unmodifiableList(Arrays.asList(entry.m_sorted[getViewIndex(order, descending)]));
+    }
+
+    /**
+     * Returns the current modification count of this index.<p>
+     *
+     * The value must be read before the children of a folder are read from the database,
+     * and passed to {@link #put(String, List, long)} afterwards.<p>
+     *
+     * @return the current modification count
+     */
+    public long getModCount() {
+
+        return m_modCount;
+    }
+
+    /**
+     * Adds the children of a folder to the index.<p>
+     *
+     * The children are not added if the index has been modified since the given modification count was read,
+     * since they might already be outdated.<p>
+     *
+     * @param folderRootPath the root path of the folder
+     * @param children the children of the folder
+     * @param modCount the modification count read before the children were read from the database
+     */
+    public void put(String folderRootPath, List<CmsResource> children, long modCount) {
+
+        FolderEntry entry = new FolderEntry(children);
+        synchronized (m_folders) {
+            if (modCount == m_modCount) {
+                m_folders.put(folderRootPath, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes a resource from all indexed folders.<p>
+     *
+     * @param structureId the structure id of the resource to remove
+     */
+    public void remove(CmsUUID structureId) {
+
+        synchronized (m_folders) {
+            m_modCount++;
+            for (Map.Entry<String, FolderEntry> folder : m_folders.entrySet()) {
+                if (folder.getValue().m_byId.containsKey(structureId)) {
+                    folder.setValue(new FolderEntry(folder.getValue(), structureId, null));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed folders.<p>
+     *
+     * @return the number of indexed folders
+     */
+    public int size() {
+
+        return m_folders.size();
+    }
+
+    /**
+     * Updates a resource in the index.<p>
+     *
+     * The resource is removed from the folders it was indexed in before and added to its parent folder,
+     * if the parent folder is indexed.<p>
+     *
+     * @param resource the current online version of the resource
+     */
+    public void update(CmsResource resource) {
+
+        String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+        synchronized (m_folders) {
+            m_modCount++;
+            for (Map.Entry<String, FolderEntry> folder : m_folders.entrySet()) {
+                FolderEntry entry = folder.getValue();
+                if (folder.getKey().equals(parentPath)) {
+                    folder.setValue(new FolderEntry(entry, resource.getStructureId(), resource));
+                } else if (entry.m_byId.containsKey(resource.getStructureId())) {
+                    folder.setValue(new FolderEntry(entry, resource.getStructureId(), null));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the release date of the resource, or the date last modified if no release date is set.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the release date or the date last modified
+     */
+    private static long getDateReleasedOrModified(CmsResource resource) {
+
+        long date = resource.getDateReleased();
+        return date != CmsResource.DATE_RELEASED_DEFAULT ? date : resource.getDateLastModified();
+    }
+
+    /**
+     * Returns the index of the sorted view for the given sort order and direction.<p>
+     *
+     * @param order the sort order
+     * @param descending if the view is sorted in descending order
+     *
+     * @return the index of the sorted view
+     */
+    private static int getViewIndex(Order order, boolean descending) {
+
+        return (2 * order.ordinal()) + (descending ? 1 : 0);
+    }
+}
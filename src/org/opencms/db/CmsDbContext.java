@@ -34,6 +34,7 @@ import org.opencms.file.CmsVfsException;
 import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsRequestUtil;
@@ -42,6 +43,8 @@ import org.opencms.util.CmsUUID;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+
 /**
  * Wraps context information to access the OpenCms database.<p>
  *
@@ -49,15 +52,27 @@ import java.util.Map;
  */
 public class CmsDbContext {
 
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDbContext.class);
+
     /** Context attributes. */
     protected Map<String, Object> m_attributes;
 
+    /** The number of connections pinned to this context. */
+    protected int m_connectionBorrows;
+
+    /** The number of requests of pinned connections, including those already released. */
+    protected int m_connectionRequests;
+
     /** The current Flex request context info (if available). */
     protected CmsFlexRequestContextInfo m_flexRequestContextInfo;
 
     /** The id of the project for the context. */
     protected CmsUUID m_projectId;
 
+    /** The connections pinned to this context, by pool url. */
+    protected Map<String, CmsPinnedConnection> m_pinnedConnections;
+
     /** The wrapped user request context. */
     protected CmsRequestContext m_requestContext;
 
@@ -92,6 +107,7 @@ public class CmsDbContext {
 
         m_requestContext = null;
         m_flexRequestContextInfo = null;
+        releaseConnections();
     }
 
     /**
@@ -129,6 +145,32 @@ public class CmsDbContext {
         return m_attributes.get(key);
     }
 
+    /**
+     * Returns the number of connections borrowed from the pools and pinned to this context.<p>
+     *
+     * @return the number of pinned connections
+     */
+    public int getConnectionBorrows() {
+
+        return m_connectionBorrows;
+    }
+
+    /**
+     * Returns how often a pinned connection of this context was requested.<p>
+     *
+     * @return the number of requests of pinned connections
+     */
+    public int getConnectionRequests() {
+
+        int result = m_connectionRequests;
+        if (m_pinnedConnections != null) {
+            for (CmsPinnedConnection pinned : m_pinnedConnections.values()) {
+                result += pinned.getRequests();
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the current Flex request context info.<p>
      *
@@ -151,6 +193,18 @@ public class CmsDbContext {
         return null;
     }
 
+    /**
+     * Returns the connection of the given pool pinned to this context.<p>
+     *
+     * @param poolUrl the url of the pool
+     *
+     * @return the pinned connection, or <code>null</code> if no connection of the pool is pinned
+     */
+    public CmsPinnedConnection getPinnedConnection(String poolUrl) {
+
+        return m_pinnedConnections != null ? m_pinnedConnections.get(poolUrl) : null;
+    }
+
     /**
      * Gets the project driver associated with this database context.<p>
      *
@@ -207,6 +261,18 @@ public class CmsDbContext {
         return null;
     }
 
+    /**
+     * Checks if connections may be pinned to this context.<p>
+     *
+     * This is only the case for default contexts with a request context, which are always cleared after use.<p>
+     *
+     * @return <code>true</code> if connections may be pinned to this context
+     */
+    public boolean isConnectionPinningAllowed() {
+
+        return isDefaultDbContext() && (m_requestContext != null);
+    }
+
     /**
      * Checks if the database context uses the default implementation.<p>
      *
@@ -217,6 +283,43 @@ public class CmsDbContext {
         return true;
     }
 
+    /**
+     * Checks if online reads in this database context may be served by a read replica of the database.<p>
+     *
+     * This is only the case for default contexts of user requests in the online project
+     * which are not bound to another project, e.g. during publishing.<p>
+     *
+     * @return <code>true</code> if online reads may be served by a read replica
+     */
+    public boolean isReadReplicaAllowed() {
+
+        return isDefaultDbContext()
+            && (m_requestContext != null)
+            && m_projectId.isNullUUID()
+            && m_requestContext.getCurrentProject().isOnlineProject();
+    }
+
+    /**
+     * Pins a connection to this context, replacing a previously pinned connection of the same pool.<p>
+     *
+     * The connection is released when this context is cleared.<p>
+     *
+     * @param poolUrl the url of the pool
+     * @param pinned the connection to pin
+     */
+    public void pinConnection(String poolUrl, CmsPinnedConnection pinned) {
+
+        if (m_pinnedConnections == null) {
+            m_pinnedConnections = new HashMap<String, CmsPinnedConnection>(4);
+        }
+        CmsPinnedConnection previous = m_pinnedConnections.put(poolUrl, pinned);
+        if (previous != null) {
+            m_connectionRequests += previous.getRequests();
+            previous.close();
+        }
+        m_connectionBorrows++;
+    }
+
     /**
      * Processes the current database context.<p>
      *
@@ -229,6 +332,35 @@ public class CmsDbContext {
         }
     }
 
+    /**
+     * Returns all connections pinned to this context to their pools.<p>
+     */
+    public void releaseConnections() {
+
+        if (m_pinnedConnections == null) {
+            return;
+        }
+        int prepares = 0;
+        int hits = 0;
+        for (CmsPinnedConnection pinned : m_pinnedConnections.values()) {
+            m_connectionRequests += pinned.getRequests();
+            prepares += pinned.getPrepares();
+            hits += pinned.getStatementHits();
+            pinned.close();
+        }
+        m_pinnedConnections = null;
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PINNED_CONNECTIONS_RELEASED_4,
+                    new Object[] {
+                        new Integer(m_connectionBorrows),
+                        new Integer(m_connectionRequests),
+                        new Integer(prepares),
+                        new Integer(hits)}));
+        }
+    }
+
     /**
      * Removes the given attribute from the DB context.<p>
      *
@@ -35,8 +35,15 @@ import org.opencms.util.CmsStringUtil;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
 
 import com.google.common.collect.Maps;
 import com.zaxxer.hikari.HikariConfig;
@@ -80,6 +87,9 @@ public final class CmsDbPoolV11 {
     /** Key for default. */
     public static final String KEY_POOL_DEFAULT = "default";
 
+    /** Key for pinning connections to the database contexts of requests. */
+    public static final String KEY_PIN_CONNECTIONS = "pinConnections";
+
     /** Key for pool url. */
     public static final String KEY_POOL_URL = "poolUrl";
 
@@ -89,6 +99,18 @@ public final class CmsDbPoolV11 {
     /** Key for vfs pool. */
     public static final String KEY_POOL_VFS = "vfs";
 
+    /** Key for the names of the read replica pools used for online reads. */
+    public static final String KEY_REPLICAS = "replicas";
+
+    /** Key for the time in milliseconds after an update of the online data during which no read replica is used. */
+    public static final String KEY_REPLICAS_MAX_LAG = KEY_REPLICAS + ".maxLag";
+
+    /** Key for the time in milliseconds a read replica is skipped after it failed to deliver a connection. */
+    public static final String KEY_REPLICAS_RETRY = KEY_REPLICAS + ".retry";
+
+    /** Key for the maximum number of cached prepared statements of a pinned connection. */
+    public static final String KEY_STATEMENT_CACHE_SIZE = "statementCacheSize";
+
     /** Key for user name. */
     public static final String KEY_USERNAME = "user";
 
@@ -101,6 +123,9 @@ public final class CmsDbPoolV11 {
     /** The prefix used for opencms JDBC pools. */
     public static final String OPENCMS_URL_PREFIX = "opencms:";
 
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDbPoolV11.class);
+
     /** Map of default test queries. */
     private static Map<String, String> testQueries = Maps.newHashMap();
 
@@ -111,12 +136,42 @@ public final class CmsDbPoolV11 {
         testQueries.put("com.ibm.as400.access.AS400JDBCDriver", "SELECT NOW()");
     }
 
+    /** Indicates if connections are pinned to the database contexts of requests. */
+    private boolean m_pinConnections;
+
     /** The opencms pool url. */
     private String m_poolUrl;
 
     /** The HikariCP data source. */
     private HikariDataSource m_dataSource;
 
+    /** The time of the last update of the online data. */
+    private volatile long m_lastOnlineUpdate;
+
+    /** The number of failed connection attempts while this pool was used as read replica. */
+    private AtomicLong m_replicaFailures = new AtomicLong();
+
+    /** The index of the next read replica to use. */
+    private AtomicInteger m_replicaIndex = new AtomicInteger();
+
+    /** The time in milliseconds after an update of the online data during which no read replica is used. */
+    private long m_replicaMaxLag;
+
+    /** The urls of the read replica pools, empty if no replicas are configured. */
+    private List<String> m_replicaPoolUrls;
+
+    /** The number of connections delivered while this pool was used as read replica. */
+    private AtomicLong m_replicaReads = new AtomicLong();
+
+    /** The time in milliseconds a read replica is skipped after it failed to deliver a connection. */
+    private long m_replicaRetry;
+
+    /** The maximum number of cached prepared statements of a pinned connection. */
+    private int m_statementCacheSize;
+
+    /** The time until this pool is skipped as read replica. */
+    private volatile long m_unavailableUntil;
+
     /**
      * Default constructor.<p>
      *
@@ -135,6 +190,20 @@ public final class CmsDbPoolV11 {
         int connectionTests = 0;
         int connectionAttempts = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECT_ATTEMTS, 10);
         int connectionsWait = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_CONNECT_WAITS, 5000);
+        m_pinConnections = config.getBoolean(KEY_DATABASE_POOL + '.' + key + '.' + KEY_PIN_CONNECTIONS, false);
+        m_statementCacheSize = config.getInteger(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_STATEMENT_CACHE_SIZE,
+            CmsPinnedConnection.DEFAULT_STATEMENT_CACHE_SIZE);
+        m_replicaPoolUrls = new ArrayList<String>();
+        for (String replica : config.getList(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICAS,
+            Collections.<String> emptyList())) {
+            if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(replica)) {
+                m_replicaPoolUrls.add(OPENCMS_URL_PREFIX + replica.trim());
+            }
+        }
+        m_replicaMaxLag = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICAS_MAX_LAG, 5000);
+        m_replicaRetry = config.getInteger(KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICAS_RETRY, 30000);
 
         // try to connect once to the database to ensure it can be connected to at all
         // if the conection cannot be established, multiple attempts will be done to connect
@@ -169,6 +238,13 @@ public final class CmsDbPoolV11 {
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(
                 Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_2, getPoolUrl(), m_dataSource.getJdbcUrl()));
+            if (!m_replicaPoolUrls.isEmpty()) {
+                CmsLog.INIT.info(
+                    Messages.get().getBundle().key(
+                        Messages.INIT_JDBC_POOL_REPLICAS_2,
+                        getPoolUrl(),
+                        m_replicaPoolUrls));
+            }
         }
     }
 
@@ -320,4 +396,130 @@ public final class CmsDbPoolV11 {
 
         return m_poolUrl;
     }
+
+    /**
+     * Returns a connection from one of the read replicas of this pool.<p>
+     *
+     * The replicas are used in turn. A replica that fails to deliver a connection is skipped
+     * for the configured retry interval. No replica is used for the configured maximum lag
+     * after the last update of the online data, so that caches are not filled with outdated data.<p>
+     *
+     * @param pools the available pools, by their pool url
+     *
+     * @return a connection from a read replica, or <code>null</code> if the primary database has to be used
+     */
+    public Connection getReplicaConnection(Map<String, CmsDbPoolV11> pools) {
+
+        int count = m_replicaPoolUrls.size();
+        if ((count == 0) || ((System.currentTimeMillis() - m_lastOnlineUpdate) < m_replicaMaxLag)) {
+            return null;
+        }
+        int start = (m_replicaIndex.getAndIncrement() & Integer.MAX_VALUE) % count;
+        for (int i = 0; i < count; i++) {
+            CmsDbPoolV11 replica = pools.get(m_replicaPoolUrls.get((start + i) % count));
+            if (replica != null) {
+                Connection con = replica.getConnectionAsReplica(m_replicaRetry);
+                if (con != null) {
+                    return con;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of failed connection attempts while this pool was used as read replica.<p>
+     *
+     * @return the number of failed connection attempts as read replica
+     */
+    public long getReplicaFailures() {
+
+        return m_replicaFailures.get();
+    }
+
+    /**
+     * Returns the urls of the read replica pools of this pool.<p>
+     *
+     * @return the urls of the read replica pools, empty if no replicas are configured
+     */
+    public List<String> getReplicaPoolUrls() {
+
+        return Collections.unmodifiableList(m_replicaPoolUrls);
+    }
+
+    /**
+     * Returns the number of connections delivered while this pool was used as read replica.<p>
+     *
+     * @return the number of connections delivered as read replica
+     */
+    public long getReplicaReads() {
+
+        return m_replicaReads.get();
+    }
+
+    /**
+     * Returns the maximum number of cached prepared statements of a pinned connection.<p>
+     *
+     * @return the maximum number of cached prepared statements
+     */
+    public int getStatementCacheSize() {
+
+        return m_statementCacheSize;
+    }
+
+    /**
+     * Checks if connections of this pool are pinned to the database contexts of requests.<p>
+     *
+     * @return <code>true</code> if connections are pinned to the database contexts of requests
+     */
+    public boolean isPinConnections() {
+
+        return m_pinConnections;
+    }
+
+    /**
+     * Checks if this pool is currently used when it is configured as read replica.<p>
+     *
+     * @return <code>false</code> if this pool is skipped as read replica after a failed connection attempt
+     */
+    public boolean isReplicaAvailable() {
+
+        return System.currentTimeMillis() >= m_unavailableUntil;
+    }
+
+    /**
+     * Notifies this pool that the online data in the primary database has been updated, e.g. by publishing.<p>
+     *
+     * The read replicas are not used for the configured maximum lag after this.<p>
+     */
+    public void onlineDataUpdated() {
+
+        m_lastOnlineUpdate = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets a connection from this pool used as read replica.<p>
+     *
+     * @param retry the time in milliseconds this pool is skipped if no connection can be obtained
+     *
+     * @return the connection, or <code>null</code> if this pool is currently not available
+     */
+    private Connection getConnectionAsReplica(long retry) {
+
+        if (!isReplicaAvailable()) {
+            return null;
+        }
+        try {
+            Connection con = m_dataSource.getConnection();
+            m_replicaReads.incrementAndGet();
+            return con;
+        } catch (SQLException e) {
+            m_replicaFailures.incrementAndGet();
+            m_unavailableUntil = System.currentTimeMillis() + retry;
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_READ_REPLICA_UNAVAILABLE_2, m_poolUrl, new Long(retry)),
+                e);
+            return null;
+        }
+    }
 }
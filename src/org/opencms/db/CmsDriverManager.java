@@ -139,6 +139,7 @@ import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentMap;
@@ -197,6 +198,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Request context attribute for signaling a bulk import.<p>
+     *
+     * If set, imported resources and access control entries neither flush the internal caches nor fire events,
+     * the caller is responsible for doing this once after the import has finished.<p>
+     */
+    public static final String ATTR_BULK_IMPORT = "ATTR_BULK_IMPORT";
+
     /** Attribute for signaling to the user driver that a specific OU should be initialized by fillDefaults. */
     public static final String ATTR_INIT_OU = "INIT_OU";
 
@@ -342,6 +351,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Constant mode parameter to read all files and folders in the {@link #readChangedResourcesInsideProject(CmsDbContext, CmsUUID, CmsReadChangedProjectResourceMode)}} method. */
     private static final CmsReadChangedProjectResourceMode RCPRM_FOLDERS_ONLY_MODE = new CmsReadChangedProjectResourceMode();
 
+    /** The index of online child resources, <code>null</code> if disabled. */
+    private CmsChildResourceIndex m_childResourceIndex;
+
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
 
@@ -546,6 +558,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new int[] {
                 I_CmsEventListener.EVENT_UPDATE_EXPORTS,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
                 I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
                 I_CmsEventListener.EVENT_USER_MODIFIED,
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT});
@@ -1023,12 +1036,24 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
                 report = (I_CmsReport)event.getData().get(I_CmsEventListener.KEY_REPORT);
                 dbc = (CmsDbContext)event.getData().get(I_CmsEventListener.KEY_DBCONTEXT);
+                for (CmsDbPoolV11 pool : m_pools.values()) {
+                    pool.onlineDataUpdated();
+                }
                 m_monitor.clearCache();
+                updateChildResourceIndex(dbc, publishHistoryId);
                 writeExportPoints(dbc, report, publishHistoryId);
                 break;
 
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 m_monitor.clearCache();
+                if (m_childResourceIndex != null) {
+                    m_childResourceIndex.clear();
+                }
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                if (m_childResourceIndex != null) {
+                    m_childResourceIndex.clear();
+                }
                 break;
             case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
             case I_CmsEventListener.EVENT_USER_MODIFIED:
@@ -1957,16 +1982,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 }
             }
         } finally {
-            // clear the internal caches
-            m_monitor.clearAccessControlListCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            // in case of a bulk import, caches and events are handled once at the end of the import
+            if (!importCase || !isBulkImport(dbc)) {
+                // clear the internal caches
+                m_monitor.clearAccessControlListCache();
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
-            if (newResource != null) {
-                // fire an event that a new resource has been created
-                OpenCms.fireCmsEvent(
-                    new CmsEvent(
-                        I_CmsEventListener.EVENT_RESOURCE_CREATED,
-                        Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, newResource)));
+                if (newResource != null) {
+                    // fire an event that a new resource has been created
+                    OpenCms.fireCmsEvent(
+                        new CmsEvent(
+                            I_CmsEventListener.EVENT_RESOURCE_CREATED,
+                            Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, newResource)));
+                }
             }
         }
         return newResource;
@@ -3412,12 +3440,22 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
             // Improved: first calculate closure of all siblings, then filter and add them
             Set<CmsResource> siblingsClosure = new HashSet<CmsResource>(publishFiles);
+            // the siblings of all files are read at once
+            Set<CmsUUID> resourceIds = new HashSet<CmsUUID>();
             for (int i = 0; i < size; i++) {
                 CmsResource currentFile = publishFiles.get(i);
                 if (currentFile.getSiblingCount() > 1) {
-                    siblingsClosure.addAll(readSiblings(dbc, currentFile, CmsResourceFilter.ALL_MODIFIED));
+                    resourceIds.add(currentFile.getResourceId());
                 }
             }
+            if (!resourceIds.isEmpty()) {
+                List<CmsResource> siblings = getVfsDriver(dbc).readSiblingsByResourceIds(
+                    dbc,
+                    dbc.currentProject().getUuid(),
+                    resourceIds,
+                    CmsResourceFilter.ALL_MODIFIED.includeDeleted());
+                siblingsClosure.addAll(updateContextDates(dbc, siblings, CmsResourceFilter.ALL_MODIFIED));
+            }
             publishList.addAll(filterSiblings(dbc, publishList, siblingsClosure), true);
         }
         publishList.initialize();
@@ -4105,6 +4143,37 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
     }
 
+    /**
+     * Returns the set of permissions of the given user for a resource in the given folder
+     * that has no access control entries of its own.<p>
+     *
+     * Such a resource only inherits the access control list of its parent folder, so the result
+     * is the same for all of these resources in the folder and can be reused for them.<p>
+     *
+     * @param dbc the current database context
+     * @param parentFolder the root path of the parent folder
+     * @param forFolder <code>true</code> if the permissions are required for a folder, <code>false</code> for a file
+     * @param user the user
+     *
+     * @return bit set with allowed permissions
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #getPermissions(CmsDbContext, CmsResource, CmsUser)
+     */
+    public CmsPermissionSetCustom getInheritedPermissions(
+        CmsDbContext dbc,
+        String parentFolder,
+        boolean forFolder,
+        CmsUser user)
+    throws CmsException {
+
+        CmsResource parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentFolder);
+        // same as the access control list of a child without entries, see getAccessControlList(...)
+        CmsAccessControlList acList = getAccessControlList(dbc, parentResource, false, forFolder, 1);
+        return acList.getPermissions(user, getGroupsOfUser(dbc, user.getName(), false), getRolesForUser(dbc, user));
+    }
+
     /**
      * Returns the lock state of a resource.<p>
      *
@@ -4184,6 +4253,21 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return m_lockManager.getLockedResourcesWithCache(dbc, resource, filter, cache);
     }
 
+    /**
+     * Returns the lock states of a list of resources.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to return the lock states for
+     *
+     * @return the lock states of the resources, in the same order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsLock> getLocks(CmsDbContext dbc, List<CmsResource> resources) throws CmsException {
+
+        return m_lockManager.getLocks(dbc, resources);
+    }
+
     /**
      * Returns all log entries matching the given filter.<p>
      *
@@ -4431,6 +4515,22 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // get all resources to publish
         List<CmsResource> publishResources = publishList.getAllResources();
+        Set<CmsResource> publishResourceSet = new HashSet<CmsResource>(publishResources);
+
+        // the outgoing relations of all resources are read at once, if the filter allows it
+        CmsPublishClosure closure = null;
+        if (filter.isTarget()
+            && !filter.isSource()
+            && !filter.isIncludeSubresources()
+            && (filter.getPath() == null)
+            && (filter.getStructureId() == null)) {
+            // the closure is read again for every call, the related resources may have changed since the last one
+            closure = new CmsPublishClosure(getProjectIdForContext(dbc));
+            publishList.setPublishClosure(closure);
+            loadPublishClosure(dbc, closure, publishResources, false);
+        }
+        List<CmsResource> addedTargets = new ArrayList<CmsResource>();
+
         Iterator<CmsResource> itCheckList = publishResources.iterator();
         // iterate over them
         int count = 0;
@@ -4455,33 +4555,52 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
             CmsResource checkResource = itCheckList.next();
             // get and iterate over all related resources
-            Iterator<CmsRelation> itRelations = getRelationsForResource(dbc, checkResource, filter).iterator();
+            List<CmsRelation> checkRelations = closure != null
+            ? closure.getRelations(checkResource)
+            : getRelationsForResource(dbc, checkResource, filter);
+            Iterator<CmsRelation> itRelations = checkRelations.iterator();
             while (itRelations.hasNext()) {
                 CmsRelation relation = itRelations.next();
+                if ((closure != null) && !filter.matchType(relation.getType())) {
+                    continue;
+                }
                 try {
                     // get the target of the relation, see CmsRelation#getTarget(CmsObject, CmsResourceFilter)
                     CmsResource target;
-                    try {
-                        // first look up by id
-                        target = readResource(dbc, relation.getTargetId(), CmsResourceFilter.ALL);
-                    } catch (CmsVfsResourceNotFoundException e) {
-                        // then look up by name, but from the root site
-                        String storedSiteRoot = dbc.getRequestContext().getSiteRoot();
+                    if (closure != null) {
+                        target = closure.getRelationTarget(relation);
+                        if (target == null) {
+                            // ignore broken links
+                            continue;
+                        }
+                    } else {
                         try {
-                            dbc.getRequestContext().setSiteRoot("");
-                            target = readResource(dbc, relation.getTargetPath(), CmsResourceFilter.ALL);
-                        } finally {
-                            dbc.getRequestContext().setSiteRoot(storedSiteRoot);
+                            // first look up by id
+                            target = readResource(dbc, relation.getTargetId(), CmsResourceFilter.ALL);
+                        } catch (CmsVfsResourceNotFoundException e) {
+                            // then look up by name, but from the root site
+                            String storedSiteRoot = dbc.getRequestContext().getSiteRoot();
+                            try {
+                                dbc.getRequestContext().setSiteRoot("");
+                                target = readResource(dbc, relation.getTargetPath(), CmsResourceFilter.ALL);
+                            } finally {
+                                dbc.getRequestContext().setSiteRoot(storedSiteRoot);
+                            }
                         }
                     }
                     CmsLock lock = getLock(dbc, target);
                     // just add resources that may come in question
-                    if (!publishResources.contains(target) // is not in the original list
+                    if (!publishResourceSet.contains(target) // is not in the original list
                         && !relations.containsKey(target.getRootPath()) // has not been already added by another relation
                         && !target.getState().isUnchanged() // has been changed
                         && lock.isLockableBy(dbc.currentUser())) { // is lockable by current user
 
                         relations.put(target.getRootPath(), target);
+                        if (closure != null) {
+                            // the parent folders are read for all added targets at once
+                            addedTargets.add(target);
+                            continue;
+                        }
                         // now check the folder structure
                         CmsResource parent = getVfsDriver(dbc).readParentFolder(
                             dbc,
@@ -4489,7 +4608,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                             target.getStructureId());
                         while ((parent != null) && parent.getState().isNew()) {
                             // just add resources that may come in question
-                            if (!publishResources.contains(parent) // is not in the original list
+                            if (!publishResourceSet.contains(parent) // is not in the original list
                                 && !relations.containsKey(parent.getRootPath())) { // has not been already added by another relation
 
                                 relations.put(parent.getRootPath(), parent);
@@ -4508,9 +4627,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 }
             }
         }
+        if (closure != null) {
+            addNewParentFolders(dbc, closure, addedTargets, publishResourceSet, relations);
+        }
 
         CmsPublishList ret = new CmsPublishList(publishList.getDirectPublishResources(), false, false);
         ret.addAll(relations.values(), false);
+        ret.setPublishClosure(closure);
         ret.initialize();
         return ret;
     }
@@ -5043,7 +5166,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         while (i.hasNext()) {
             userDriver.writeAccessControlEntry(dbc, dbc.currentProject(), i.next());
         }
-        m_monitor.clearAccessControlListCache();
+        if (!isBulkImport(dbc)) {
+            m_monitor.clearAccessControlListCache();
+        }
     }
 
     /**
@@ -5195,6 +5320,11 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // initialize the key generator
         m_keyGenerator = (I_CmsCacheKey)Class.forName(settings.getCacheKeyGenerator()).newInstance();
 
+        // initialize the index of online child resources
+        if (settings.getChildResourceIndexSize() > 0) {
+            m_childResourceIndex = new CmsChildResourceIndex(settings.getChildResourceIndexSize());
+        }
+
         // initialize the HTML link validator
         m_htmlLinkValidator = new CmsRelationSystemValidator(this);
 
@@ -5243,6 +5373,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Checks if the given database context belongs to a bulk import.<p>
+     *
+     * @param dbc the current database context
+     *
+     * @return <code>true</code> if the request context has the {@link #ATTR_BULK_IMPORT} attribute set
+     */
+    public boolean isBulkImport(CmsDbContext dbc) {
+
+        return (dbc.getRequestContext() != null)
+            && Boolean.TRUE.equals(dbc.getRequestContext().getAttribute(ATTR_BULK_IMPORT));
+    }
+
     /**
      * Checks if the specified resource is inside the current project.<p>
      *
@@ -5418,6 +5561,98 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return readUser(dbc, m_lockManager.getLock(dbc, resource).getEditionLock().getUserId());
     }
 
+    /**
+     * Loads the relations, the relation targets and the parent folders of the given resources
+     * into a publish closure.<p>
+     *
+     * Resources which are already loaded in the closure are skipped. The data for all other resources is read with
+     * a few queries per chunk of resources, instead of a few queries per resource.<p>
+     *
+     * @param dbc the current database context
+     * @param closure the publish closure to load the data into
+     * @param resources the resources to load
+     * @param checkPermissions if <code>true</code>, relation targets and parent folders the current user
+     *      can not read are treated like missing resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void loadPublishClosure(
+        CmsDbContext dbc,
+        CmsPublishClosure closure,
+        Collection<CmsResource> resources,
+        boolean checkPermissions)
+    throws CmsException {
+
+        List<CmsResource> unloaded = closure.getUnloaded(resources);
+        if (unloaded.isEmpty()) {
+            return;
+        }
+        I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
+        CmsUUID projectId = closure.getProjectId();
+
+        Set<CmsUUID> ids = new HashSet<CmsUUID>();
+        Set<String> parentPaths = new HashSet<String>();
+        for (CmsResource resource : unloaded) {
+            ids.add(resource.getStructureId());
+            String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+            if (parentPath != null) {
+                parentPaths.add(parentPath);
+            }
+        }
+        Map<CmsUUID, List<CmsRelation>> relations = vfsDriver.readRelations(dbc, projectId, ids, true);
+
+        // read the relation targets by id, and those which can not be found by id by their path
+        Set<CmsUUID> targetIds = new HashSet<CmsUUID>();
+        for (List<CmsRelation> resourceRelations : relations.values()) {
+            for (CmsRelation relation : resourceRelations) {
+                if (!closure.hasResource(relation.getTargetId())) {
+                    targetIds.add(relation.getTargetId());
+                }
+            }
+        }
+        Map<CmsUUID, CmsResource> targets = vfsDriver.readResourcesByIds(dbc, projectId, targetIds);
+        Set<String> targetPaths = new HashSet<String>();
+        for (List<CmsRelation> resourceRelations : relations.values()) {
+            for (CmsRelation relation : resourceRelations) {
+                if (!targets.containsKey(relation.getTargetId())
+                    && (closure.getResource(relation.getTargetId()) == null)
+                    && CmsStringUtil.isNotEmptyOrWhitespaceOnly(relation.getTargetPath())
+                    && !closure.hasRelationTarget(relation.getTargetPath())) {
+                    targetPaths.add(relation.getTargetPath());
+                }
+            }
+        }
+        Map<String, CmsResource> targetsByPath = vfsDriver.readResourcesByPaths(dbc, projectId, targetPaths);
+        Map<String, CmsResource> parents = vfsDriver.readResourcesByPaths(dbc, projectId, parentPaths);
+
+        Set<CmsResource> readable = null;
+        if (checkPermissions) {
+            List<CmsResource> read = new ArrayList<CmsResource>(targets.values());
+            read.addAll(targetsByPath.values());
+            read.addAll(parents.values());
+            readable = new HashSet<CmsResource>(filterPermissions(dbc, read, CmsResourceFilter.ALL));
+        }
+        for (CmsUUID targetId : targetIds) {
+            CmsResource target = targets.get(targetId);
+            closure.addResource(targetId, (readable == null) || readable.contains(target) ? target : null);
+        }
+        for (String targetPath : targetPaths) {
+            CmsResource target = targetsByPath.get(targetPath);
+            closure.addRelationTarget(targetPath, (readable == null) || readable.contains(target) ? target : null);
+        }
+        for (CmsResource resource : unloaded) {
+            String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+            CmsResource parent = parentPath != null ? parents.get(parentPath) : null;
+            if ((parent != null) && (readable != null) && !readable.contains(parent)) {
+                parent = null;
+            }
+            if ((parent != null) && !closure.hasResource(parent.getStructureId())) {
+                closure.addResource(parent.getStructureId(), parent);
+            }
+            closure.setLoaded(resource, relations.get(resource.getStructureId()), parent);
+        }
+    }
+
     /**
      * Locks a resource.<p>
      *
@@ -6594,9 +6829,24 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourceList = m_monitor.getCachedResourceList(cacheKey);
         }
         if ((resourceList == null) || !dbc.getProjectId().isNullUUID()) {
-            // read the result form the database
-            resourceList = getVfsDriver(
-                dbc).readChildResources(dbc, dbc.currentProject(), resource, getFolders, getFiles);
+            List<CmsResource> indexedList = readIndexedChildResources(
+                dbc,
+                resource,
+                CmsChildResourceIndex.Order.ROOT_PATH,
+                false);
+            if (indexedList != null) {
+                // use the index of online child resources
+                resourceList = new ArrayList<CmsResource>(indexedList.size());
+                for (CmsResource child : indexedList) {
+                    if (child.isFolder() ? getFolders : getFiles) {
+                        resourceList.add(child);
+                    }
+                }
+            } else {
+                // read the result form the database
+                resourceList = getVfsDriver(
+                    dbc).readChildResources(dbc, dbc.currentProject(), resource, getFolders, getFiles);
+            }
 
             if (checkPermissions) {
                 // apply the permission filter
@@ -6609,9 +6859,83 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // we must always apply the result filter and update the context dates
+        updateContextFolder(dbc, resource.getRootPath(), false);
         return updateContextDates(dbc, resourceList, filter);
     }
 
+    /**
+     * Returns a page of the child resources of a folder, in the given sort order.<p>
+     *
+     * In the online project, the children are read from the index of online child resources,
+     * which keeps pre-sorted views of the children. Only as many children are filtered as
+     * are required to fill the page, so reading the first few children of a large folder
+     * does not require sorting or filtering all of them.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the folder to return the child resources for
+     * @param filter the resource filter to use
+     * @param order the sort order
+     * @param descending if the children should be returned in descending order
+     * @param after the last resource of the previous page, or <code>null</code> to read the first page
+     * @param limit the maximum number of children to return, <code>0</code> or less for no limit
+     * @param checkPermissions if the resources should be filtered with the current user permissions
+     *
+     * @return a page of the child resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readChildResources(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsResourceFilter filter,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        CmsResource after,
+        int limit,
+        boolean checkPermissions)
+    throws CmsException {
+
+        List<CmsResource> sorted = readIndexedChildResources(dbc, resource, order, descending);
+        if (sorted == null) {
+            sorted = new ArrayList<CmsResource>(
+                getVfsDriver(dbc).readChildResources(dbc, dbc.currentProject(), resource, true, true));
+            Collections.sort(sorted, CmsChildResourceIndex.getComparator(order, descending));
+        }
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            // the dates of all children must be considered, also of the ones not in the page
+            updateContextDates(dbc, sorted);
+            info.addFolderDependency(resource.getRootPath(), false);
+        }
+
+        int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        int pos = CmsChildResourceIndex.getPageStart(sorted, order, descending, after);
+        while ((result.size() < max) && (pos < sorted.size())) {
+            // filter the candidates in chunks, to avoid checking the permissions of all children
+            List<CmsResource> candidates = new ArrayList<CmsResource>();
+            int chunkSize = Math.min(Math.max(2 * (max - result.size()), 16), sorted.size());
+            while ((candidates.size() < chunkSize) && (pos < sorted.size())) {
+                CmsResource candidate = sorted.get(pos);
+                if ((CmsResourceFilter.ALL == filter) || filter.isValid(dbc.getRequestContext(), candidate)) {
+                    candidates.add(candidate);
+                }
+                pos++;
+            }
+            if (checkPermissions) {
+                candidates = filterPermissions(dbc, candidates, filter);
+            }
+            for (CmsResource candidate : candidates) {
+                if (result.size() >= max) {
+                    break;
+                }
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -7712,7 +8036,17 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         CmsUUID projectId = getProjectIdForContext(dbc);
         // please note: the filter will be applied in the security manager later
-        CmsResource resource = getVfsDriver(dbc).readResource(dbc, projectId, resourcePath, filter.includeDeleted());
+        CmsResource resource;
+        try {
+            resource = getVfsDriver(dbc).readResource(dbc, projectId, resourcePath, filter.includeDeleted());
+        } catch (CmsVfsResourceNotFoundException e) {
+            // the output depends on the resource not existing
+            CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+            if (info != null) {
+                info.addPathDependency(resourcePath);
+            }
+            throw e;
+        }
 
         // context dates need to be updated
         updateContextDates(dbc, resource);
@@ -7783,6 +8117,142 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         }
         // we must always apply the result filter and update the context dates
+        updateContextFolder(dbc, parent.getRootPath(), readTree);
+        return updateContextDates(dbc, resourceList, filter);
+    }
+
+    /**
+     * Reads the first resources below the given path matching the filter criteria, in the given sort order.<p>
+     *
+     * Only the requested number of resources is kept in memory while reading. The resources are read from
+     * the database in the requested order, and the permissions are only checked for resources that are
+     * candidates for the result. If sorted by date, the reading stops as soon as no further resource can be
+     * part of the result. The immediate children of a folder in the online project are read from the
+     * index of online child resources.<p>
+     *
+     * @param dbc the current database context
+     * @param parent the parent path to read the resources from
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     * @param order the sort order
+     * @param descending if the resources should be returned in descending order
+     * @param limit the maximum number of resources to return, <code>0</code> or less for no limit
+     *
+     * @return a list of <code>{@link CmsResource}</code> objects matching the filter criteria
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(
+        final CmsDbContext dbc,
+        CmsResource parent,
+        final CmsResourceFilter filter,
+        boolean readTree,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        int limit)
+    throws CmsException {
+
+        // HACK: do not take care of permissions if reading organizational units
+        final boolean checkPermissions = !parent.getRootPath().startsWith("/system/orgunits/");
+        updateContextFolder(dbc, parent.getRootPath(), readTree);
+        if (!readTree
+            && (m_childResourceIndex != null)
+            && dbc.currentProject().isOnlineProject()
+            && dbc.getProjectId().isNullUUID()) {
+            return readChildResources(dbc, parent, filter, order, descending, null, limit, checkPermissions);
+        }
+
+        // results that depend on the current time can not be cached
+        boolean useCache = dbc.getProjectId().isNullUUID() && !filter.requireTimerange();
+        String cacheKey = getCacheKey(
+            new String[] {
+                dbc.currentUser().getName(),
+                filter.getCacheId(),
+                readTree ? "+" : "-",
+                order.name() + (descending ? "-" : "+") + limit,
+                parent.getRootPath()},
+            dbc);
+        List<CmsResource> resourceList = useCache ? m_monitor.getCachedResourceList(cacheKey) : null;
+        if (resourceList != null) {
+            return updateContextDates(dbc, resourceList, filter);
+        }
+
+        final CmsChildResourceIndex.Order sortOrder = order;
+        final boolean sortDescending = descending;
+        final int max = limit > 0 ? limit : Integer.MAX_VALUE;
+        // in descending order, resources with the same date stay in ascending root path order
+        final Comparator<CmsResource> comparator = CmsChildResourceIndex.getComparator(order, descending);
+        // the head of the queue is the last resource of the current result
+        final PriorityQueue<CmsResource> queue = new PriorityQueue<CmsResource>(
+            Math.min(max, 256),
+            Collections.reverseOrder(comparator));
+        final CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        // the dates of all resources are required to update the context dates,
+        // and the collation of the database may differ from the sort order of the root paths
+        final boolean stopEarly = (info == null) && (order != CmsChildResourceIndex.Order.ROOT_PATH);
+
+        getVfsDriver(dbc).readResourceTree(
+            dbc,
+            dbc.currentProject().getUuid(),
+            (readTree ? parent.getRootPath() : parent.getStructureId().toString()),
+            filter.getType(),
+            filter.getState(),
+            filter.getModifiedAfter(),
+            filter.getModifiedBefore(),
+            filter.getReleaseAfter(),
+            filter.getReleaseBefore(),
+            filter.getExpireAfter(),
+            filter.getExpireBefore(),
+            (readTree ? CmsDriverManager.READMODE_INCLUDE_TREE : CmsDriverManager.READMODE_EXCLUDE_TREE)
+                | (filter.excludeType() ? CmsDriverManager.READMODE_EXCLUDE_TYPE : 0)
+                | (filter.excludeState() ? CmsDriverManager.READMODE_EXCLUDE_STATE : 0)
+                | ((filter.getOnlyFolders() != null)
+                ? (filter.getOnlyFolders().booleanValue()
+                ? CmsDriverManager.READMODE_ONLY_FOLDERS
+                : CmsDriverManager.READMODE_ONLY_FILES)
+                : 0),
+            order,
+            descending,
+            new I_CmsResourceReadHandler() {
+
+                public boolean handleResource(CmsResource resource) throws CmsException {
+
+                    if (info != null) {
+                        info.updateFromResource(resource);
+                    }
+                    if (!filter.isValid(dbc.getRequestContext(), resource)) {
+                        return true;
+                    }
+                    if (queue.size() >= max) {
+                        CmsResource last = queue.peek();
+                        if (comparator.compare(resource, last) >= 0) {
+                            // the resource is not part of the result, no need to check the permissions
+                            if (stopEarly) {
+                                long date = CmsChildResourceIndex.getDate(resource, sortOrder);
+                                long lastDate = CmsChildResourceIndex.getDate(last, sortOrder);
+                                // the following resources can only have the same or a worse date
+                                return sortDescending ? date >= lastDate : date <= lastDate;
+                            }
+                            return true;
+                        }
+                    }
+                    if (checkPermissions
+                        && filterPermissions(dbc, Collections.singletonList(resource), filter).isEmpty()) {
+                        return true;
+                    }
+                    queue.add(resource);
+                    if (queue.size() > max) {
+                        queue.poll();
+                    }
+                    return true;
+                }
+            });
+
+        resourceList = new ArrayList<CmsResource>(queue);
+        Collections.sort(resourceList, comparator);
+        if (useCache) {
+            m_monitor.cacheResourceList(cacheKey, resourceList);
+        }
         return updateContextDates(dbc, resourceList, filter);
     }
 
@@ -7805,6 +8275,26 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Reads which of the given resources have access control entries of their own.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to check
+     *
+     * @return the resource ids of the given resources that have at least one access control entry
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Set<CmsUUID> readResourcesWithAccessControlEntries(CmsDbContext dbc, List<CmsResource> resources)
+    throws CmsException {
+
+        Set<CmsUUID> resourceIds = new HashSet<CmsUUID>(resources.size());
+        for (CmsResource resource : resources) {
+            resourceIds.add(resource.getResourceId());
+        }
+        return getUserDriver(dbc).readResourcesWithAccessControlEntries(dbc, dbc.currentProject(), resourceIds);
+    }
+
     /**
      * Reads all resources that have a value (containing the given value string) set
      * for the specified property (definition) in the given path.<p>
@@ -10699,6 +11189,47 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return getUserDriver(dbc).countUsers(dbc, searchParams);
     }
 
+    /**
+     * Adds the new parent folders of the given relation targets to the related resources to publish,
+     * reading the parent folders level by level for all targets at once.<p>
+     *
+     * @param dbc the current database context
+     * @param closure the publish closure to read the parent folders with
+     * @param targets the relation targets added to the related resources
+     * @param publishResources the resources of the original publish list
+     * @param relations the related resources to publish, keyed by root path
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void addNewParentFolders(
+        CmsDbContext dbc,
+        CmsPublishClosure closure,
+        List<CmsResource> targets,
+        Set<CmsResource> publishResources,
+        Map<String, CmsResource> relations)
+    throws CmsException {
+
+        Set<CmsUUID> visited = new HashSet<CmsUUID>();
+        List<CmsResource> current = targets;
+        while (!current.isEmpty()) {
+            loadPublishClosure(dbc, closure, current, false);
+            List<CmsResource> next = new ArrayList<CmsResource>();
+            for (CmsResource resource : current) {
+                CmsResource parent = closure.getParentFolder(resource);
+                if ((parent != null) && parent.getState().isNew() && visited.add(parent.getStructureId())) {
+                    // just add resources that may come in question
+                    if (!publishResources.contains(parent) // is not in the original list
+                        && !relations.containsKey(parent.getRootPath())) { // has not been already added by another relation
+
+                        relations.put(parent.getRootPath(), parent);
+                    }
+                    next.add(parent);
+                }
+            }
+            current = next;
+        }
+    }
+
     /**
      * Adds a pool to the static pool map.<p>
      *
@@ -10970,22 +11501,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // never check time range here - this must be done later in #updateContextDates(...)
             filter = filter.addExcludeTimerange();
         }
-        ArrayList<CmsResource> result = new ArrayList<CmsResource>(resourceList.size());
-        for (int i = 0; i < resourceList.size(); i++) {
-            // check the permission of all resources
-            CmsResource currentResource = resourceList.get(i);
-            if (m_securityManager.hasPermissions(
-                dbc,
-                currentResource,
-                CmsPermissionSet.ACCESS_READ,
-                LockCheck.yes,
-                filter).isAllowed()) {
-                // only return resources where permission was granted
-                result.add(currentResource);
-            }
-        }
-        // return the result
-        return result;
+        // check the permission of all resources, only resources where permission was granted are returned
+        return m_securityManager.filterPermissions(
+            dbc,
+            resourceList,
+            CmsPermissionSet.ACCESS_READ,
+            LockCheck.yes,
+            filter);
     }
 
     /**
@@ -11600,6 +12122,45 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Returns the child resources of a folder from the index of online child resources, sorted in the given order.<p>
+     *
+     * If the folder is not indexed yet, its children are read from the database and added to the index.<p>
+     *
+     * @param dbc the current database context
+     * @param folder the folder to read the child resources for
+     * @param order the sort order
+     * @param descending if the child resources should be sorted in descending order
+     *
+     * @return the unmodifiable list of child resources, or <code>null</code> if the index can not be used
+     *
+     * @throws CmsDataAccessException if something goes wrong reading the database
+     */
+    private List<CmsResource> readIndexedChildResources(
+        CmsDbContext dbc,
+        CmsResource folder,
+        CmsChildResourceIndex.Order order,
+        boolean descending)
+    throws CmsDataAccessException {
+
+        if ((m_childResourceIndex == null)
+            || !dbc.currentProject().isOnlineProject()
+            || !dbc.getProjectId().isNullUUID()) {
+            return null;
+        }
+        List<CmsResource> children = m_childResourceIndex.getChildren(folder.getRootPath(), order, descending);
+        if (children == null) {
+            long modCount = m_childResourceIndex.getModCount();
+            List<CmsResource> allChildren = getVfsDriver(
+                dbc).readChildResources(dbc, dbc.currentProject(), folder, true, true);
+            m_childResourceIndex.put(folder.getRootPath(), allChildren, modCount);
+            allChildren = new ArrayList<CmsResource>(allChildren);
+            Collections.sort(allChildren, CmsChildResourceIndex.getComparator(order, descending));
+            children = Collections.unmodifiableList(allChildren);
+        }
+        return children;
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      *
@@ -11932,6 +12493,56 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Updates the index of online child resources after a publish.<p>
+     *
+     * @param dbc the current database context
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    private void updateChildResourceIndex(CmsDbContext dbc, CmsUUID publishHistoryId) {
+
+        if ((m_childResourceIndex == null) || (m_childResourceIndex.size() == 0)) {
+            return;
+        }
+        try {
+            List<CmsPublishedResource> publishedResources = getProjectDriver(dbc).readPublishedResources(
+                dbc,
+                publishHistoryId);
+            if (publishedResources.isEmpty()) {
+                // not a regular publish job, so re-initialize the index to be on the safe side
+                m_childResourceIndex.clear();
+                return;
+            }
+            for (CmsPublishedResource published : publishedResources) {
+                if (published.isFolder() && (published.getState().isDeleted() || published.isMoved())) {
+                    // the paths of all resources below the folder have changed
+                    m_childResourceIndex.clear();
+                    return;
+                }
+            }
+            for (CmsPublishedResource published : publishedResources) {
+                if (published.getState().isDeleted()) {
+                    m_childResourceIndex.remove(published.getStructureId());
+                    continue;
+                }
+                CmsResource resource = getVfsDriver(
+                    dbc).readResource(dbc, CmsProject.ONLINE_PROJECT_ID, published.getStructureId(), false);
+                if (resource.getSiblingCount() > 1) {
+                    // the resource dates are shared with all siblings
+                    for (CmsResource sibling : getVfsDriver(
+                        dbc).readSiblings(dbc, CmsProject.ONLINE_PROJECT_ID, resource, false)) {
+                        m_childResourceIndex.update(sibling);
+                    }
+                } else {
+                    m_childResourceIndex.update(resource);
+                }
+            }
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            m_childResourceIndex.clear();
+        }
+    }
+
     /**
      * Updates the current users context dates with the given resource.<p>
      *
@@ -12020,6 +12631,23 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Records in the current users context that the children or the subtree of the given folder have been read.<p>
+     *
+     * This is used to track the VFS dependencies of Flex cache entries.<p>
+     *
+     * @param dbc the current database context
+     * @param rootPath the root path of the folder
+     * @param tree <code>true</code> if the complete subtree has been read
+     */
+    private void updateContextFolder(CmsDbContext dbc, String rootPath, boolean tree) {
+
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        if (info != null) {
+            info.addFolderDependency(rootPath, tree);
+        }
+    }
+
     /**
      * Updates the state of a resource, depending on the <code>resourceState</code> parameter.<p>
      *
@@ -0,0 +1,269 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.main.CmsLog;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A JDBC connection pinned to a database context for the lifetime of the context.<p>
+ *
+ * The prepared statements of the connection are cached by their SQL and reused when they are
+ * released with {@link #releaseStatement(Statement)}. A statement that is still in use is never
+ * handed out twice, in that case an uncached statement is prepared.<p>
+ *
+ * The connection is returned to its pool by {@link #close()}, which is called when the database
+ * context is cleared.<p>
+ *
+ * @see CmsDbContext#pinConnection(String, CmsPinnedConnection)
+ */
+public class CmsPinnedConnection {
+
+    /** The default maximum number of cached statements. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 50;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPinnedConnection.class);
+
+    /** The pinned connections, by their JDBC connection. */
+    private static final Map<Connection, CmsPinnedConnection> PINNED = new ConcurrentHashMap<Connection,
+        CmsPinnedConnection>();
+
+    /** The pinned JDBC connection. */
+    private Connection m_connection;
+
+    /** The released statements, by their SQL, in access order. */
+    private Map<String, PreparedStatement> m_idleStatements;
+
+    /** The number of statements prepared on the connection. */
+    private int m_prepares;
+
+    /** The number of times the connection was requested. */
+    private int m_requests;
+
+    /** The maximum number of cached statements. */
+    private int m_statementCacheSize;
+
+    /** The number of statements reused from the cache. */
+    private int m_statementHits;
+
+    /** The cached statements currently in use, with their SQL. */
+    private Map<PreparedStatement, String> m_usedStatements;
+
+    /**
+     * Creates a new pinned connection.<p>
+     *
+     * @param connection the JDBC connection borrowed from the pool
+     * @param statementCacheSize the maximum number of cached statements
+     */
+    public CmsPinnedConnection(Connection connection, int statementCacheSize) {
+
+        m_connection = connection;
+        m_statementCacheSize = statementCacheSize;
+        m_idleStatements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+        m_usedStatements = new IdentityHashMap<PreparedStatement, String>();
+        PINNED.put(connection, this);
+    }
+
+    /**
+     * Returns the pinned connection for the given JDBC connection.<p>
+     *
+     * @param connection the JDBC connection
+     *
+     * @return the pinned connection, or <code>null</code> if the JDBC connection is not pinned
+     */
+    public static CmsPinnedConnection get(Connection connection) {
+
+        return connection != null ? PINNED.get(connection) : null;
+    }
+
+    /**
+     * Closes all cached statements and returns the connection to its pool.<p>
+     */
+    public synchronized void close() {
+
+        PINNED.remove(m_connection);
+        List<PreparedStatement> statements = new ArrayList<PreparedStatement>(m_idleStatements.values());
+        statements.addAll(m_usedStatements.keySet());
+        m_idleStatements.clear();
+        m_usedStatements.clear();
+        for (PreparedStatement stmt : statements) {
+            closeStatement(stmt);
+        }
+        try {
+            if (!m_connection.isClosed()) {
+                m_connection.close();
+            }
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the pinned JDBC connection and counts the request.<p>
+     *
+     * @return the pinned JDBC connection
+     */
+    public synchronized Connection getConnection() {
+
+        m_requests++;
+        return m_connection;
+    }
+
+    /**
+     * Returns the number of statements prepared on the connection.<p>
+     *
+     * @return the number of statements prepared on the connection
+     */
+    public synchronized int getPrepares() {
+
+        return m_prepares;
+    }
+
+    /**
+     * Returns the number of times the connection was requested.<p>
+     *
+     * @return the number of times the connection was requested
+     */
+    public synchronized int getRequests() {
+
+        return m_requests;
+    }
+
+    /**
+     * Returns the number of statements reused from the cache.<p>
+     *
+     * @return the number of statements reused from the cache
+     */
+    public synchronized int getStatementHits() {
+
+        return m_statementHits;
+    }
+
+    /**
+     * Checks if the pinned JDBC connection can still be used.<p>
+     *
+     * @return <code>false</code> if the JDBC connection has been closed
+     */
+    public boolean isOpen() {
+
+        try {
+            return !m_connection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a released statement if possible.<p>
+     *
+     * @param sql the SQL of the statement
+     *
+     * @return the prepared statement
+     *
+     * @throws SQLException if the statement could not be prepared
+     */
+    public synchronized PreparedStatement prepareStatement(String sql) throws SQLException {
+
+        PreparedStatement stmt = m_idleStatements.remove(sql);
+        if ((stmt != null) && !stmt.isClosed()) {
+            m_statementHits++;
+        } else {
+            stmt = m_connection.prepareStatement(sql);
+            m_prepares++;
+        }
+        m_usedStatements.put(stmt, sql);
+        return stmt;
+    }
+
+    /**
+     * Releases a statement prepared by this pinned connection, so that it can be reused.<p>
+     *
+     * If the cache already contains a statement for the same SQL, or the cache is full,
+     * a statement is closed.<p>
+     *
+     * @param stmt the statement to release
+     *
+     * @return <code>true</code> if the statement has been prepared by this pinned connection,
+     *      <code>false</code> if the caller has to close it
+     */
+    public synchronized boolean releaseStatement(Statement stmt) {
+
+        String sql = m_usedStatements.remove(stmt);
+        if (sql == null) {
+            return false;
+        }
+        PreparedStatement prepared = (PreparedStatement)stmt;
+        try {
+            prepared.clearParameters();
+            prepared.clearBatch();
+            prepared.clearWarnings();
+        } catch (SQLException e) {
+            closeStatement(prepared);
+            return true;
+        }
+        if (m_idleStatements.containsKey(sql)) {
+            closeStatement(prepared);
+        } else {
+            m_idleStatements.put(sql, prepared);
+            if (m_idleStatements.size() > m_statementCacheSize) {
+                Map.Entry<String, PreparedStatement> eldest = m_idleStatements.entrySet().iterator().next();
+                m_idleStatements.remove(eldest.getKey());
+                closeStatement(eldest.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes a statement, ignoring errors.<p>
+     *
+     * @param stmt the statement to close
+     */
+    private void closeStatement(Statement stmt) {
+
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+}
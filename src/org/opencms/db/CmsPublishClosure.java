@@ -0,0 +1,260 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.relations.CmsRelation;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The data needed to compute the resources related to a set of resources to publish, read in bulk.<p>
+ *
+ * For every loaded resource, the closure contains the outgoing relations, the resources these relations point to
+ * and the parent folder. The data is loaded with a few queries for a whole set of resources by
+ * {@link org.opencms.file.CmsObject#loadPublishClosure(CmsPublishClosure, Collection)}, so the related resources
+ * can then be computed in memory.<p>
+ *
+ * A closure is a snapshot of the offline project and is meant to be used for a single publish action,
+ * for example to find the related resources, to validate the links and to publish the resources.<p>
+ *
+ * @since 12.0.0
+ */
+public class CmsPublishClosure {
+
+    /** The structure ids of the resources whose relations and parent folder are loaded. */
+    private Set<CmsUUID> m_loaded = new HashSet<CmsUUID>();
+
+    /** The parent folders, keyed by the structure id of the child resource. */
+    private Map<CmsUUID, CmsResource> m_parentFolders = new HashMap<CmsUUID, CmsResource>();
+
+    /** The id of the project the data was read from. */
+    private CmsUUID m_projectId;
+
+    /** The relation targets which could only be read by their path, keyed by the target path. */
+    private Map<String, CmsResource> m_relationTargetsByPath = new HashMap<String, CmsResource>();
+
+    /** The outgoing relations, keyed by the structure id of their source. */
+    private Map<CmsUUID, List<CmsRelation>> m_relations = new HashMap<CmsUUID, List<CmsRelation>>();
+
+    /** The loaded resources, keyed by their structure id. */
+    private Map<CmsUUID, CmsResource> m_resources = new HashMap<CmsUUID, CmsResource>();
+
+    /**
+     * Creates a new, empty publish closure.<p>
+     *
+     * @param projectId the id of the project to read the data from
+     */
+    public CmsPublishClosure(CmsUUID projectId) {
+
+        m_projectId = projectId;
+    }
+
+    /**
+     * Returns the parent folder of the given resource.<p>
+     *
+     * @param resource a loaded resource
+     *
+     * @return the parent folder, or <code>null</code> for the root folder or if the parent folder was not loaded
+     */
+    public CmsResource getParentFolder(CmsResource resource) {
+
+        return m_parentFolders.get(resource.getStructureId());
+    }
+
+    /**
+     * Returns the id of the project the data was read from.<p>
+     *
+     * @return the project id
+     */
+    public CmsUUID getProjectId() {
+
+        return m_projectId;
+    }
+
+    /**
+     * Returns the target of the given relation.<p>
+     *
+     * Like {@link CmsRelation#getTarget(org.opencms.file.CmsObject, org.opencms.file.CmsResourceFilter)},
+     * the target is looked up by its structure id first, and then by its path.<p>
+     *
+     * @param relation an outgoing relation of a loaded resource
+     *
+     * @return the relation target, or <code>null</code> if it does not exist or could not be read
+     */
+    public CmsResource getRelationTarget(CmsRelation relation) {
+
+        CmsResource result = m_resources.get(relation.getTargetId());
+        if (result == null) {
+            result = m_relationTargetsByPath.get(relation.getTargetPath());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the outgoing relations of the given resource.<p>
+     *
+     * @param resource a loaded resource
+     *
+     * @return the outgoing relations, sorted like the relations read for a single resource
+     */
+    public List<CmsRelation> getRelations(CmsResource resource) {
+
+        List<CmsRelation> result = m_relations.get(resource.getStructureId());
+        return result != null ? result : Collections.<CmsRelation> emptyList();
+    }
+
+    /**
+     * Returns the resource with the given structure id.<p>
+     *
+     * @param structureId the structure id
+     *
+     * @return the resource, or <code>null</code> if it was not loaded or could not be read
+     */
+    public CmsResource getResource(CmsUUID structureId) {
+
+        return m_resources.get(structureId);
+    }
+
+    /**
+     * Returns the given resources whose relations and parent folders are not loaded yet.<p>
+     *
+     * @param resources the resources to check
+     *
+     * @return the resources which are not loaded
+     */
+    public List<CmsResource> getUnloaded(Collection<CmsResource> resources) {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        Set<CmsUUID> ids = new HashSet<CmsUUID>();
+        for (CmsResource resource : resources) {
+            if (!isLoaded(resource) && ids.add(resource.getStructureId())) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the resource with the given structure id was already read, even if it could not be found.<p>
+     *
+     * @param structureId the structure id
+     *
+     * @return <code>true</code> if the resource was already read
+     */
+    public boolean hasResource(CmsUUID structureId) {
+
+        return m_resources.containsKey(structureId);
+    }
+
+    /**
+     * Checks if the relations and the parent folder of the given resource are loaded.<p>
+     *
+     * @param resource the resource to check
+     *
+     * @return <code>true</code> if the resource is loaded
+     */
+    public boolean isLoaded(CmsResource resource) {
+
+        return m_loaded.contains(resource.getStructureId());
+    }
+
+    /**
+     * Returns the number of resources whose relations and parent folder are loaded.<p>
+     *
+     * @return the number of loaded resources
+     */
+    public int size() {
+
+        return m_loaded.size();
+    }
+
+    /**
+     * Adds a relation target which was read by its path, because it could not be read by its structure id.<p>
+     *
+     * @param rootPath the target path of the relation
+     * @param resource the resource, or <code>null</code> if it could not be read
+     */
+    void addRelationTarget(String rootPath, CmsResource resource) {
+
+        m_relationTargetsByPath.put(rootPath, resource);
+    }
+
+    /**
+     * Adds a resource which was read, for example as relation target or as parent folder.<p>
+     *
+     * @param structureId the structure id of the resource
+     * @param resource the resource, or <code>null</code> if it could not be read
+     */
+    void addResource(CmsUUID structureId, CmsResource resource) {
+
+        m_resources.put(structureId, resource);
+    }
+
+    /**
+     * Checks if the relation target with the given path was already read by its path.<p>
+     *
+     * @param rootPath the target path of the relation
+     *
+     * @return <code>true</code> if the relation target was already read
+     */
+    boolean hasRelationTarget(String rootPath) {
+
+        return m_relationTargetsByPath.containsKey(rootPath);
+    }
+
+    /**
+     * Marks a resource as loaded, storing its relations and parent folder.<p>
+     *
+     * @param resource the resource
+     * @param relations the outgoing relations of the resource
+     * @param parentFolder the parent folder of the resource, or <code>null</code> for the root folder
+     */
+    void setLoaded(CmsResource resource, List<CmsRelation> relations, CmsResource parentFolder) {
+
+        CmsUUID structureId = resource.getStructureId();
+        m_loaded.add(structureId);
+        if (m_resources.get(structureId) == null) {
+            m_resources.put(structureId, resource);
+        }
+        if ((relations != null) && !relations.isEmpty()) {
+            m_relations.put(structureId, relations);
+        }
+        if (parentFolder != null) {
+            m_parentFolders.put(structureId, parentFolder);
+        }
+    }
+}
@@ -119,6 +119,9 @@ public class CmsPublishList implements Externalizable {
     /** The id of the project that is to be published. */
     private CmsUUID m_projectId;
 
+    /** The publish closure read while preparing this publish list, not serialized. */
+    private transient CmsPublishClosure m_publishClosure;
+
     /** The publish history ID.<p> */
     private CmsUUID m_publishHistoryId;
 
@@ -316,6 +319,18 @@ public class CmsPublishList implements Externalizable {
         return m_projectId;
     }
 
+    /**
+     * Returns the publish closure read while preparing this publish list.<p>
+     *
+     * The publish closure is not serialized, so it is lost when the publish list is read back.<p>
+     *
+     * @return the publish closure, or <code>null</code>
+     */
+    public CmsPublishClosure getPublishClosure() {
+
+        return m_publishClosure;
+    }
+
     /**
      * Returns the publish history Id for this publish list.<p>
      *
@@ -430,6 +445,16 @@ public class CmsPublishList implements Externalizable {
         }
     }
 
+    /**
+     * Sets the publish closure read while preparing this publish list, so later steps can reuse it.<p>
+     *
+     * @param publishClosure the publish closure
+     */
+    public void setPublishClosure(CmsPublishClosure publishClosure) {
+
+        m_publishClosure = publishClosure;
+    }
+
     /**
      * Sets the 'user publish list' flag on this publish list.<p>
      *
@@ -0,0 +1,578 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.I_CmsPermissionHandler;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Request scoped memo for the resources, properties and permission check results
+ * read through the {@link CmsSecurityManager}.<p>
+ *
+ * Templates and formatters usually read the same few resources and properties many times
+ * while a single request is processed. Once a memo has been enabled for a request context with
+ * {@link #enable(CmsRequestContext)}, repeated reads are answered from the memo without
+ * creating a new database context or going through the global caches again.<p>
+ *
+ * The memo is bound to the user, project and request time of the request context it was enabled for.
+ * It is discarded as soon as any of the caches for resources, properties or permissions
+ * are flushed in the {@link CmsMemoryMonitor}, so modifications made while the request
+ * is processed are always visible. Only successful reads are memorized, and only
+ * permission checks that do not require write or control permissions, since these do not depend on locks.<p>
+ *
+ * @since 12.0.0
+ */
+public final class CmsRequestReadMemo {
+
+    /** The name of the request context attribute the memo is stored in. */
+    public static final String ATTRIBUTE_READ_MEMO = CmsRequestReadMemo.class.getName() + ".ATTRIBUTE_READ_MEMO";
+
+    /** The system property that enables the memo for all requests served by OpenCms. */
+    public static final String PARAM_ENABLED = "opencms.request.readMemo";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsRequestReadMemo.class);
+
+    /** The number of flushes of the memory monitor caches at the time the memo was last validated. */
+    private long m_flushCount;
+
+    /** The number of reads answered from the memo. */
+    private final AtomicLong m_hits = new AtomicLong();
+
+    /** The number of reads that had to be performed because the result was not in the memo. */
+    private final AtomicLong m_misses = new AtomicLong();
+
+    /** The memorized permission check results. */
+    private final Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> m_permissions;
+
+    /** The id of the project the memo was enabled for. */
+    private final CmsUUID m_projectId;
+
+    /** The memorized single properties. */
+    private final Map<String, CmsProperty> m_properties;
+
+    /** The memorized property lists. */
+    private final Map<String, List<CmsProperty>> m_propertyLists;
+
+    /** The request time of the request context the memo was enabled for. */
+    private final long m_requestTime;
+
+    /** The memorized resources. */
+    private final Map<String, CmsResource> m_resources;
+
+    /** The id of the user the memo was enabled for. */
+    private final CmsUUID m_userId;
+
+    /**
+     * Creates a new memo for the given request context.<p>
+     *
+     * @param context the request context to create the memo for
+     */
+    private CmsRequestReadMemo(CmsRequestContext context) {
+
+        m_userId = context.getCurrentUser().getId();
+        m_projectId = context.getCurrentProject().getUuid();
+        m_requestTime = context.getRequestTime();
+        m_flushCount = getMonitorFlushCount();
+        m_resources = new ConcurrentHashMap<String, CmsResource>();
+        m_propertyLists = new ConcurrentHashMap<String, List<CmsProperty>>();
+        m_properties = new ConcurrentHashMap<String, CmsProperty>();
+        m_permissions = new ConcurrentHashMap<String, I_CmsPermissionHandler.CmsPermissionCheckResult>();
+    }
+
+    /**
+     * Removes the memo from the given request context.<p>
+     *
+     * The hits and misses of the memo are added to the statistics of the memory monitor,
+     * which are written to its status log. The hit ratio of the single memo is written
+     * to the log on debug level.<p>
+     *
+     * @param context the request context to remove the memo from
+     *
+     * @return the removed memo, or <code>null</code> if no memo was enabled for the given request context
+     */
+    public static CmsRequestReadMemo disable(CmsRequestContext context) {
+
+        Object attribute = context.removeAttribute(ATTRIBUTE_READ_MEMO);
+        if (!(attribute instanceof CmsRequestReadMemo)) {
+            return null;
+        }
+        CmsRequestReadMemo memo = (CmsRequestReadMemo)attribute;
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        if (monitor != null) {
+            monitor.updateReadMemoStatistics(memo.getHits(), memo.getMisses());
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_REQUEST_READ_MEMO_STATS_4,
+                    new Object[] {
+                        context.getUri(),
+                        Long.valueOf(memo.getHits()),
+                        Long.valueOf(memo.getMisses()),
+                        Double.valueOf(memo.getHitRatio())}));
+        }
+        return memo;
+    }
+
+    /**
+     * Enables the memo for the given request context.<p>
+     *
+     * If a memo is already enabled for the request context, the existing memo is returned.<p>
+     *
+     * @param context the request context to enable the memo for
+     *
+     * @return the memo of the given request context
+     */
+    public static CmsRequestReadMemo enable(CmsRequestContext context) {
+
+        Object attribute = context.getAttribute(ATTRIBUTE_READ_MEMO);
+        if (attribute instanceof CmsRequestReadMemo) {
+            return (CmsRequestReadMemo)attribute;
+        }
+        CmsRequestReadMemo memo = new CmsRequestReadMemo(context);
+        context.setAttribute(ATTRIBUTE_READ_MEMO, memo);
+        return memo;
+    }
+
+    /**
+     * Returns the memo of the given request context that can be used for the current state of the context.<p>
+     *
+     * The memo is cleared in case the caches of the memory monitor have been flushed since it was last used.<p>
+     *
+     * @param context the request context to get the memo for
+     *
+     * @return the memo of the given request context, or <code>null</code> if no memo is enabled
+     *      or the user, project or request time of the context have changed since the memo was enabled
+     */
+    public static CmsRequestReadMemo getMemo(CmsRequestContext context) {
+
+        Object attribute = context.getAttribute(ATTRIBUTE_READ_MEMO);
+        if (!(attribute instanceof CmsRequestReadMemo)) {
+            return null;
+        }
+        CmsRequestReadMemo memo = (CmsRequestReadMemo)attribute;
+        if ((memo.m_requestTime != context.getRequestTime())
+            || !memo.m_userId.equals(context.getCurrentUser().getId())
+            || !memo.m_projectId.equals(context.getCurrentProject().getUuid())) {
+            return null;
+        }
+        memo.checkFlushCount();
+        return memo;
+    }
+
+    /**
+     * Returns if the memo should be enabled for all requests served by OpenCms.<p>
+     *
+     * This is the case if the system property {@link #PARAM_ENABLED} is set to <code>true</code>.<p>
+     *
+     * @return <code>true</code> if the memo should be enabled for all requests
+     */
+    public static boolean isEnabledForRequests() {
+
+        return Boolean.parseBoolean(System.getProperty(PARAM_ENABLED));
+    }
+
+    /**
+     * Returns the ratio of reads answered from the memo to all reads, between 0 and 1.<p>
+     *
+     * @return the hit ratio of the memo
+     */
+    public double getHitRatio() {
+
+        long hits = m_hits.get();
+        long total = hits + m_misses.get();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    /**
+     * Returns the number of reads answered from the memo.<p>
+     *
+     * @return the number of reads answered from the memo
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the number of reads that had to be performed because the result was not in the memo.<p>
+     *
+     * @return the number of reads not answered from the memo
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Returns a memorized permission check result.<p>
+     *
+     * @param resource the resource the permissions were checked on
+     * @param requiredPermissions the required permissions
+     * @param checkLock the lock check mode
+     * @param filter the resource filter used
+     *
+     * @return the memorized permission check result, or <code>null</code> if not memorized
+     */
+    I_CmsPermissionHandler.CmsPermissionCheckResult getPermissions(
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        I_CmsPermissionHandler.LockCheck checkLock,
+        CmsResourceFilter filter) {
+
+        if (!isLockIndependent(requiredPermissions)) {
+            return null;
+        }
+        return count(m_permissions.get(getPermissionKey(resource, requiredPermissions, checkLock, filter)));
+    }
+
+    /**
+     * Returns a memorized property.<p>
+     *
+     * @param resource the resource the property was read from
+     * @param key the property name
+     * @param search if the property was searched on the parent folders
+     * @param locale the locale the property was read for, may be <code>null</code>
+     *
+     * @return a copy of the memorized property, or <code>null</code> if not memorized
+     */
+    CmsProperty getProperty(CmsResource resource, String key, boolean search, Locale locale) {
+
+        CmsProperty property = count(m_properties.get(getPropertyKey(resource, key, search, locale)));
+        if ((property == null) || property.isNullProperty()) {
+            return property;
+        }
+        return property.cloneAsProperty();
+    }
+
+    /**
+     * Returns a memorized property list.<p>
+     *
+     * @param resource the resource the properties were read from
+     * @param search if the properties were searched on the parent folders
+     *
+     * @return a copy of the memorized property list, or <code>null</code> if not memorized
+     */
+    List<CmsProperty> getPropertyList(CmsResource resource, boolean search) {
+
+        List<CmsProperty> properties = count(m_propertyLists.get(getPropertyListKey(resource, search)));
+        return properties == null ? null : new ArrayList<CmsProperty>(properties);
+    }
+
+    /**
+     * Returns a memorized resource read by its structure id.<p>
+     *
+     * @param context the current request context
+     * @param structureId the structure id of the resource
+     * @param filter the resource filter used
+     *
+     * @return a copy of the memorized resource, or <code>null</code> if not memorized
+     */
+    CmsResource getResource(CmsRequestContext context, CmsUUID structureId, CmsResourceFilter filter) {
+
+        return getResourceCopy(context, getResourceKey(structureId, filter));
+    }
+
+    /**
+     * Returns a memorized resource read by its root path.<p>
+     *
+     * @param context the current request context
+     * @param rootPath the root path of the resource
+     * @param filter the resource filter used
+     *
+     * @return a copy of the memorized resource, or <code>null</code> if not memorized
+     */
+    CmsResource getResource(CmsRequestContext context, String rootPath, CmsResourceFilter filter) {
+
+        return getResourceCopy(context, getResourceKey(rootPath, filter));
+    }
+
+    /**
+     * Memorizes a permission check result.<p>
+     *
+     * @param resource the resource the permissions were checked on
+     * @param requiredPermissions the required permissions
+     * @param checkLock the lock check mode
+     * @param filter the resource filter used
+     * @param result the permission check result
+     */
+    void putPermissions(
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        I_CmsPermissionHandler.LockCheck checkLock,
+        CmsResourceFilter filter,
+        I_CmsPermissionHandler.CmsPermissionCheckResult result) {
+
+        if ((result != null) && isLockIndependent(requiredPermissions)) {
+            m_permissions.put(getPermissionKey(resource, requiredPermissions, checkLock, filter), result);
+        }
+    }
+
+    /**
+     * Memorizes a property.<p>
+     *
+     * @param resource the resource the property was read from
+     * @param key the property name
+     * @param search if the property was searched on the parent folders
+     * @param locale the locale the property was read for, may be <code>null</code>
+     * @param property the property read
+     */
+    void putProperty(CmsResource resource, String key, boolean search, Locale locale, CmsProperty property) {
+
+        if (property != null) {
+            m_properties.put(
+                getPropertyKey(resource, key, search, locale),
+                property.isNullProperty() ? property : property.cloneAsProperty());
+        }
+    }
+
+    /**
+     * Memorizes a property list.<p>
+     *
+     * @param resource the resource the properties were read from
+     * @param search if the properties were searched on the parent folders
+     * @param properties the properties read
+     */
+    void putPropertyList(CmsResource resource, boolean search, List<CmsProperty> properties) {
+
+        if (properties != null) {
+            List<CmsProperty> copy = new ArrayList<CmsProperty>(properties);
+            CmsProperty.setFrozen(copy);
+            m_propertyLists.put(getPropertyListKey(resource, search), copy);
+        }
+    }
+
+    /**
+     * Memorizes a resource read by its structure id.<p>
+     *
+     * @param structureId the structure id of the resource
+     * @param filter the resource filter used
+     * @param resource the resource read
+     */
+    void putResource(CmsUUID structureId, CmsResourceFilter filter, CmsResource resource) {
+
+        if (resource != null) {
+            m_resources.put(getResourceKey(structureId, filter), (CmsResource)resource.clone());
+        }
+    }
+
+    /**
+     * Memorizes a resource read by its root path.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param filter the resource filter used
+     * @param resource the resource read
+     */
+    void putResource(String rootPath, CmsResourceFilter filter, CmsResource resource) {
+
+        if (resource != null) {
+            m_resources.put(getResourceKey(rootPath, filter), (CmsResource)resource.clone());
+        }
+    }
+
+    /**
+     * Clears the memo in case the caches of the memory monitor have been flushed since it was last validated.<p>
+     */
+    private void checkFlushCount() {
+
+        long flushCount = getMonitorFlushCount();
+        if (flushCount != m_flushCount) {
+            m_resources.clear();
+            m_propertyLists.clear();
+            m_properties.clear();
+            m_permissions.clear();
+            m_flushCount = flushCount;
+        }
+    }
+
+    /**
+     * Counts a memo lookup as hit or miss.<p>
+     *
+     * @param <T> the type of the memorized value
+     * @param value the value found in the memo, may be <code>null</code>
+     *
+     * @return the given value
+     */
+    private <T> T count(T value) {
+
+        if (value == null) {
+            m_misses.incrementAndGet();
+        } else {
+            m_hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the current flush count of the memory monitor.<p>
+     *
+     * @return the current flush count of the memory monitor
+     */
+    private long getMonitorFlushCount() {
+
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        return monitor == null ? 0 : monitor.getFlushCount();
+    }
+
+    /**
+     * Returns the memo key for a permission check.<p>
+     *
+     * @param resource the resource the permissions are checked on
+     * @param requiredPermissions the required permissions
+     * @param checkLock the lock check mode
+     * @param filter the resource filter used
+     *
+     * @return the memo key
+     */
+    private String getPermissionKey(
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        I_CmsPermissionHandler.LockCheck checkLock,
+        CmsResourceFilter filter) {
+
+        StringBuffer key = new StringBuffer(128);
+        key.append(resource.getStructureId());
+        key.append('|').append(resource.getRootPath());
+        key.append('|').append(resource.getState());
+        key.append('|').append(resource.getDateReleased());
+        key.append('|').append(resource.getDateExpired());
+        key.append('|').append(requiredPermissions.getAllowedPermissions());
+        key.append('|').append(requiredPermissions.getDeniedPermissions());
+        key.append('|').append(checkLock);
+        key.append('|').append(filter == null ? "" : filter.getCacheId());
+        return key.toString();
+    }
+
+    /**
+     * Returns the memo key for a single property.<p>
+     *
+     * @param resource the resource the property is read from
+     * @param key the property name
+     * @param search if the property is searched on the parent folders
+     * @param locale the locale the property is read for, may be <code>null</code>
+     *
+     * @return the memo key
+     */
+    private String getPropertyKey(CmsResource resource, String key, boolean search, Locale locale) {
+
+        return getPropertyListKey(resource, search) + "|" + key + "|" + (locale == null ? "" : locale.toString());
+    }
+
+    /**
+     * Returns the memo key for a property list.<p>
+     *
+     * @param resource the resource the properties are read from
+     * @param search if the properties are searched on the parent folders
+     *
+     * @return the memo key
+     */
+    private String getPropertyListKey(CmsResource resource, boolean search) {
+
+        return resource.getStructureId() + "|" + resource.getRootPath() + "|" + search;
+    }
+
+    /**
+     * Returns a copy of a memorized resource, also updating the request context dates for it.<p>
+     *
+     * @param context the current request context
+     * @param key the memo key of the resource
+     *
+     * @return a copy of the memorized resource, or <code>null</code> if not memorized
+     */
+    private CmsResource getResourceCopy(CmsRequestContext context, String key) {
+
+        CmsResource resource = count(m_resources.get(key));
+        if (resource == null) {
+            return null;
+        }
+        // the resource was not read from the database, but must still be considered for the "last modified" date
+        Object info = context.getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        if (info instanceof CmsFlexRequestContextInfo) {
+            ((CmsFlexRequestContextInfo)info).updateFromResource(resource);
+        }
+        return (CmsResource)resource.clone();
+    }
+
+    /**
+     * Returns the memo key for a resource read by its structure id.<p>
+     *
+     * @param structureId the structure id of the resource
+     * @param filter the resource filter used
+     *
+     * @return the memo key
+     */
+    private String getResourceKey(CmsUUID structureId, CmsResourceFilter filter) {
+
+        return "id:" + structureId + "|" + filter.getCacheId();
+    }
+
+    /**
+     * Returns the memo key for a resource read by its root path.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param filter the resource filter used
+     *
+     * @return the memo key
+     */
+    private String getResourceKey(String rootPath, CmsResourceFilter filter) {
+
+        return rootPath + "|" + filter.getCacheId();
+    }
+
+    /**
+     * Returns if the result of a permission check for the given permissions does not depend on locks.<p>
+     *
+     * @param requiredPermissions the required permissions
+     *
+     * @return <code>true</code> if the result of the permission check does not depend on locks
+     */
+    private boolean isLockIndependent(CmsPermissionSet requiredPermissions) {
+
+        return !requiredPermissions.requiresWritePermission() && !requiredPermissions.requiresControlPermission();
+    }
+}
@@ -2384,6 +2384,30 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Returns the lock states of a list of resources.<p>
+     *
+     * @param context the current request context
+     * @param resources the resources to return the lock states for
+     *
+     * @return the lock states of the resources, in the same order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsLock> getLocks(CmsRequestContext context, List<CmsResource> resources) throws CmsException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        List<CmsLock> result = null;
+        try {
+            result = m_driverManager.getLocks(dbc, resources);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_GET_LOCKS_0), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the lock manger.<p>
      *
@@ -2996,19 +3020,7 @@ public final class CmsSecurityManager {
         CmsResourceFilter filter)
     throws CmsException {
 
-        I_CmsPermissionHandler.CmsPermissionCheckResult result = null;
-        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
-        try {
-            result = hasPermissions(
-                dbc,
-                resource,
-                requiredPermissions,
-                checkLock ? LockCheck.yes : LockCheck.no,
-                filter);
-        } finally {
-            dbc.clear();
-        }
-        return result;
+        return hasPermissions(context, resource, requiredPermissions, checkLock ? LockCheck.yes : LockCheck.no, filter);
     }
 
     /**
@@ -3044,13 +3056,23 @@ public final class CmsSecurityManager {
         CmsResourceFilter filter)
     throws CmsException {
 
+        CmsRequestReadMemo memo = CmsRequestReadMemo.getMemo(context);
         I_CmsPermissionHandler.CmsPermissionCheckResult result = null;
+        if (memo != null) {
+            result = memo.getPermissions(resource, requiredPermissions, checkLock, filter);
+            if (result != null) {
+                return result;
+            }
+        }
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             result = hasPermissions(dbc, resource, requiredPermissions, checkLock, filter);
         } finally {
             dbc.clear();
         }
+        if (memo != null) {
+            memo.putPermissions(resource, requiredPermissions, checkLock, filter, result);
+        }
         return result;
     }
 
@@ -3551,8 +3573,11 @@ public final class CmsSecurityManager {
     public void initializeOrgUnit(CmsRequestContext context, CmsOrganizationalUnit ou) {
 
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
-        m_driverManager.initOrgUnit(dbc, ou);
-
+        try {
+            m_driverManager.initOrgUnit(dbc, ou);
+        } finally {
+            dbc.clear();
+        }
     }
 
     /**
@@ -3612,6 +3637,37 @@ public final class CmsSecurityManager {
         return m_driverManager.isSubscriptionDriverAvailable();
     }
 
+    /**
+     * Loads the relations, the relation targets and the parent folders of the given resources
+     * into a publish closure.<p>
+     *
+     * @param context the current request context
+     * @param closure the publish closure to load the data into
+     * @param resources the resources to load
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#loadPublishClosure(CmsPublishClosure, Collection)
+     */
+    public void loadPublishClosure(
+        CmsRequestContext context,
+        CmsPublishClosure closure,
+        Collection<CmsResource> resources)
+    throws CmsException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            m_driverManager.loadPublishClosure(dbc, closure, resources, true);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_LOAD_PUBLISH_CLOSURE_1, Integer.valueOf(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Locks a resource.<p>
      *
@@ -3787,6 +3843,9 @@ public final class CmsSecurityManager {
             if (pubList1.isUserPublishList()) {
                 ret.setUserPublishList(true);
             }
+            // keep the data already read for the merged lists
+            ret.setPublishClosure(
+                pubList1.getPublishClosure() != null ? pubList1.getPublishClosure() : pubList2.getPublishClosure());
             ret.initialize(); // ensure sort order
 
             checkPublishPermissions(dbc, ret);
@@ -4230,6 +4289,57 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Returns a page of the child resources of a folder, in the given sort order.<p>
+     *
+     * @param context the current request context
+     * @param resource the folder to return the child resources for
+     * @param filter the resource filter to use
+     * @param order the sort order
+     * @param descending if the children should be returned in descending order
+     * @param after the last resource of the previous page, or <code>null</code> to read the first page
+     * @param limit the maximum number of children to return, <code>0</code> or less for no limit
+     *
+     * @return a page of the child resources
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsSecurityException if the user has insufficient permission for the given resource (read is required)
+     */
+    public List<CmsResource> readChildResources(
+        CmsRequestContext context,
+        CmsResource resource,
+        CmsResourceFilter filter,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        CmsResource after,
+        int limit)
+    throws CmsException, CmsSecurityException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // check the access permissions
+            checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL);
+            result = m_driverManager.readChildResources(
+                dbc,
+                resource,
+                filter,
+                order,
+                descending,
+                after,
+                limit,
+                true);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_CHILD_RESOURCES_1, context.getSitePath(resource)),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the default file for the given folder.<p>
      *
@@ -4936,7 +5046,14 @@ public final class CmsSecurityManager {
         Locale locale)
     throws CmsException {
 
+        CmsRequestReadMemo memo = CmsRequestReadMemo.getMemo(context);
         CmsProperty result = null;
+        if (memo != null) {
+            result = memo.getProperty(resource, key, search, locale);
+            if (result != null) {
+                return result;
+            }
+        }
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             if (null == locale) {
@@ -4952,6 +5069,9 @@ public final class CmsSecurityManager {
         } finally {
             dbc.clear();
         }
+        if (memo != null) {
+            memo.putProperty(resource, key, search, locale, result);
+        }
         return result;
     }
 
@@ -4979,7 +5099,14 @@ public final class CmsSecurityManager {
     public List<CmsProperty> readPropertyObjects(CmsRequestContext context, CmsResource resource, boolean search)
     throws CmsException {
 
+        CmsRequestReadMemo memo = CmsRequestReadMemo.getMemo(context);
         List<CmsProperty> result = null;
+        if (memo != null) {
+            result = memo.getPropertyList(resource, search);
+            if (result != null) {
+                return result;
+            }
+        }
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             result = m_driverManager.readPropertyObjects(dbc, resource, search);
@@ -4991,6 +5118,9 @@ public final class CmsSecurityManager {
         } finally {
             dbc.clear();
         }
+        if (memo != null) {
+            memo.putPropertyList(resource, search, result);
+        }
         return result;
     }
 
@@ -5091,7 +5221,14 @@ public final class CmsSecurityManager {
     public CmsResource readResource(CmsRequestContext context, CmsUUID structureID, CmsResourceFilter filter)
     throws CmsException {
 
+        CmsRequestReadMemo memo = CmsRequestReadMemo.getMemo(context);
         CmsResource result = null;
+        if (memo != null) {
+            result = memo.getResource(context, structureID, filter);
+            if (result != null) {
+                return result;
+            }
+        }
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             result = readResource(dbc, structureID, filter);
@@ -5100,6 +5237,9 @@ public final class CmsSecurityManager {
         } finally {
             dbc.clear();
         }
+        if (memo != null) {
+            memo.putResource(structureID, filter, result);
+        }
         return result;
     }
 
@@ -5136,7 +5276,14 @@ public final class CmsSecurityManager {
     public CmsResource readResource(CmsRequestContext context, String resourcePath, CmsResourceFilter filter)
     throws CmsException {
 
+        CmsRequestReadMemo memo = CmsRequestReadMemo.getMemo(context);
         CmsResource result = null;
+        if (memo != null) {
+            result = memo.getResource(context, resourcePath, filter);
+            if (result != null) {
+                return result;
+            }
+        }
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         try {
             result = readResource(dbc, resourcePath, filter);
@@ -5148,6 +5295,9 @@ public final class CmsSecurityManager {
         } finally {
             dbc.clear();
         }
+        if (memo != null) {
+            memo.putResource(resourcePath, filter, result);
+        }
         return result;
     }
 
@@ -5191,6 +5341,49 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the first resources below the given path matching the filter criteria, in the given sort order.<p>
+     *
+     * @param context the current request context
+     * @param parent the parent path to read the resources from
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all subresources
+     * @param order the sort order
+     * @param descending if the resources should be returned in descending order
+     * @param limit the maximum number of resources to return, <code>0</code> or less for no limit
+     *
+     * @return a list of <code>{@link CmsResource}</code> objects matching the filter criteria
+     *
+     * @throws CmsSecurityException if the user has insufficient permission for the given resource (read is required)
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(
+        CmsRequestContext context,
+        CmsResource parent,
+        CmsResourceFilter filter,
+        boolean readTree,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        int limit)
+    throws CmsException, CmsSecurityException {
+
+        List<CmsResource> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            // check the access permissions
+            checkPermissions(dbc, parent, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL);
+            result = m_driverManager.readResources(dbc, parent, filter, readTree, order, descending, limit);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_RESOURCES_1, context.removeSiteRoot(parent.getRootPath())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Returns the resources that were visited by a user set in the filter.<p>
      *
@@ -7349,6 +7542,38 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Filters the given list of resources, removes all resources where the current user
+     * does not have the required permissions, plus the filter is applied.<p>
+     *
+     * The permission handler computes the permissions inherited from a folder only once for all
+     * resources of the list in that folder that have no access control entries of their own.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to filter
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param checkLock if true, a lock for the current user is required for
+     *      all write operations, if false it's ok to write as long as the resource
+     *      is not locked by another user
+     * @param filter the resource filter to use
+     *
+     * @return the resources where the permission check returned {@link I_CmsPermissionHandler#PERM_ALLOWED}
+     *
+     * @throws CmsException in case of i/o errors (NOT because of insufficient permissions)
+     *
+     * @see #hasPermissions(CmsDbContext, CmsResource, CmsPermissionSet, LockCheck, CmsResourceFilter)
+     */
+    protected List<CmsResource> filterPermissions(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        CmsPermissionSet requiredPermissions,
+        LockCheck checkLock,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        return m_permissionHandler.filterPermissions(dbc, resources, requiredPermissions, checkLock, filter);
+    }
+
     /**
      * Returns all resources of organizational units for which the current user has
      * the given role role.<p>
@@ -106,6 +106,31 @@ public class CmsSqlManager {
 
     }
 
+    /**
+     * Returns the pool identified by its full url.<p>
+     *
+     * @param dbPoolUrl the pool url
+     * @return the pool, or <code>null</code> if no such pool is configured
+     */
+    public CmsDbPoolV11 getPool(String dbPoolUrl) {
+
+        return CmsDriverManager.m_pools.get(dbPoolUrl);
+    }
+
+    /**
+     * Returns a connection to a read replica of the pool identified by its full url.<p>
+     *
+     * @param dbPoolUrl the pool url
+     * @return a connection to a read replica, or <code>null</code> if the primary database has to be used
+     *
+     * @see CmsDbPoolV11#getReplicaConnection(java.util.Map)
+     */
+    public Connection getReplicaConnectionByUrl(String dbPoolUrl) {
+
+        CmsDbPoolV11 pool = CmsDriverManager.m_pools.get(dbPoolUrl);
+        return pool != null ? pool.getReplicaConnection(CmsDriverManager.m_pools) : null;
+    }
+
     /**
      * Returns the name of the default database connection pool.<p>
      *
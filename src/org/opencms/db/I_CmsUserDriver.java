@@ -39,8 +39,10 @@ import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPasswordEncryptionException;
 import org.opencms.util.CmsUUID;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Definitions of all required user driver methods. <p>
@@ -600,6 +602,22 @@ public interface I_CmsUserDriver extends I_CmsDriver {
      */
     CmsOrganizationalUnit readOrganizationalUnit(CmsDbContext dbc, String ouFqn) throws CmsDataAccessException;
 
+    /**
+     * Reads which of the given resources have access control entries of their own.<p>
+     *
+     * @param dbc the current database context
+     * @param project the project to read the entries from
+     * @param resourceIds the ids of the resources to check
+     *
+     * @return the ids of the given resources that have at least one access control entry
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Set<CmsUUID> readResourcesWithAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        Collection<CmsUUID> resourceIds) throws CmsDataAccessException;
+
     /**
      * Reads a user based on the user id.<p>
      *
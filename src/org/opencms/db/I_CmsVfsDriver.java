@@ -36,6 +36,7 @@ import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
 import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
@@ -46,6 +47,7 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Definitions of all required VFS driver methods.<p>
@@ -585,6 +587,27 @@ public interface I_CmsVfsDriver {
     List<CmsRelation> readRelations(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, CmsRelationFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the outgoing or incoming relations of a number of resources with a few queries.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to execute the query in
+     * @param structureIds the structure ids of the resources to read the relations for
+     * @param outgoing <code>true</code> to read the relations with the resources as source,
+     *      <code>false</code> to read the relations with the resources as target
+     *
+     * @return the relations sorted by {@link CmsRelation#COMPARATOR}, keyed by the structure id
+     *      of the resource they were read for
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, List<CmsRelation>> readRelations(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean outgoing)
+    throws CmsDataAccessException;
+
     /**
      * Reads a resource specified by it's structure ID.<p>
      *
@@ -627,6 +650,40 @@ public interface I_CmsVfsDriver {
     List<CmsResource> readResources(CmsDbContext dbc, CmsUUID currentProject, CmsResourceState state, int mode)
     throws CmsDataAccessException;
 
+    /**
+     * Reads a number of resources, including deleted resources, by their structure ids with a few queries.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read from
+     * @param structureIds the structure ids of the resources
+     *
+     * @return the existing resources, keyed by their structure id
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, CmsResource> readResourcesByIds(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException;
+
+    /**
+     * Reads a number of resources, including deleted resources, by their root paths with a few queries.<p>
+     *
+     * Like in {@link #readResource(CmsDbContext, CmsUUID, String, boolean)}, a path with a trailing slash
+     * is only found if it is the path of a folder.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read from
+     * @param rootPaths the root paths of the resources
+     *
+     * @return the existing resources, keyed by the given root path
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<String, CmsResource> readResourcesByPaths(CmsDbContext dbc, CmsUUID projectId, Collection<String> rootPaths)
+    throws CmsDataAccessException;
+
     /**
      * Returns all resources associated to a given principal via an ACE.<p>
      *
@@ -732,6 +789,49 @@ public interface I_CmsVfsDriver {
         long expiredBefore,
         int mode) throws CmsDataAccessException;
 
+    /**
+     * Reads all resources inside a given project matching the criteria specified by parameter values,
+     * and passes them to the given handler one by one in the given sort order.<p>
+     *
+     * The parameters have the same meaning as for the list based variant of this method.
+     * Sorting by date released uses the date last modified for resources without a release date.
+     * The reading stops as soon as the handler returns <code>false</code>.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the project id for matching resources
+     * @param parent the path to the resource used as root of the searched subtree, or the UUID of the parent folder
+     * @param type the resource type of matching resources
+     * @param state the state of matching resources or <code>null</code> to ignore
+     * @param startTime the start of the time range for the last modification date of matching resources
+     * @param endTime the end of the time range for the last modification date of matching resources
+     * @param releasedAfter the start of the time range for the release date of matching resources
+     * @param releasedBefore the end of the time range for the release date of matching resources
+     * @param expiredAfter the start of the time range for the expire date of matching resources
+     * @param expiredBefore the end of the time range for the expire date of matching resources
+     * @param mode additional mode flags
+     * @param order the sort order
+     * @param descending if the resources should be read in descending order
+     * @param handler the handler for the resources read
+     *
+     * @throws CmsException if something goes wrong
+     */
+    void readResourceTree(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        String parent,
+        int type,
+        CmsResourceState state,
+        long startTime,
+        long endTime,
+        long releasedAfter,
+        long releasedBefore,
+        long expiredAfter,
+        long expiredBefore,
+        int mode,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        I_CmsResourceReadHandler handler) throws CmsException;
+
     /**
      * Reads the rewrite aliases matching a given filter.<p>
      *
@@ -745,6 +845,20 @@ public interface I_CmsVfsDriver {
     List<CmsRewriteAlias> readRewriteAliases(CmsDbContext dbc, CmsRewriteAliasFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the root paths of a number of resources, including deleted resources, with a few queries.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read from
+     * @param structureIds the structure ids of the resources
+     *
+     * @return the root paths of the existing resources, keyed by their structure id
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, String> readRootPaths(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException;
+
     /**
      * Reads all siblings that point to the resource record of a specified resource.<p>
      *
@@ -762,6 +876,27 @@ public interface I_CmsVfsDriver {
     List<CmsResource> readSiblings(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, boolean includeDeleted)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all siblings of a number of resource records with a few queries.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the current project
+     * @param resourceIds the resource ids of the resource records
+     * @param includeDeleted <code>true</code> if deleted siblings should be included in the result list
+     *
+     * @return the siblings of all given resource records
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     *
+     * @see #readSiblings(CmsDbContext, CmsUUID, CmsResource, boolean)
+     */
+    List<CmsResource> readSiblingsByResourceIds(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> resourceIds,
+        boolean includeDeleted)
+    throws CmsDataAccessException;
+
     /**
      * Reads the URL name mapping entries which match a given filter.<p>
      *
@@ -901,6 +1036,23 @@ public interface I_CmsVfsDriver {
     boolean validateStructureIdExists(CmsDbContext dbc, CmsUUID projectId, CmsUUID structureId)
     throws CmsDataAccessException;
 
+    /**
+     * Checks which of the given root paths exist, including deleted resources, with a few queries.<p>
+     *
+     * Like in {@link #readResource(CmsDbContext, CmsUUID, String, boolean)}, a path with a trailing slash
+     * only exists if it is the path of a folder.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to check
+     * @param rootPaths the root paths to check
+     *
+     * @return the given root paths which exist
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Set<String> validateRootPathsExist(CmsDbContext dbc, CmsUUID projectId, Collection<String> rootPaths)
+    throws CmsDataAccessException;
+
     /**
      * Writes the resource content with the specified resource id.<p>
      *
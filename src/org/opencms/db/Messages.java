@@ -273,6 +273,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_GET_LOCK_1 = "ERR_GET_LOCK_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_GET_LOCKS_0 = "ERR_GET_LOCKS_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_GET_ORGUNITS_1 = "ERR_GET_ORGUNITS_1";
 
@@ -342,6 +345,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INIT_DRIVER_MANAGER_1 = "ERR_INIT_DRIVER_MANAGER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_LOAD_PUBLISH_CLOSURE_1 = "ERR_LOAD_PUBLISH_CLOSURE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_LOCK_RESOURCE_2 = "ERR_LOCK_RESOURCE_2";
 
@@ -840,6 +846,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JDBC_POOL_2 = "INIT_JDBC_POOL_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JDBC_POOL_REPLICAS_2 = "INIT_JDBC_POOL_REPLICAS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_INIT_0 = "INIT_SECURITY_MANAGER_INIT_0";
 
@@ -879,6 +888,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PINNED_CONNECTIONS_RELEASED_4 = "LOG_PINNED_CONNECTIONS_RELEASED_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_READ_REPLICA_UNAVAILABLE_2 = "LOG_READ_REPLICA_UNAVAILABLE_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REQUEST_READ_MEMO_STATS_4 = "LOG_REQUEST_READ_MEMO_STATS_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
@@ -28,6 +28,9 @@
 package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDbPoolV11;
+import org.opencms.db.CmsPinnedConnection;
+import org.opencms.db.I_CmsDriver;
 import org.opencms.file.CmsProject;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
@@ -56,12 +59,18 @@ import org.apache.commons.logging.Log;
  */
 public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
+    /** The maximum number of parameters of a single IN condition used for bulk reads. */
+    public static final int IN_CONDITION_CHUNK_SIZE = 500;
+
     /** A pattern being replaced in SQL queries to generate SQL queries to access online/offline tables. */
     protected static final String QUERY_PROJECT_SEARCH_PATTERN = "_${PROJECT}_";
 
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSqlManager.class);
 
+    /** Prefix for the key of a pinned read replica connection. */
+    private static final String REPLICA_KEY_PREFIX = "replica:";
+
     /** The filename/path of the SQL query properties. */
     private static final String QUERY_PROPERTIES = "org/opencms/db/generic/query.properties";
 
@@ -71,9 +80,15 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** The type ID of the driver (vfs, user, project or history) from where this SQL manager is referenced. */
     protected int m_driverType;
 
+    /** Indicates if connections are pinned to the database contexts of requests. */
+    protected boolean m_pinConnections;
+
     /** The pool URL to get connections from the JDBC driver manager, including DBCP's pool URL prefix. */
     protected String m_poolUrl;
 
+    /** The maximum number of cached prepared statements of a pinned connection. */
+    protected int m_statementCacheSize;
+
     /** A map holding all SQL queries. */
     protected Map<String, String> m_queries;
 
@@ -150,6 +165,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
 
+        CmsPinnedConnection pinned = m_pinConnections ? getPinnedConnection(con, stmnt) : null;
+
         try {
             // first, close the result set
             if (res != null) {
@@ -162,8 +179,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
 
         try {
-            // close the statement
-            if (stmnt != null) {
+            // close the statement, unless it is cached by the pinned connection
+            if ((stmnt != null) && ((pinned == null) || !pinned.releaseStatement(stmnt))) {
                 stmnt.close();
             }
         } catch (SQLException e) {
@@ -173,8 +190,8 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         }
 
         try {
-            // close the connection
-            if ((con != null) && !con.isClosed()) {
+            // close the connection, a pinned connection is closed when the database context is cleared
+            if ((con != null) && (pinned == null) && !con.isClosed()) {
                 con.close();
             }
         } catch (SQLException e) {
@@ -219,6 +236,13 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
         if (dbc == null) {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
+        } else if (m_pinConnections && dbc.isConnectionPinningAllowed()) {
+            CmsPinnedConnection pinned = dbc.getPinnedConnection(m_poolUrl);
+            if ((pinned == null) || !pinned.isOpen()) {
+                pinned = new CmsPinnedConnection(getConnectionByUrl(m_poolUrl), m_statementCacheSize);
+                dbc.pinConnection(m_poolUrl, pinned);
+            }
+            return pinned.getConnection();
         }
         // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
         return getConnectionByUrl(m_poolUrl);
@@ -285,11 +309,59 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public PreparedStatement getPreparedStatementForSql(Connection con, String query) throws SQLException {
 
+        if (m_pinConnections) {
+            CmsPinnedConnection pinned = CmsPinnedConnection.get(con);
+            if (pinned != null) {
+                return pinned.prepareStatement(query);
+            }
+        }
         // unfortunately, this wrapper is essential, because some JDBC driver
         // implementations don't accept the delegated objects of DBCP's connection pool.
         return con.prepareStatement(query);
     }
 
+    /**
+     * Returns a connection for reading data of the given project.<p>
+     *
+     * Reads of online data in a database context that allows it are served by a read replica
+     * of the configured pool, if available. In all other cases this is the same as
+     * {@link #getConnection(CmsDbContext)}. Only use this for read only access.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to read data from
+     *
+     * @return a JDBC connection
+     *
+     * @throws SQLException if the connection could not be created
+     *
+     * @see CmsDbContext#isReadReplicaAllowed()
+     */
+    public Connection getReadConnection(CmsDbContext dbc, CmsUUID projectId) throws SQLException {
+
+        if ((dbc != null) && CmsProject.isOnlineProject(projectId) && dbc.isReadReplicaAllowed()) {
+            if (m_pinConnections && dbc.isConnectionPinningAllowed()) {
+                String replicaKey = REPLICA_KEY_PREFIX + m_poolUrl;
+                CmsPinnedConnection pinned = dbc.getPinnedConnection(replicaKey);
+                if ((pinned == null) || !pinned.isOpen()) {
+                    Connection con = getReplicaConnectionByUrl(m_poolUrl);
+                    if (con != null) {
+                        pinned = new CmsPinnedConnection(con, m_statementCacheSize);
+                        dbc.pinConnection(replicaKey, pinned);
+                    }
+                }
+                if (pinned != null) {
+                    return pinned.getConnection();
+                }
+            } else {
+                Connection con = getReplicaConnectionByUrl(m_poolUrl);
+                if (con != null) {
+                    return con;
+                }
+            }
+        }
+        return getConnection(dbc);
+    }
+
     /**
      * Initializes this SQL manager.<p>
      *
@@ -300,7 +372,36 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
         m_driverType = driverType;
         m_poolUrl = poolUrl;
+        CmsDbPoolV11 pool = getPool(poolUrl);
+        if (pool != null) {
+            m_pinConnections = pool.isPinConnections();
+            m_statementCacheSize = pool.getStatementCacheSize();
+        }
+
+    }
 
+    /**
+     * Returns an IN condition with the given number of parameters.<p>
+     *
+     * The condition is appended to a query ending with <code>IN</code>.<p>
+     *
+     * @param count the number of parameters
+     *
+     * @return the IN condition
+     */
+    public String prepareInCondition(int count) {
+
+        StringBuffer condition = new StringBuffer(
+            I_CmsDriver.BEGIN_CONDITION.length() + (count * 2) + I_CmsDriver.END_CONDITION.length());
+        condition.append(I_CmsDriver.BEGIN_CONDITION);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                condition.append(",");
+            }
+            condition.append("?");
+        }
+        condition.append(I_CmsDriver.END_CONDITION);
+        return condition.toString();
     }
 
     /**
@@ -485,4 +586,24 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             m_queries.put(currentKey, currentValue);
         }
     }
+
+    /**
+     * Returns the pinned connection a connection or statement belongs to.<p>
+     *
+     * @param con the JDBC connection, may be <code>null</code>
+     * @param stmnt the statement, may be <code>null</code>
+     *
+     * @return the pinned connection, or <code>null</code> if the connection is not pinned
+     */
+    private CmsPinnedConnection getPinnedConnection(Connection con, Statement stmnt) {
+
+        if ((con == null) && (stmnt != null)) {
+            try {
+                con = stmnt.getConnection();
+            } catch (SQLException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        return CmsPinnedConnection.get(con);
+    }
 }
@@ -84,13 +84,16 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 
 import org.apache.commons.logging.Log;
@@ -1087,7 +1090,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             if (resource.equals(CmsAccessControlEntry.PRINCIPAL_READALL_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_READ_ENTRIES_0");
             } else {
@@ -1135,7 +1138,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_READ_ENTRY_2");
 
             stmt.setString(1, resource.toString());
@@ -1357,6 +1360,55 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#readResourcesWithAccessControlEntries(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.Collection)
+     */
+    public Set<CmsUUID> readResourcesWithAccessControlEntries(
+        CmsDbContext dbc,
+        CmsProject project,
+        Collection<CmsUUID> resourceIds)
+    throws CmsDataAccessException {
+
+        Set<CmsUUID> result = new HashSet<CmsUUID>();
+        List<String> ids = new ArrayList<String>(resourceIds.size());
+        for (CmsUUID resourceId : resourceIds) {
+            ids.add(resourceId.toString());
+        }
+        String query = m_sqlManager.readQuery(project, "C_ACCESS_READ_RESOURCE_IDS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
+            for (int start = 0; start < ids.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = ids.subList(
+                    start,
+                    Math.min(ids.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.add(new CmsUUID(res.getString(m_sqlManager.readQuery("C_ACCESS_RESOURCE_ID_0"))));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#readUser(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID)
      */
@@ -1799,9 +1851,11 @@ public class CmsUserDriver implements I_CmsUserDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
-        for (CmsUser user : users) {
-            Map<String, Object> info = readUserInfos(dbc, user.getId());
-            user.setAdditionalInfo(info);
+        if (searchParams.isReadAdditionalInfo()) {
+            for (CmsUser user : users) {
+                Map<String, Object> info = readUserInfos(dbc, user.getId());
+                user.setAdditionalInfo(info);
+            }
         }
         return users;
     }
@@ -31,6 +31,7 @@ import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsAlias;
 import org.opencms.db.CmsAliasFilter;
+import org.opencms.db.CmsChildResourceIndex;
 import org.opencms.db.CmsDbConsistencyException;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbEntryNotFoundException;
@@ -46,6 +47,7 @@ import org.opencms.db.CmsVfsOnlineResourceAlreadyExistsException;
 import org.opencms.db.I_CmsDriver;
 import org.opencms.db.I_CmsPreparedStatementParameter;
 import org.opencms.db.I_CmsProjectDriver;
+import org.opencms.db.I_CmsResourceReadHandler;
 import org.opencms.db.I_CmsVfsDriver;
 import org.opencms.db.urlname.CmsUrlNameMappingEntry;
 import org.opencms.db.urlname.CmsUrlNameMappingFilter;
@@ -112,6 +114,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsVfsDriver.class);
 
+    /** The fetch size used when streaming the resources of a tree. */
+    private static final int RESOURCE_TREE_FETCH_SIZE = 100;
+
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
@@ -1762,7 +1767,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         ResultSet res = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             CmsPair<String, List<String>> conditionPair = buildAliasConditions(filter);
             String conditionString = conditionPair.getFirst();
             List<String> conditionParams = conditionPair.getSecond();
@@ -1823,7 +1828,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         ResultSet res = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
             stmt.setString(1, resource.getStructureId().toString());
             res = stmt.executeQuery();
@@ -1860,7 +1865,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         byte[] byteRes = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
             } else {
@@ -1903,7 +1908,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
             stmt.setString(1, folderId.toString());
             res = stmt.executeQuery();
@@ -1940,7 +1945,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         folderPath = CmsFileUtil.removeTrailingSeparator(folderPath);
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, folderPath);
@@ -1978,7 +1983,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         Connection conn = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ_PARENT_BY_ID");
             stmt.setString(1, structureId.toString());
             res = stmt.executeQuery();
@@ -2094,7 +2099,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resultSize = 0;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READ");
 
             stmt.setString(1, key);
@@ -2167,7 +2172,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsProperty property;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_READALL");
             stmt.setString(1, resource.getStructureId().toString());
             stmt.setString(2, resource.getResourceId().toString());
@@ -2234,7 +2239,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         ResultSet res = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (filter.isSource()) {
                 List<Object> params = new ArrayList<Object>(7);
 
@@ -2297,6 +2302,72 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public Map<CmsUUID, List<CmsRelation>> readRelations(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        boolean outgoing)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, Set<CmsRelation>> relations = new HashMap<CmsUUID, Set<CmsRelation>>();
+        List<String> ids = new ArrayList<String>(structureIds.size());
+        for (CmsUUID structureId : structureIds) {
+            ids.add(structureId.toString());
+        }
+        String query = m_sqlManager.readQuery(
+            projectId,
+            outgoing ? "C_RELATIONS_READ_BY_SOURCE_IDS" : "C_RELATIONS_READ_BY_TARGET_IDS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            for (int start = 0; start < ids.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = ids.subList(
+                    start,
+                    Math.min(ids.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsRelation relation = internalReadRelation(res);
+                    CmsUUID key = outgoing ? relation.getSourceId() : relation.getTargetId();
+                    Set<CmsRelation> resourceRelations = relations.get(key);
+                    if (resourceRelations == null) {
+                        resourceRelations = new HashSet<CmsRelation>();
+                        relations.put(key, resourceRelations);
+                    }
+                    resourceRelations.add(relation);
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsRelation>> result = new HashMap<CmsUUID, List<CmsRelation>>();
+        for (Map.Entry<CmsUUID, Set<CmsRelation>> entry : relations.entrySet()) {
+            List<CmsRelation> resourceRelations = new ArrayList<CmsRelation>(entry.getValue());
+            Collections.sort(resourceRelations, CmsRelation.COMPARATOR);
+            result.put(entry.getKey(), resourceRelations);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID, boolean)
      */
@@ -2309,7 +2380,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
 
             stmt.setString(1, structureId.toString());
@@ -2360,7 +2431,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         boolean endsWithSlash = (len != path.length());
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, path);
@@ -2457,6 +2528,124 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourcesByIds(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<CmsUUID, CmsResource> readResourcesByIds(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, CmsResource> result = new HashMap<CmsUUID, CmsResource>();
+        List<String> ids = new ArrayList<String>(structureIds.size());
+        for (CmsUUID structureId : structureIds) {
+            ids.add(structureId.toString());
+        }
+        String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_BY_IDS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            for (int start = 0; start < ids.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = ids.subList(
+                    start,
+                    Math.min(ids.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsResource resource = createResource(res, projectId);
+                    result.put(resource.getStructureId(), resource);
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourcesByPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<String, CmsResource> readResourcesByPaths(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<String> rootPaths)
+    throws CmsDataAccessException {
+
+        Map<String, CmsResource> result = new HashMap<String, CmsResource>();
+        // the paths are stored without trailing slash
+        Map<String, List<String>> pathsByStoredPath = new HashMap<String, List<String>>();
+        for (String rootPath : rootPaths) {
+            String storedPath = CmsFileUtil.removeTrailingSeparator(rootPath);
+            List<String> paths = pathsByStoredPath.get(storedPath);
+            if (paths == null) {
+                paths = new ArrayList<String>(1);
+                pathsByStoredPath.put(storedPath, paths);
+            }
+            paths.add(rootPath);
+        }
+        List<String> storedPaths = new ArrayList<String>(pathsByStoredPath.keySet());
+        String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_BY_PATHS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            for (int start = 0; start < storedPaths.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = storedPaths.subList(
+                    start,
+                    Math.min(storedPaths.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String storedPath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
+                    List<String> paths = pathsByStoredPath.get(storedPath);
+                    if (paths == null) {
+                        continue;
+                    }
+                    CmsResource resource = createResource(res, projectId);
+                    for (String path : paths) {
+                        // a file is not allowed to end with a "/"
+                        if (resource.isFolder() || (path.length() == storedPath.length())) {
+                            result.put(path, resource);
+                        }
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResourcesForPrincipalACE(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.util.CmsUUID)
      */
@@ -2541,7 +2730,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (value == null) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_GET_RESOURCE_WITH_PROPERTYDEF");
                 stmt.setString(1, propertyDef.toString());
@@ -2596,19 +2785,20 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     throws CmsDataAccessException {
 
         List<CmsResource> result = new ArrayList<CmsResource>();
-
-        StringBuffer conditions = new StringBuffer();
         List<Object> params = new ArrayList<Object>(5);
-
-        // prepare the selection criteria
-        prepareProjectCondition(projectId, mode, conditions, params);
-        prepareResourceCondition(projectId, mode, conditions);
-        prepareTypeCondition(projectId, type, mode, conditions, params);
-        prepareTimeRangeCondition(projectId, lastModifiedAfter, lastModifiedBefore, conditions, params);
-        prepareReleasedTimeRangeCondition(projectId, releasedAfter, releasedBefore, conditions, params);
-        prepareExpiredTimeRangeCondition(projectId, expiredAfter, expiredBefore, conditions, params);
-        preparePathCondition(projectId, parentPath, mode, conditions, params);
-        prepareStateCondition(projectId, state, mode, conditions, params);
+        String query = prepareResourceTreeQuery(
+            projectId,
+            parentPath,
+            type,
+            state,
+            lastModifiedAfter,
+            lastModifiedBefore,
+            releasedAfter,
+            releasedBefore,
+            expiredAfter,
+            expiredBefore,
+            mode,
+            params);
 
         // now read matching resources within the subtree
         ResultSet res = null;
@@ -2616,23 +2806,11 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            StringBuffer queryBuf = new StringBuffer(256);
-            queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
-            queryBuf.append(conditions);
-            queryBuf.append(" ");
-            queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_ORDER_BY_PATH"));
-            stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
-
-            for (int i = 0; i < params.size(); i++) {
-                if (params.get(i) instanceof Integer) {
-                    stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
-                } else if (params.get(i) instanceof Long) {
-                    stmt.setLong(i + 1, ((Long)params.get(i)).longValue());
-                } else {
-                    stmt.setString(i + 1, (String)params.get(i));
-                }
-            }
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatementForSql(
+                conn,
+                query + " " + m_sqlManager.readQuery(projectId, "C_RESOURCES_ORDER_BY_PATH"));
+            CmsDbUtil.fillParameters(stmt, params);
 
             res = stmt.executeQuery();
             while (res.next()) {
@@ -2651,6 +2829,85 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readResourceTree(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.lang.String, int, org.opencms.db.CmsResourceState, long, long, long, long, long, long, int, org.opencms.db.CmsChildResourceIndex.Order, boolean, org.opencms.db.I_CmsResourceReadHandler)
+     */
+    public void readResourceTree(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        String parentPath,
+        int type,
+        CmsResourceState state,
+        long lastModifiedAfter,
+        long lastModifiedBefore,
+        long releasedAfter,
+        long releasedBefore,
+        long expiredAfter,
+        long expiredBefore,
+        int mode,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        I_CmsResourceReadHandler handler)
+    throws CmsException {
+
+        List<Object> params = new ArrayList<Object>(5);
+        String query = prepareResourceTreeQuery(
+            projectId,
+            parentPath,
+            type,
+            state,
+            lastModifiedAfter,
+            lastModifiedBefore,
+            releasedAfter,
+            releasedBefore,
+            expiredAfter,
+            expiredBefore,
+            mode,
+            params);
+        String orderQuery;
+        switch (order) {
+            case DATE_LAST_MODIFIED:
+                orderQuery = "C_RESOURCES_ORDER_BY_DATE_LASTMODIFIED";
+                break;
+            case DATE_RELEASED:
+                orderQuery = "C_RESOURCES_ORDER_BY_DATE_RELEASED";
+                break;
+            case ROOT_PATH:
+            default:
+                orderQuery = "C_RESOURCES_ORDER_BY_PATH";
+        }
+        if (descending) {
+            orderQuery += "_DESC";
+        }
+
+        ResultSet res = null;
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            stmt = m_sqlManager.getPreparedStatementForSql(
+                conn,
+                query + " " + m_sqlManager.readQuery(projectId, orderQuery));
+            CmsDbUtil.fillParameters(stmt, params);
+            // the rows are handled one by one, so do not let the driver fetch all of them at once
+            stmt.setFetchSize(RESOURCE_TREE_FETCH_SIZE);
+
+            res = stmt.executeQuery();
+            while (res.next()) {
+                if (!handler.handleResource(createResource(res, projectId))) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRewriteAliases(org.opencms.db.CmsDbContext, org.opencms.db.CmsRewriteAliasFilter)
      */
@@ -2694,6 +2951,58 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readRootPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<CmsUUID, String> readRootPaths(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, String> result = new HashMap<CmsUUID, String>();
+        List<String> ids = new ArrayList<String>(structureIds.size());
+        for (CmsUUID structureId : structureIds) {
+            ids.add(structureId.toString());
+        }
+        String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_PATHS_BY_IDS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            for (int start = 0; start < ids.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = ids.subList(
+                    start,
+                    Math.min(ids.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String rootPath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
+                    if (CmsFolder.isFolderSize(res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE")))) {
+                        rootPath = CmsFileUtil.addTrailingSeparator(rootPath);
+                    }
+                    CmsUUID structureId = new CmsUUID(
+                        res.getString(m_sqlManager.readQuery("C_RESOURCES_STRUCTURE_ID")));
+                    result.put(structureId, rootPath);
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readSiblings(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, boolean)
      */
@@ -2711,7 +3020,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         List<CmsResource> vfsLinks = new ArrayList<CmsResource>();
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
 
             if (includeDeleted) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_SELECT_VFS_SIBLINGS");
@@ -2737,6 +3046,58 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return vfsLinks;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readSiblingsByResourceIds(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readSiblingsByResourceIds(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> resourceIds,
+        boolean includeDeleted)
+    throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        List<String> ids = new ArrayList<String>(resourceIds.size());
+        for (CmsUUID resourceId : resourceIds) {
+            ids.add(resourceId.toString());
+        }
+        String query = m_sqlManager.readQuery(
+            projectId,
+            includeDeleted ? "C_SELECT_VFS_SIBLINGS_BY_IDS" : "C_SELECT_NONDELETED_VFS_SIBLINGS_BY_IDS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            for (int start = 0; start < ids.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = ids.subList(
+                    start,
+                    Math.min(ids.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.add(createFile(res, projectId, false));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * Reads the URL name mapping entries which match a given filter.<p>
      *
@@ -3164,6 +3525,71 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return found;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#validateRootPathsExist(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Set<String> validateRootPathsExist(CmsDbContext dbc, CmsUUID projectId, Collection<String> rootPaths)
+    throws CmsDataAccessException {
+
+        Set<String> result = new HashSet<String>();
+        // the paths are stored without trailing slash
+        Map<String, List<String>> pathsByStoredPath = new HashMap<String, List<String>>();
+        for (String rootPath : rootPaths) {
+            String storedPath = CmsFileUtil.removeTrailingSeparator(rootPath);
+            List<String> paths = pathsByStoredPath.get(storedPath);
+            if (paths == null) {
+                paths = new ArrayList<String>(1);
+                pathsByStoredPath.put(storedPath, paths);
+            }
+            paths.add(rootPath);
+        }
+        List<String> storedPaths = new ArrayList<String>(pathsByStoredPath.keySet());
+        String query = m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_PATHS_BY_PATHS");
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
+            for (int start = 0; start < storedPaths.size(); start += CmsSqlManager.IN_CONDITION_CHUNK_SIZE) {
+                List<String> chunk = storedPaths.subList(
+                    start,
+                    Math.min(storedPaths.size(), start + CmsSqlManager.IN_CONDITION_CHUNK_SIZE));
+                stmt = m_sqlManager.getPreparedStatementForSql(
+                    conn,
+                    query + m_sqlManager.prepareInCondition(chunk.size()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String storedPath = res.getString(m_sqlManager.readQuery("C_RESOURCES_RESOURCE_PATH"));
+                    boolean isFolder = CmsFolder.isFolderSize(res.getInt(m_sqlManager.readQuery("C_RESOURCES_SIZE")));
+                    List<String> paths = pathsByStoredPath.get(storedPath);
+                    if (paths == null) {
+                        continue;
+                    }
+                    for (String path : paths) {
+                        // a file is not allowed to end with a "/"
+                        if (isFolder || (path.length() == storedPath.length())) {
+                            result.add(path);
+                        }
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(
+                Messages.get().container(Messages.ERR_GENERIC_SQL_1, CmsDbSqlException.getErrorQuery(stmt)),
+                e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#writeContent(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, byte[])
      */
@@ -4400,6 +4826,56 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Builds the query to read the resources of a tree matching the given criteria, without the order clause.<p>
+     *
+     * @param projectId the project id for matching resources
+     * @param parentPath the parent path or UUID (if mode is C_READMODE_EXCLUDE_TREE)
+     * @param type the resource type of matching resources
+     * @param state the state of matching resources or <code>null</code> to ignore
+     * @param lastModifiedAfter the start of the time range for the last modification date of matching resources
+     * @param lastModifiedBefore the end of the time range for the last modification date of matching resources
+     * @param releasedAfter the start of the time range for the release date of matching resources
+     * @param releasedBefore the end of the time range for the release date of matching resources
+     * @param expiredAfter the start of the time range for the expire date of matching resources
+     * @param expiredBefore the end of the time range for the expire date of matching resources
+     * @param mode the selection mode
+     * @param params list to append the selection parameters
+     *
+     * @return the query
+     */
+    protected String prepareResourceTreeQuery(
+        CmsUUID projectId,
+        String parentPath,
+        int type,
+        CmsResourceState state,
+        long lastModifiedAfter,
+        long lastModifiedBefore,
+        long releasedAfter,
+        long releasedBefore,
+        long expiredAfter,
+        long expiredBefore,
+        int mode,
+        List<Object> params) {
+
+        StringBuffer conditions = new StringBuffer();
+
+        // prepare the selection criteria
+        prepareProjectCondition(projectId, mode, conditions, params);
+        prepareResourceCondition(projectId, mode, conditions);
+        prepareTypeCondition(projectId, type, mode, conditions, params);
+        prepareTimeRangeCondition(projectId, lastModifiedAfter, lastModifiedBefore, conditions, params);
+        prepareReleasedTimeRangeCondition(projectId, releasedAfter, releasedBefore, conditions, params);
+        prepareExpiredTimeRangeCondition(projectId, expiredAfter, expiredBefore, conditions, params);
+        preparePathCondition(projectId, parentPath, mode, conditions, params);
+        prepareStateCondition(projectId, state, mode, conditions, params);
+
+        StringBuffer queryBuf = new StringBuffer(256);
+        queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
+        queryBuf.append(conditions);
+        return queryBuf.toString();
+    }
+
     /**
      * Appends the appropriate selection criteria related with the resource state.<p>
      *
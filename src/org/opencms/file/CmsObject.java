@@ -27,7 +27,9 @@
 
 package org.opencms.file;
 
+import org.opencms.db.CmsChildResourceIndex;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsPublishClosure;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsSecurityManager;
@@ -68,6 +70,7 @@ import org.opencms.util.CmsUUID;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -1616,6 +1619,23 @@ public final class CmsObject {
         return m_securityManager.getLockedResourcesObjectsWithCache(m_context, resource, filter, cache);
     }
 
+    /**
+     * Returns the lock states of a list of resources.<p>
+     *
+     * This gives the same results as calling {@link #getLock(CmsResource)} for every resource,
+     * but is faster for many resources of the same folders.<p>
+     *
+     * @param resources the resources to return the lock states for
+     *
+     * @return the lock states of the resources, in the same order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsLock> getLocks(List<CmsResource> resources) throws CmsException {
+
+        return m_securityManager.getLocks(m_context, resources);
+    }
+
     /**
      * Returns all log entries matching the given filter.<p>
      *
@@ -1812,6 +1832,37 @@ public final class CmsObject {
         return m_securityManager.readChildResources(m_context, resource, filter, true, true);
     }
 
+    /**
+     * Returns a page of the child resources of a folder, in the given sort order.<p>
+     *
+     * Use this instead of reading all child resources and sorting them, if only the first few
+     * children of a folder are needed, or if the children of a large folder are displayed page by page.
+     * To read the next page, pass the last resource of the current page as <code>after</code> parameter.<p>
+     *
+     * @param resourcename the full current site relative path of the folder to return the child resources for
+     * @param filter the resource filter to use
+     * @param order the sort order
+     * @param descending if the children should be returned in descending order
+     * @param after the last resource of the previous page, or <code>null</code> to read the first page
+     * @param limit the maximum number of children to return, <code>0</code> or less for no limit
+     *
+     * @return a page of the child <code>{@link CmsResource}</code>s
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> getResourcesInFolder(
+        String resourcename,
+        CmsResourceFilter filter,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        CmsResource after,
+        int limit)
+    throws CmsException {
+
+        CmsResource resource = readResource(resourcename, CmsResourceFilter.ALL);
+        return m_securityManager.readChildResources(m_context, resource, filter, order, descending, after, limit);
+    }
+
     /**
      * Adjusts the absolute resource root path for the current site.<p>
      *
@@ -2114,6 +2165,22 @@ public final class CmsObject {
         return m_securityManager.isManagerOfProject(m_context);
     }
 
+    /**
+     * Loads the relations, the relation targets and the parent folders of the given resources into
+     * a publish closure, with a few queries for all resources.<p>
+     *
+     * Relation targets and parent folders the current user can not read are treated like missing resources.<p>
+     *
+     * @param closure the publish closure to load the data into
+     * @param resources the resources to load
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void loadPublishClosure(CmsPublishClosure closure, Collection<CmsResource> resources) throws CmsException {
+
+        m_securityManager.loadPublishClosure(m_context, closure, resources);
+    }
+
     /**
      * Locks a resource.<p>
      *
@@ -3302,6 +3369,36 @@ public final class CmsObject {
         return m_securityManager.readResources(m_context, resource, filter, readTree);
     }
 
+    /**
+     * Reads the first resources below the given path matching the filter criteria, in the given sort order.<p>
+     *
+     * Use this instead of reading and sorting all resources if only the first few resources are required,
+     * e.g. for the latest news of a folder tree.<p>
+     *
+     * @param resourcename the parent path to read the resources from
+     * @param filter the filter
+     * @param readTree <code>true</code> to read all sub resources
+     * @param order the sort order
+     * @param descending if the resources should be returned in descending order
+     * @param limit the maximum number of resources to return, <code>0</code> or less for no limit
+     *
+     * @return a list of <code>{@link CmsResource}</code> objects matching the filter criteria
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readResources(
+        String resourcename,
+        CmsResourceFilter filter,
+        boolean readTree,
+        CmsChildResourceIndex.Order order,
+        boolean descending,
+        int limit)
+    throws CmsException {
+
+        CmsResource resource = readResource(resourcename, CmsResourceFilter.ALL);
+        return m_securityManager.readResources(m_context, resource, filter, readTree, order, descending, limit);
+    }
+
     /**
      * Reads all resources that have a value set for the specified property.<p>
      *
@@ -114,6 +114,9 @@ public class CmsUserSearchParameters {
     /** The maximum results page size. */
     private int m_pageSize = -1;
 
+    /** If false, the additional infos of the resulting users are not read. */
+    private boolean m_readAdditionalInfo = true;
+
     /** If true, and an OU has been set, users of sub-OUs will also be retrieved. */
     private boolean m_recursiveOrgUnits;
 
@@ -321,6 +324,16 @@ public class CmsUserSearchParameters {
         return m_filterCore;
     }
 
+    /**
+     * Returns true if the additional infos of the resulting users should be read.<p>
+     *
+     * @return true if the additional infos of the resulting users should be read
+     */
+    public boolean isReadAdditionalInfo() {
+
+        return m_readAdditionalInfo;
+    }
+
     /**
      * Return true if core users should not be filtered out if filtering by flag.<p>
      *
@@ -475,6 +488,18 @@ public class CmsUserSearchParameters {
         m_page = page;
     }
 
+    /**
+     * Enables or disables reading the additional infos of the resulting users.<p>
+     *
+     * Users returned without additional infos have to be read again before their additional infos are used.<p>
+     *
+     * @param readAdditionalInfo if false, the additional infos are not read
+     */
+    public void setReadAdditionalInfo(boolean readAdditionalInfo) {
+
+        m_readAdditionalInfo = readAdditionalInfo;
+    }
+
     /**
      * Enables fetching of users of sub-OUs (if an OU has been set).<p>
      *
@@ -400,6 +400,19 @@ public abstract class A_CmsResourceCollector implements I_CmsResourceCollector {
         return getCreateInFolder(cms, new CmsCollectorData(param));
     }
 
+    /**
+     * Returns the maximum number of results to read.<p>
+     *
+     * @param maxSize the maximum size of the result
+     * @param explicitNumResults the numResults parameter given to the getResults method, overrides maxSize if positive
+     *
+     * @return the maximum number of results, <code>0</code> or less for no limit
+     */
+    protected int getResultLimit(int maxSize, int explicitNumResults) {
+
+        return explicitNumResults > 0 ? explicitNumResults : maxSize;
+    }
+
     /**
      * Shrinks a List to fit a maximum size.<p>
      *
@@ -429,6 +442,6 @@ public abstract class A_CmsResourceCollector implements I_CmsResourceCollector {
      */
     protected List<CmsResource> shrinkToFit(List<CmsResource> result, int maxSize, int explicitNumResults) {
 
-        return shrinkToFit(result, explicitNumResults > 0 ? explicitNumResults : maxSize);
+        return shrinkToFit(result, getResultLimit(maxSize, explicitNumResults));
     }
 }
\ No newline at end of file
@@ -27,11 +27,11 @@
 
 package org.opencms.file.collectors;
 
+import org.opencms.db.CmsChildResourceIndex;
 import org.opencms.file.CmsDataAccessException;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
-import org.opencms.file.I_CmsResource;
 import org.opencms.jsp.CmsJspNavBuilder;
 import org.opencms.jsp.CmsJspNavElement;
 import org.opencms.main.CmsException;
@@ -234,9 +234,14 @@ public class CmsDefaultResourceCollector extends A_CmsResourceCollector {
             // include all not yet released and expired resources in an offline project
             filter = filter.addExcludeTimerange();
         }
-        List<CmsResource> result = cms.readResources(foldername, filter, tree);
-
-        Collections.sort(result, I_CmsResource.COMPARE_DATE_RELEASED);
+        // only the first resources are read from the database, already in the right order
+        List<CmsResource> result = cms.readResources(
+            foldername,
+            filter,
+            tree,
+            CmsChildResourceIndex.Order.DATE_RELEASED,
+            true,
+            getResultLimit(data.getCount(), numResults));
 
         return shrinkToFit(result, data.getCount(), numResults);
     }
@@ -329,10 +334,14 @@ public class CmsDefaultResourceCollector extends A_CmsResourceCollector {
             // include all not yet released and expired resources in an offline project
             filter = filter.addExcludeTimerange();
         }
-        List<CmsResource> result = cms.readResources(foldername, filter, tree);
-
-        Collections.sort(result, I_CmsResource.COMPARE_ROOT_PATH);
-        Collections.reverse(result);
+        // only the first resources are read from the database, already in the right order
+        List<CmsResource> result = cms.readResources(
+            foldername,
+            filter,
+            tree,
+            CmsChildResourceIndex.Order.ROOT_PATH,
+            true,
+            getResultLimit(data.getCount(), numResults));
 
         return shrinkToFit(result, data.getCount(), numResults);
     }
@@ -0,0 +1,173 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.flex.CmsFlexBucketConfiguration.BucketSet;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from Flex cache bucket names to the Flex cache entries assigned to these buckets.<p>
+ *
+ * The index is maintained when entries are added to or removed from the Flex cache, so that on publish
+ * only the entries in the buckets of the publish list have to be looked at, instead of matching the
+ * bucket sets of all cached entries.<p>
+ *
+ * Entries without a bucket set are kept separately, since they have to be removed for every publish job.<p>
+ */
+public class CmsFlexBucketIndex implements I_CmsMemoryMonitorable {
+
+    /** Estimated memory size of a single reference from a bucket to an entry. */
+    private static final int BUCKET_REFERENCE_SIZE = 48;
+
+    /** Estimated memory size of an indexed entry, without its bucket references. */
+    private static final int ENTRY_SIZE = 64;
+
+    /** The entries by bucket name. */
+    private Map<String, Set<CmsFlexCacheEntry>> m_buckets = new ConcurrentHashMap<String, Set<CmsFlexCacheEntry>>();
+
+    /** The bucket names of all indexed entries. */
+    private Map<CmsFlexCacheEntry, List<String>> m_entries = new ConcurrentHashMap<CmsFlexCacheEntry, List<String>>();
+
+    /** The number of references from buckets to entries. */
+    private volatile int m_referenceCount;
+
+    /** The entries without a bucket set. */
+    private Set<CmsFlexCacheEntry> m_unbucketed = Collections.newSetFromMap(
+        new ConcurrentHashMap<CmsFlexCacheEntry, Boolean>());
+
+    /**
+     * Removes all entries from the index.<p>
+     */
+    public synchronized void clear() {
+
+        m_buckets.clear();
+        m_entries.clear();
+        m_unbucketed.clear();
+        m_referenceCount = 0;
+    }
+
+    /**
+     * Returns the entries that have to be removed from the Flex cache for the given bucket set of a publish list.<p>
+     *
+     * These are all entries sharing at least one bucket with the publish list, and all entries without bucket set,
+     * i.e. the entries for which {@link BucketSet#matchForDeletion(BucketSet)} returns <code>true</code>.<p>
+     *
+     * @param publishListBucketSet the bucket set of the publish list
+     *
+     * @return a copy of the entries to remove
+     */
+    public Set<CmsFlexCacheEntry> getEntriesForDeletion(BucketSet publishListBucketSet) {
+
+        Set<CmsFlexCacheEntry> result = new HashSet<CmsFlexCacheEntry>(m_unbucketed);
+        for (String bucket : publishListBucketSet.getBucketNames()) {
+            Set<CmsFlexCacheEntry> entries = m_buckets.get(bucket);
+            if (entries != null) {
+                result.addAll(entries);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the estimated memory overhead of this index in bytes.<p>
+     *
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        return (m_entries.size() * ENTRY_SIZE) + (m_referenceCount * BUCKET_REFERENCE_SIZE);
+    }
+
+    /**
+     * Returns the number of indexed entries.<p>
+     *
+     * @return the number of indexed entries
+     */
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Adds an entry with its current bucket set to the index.<p>
+     *
+     * @param entry the entry to add
+     */
+    synchronized void add(CmsFlexCacheEntry entry) {
+
+        remove(entry);
+        BucketSet bucketSet = entry.getBucketSet();
+        if (bucketSet == null) {
+            m_unbucketed.add(entry);
+            m_entries.put(entry, Collections.<String> emptyList());
+            return;
+        }
+        List<String> buckets = bucketSet.getBucketNames();
+        for (String bucket : buckets) {
+            Set<CmsFlexCacheEntry> entries = m_buckets.get(bucket);
+            if (entries == null) {
+                entries = Collections.newSetFromMap(new ConcurrentHashMap<CmsFlexCacheEntry, Boolean>());
+                m_buckets.put(bucket, entries);
+            }
+            entries.add(entry);
+        }
+        m_entries.put(entry, buckets);
+        m_referenceCount += buckets.size();
+    }
+
+    /**
+     * Removes an entry from the index.<p>
+     *
+     * @param entry the entry to remove
+     */
+    synchronized void remove(CmsFlexCacheEntry entry) {
+
+        List<String> buckets = m_entries.remove(entry);
+        if (buckets == null) {
+            return;
+        }
+        m_unbucketed.remove(entry);
+        for (String bucket : buckets) {
+            Set<CmsFlexCacheEntry> entries = m_buckets.get(bucket);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty()) {
+                    m_buckets.remove(bucket);
+                }
+            }
+        }
+        m_referenceCount -= buckets.size();
+    }
+}
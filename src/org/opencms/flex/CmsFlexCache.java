@@ -31,6 +31,7 @@ import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
 import org.opencms.flex.CmsFlexBucketConfiguration.BucketSet;
 import org.opencms.loader.CmsJspLoader;
 import org.opencms.main.CmsException;
@@ -235,12 +236,18 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** The Flex bucket configuration. */
     private CmsFlexBucketConfiguration m_bucketConfiguration;
 
+    /** The index of the cached entries by Flex cache bucket. */
+    private CmsFlexBucketIndex m_bucketIndex;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
     /** The CMS object used for VFS operations. */
     private CmsObject m_cmsObject;
 
+    /** The index of the cached entries by their VFS dependencies, null if dependency tracking is disabled. */
+    private CmsFlexDependencyIndex m_dependencyIndex;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
@@ -279,6 +286,12 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             m_keyCache = Collections.synchronizedMap(
                 CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
             OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            m_bucketIndex = new CmsFlexBucketIndex();
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_bucketIndex", m_bucketIndex);
+            if (configuration.isDependencyTracking()) {
+                m_dependencyIndex = new CmsFlexDependencyIndex();
+                OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_dependencyIndex", m_dependencyIndex);
+            }
 
             OpenCms.addCmsEventListener(
                 this,
@@ -385,6 +398,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                             }
                             // Make sure no entries built for the old configuration remain in the cache
                             clear();
+                        } else if ((m_dependencyIndex != null)
+                            && clearDependentEntries(publishId, publishedResources)) {
+                            // only the entries depending on the published resources have been removed
                         } else if (bucketConfig != null) {
                             boolean bucketClearOk = clearBucketsForPublishList(
                                 bucketConfig,
@@ -595,6 +611,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Indicates if the VFS dependencies of the cache entries are tracked.<p>
+     *
+     * @return true if the dependencies are tracked, false if not
+     */
+    public boolean isDependencyTracking() {
+
+        return m_dependencyIndex != null;
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -742,12 +768,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         key.getResource(),
                         variation));
             }
-            put(key, entry, variation);
-            if (m_bucketConfiguration != null) {
+            CmsFlexBucketConfiguration bucketConfig = m_bucketConfiguration;
+            if (bucketConfig != null) {
+                // the bucket set must be known before the entry is added to the bucket index
                 try {
                     List<String> paths = key.getPathsForBuckets(requestKey);
                     if (paths.size() > 0) {
-                        BucketSet buckets = m_bucketConfiguration.getBucketSet(paths);
+                        BucketSet buckets = bucketConfig.getBucketSet(paths);
                         entry.setBucketSet(buckets);
                     } else {
                         entry.setBucketSet(null); // bucket set of null means entries will be deleted for every publish job
@@ -756,6 +783,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                     LOG.error(e.getLocalizedMessage(), e);
                 }
             }
+            put(key, entry, variation);
             // Note that duplicates are NOT checked, it it assumed that this is done beforehand,
             // while checking if the entry is already in the cache or not.
             return true;
@@ -802,6 +830,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         m_size = 0;
 
         m_variationCache.clear();
+        m_bucketIndex.clear();
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.clear();
+        }
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -863,6 +895,21 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Adds a cache entry that has just been added to the LRU cache to the bucket and dependency indexes.<p>
+     *
+     * @param entry the cache entry
+     */
+    private void addToIndexes(CmsFlexCacheEntry entry) {
+
+        entry.setBucketIndex(m_bucketIndex);
+        m_bucketIndex.add(entry);
+        if (m_dependencyIndex != null) {
+            entry.setDependencyIndex(m_dependencyIndex);
+            m_dependencyIndex.add(entry);
+        }
+    }
+
     /**
      * Clears the Flex cache buckets matching the given publish list.<p>
      *
@@ -886,8 +933,6 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 LOG.info(p + "Clearing Flex cache completely based on Flex bucket configuration.");
                 return false;
             } else {
-                long totalEntries = 0;
-                long removedEntries = 0;
                 List<String> paths = Lists.newArrayList();
                 for (CmsPublishedResource pubRes : publishedResources) {
                     paths.add(pubRes.getRootPath());
@@ -897,48 +942,30 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 if (LOG.isInfoEnabled()) {
                     LOG.info(p + "Flex cache buckets for publish list: " + publishListBucketSet.toString());
                 }
-                synchronized (this) {
-                    List<CmsFlexCacheEntry> entriesToDelete = Lists.newArrayList();
-                    for (Map.Entry<String, CmsFlexCacheVariation> entry : synchronizedCopyMap(m_keyCache).entrySet()) {
-                        CmsFlexCacheVariation variation = entry.getValue();
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(p + "Processing entries for " + entry.getKey());
-                        }
-                        entriesToDelete.clear();
-
-                        for (Map.Entry<String, I_CmsLruCacheObject> variationEntry : synchronizedCopyMap(
-                            variation.m_map).entrySet()) {
-                            CmsFlexCacheEntry flexEntry = (CmsFlexCacheEntry)(variationEntry.getValue());
-                            totalEntries += 1;
-                            BucketSet entryBucketSet = flexEntry.getBucketSet();
-                            if (publishListBucketSet.matchForDeletion(entryBucketSet)) {
-                                entriesToDelete.add(flexEntry);
-                                if (LOG.isInfoEnabled()) {
-                                    LOG.info(p + "Match: " + variationEntry.getKey());
-                                }
-                            } else {
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.debug(p + "No match: " + variationEntry.getKey());
-                                }
-                            }
-                        }
-                        for (CmsFlexCacheEntry entryToDelete : entriesToDelete) {
-                            m_variationCache.remove(entryToDelete);
-                            removedEntries += 1;
-                        }
+                // only the entries in the buckets of the publish list are looked at, without locking the whole cache
+                long totalEntries = size();
+                long removedEntries = 0;
+                for (CmsFlexCacheEntry entryToDelete : m_bucketIndex.getEntriesForDeletion(publishListBucketSet)) {
+                    if (m_variationCache.remove(entryToDelete) != null) {
+                        removedEntries += 1;
+                    } else {
+                        // the entry has already left the cache
+                        m_bucketIndex.remove(entryToDelete);
                     }
-                    long endTime = System.currentTimeMillis();
-                    LOG.info(
-                        p
-                            + "Removed "
-                            + removedEntries
-                            + " of "
-                            + totalEntries
-                            + " Flex cache entries, took "
-                            + (endTime - startTime)
-                            + " milliseconds");
-                    return true;
                 }
+                long endTime = System.currentTimeMillis();
+                LOG.info(
+                    p
+                        + "Removed "
+                        + removedEntries
+                        + " of "
+                        + totalEntries
+                        + " Flex cache entries, took "
+                        + (endTime - startTime)
+                        + " milliseconds, bucket index size "
+                        + m_bucketIndex.getMemorySize()
+                        + " bytes");
+                return true;
             }
         } catch (Exception e) {
             LOG.error(p + "Exception while trying to selectively purge flex cache: " + e.getLocalizedMessage(), e);
@@ -946,6 +973,61 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Removes the cache entries depending on the resources of the given publish list.<p>
+     *
+     * Published folders, configuration files like <code>.config</code> and resources below <code>/system/</code>
+     * may change the output of arbitrary entries (e.g. through inherited properties, sitemap configurations
+     * or templates), so these publish lists are not handled here.<p>
+     *
+     * @param publishId the publish id
+     * @param publishedResources the published resources
+     *
+     * @return true if the dependent entries could be removed, false if the flex cache should fall back to
+     *      the bucket based or complete cleanup
+     */
+    private boolean clearDependentEntries(CmsUUID publishId, List<CmsPublishedResource> publishedResources) {
+
+        long startTime = System.currentTimeMillis();
+        String p = "[" + publishId + "] "; // Prefix for log messages
+        try {
+            for (CmsPublishedResource pubRes : publishedResources) {
+                if (pubRes.isFolder()
+                    || CmsResource.getName(pubRes.getRootPath()).startsWith(".")
+                    || pubRes.getRootPath().startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")) {
+                    LOG.debug(p + "Dependency based flex entry cleanup not possible for " + pubRes.getRootPath());
+                    return false;
+                }
+            }
+            long totalEntries = size();
+            long removedEntries = 0;
+            for (CmsFlexCacheEntry entryToDelete : m_dependencyIndex.getEntriesForDeletion(publishedResources)) {
+                if (m_variationCache.remove(entryToDelete) != null) {
+                    removedEntries += 1;
+                } else {
+                    // the entry has already left the cache
+                    m_dependencyIndex.remove(entryToDelete);
+                }
+            }
+            long endTime = System.currentTimeMillis();
+            LOG.info(
+                p
+                    + "Removed "
+                    + removedEntries
+                    + " of "
+                    + totalEntries
+                    + " Flex cache entries depending on the published resources, took "
+                    + (endTime - startTime)
+                    + " milliseconds, dependency index size "
+                    + m_dependencyIndex.getMemorySize()
+                    + " bytes");
+            return true;
+        } catch (Exception e) {
+            LOG.error(p + "Exception while trying to selectively purge flex cache: " + e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * Clears all entries in the cache, online or offline.<p>
      *
@@ -1107,6 +1189,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             if (wasAdded) {
                 theCacheEntry.setVariationData(variation, m);
                 m.put(variation, theCacheEntry);
+                addToIndexes(theCacheEntry);
             }
         } else {
             // No variation map for this resource yet, so create one
@@ -1118,6 +1201,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 theCacheEntry.setVariationData(variation, list.m_map);
                 list.m_map.put(variation, theCacheEntry);
                 m_keyCache.put(key.getResource(), list);
+                addToIndexes(theCacheEntry);
             }
         }
 
@@ -52,6 +52,9 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** Indicates if the VFS dependencies of cache entries should be tracked. */
+    private boolean m_dependencyTracking;
+
     /** The device selector. */
     private I_CmsJspDeviceSelector m_deviceSelector;
 
@@ -191,6 +194,18 @@ public class CmsFlexCacheConfiguration {
         return m_cacheOffline;
     }
 
+    /**
+     * Checks if the VFS dependencies of the cache entries are tracked.<p>
+     *
+     * If enabled, a publish job only removes the cache entries that depend on the published resources.<p>
+     *
+     * @return true if the dependencies are tracked; otherwise false
+     */
+    public boolean isDependencyTracking() {
+
+        return m_dependencyTracking;
+    }
+
     /**
      * Sets the avgCacheBytes.<p>
      *
@@ -221,6 +236,16 @@ public class CmsFlexCacheConfiguration {
         m_cacheOffline = cacheOffline;
     }
 
+    /**
+     * Enables or disables the tracking of the VFS dependencies of the cache entries.<p>
+     *
+     * @param dependencyTracking <code>"true"</code> to enable the dependency tracking
+     */
+    public void setDependencyTracking(String dependencyTracking) {
+
+        m_dependencyTracking = Boolean.valueOf(dependencyTracking.trim()).booleanValue();
+    }
+
     /**
      * Sets the device selector configuration.<p>
      *
@@ -82,6 +82,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheEntry.class);
 
+    /** The bucket index this entry has been added to (may be null). */
+    private CmsFlexBucketIndex m_bucketIndex;
+
     /** the assigned bucket set for this flex entry (may be null). */
     private BucketSet m_bucketSet;
 
@@ -94,6 +97,12 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The "expires" date for this Flex cache entry. */
     private long m_dateExpires;
 
+    /** The VFS dependencies of this cache entry (may be null). */
+    private CmsFlexDependencies m_dependencies;
+
+    /** The dependency index this entry has been added to (may be null). */
+    private CmsFlexDependencyIndex m_dependencyIndex;
+
     /** The "last modified" date for this Flex cache entry. */
     private long m_dateLastModified;
 
@@ -274,6 +283,16 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return m_dateExpires;
     }
 
+    /**
+     * Returns the VFS dependencies recorded while this entry was generated.<p>
+     *
+     * @return the VFS dependencies of this entry, or <code>null</code> if they are unknown
+     */
+    public CmsFlexDependencies getDependencies() {
+
+        return m_dependencies;
+    }
+
     /**
      * Returns the "last modified" date for this Flex cache entry.<p>
      *
@@ -332,6 +351,12 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         if ((m_variationMap != null) && (m_variationKey != null)) {
             m_variationMap.remove(m_variationKey);
         }
+        if (m_bucketIndex != null) {
+            m_bucketIndex.remove(this);
+        }
+        if (m_dependencyIndex != null) {
+            m_dependencyIndex.remove(this);
+        }
         if (LOG.isDebugEnabled()) {
             LOG.debug(
                 Messages.get().getBundle().key(
@@ -475,6 +500,18 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         setDateExpires((now - (daytime % timeoutMinutes)) + timeoutMinutes);
     }
 
+    /**
+     * Sets the VFS dependencies recorded while this entry was generated.<p>
+     *
+     * The dependencies are stored in a compact, immutable form.<p>
+     *
+     * @param dependencies the dependencies, or <code>null</code> if they are unknown
+     */
+    public void setDependencies(CmsFlexDependencies dependencies) {
+
+        m_dependencies = dependencies != null ? dependencies.compact() : null;
+    }
+
     /**
      * Sets the "last modified" date for this Flex cache entry with the given value.<p>
      *
@@ -586,6 +623,28 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         return str;
     }
 
+    /**
+     * Stores a backward reference to the bucket index this cache entry has been added to.<p>
+     *
+     * The entry is removed from the index when it is removed from the Flex cache.<p>
+     *
+     * @param bucketIndex the bucket index
+     */
+    void setBucketIndex(CmsFlexBucketIndex bucketIndex) {
+
+        m_bucketIndex = bucketIndex;
+    }
+
+    /**
+     * Stores a backward reference to the dependency index this cache entry has been added to.<p>
+     *
+     * @param dependencyIndex the dependency index
+     */
+    void setDependencyIndex(CmsFlexDependencyIndex dependencyIndex) {
+
+        m_dependencyIndex = dependencyIndex;
+    }
+
     /**
      * Clones the attribute instances if possible.<p>
      *
@@ -616,5 +675,4 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
 
         return result;
     }
-
 }
@@ -163,6 +163,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: List of attributes. */
     private Set<String> m_attrs;
 
+    /** The precomputed variations for keys only depending on the timeout, by "force absolute links" flag. */
+    private String[] m_constantVariations;
+
     /** Cache key variable: The current container element. */
     private String m_containerElement;
 
@@ -196,6 +199,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: The request TCP/IP port. */
     private Set<Integer> m_ports;
 
+    /** Indicates if the variation of this key depends on values read from the request. */
+    private boolean m_requestDependent;
+
     /** The OpenCms resource that this key is used for. */
     private String m_resource;
 
@@ -217,6 +223,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: The user id. */
     private String m_user;
 
+    /** The initial buffer size used to build the variations, adjusted to the longest variation built so far. */
+    private volatile int m_variationLength = 64;
+
     /** Resource without online / offline suffix. */
     private String m_actualResource;
 
@@ -245,6 +254,7 @@ public class CmsFlexCacheKey {
         if (cacheDirectives != null) {
             parseFlexKey(cacheDirectives);
         }
+        compile();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_GENERATED_1, toString()));
         }
@@ -286,7 +296,7 @@ public class CmsFlexCacheKey {
      * @param key the key to append
      * @param value the value to append
      */
-    private static void appendKeyValue(StringBuffer str, String key, String value) {
+    private static void appendKeyValue(StringBuilder str, String key, String value) {
 
         str.append(key);
         if (value == IS_USED) {
@@ -298,6 +308,41 @@ public class CmsFlexCacheKey {
         }
     }
 
+    /**
+     * Checks if the given map contains at least one of the given names as key.<p>
+     *
+     * An empty set of names matches every non empty map.<p>
+     *
+     * @param names the names to look for, may be <code>null</code>
+     * @param map the map to check, may be <code>null</code>
+     *
+     * @return <code>true</code> if the map contains one of the names
+     */
+    private static boolean containsAny(Set<String> names, Map<String, ?> map) {
+
+        if ((names == null) || (map == null)) {
+            return false;
+        }
+        if (names.isEmpty()) {
+            return !map.isEmpty();
+        }
+        // iterate over the smaller collection
+        if (names.size() < map.size()) {
+            for (String name : names) {
+                if (map.containsKey(name)) {
+                    return true;
+                }
+            }
+        } else {
+            for (String name : map.keySet()) {
+                if (names.contains(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the actual resource path under which this is cached, without online / offline suffix.<p>
      *
@@ -364,7 +409,6 @@ public class CmsFlexCacheKey {
      */
     public String matchRequestKey(CmsFlexRequestKey key) {
 
-        StringBuffer str = new StringBuffer(100);
         if (m_always < 0) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
@@ -372,44 +416,43 @@ public class CmsFlexCacheKey {
             return null;
         }
 
+        // the parameter and attribute maps are only read if required by the cache directives
+        Map<String, String[]> keyParams = null;
+        if ((m_noparams != null) || (m_params != null)) {
+            keyParams = key.getParams();
+        }
+        Map<String, Object> keyAttrs = null;
+        if ((m_noattrs != null) || (m_attrs != null)) {
+            keyAttrs = key.getAttributes();
+        }
+
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
         }
-        if ((m_noparams != null) && (key.getParams() != null)) {
-            if ((m_noparams.size() == 0) && (key.getParams().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getParams().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noparams.contains(i.next())) {
-                    return null;
-                }
-            }
+        if (containsAny(m_noparams, keyParams)) {
+            return null;
         }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
         }
-        if ((m_noattrs != null) && (key.getAttributes() != null)) {
-            if ((m_noattrs.size() == 0) && (key.getAttributes().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getAttributes().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noattrs.contains(i.next())) {
-                    return null;
-                }
-            }
+        if (containsAny(m_noattrs, keyAttrs)) {
+            return null;
         }
 
         if (m_always > 0) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
             }
-            str.append(CACHE_00_ALWAYS);
-            return str.toString();
+            return CACHE_00_ALWAYS;
+        }
+
+        if (!m_requestDependent) {
+            // nothing varies with the request, no need to build a new variation
+            return m_constantVariations != null ? m_constantVariations[key.isForceAbsoluteLinks() ? 1 : 0] : null;
         }
 
+        StringBuilder str = new StringBuilder(m_variationLength);
         if (m_uri != null) {
             appendKeyValue(str, CACHE_02_URI, key.getUri());
         }
@@ -449,7 +492,6 @@ public class CmsFlexCacheKey {
         if (m_params != null) {
             str.append(CACHE_04_PARAMS);
             str.append("=(");
-            Map<String, String[]> keyParams = key.getParams();
             if (keyParams != null) {
                 if (m_params.size() > 0) {
                     // match only params listed in cache directives
@@ -489,7 +531,6 @@ public class CmsFlexCacheKey {
         if (m_attrs != null) {
             str.append(CACHE_18_ATTRS);
             str.append("=(");
-            Map<String, Object> keyAttrs = key.getAttributes();
             if (keyAttrs != null) {
                 if (m_attrs.size() > 0) {
                     // match only attributes listed in cache directives
@@ -525,7 +566,7 @@ public class CmsFlexCacheKey {
         }
 
         if (m_session != null) {
-            StringBuffer buf = new StringBuffer(32);
+            StringBuilder buf = new StringBuilder(32);
             boolean found = false;
             buf.append(CACHE_07_SESSION);
             buf.append("=(");
@@ -572,17 +613,14 @@ public class CmsFlexCacheKey {
             str.append(");");
         }
 
-        if (m_timeout > 0) {
-            str.append(CACHE_06_TIMEOUT);
-            str.append("=(");
-            str.append(m_timeout);
-            str.append(");");
-        }
-
         if (str.length() > 0) {
-            // we don't want an element to just be cached with the __forceAbsoluteLinks parameter as key if it wouldn't be cached otherwise
-            appendKeyValue(str, CACHE_FORCE_ABSOLUTE_LINKS, "" + key.isForceAbsoluteLinks());
+            appendTimeoutAndLinks(str, key.isForceAbsoluteLinks());
+            if (str.length() > m_variationLength) {
+                m_variationLength = str.length();
+            }
             return str.toString();
+        } else if (m_timeout > 0) {
+            return m_constantVariations[key.isForceAbsoluteLinks() ? 1 : 0];
         } else {
             return null;
         }
@@ -596,7 +634,7 @@ public class CmsFlexCacheKey {
     @Override
     public String toString() {
 
-        StringBuffer str = new StringBuffer(100);
+        StringBuilder str = new StringBuilder(100);
 
         if (m_always < 0) {
             str.append(CACHE_01_NEVER);
@@ -805,6 +843,57 @@ public class CmsFlexCacheKey {
         return m_timeout;
     }
 
+    /**
+     * Appends the timeout and the "force absolute links" flag to a variation.<p>
+     *
+     * @param str the variation to append to
+     * @param forceAbsoluteLinks the "force absolute links" flag of the request
+     */
+    private void appendTimeoutAndLinks(StringBuilder str, boolean forceAbsoluteLinks) {
+
+        if (m_timeout > 0) {
+            str.append(CACHE_06_TIMEOUT);
+            str.append("=(");
+            str.append(m_timeout);
+            str.append(");");
+        }
+        // we don't want an element to just be cached with the __forceAbsoluteLinks parameter as key
+        // if it wouldn't be cached otherwise
+        appendKeyValue(str, CACHE_FORCE_ABSOLUTE_LINKS, String.valueOf(forceAbsoluteLinks));
+    }
+
+    /**
+     * Prepares the parsed cache directives for the repeated matching with request keys.<p>
+     *
+     * Determines if the variation depends on the request at all. If not, the possible
+     * variations are built once here, so that matching such a key does not create new Strings.<p>
+     */
+    private void compile() {
+
+        m_requestDependent = (m_uri != null)
+            || (m_site != null)
+            || (m_element != null)
+            || (m_device != null)
+            || (m_containerElement != null)
+            || (m_locale != null)
+            || (m_encoding != null)
+            || (m_ip != null)
+            || (m_user != null)
+            || (m_params != null)
+            || (m_attrs != null)
+            || (m_session != null)
+            || (m_schemes != null)
+            || (m_ports != null);
+        if ((m_always == 0) && (m_timeout > 0)) {
+            m_constantVariations = new String[2];
+            for (int i = 0; i < m_constantVariations.length; i++) {
+                StringBuilder str = new StringBuilder(64);
+                appendTimeoutAndLinks(str, i > 0);
+                m_constantVariations[i] = str.toString();
+            }
+        }
+    }
+
     /**
      * Parse a String in the Flex cache language and construct
      * the key data structure from this.<p>
@@ -30,6 +30,7 @@ package org.opencms.flex;
 import org.opencms.ade.detailpage.CmsDetailPageResourceHandler;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.jsp.util.CmsJspUserAgentCache;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsRequestUtil;
 
@@ -101,6 +102,9 @@ public class CmsFlexController {
     /** Indicates if the request is the top request. */
     private boolean m_top;
 
+    /** The detected user agent of the top request, lazily initialized. */
+    private CmsJspUserAgentCache.UserAgent m_userAgent;
+
     /**
      * Creates a new controller form the old one, exchanging just the provided OpenCms user context.<p>
      *
@@ -121,6 +125,7 @@ public class CmsFlexController {
         m_flexContextInfoList = base.m_flexContextInfoList;
         m_forwardMode = base.m_forwardMode;
         m_throwableResourceUri = base.m_throwableResourceUri;
+        m_userAgent = base.m_userAgent;
     }
 
     /**
@@ -489,6 +494,23 @@ public class CmsFlexController {
         return (m_flexContextInfoList.get(pos)).getDateLastModified();
     }
 
+    /**
+     * Returns the VFS dependencies recorded for the topmost request of the stack.<p>
+     *
+     * Nested includes are not part of these dependencies, since they are stored as separate Flex cache entries.<p>
+     *
+     * @return the VFS dependencies, or <code>null</code> if they are not tracked
+     */
+    public CmsFlexDependencies getDependencies() {
+
+        int pos = m_flexContextInfoList.size() - 1;
+        if (pos < 0) {
+            // ensure a valid position is used
+            return null;
+        }
+        return (m_flexContextInfoList.get(pos)).getDependencies();
+    }
+
     /**
      * Returns the size of the response stack.<p>
      *
@@ -541,6 +563,21 @@ public class CmsFlexController {
         return m_res;
     }
 
+    /**
+     * Returns the detected user agent of the top request.<p>
+     *
+     * The user agent is only looked up once per request.<p>
+     *
+     * @return the detected user agent of the top request
+     */
+    public CmsJspUserAgentCache.UserAgent getUserAgent() {
+
+        if (m_userAgent == null) {
+            m_userAgent = CmsJspUserAgentCache.getInstance().get(m_req);
+        }
+        return m_userAgent;
+    }
+
     /**
      * Returns <code>true</code> if the controller does not yet contain any requests.<p>
      *
@@ -618,7 +655,7 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        m_flexContextInfoList.add(new CmsFlexRequestContextInfo((m_cache != null) && m_cache.isDependencyTracking()));
         updateRequestContextInfo();
     }
 
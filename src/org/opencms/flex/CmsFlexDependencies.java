@@ -0,0 +1,184 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The VFS dependencies of a Flex cache entry.<p>
+ *
+ * Contains the structure and resource ids of all resources read while the entry was generated,
+ * the folders whose children or subtrees were read, and the paths of resources that were looked up
+ * but did not exist. A cache entry only has to be removed on publish if one of the published
+ * resources matches one of these dependencies.<p>
+ *
+ * @see CmsFlexDependencyIndex
+ */
+public class CmsFlexDependencies {
+
+    /** The root paths of the folders whose children were read. */
+    private Set<String> m_folders;
+
+    /** The structure and resource ids of the resources read. */
+    private Set<CmsUUID> m_ids;
+
+    /** The root paths of the resources looked up that did not exist. */
+    private Set<String> m_paths;
+
+    /** The root paths of the folders whose subtrees were read. */
+    private Set<String> m_subtrees;
+
+    /**
+     * Creates a new, empty set of dependencies.<p>
+     */
+    public CmsFlexDependencies() {
+
+        m_folders = new HashSet<String>();
+        m_ids = new HashSet<CmsUUID>();
+        m_paths = new HashSet<String>();
+        m_subtrees = new HashSet<String>();
+    }
+
+    /**
+     * Creates an immutable copy of the given dependencies.<p>
+     *
+     * @param dependencies the dependencies to copy
+     */
+    private CmsFlexDependencies(CmsFlexDependencies dependencies) {
+
+        m_folders = ImmutableSet.copyOf(dependencies.m_folders);
+        m_ids = ImmutableSet.copyOf(dependencies.m_ids);
+        m_paths = ImmutableSet.copyOf(dependencies.m_paths);
+        m_subtrees = ImmutableSet.copyOf(dependencies.m_subtrees);
+    }
+
+    /**
+     * Adds a dependency on the children of a folder.<p>
+     *
+     * @param rootPath the root path of the folder
+     * @param tree <code>true</code> if the whole subtree of the folder was read,
+     *      <code>false</code> for the children only
+     */
+    public void addFolder(String rootPath, boolean tree) {
+
+        String folderPath = CmsResource.getFolderPath(rootPath);
+        if (tree) {
+            m_subtrees.add(folderPath);
+        } else {
+            m_folders.add(folderPath);
+        }
+    }
+
+    /**
+     * Adds a dependency on a resource path that did not exist when it was read.<p>
+     *
+     * @param rootPath the root path
+     */
+    public void addPath(String rootPath) {
+
+        m_paths.add(rootPath);
+    }
+
+    /**
+     * Adds a dependency on a resource.<p>
+     *
+     * @param resource the resource that was read
+     */
+    public void addResource(CmsResource resource) {
+
+        m_ids.add(resource.getStructureId());
+        m_ids.add(resource.getResourceId());
+    }
+
+    /**
+     * Returns an immutable, compact copy of these dependencies.<p>
+     *
+     * @return an immutable copy of these dependencies
+     */
+    public CmsFlexDependencies compact() {
+
+        return new CmsFlexDependencies(this);
+    }
+
+    /**
+     * Returns the root paths of the folders whose children were read.<p>
+     *
+     * @return the root paths of the folders whose children were read
+     */
+    public Set<String> getFolders() {
+
+        return Collections.unmodifiableSet(m_folders);
+    }
+
+    /**
+     * Returns the structure and resource ids of the resources read.<p>
+     *
+     * @return the structure and resource ids of the resources read
+     */
+    public Set<CmsUUID> getIds() {
+
+        return Collections.unmodifiableSet(m_ids);
+    }
+
+    /**
+     * Returns the root paths of the resources looked up that did not exist.<p>
+     *
+     * @return the root paths of the resources looked up that did not exist
+     */
+    public Set<String> getPaths() {
+
+        return Collections.unmodifiableSet(m_paths);
+    }
+
+    /**
+     * Returns the root paths of the folders whose subtrees were read.<p>
+     *
+     * @return the root paths of the folders whose subtrees were read
+     */
+    public Set<String> getSubtrees() {
+
+        return Collections.unmodifiableSet(m_subtrees);
+    }
+
+    /**
+     * Returns the total number of dependencies.<p>
+     *
+     * @return the total number of dependencies
+     */
+    public int size() {
+
+        return m_folders.size() + m_ids.size() + m_paths.size() + m_subtrees.size();
+    }
+}
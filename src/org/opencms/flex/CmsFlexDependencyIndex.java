@@ -0,0 +1,241 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.monitor.I_CmsMemoryMonitorable;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index from VFS dependencies to the Flex cache entries depending on them.<p>
+ *
+ * Used to remove only the cache entries that depend on the published resources after a publish job.
+ * Entries without recorded dependencies are kept separately, since they have to be removed for every publish job.<p>
+ *
+ * @see CmsFlexDependencies
+ */
+public class CmsFlexDependencyIndex implements I_CmsMemoryMonitorable {
+
+    /** Estimated memory size of a single reference from a dependency to an entry. */
+    private static final int DEPENDENCY_REFERENCE_SIZE = 48;
+
+    /** Estimated memory size of an indexed entry, without its dependency references. */
+    private static final int ENTRY_SIZE = 64;
+
+    /** The dependencies of all indexed entries, entries without dependencies are mapped to an empty instance. */
+    private Map<CmsFlexCacheEntry, CmsFlexDependencies> m_entries = new ConcurrentHashMap<CmsFlexCacheEntry,
+        CmsFlexDependencies>();
+
+    /** The entries by the root path of the folders whose children they read. */
+    private Map<String, Set<CmsFlexCacheEntry>> m_folders = new ConcurrentHashMap<String, Set<CmsFlexCacheEntry>>();
+
+    /** The entries by the ids of the resources they read. */
+    private Map<CmsUUID, Set<CmsFlexCacheEntry>> m_ids = new ConcurrentHashMap<CmsUUID, Set<CmsFlexCacheEntry>>();
+
+    /** The entries by the root paths of the missing resources they looked up. */
+    private Map<String, Set<CmsFlexCacheEntry>> m_paths = new ConcurrentHashMap<String, Set<CmsFlexCacheEntry>>();
+
+    /** The number of references from dependencies to entries. */
+    private volatile int m_referenceCount;
+
+    /** The entries by the root path of the folders whose subtrees they read. */
+    private Map<String, Set<CmsFlexCacheEntry>> m_subtrees = new ConcurrentHashMap<String, Set<CmsFlexCacheEntry>>();
+
+    /** The entries without recorded dependencies. */
+    private Set<CmsFlexCacheEntry> m_untracked = Collections.newSetFromMap(
+        new ConcurrentHashMap<CmsFlexCacheEntry, Boolean>());
+
+    /**
+     * Adds an entry to the given multi map.<p>
+     *
+     * @param map the map
+     * @param keys the keys to add the entry for
+     * @param entry the entry
+     */
+    private static <K> void add(Map<K, Set<CmsFlexCacheEntry>> map, Collection<K> keys, CmsFlexCacheEntry entry) {
+
+        for (K key : keys) {
+            Set<CmsFlexCacheEntry> entries = map.get(key);
+            if (entries == null) {
+                entries = Collections.newSetFromMap(new ConcurrentHashMap<CmsFlexCacheEntry, Boolean>());
+                map.put(key, entries);
+            }
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * Adds the entries stored for the given key in the multi map to the result.<p>
+     *
+     * @param map the map
+     * @param key the key
+     * @param result the result to add the entries to
+     */
+    private static <K> void collect(Map<K, Set<CmsFlexCacheEntry>> map, K key, Set<CmsFlexCacheEntry> result) {
+
+        Set<CmsFlexCacheEntry> entries = map.get(key);
+        if (entries != null) {
+            result.addAll(entries);
+        }
+    }
+
+    /**
+     * Removes an entry from the given multi map.<p>
+     *
+     * @param map the map
+     * @param keys the keys to remove the entry for
+     * @param entry the entry
+     */
+    private static <K> void remove(Map<K, Set<CmsFlexCacheEntry>> map, Collection<K> keys, CmsFlexCacheEntry entry) {
+
+        for (K key : keys) {
+            Set<CmsFlexCacheEntry> entries = map.get(key);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty()) {
+                    map.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from the index.<p>
+     */
+    public synchronized void clear() {
+
+        m_entries.clear();
+        m_folders.clear();
+        m_ids.clear();
+        m_paths.clear();
+        m_subtrees.clear();
+        m_untracked.clear();
+        m_referenceCount = 0;
+    }
+
+    /**
+     * Returns the entries that have to be removed from the Flex cache after the given resources have been published.<p>
+     *
+     * These are all entries that have read one of the published resources, have read the children of the parent
+     * folder or the subtree of an ancestor folder of a published resource, or have looked up a published resource
+     * before it existed. All entries without recorded dependencies are returned as well.<p>
+     *
+     * @param publishedResources the published resources
+     *
+     * @return a copy of the entries to remove
+     */
+    public Set<CmsFlexCacheEntry> getEntriesForDeletion(Collection<CmsPublishedResource> publishedResources) {
+
+        Set<CmsFlexCacheEntry> result = new HashSet<CmsFlexCacheEntry>(m_untracked);
+        for (CmsPublishedResource pubRes : publishedResources) {
+            collect(m_ids, pubRes.getStructureId(), result);
+            collect(m_ids, pubRes.getResourceId(), result);
+            String path = pubRes.getRootPath();
+            collect(m_paths, path, result);
+            String parent = CmsResource.getParentFolder(path);
+            if (parent != null) {
+                collect(m_folders, parent, result);
+            }
+            String folder = CmsResource.getFolderPath(path);
+            while (folder != null) {
+                collect(m_subtrees, folder, result);
+                folder = CmsResource.getParentFolder(folder);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the estimated memory overhead of this index in bytes.<p>
+     *
+     * @see org.opencms.monitor.I_CmsMemoryMonitorable#getMemorySize()
+     */
+    public int getMemorySize() {
+
+        return (m_entries.size() * ENTRY_SIZE) + (m_referenceCount * DEPENDENCY_REFERENCE_SIZE);
+    }
+
+    /**
+     * Returns the number of indexed entries.<p>
+     *
+     * @return the number of indexed entries
+     */
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Adds an entry with its current dependencies to the index.<p>
+     *
+     * @param entry the entry to add
+     */
+    synchronized void add(CmsFlexCacheEntry entry) {
+
+        remove(entry);
+        CmsFlexDependencies dependencies = entry.getDependencies();
+        if (dependencies == null) {
+            m_untracked.add(entry);
+            m_entries.put(entry, new CmsFlexDependencies().compact());
+            return;
+        }
+        add(m_folders, dependencies.getFolders(), entry);
+        add(m_ids, dependencies.getIds(), entry);
+        add(m_paths, dependencies.getPaths(), entry);
+        add(m_subtrees, dependencies.getSubtrees(), entry);
+        m_entries.put(entry, dependencies);
+        m_referenceCount += dependencies.size();
+    }
+
+    /**
+     * Removes an entry from the index.<p>
+     *
+     * @param entry the entry to remove
+     */
+    synchronized void remove(CmsFlexCacheEntry entry) {
+
+        CmsFlexDependencies dependencies = m_entries.remove(entry);
+        if (dependencies == null) {
+            return;
+        }
+        m_untracked.remove(entry);
+        remove(m_folders, dependencies.getFolders(), entry);
+        remove(m_ids, dependencies.getIds(), entry);
+        remove(m_paths, dependencies.getPaths(), entry);
+        remove(m_subtrees, dependencies.getSubtrees(), entry);
+        m_referenceCount -= dependencies.size();
+    }
+}
@@ -48,13 +48,54 @@ public class CmsFlexRequestContextInfo {
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The VFS dependencies for this request context, null if the dependencies are not tracked. */
+    private CmsFlexDependencies m_dependencies;
+
     /**
      * Public constructor.<p>
      */
     public CmsFlexRequestContextInfo() {
 
+        this(false);
+    }
+
+    /**
+     * Creates a new context info.<p>
+     *
+     * @param trackDependencies if <code>true</code>, the VFS dependencies of this request context are recorded
+     */
+    public CmsFlexRequestContextInfo(boolean trackDependencies) {
+
         // by default the expiration date is the max long value
         m_dateExpires = CmsResource.DATE_EXPIRED_DEFAULT;
+        if (trackDependencies) {
+            m_dependencies = new CmsFlexDependencies();
+        }
+    }
+
+    /**
+     * Records that the children or the complete subtree of the given folder have been read in this context.<p>
+     *
+     * @param rootPath the root path of the folder
+     * @param tree <code>true</code> if the complete subtree has been read
+     */
+    public void addFolderDependency(String rootPath, boolean tree) {
+
+        if (m_dependencies != null) {
+            m_dependencies.addFolder(rootPath, tree);
+        }
+    }
+
+    /**
+     * Records that a resource has been looked up in this context, but did not exist.<p>
+     *
+     * @param rootPath the root path of the missing resource
+     */
+    public void addPathDependency(String rootPath) {
+
+        if (m_dependencies != null) {
+            m_dependencies.addPath(rootPath);
+        }
     }
 
     /**
@@ -77,6 +118,16 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the VFS dependencies recorded for this context.<p>
+     *
+     * @return the VFS dependencies, or <code>null</code> if they are not tracked
+     */
+    public CmsFlexDependencies getDependencies() {
+
+        return m_dependencies;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *
@@ -150,5 +201,8 @@ public class CmsFlexRequestContextInfo {
         // now use both release and expiration date from the resource to update the expires info
         updateDateExpires(resource.getDateReleased());
         updateDateExpires(resource.getDateExpired());
+        if (m_dependencies != null) {
+            m_dependencies.addResource(resource);
+        }
     }
 }
@@ -465,6 +465,7 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                         entry.setDateLastModified(controller.getDateLastModified());
                         entry.setDateExpires(controller.getDateExpires());
                     }
+                    entry.setDependencies(controller.getDependencies());
                     cache.put(w_res.getCmsCacheKey(), entry, variation, w_req.getCmsCacheKey());
                 } else {
                     // result can not be cached, do not use "last modified" optimization
@@ -67,14 +67,23 @@ import org.opencms.util.CmsXmlSaxWriter;
 import org.opencms.workplace.CmsWorkplace;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.codec.binary.Base64;
@@ -97,9 +106,77 @@ import org.xml.sax.SAXException;
  */
 public class CmsExport {
 
+    /**
+     * The data of a file that has been read ahead of writing it to the export.<p>
+     */
+    protected static class CmsReadAheadData {
+
+        /** The access control entries of the file. */
+        private List<CmsAccessControlEntry> m_accessControlEntries;
+
+        /** The file including its content. */
+        private CmsFile m_file;
+
+        /** The properties of the file. */
+        private List<CmsProperty> m_properties;
+
+        /** The relations of the file. */
+        private List<CmsRelation> m_relations;
+
+        /** The errors reading the relation targets, <code>null</code> entries for targets that exist. */
+        private List<CmsVfsResourceNotFoundException> m_relationErrors;
+
+        /** The relation targets, <code>null</code> entries for targets that do not exist. */
+        private List<CmsResource> m_relationTargets;
+
+        /**
+         * Reads all data of the given file that is needed for the export.<p>
+         *
+         * @param cms the CMS context to use
+         * @param sitePath the site path of the file
+         *
+         * @throws CmsException if something goes wrong
+         */
+        protected CmsReadAheadData(CmsObject cms, String sitePath)
+        throws CmsException {
+
+            m_file = cms.readFile(sitePath, CmsResourceFilter.IGNORE_EXPIRATION);
+            m_properties = cms.readPropertyObjects(m_file, false);
+            m_relations = cms.getRelationsForResource(m_file, CmsRelationFilter.TARGETS.filterNotDefinedInContent());
+            m_relationTargets = new ArrayList<CmsResource>(m_relations.size());
+            m_relationErrors = new ArrayList<CmsVfsResourceNotFoundException>(m_relations.size());
+            for (CmsRelation relation : m_relations) {
+                CmsResource target = null;
+                CmsVfsResourceNotFoundException error = null;
+                try {
+                    target = relation.getTarget(cms, CmsResourceFilter.ALL);
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // broken relation, will be skipped when writing the manifest
+                    error = e;
+                }
+                m_relationTargets.add(target);
+                m_relationErrors.add(error);
+            }
+            m_accessControlEntries = cms.getAccessControlEntries(sitePath, false);
+        }
+
+        /**
+         * Returns the file including its content.<p>
+         *
+         * @return the file
+         */
+        protected CmsFile getFile() {
+
+            return m_file;
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExport.class);
 
+    /** Counter for the created read ahead thread names. */
+    private static final AtomicInteger READ_AHEAD_THREAD_COUNTER = new AtomicInteger();
+
     /** The cms context. */
     private CmsObject m_cms;
 
@@ -115,6 +192,12 @@ public class CmsExport {
     /** The export parameters. */
     private CmsExportParameters m_parameters;
 
+    /** The data of the file currently written to the export, if it has been read ahead. */
+    private CmsReadAheadData m_readAheadData;
+
+    /** The executor used to read files ahead of writing them to the export, <code>null</code> if not used. */
+    private ExecutorService m_readAheadExecutor;
+
     /** The report. */
     private I_CmsReport m_report;
 
@@ -170,6 +253,19 @@ public class CmsExport {
         getReport().println(Messages.get().container(Messages.RPT_CLEARCACHE_0), I_CmsReport.FORMAT_NOTE);
         OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>(0)));
 
+        if (m_parameters.getParallelism() > 1) {
+            m_readAheadExecutor = Executors.newFixedThreadPool(m_parameters.getParallelism(), new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(
+                        r,
+                        "OpenCms: Export read ahead " + READ_AHEAD_THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
         try {
             Element exportNode = openExportFile(parameters.getExportMode());
 
@@ -230,6 +326,15 @@ public class CmsExport {
             }
 
             throw new CmsImportExportException(message, ioe);
+        } finally {
+            if (m_readAheadExecutor != null) {
+                m_readAheadExecutor.shutdownNow();
+                m_readAheadExecutor = null;
+            }
+            if (m_exportWriter != null) {
+                // also removes the temporary manifest file if the export has failed
+                m_exportWriter.close();
+            }
         }
     }
 
@@ -250,7 +355,8 @@ public class CmsExport {
             // get all files in folder
             List<CmsResource> subFiles = getCms().getFilesInFolder(folderName, CmsResourceFilter.IGNORE_EXPIRATION);
 
-            // walk through all files and export them
+            // walk through all files and collect the ones to export
+            List<String> filesToExport = new ArrayList<String>(subFiles.size());
             for (int i = 0; i < subFiles.size(); i++) {
                 CmsResource file = subFiles.get(i);
                 CmsResourceState state = file.getState();
@@ -268,7 +374,7 @@ public class CmsExport {
                         String export = getCms().getSitePath(file);
                         if (checkExportResource(export)) {
                             if (isInExportableProject(file)) {
-                                exportFile(getCms().readFile(export, CmsResourceFilter.IGNORE_EXPIRATION));
+                                filesToExport.add(export);
                             }
                         }
                     }
@@ -276,8 +382,9 @@ public class CmsExport {
                 // release file header memory
                 subFiles.set(i, null);
             }
-            // all files are exported, release memory
             subFiles = null;
+            // export the files
+            exportFiles(filesToExport);
 
             // walk through all subfolders and export them
             for (int i = 0; i < subFolders.size(); i++) {
@@ -617,7 +724,10 @@ public class CmsExport {
 
                 // write the properties to the manifest
                 Element propertiesElement = fileElement.addElement(CmsImportVersion10.N_PROPERTIES);
-                List<CmsProperty> properties = getCms().readPropertyObjects(getCms().getSitePath(resource), false);
+                CmsReadAheadData readAheadData = getReadAheadData(resource);
+                List<CmsProperty> properties = readAheadData != null
+                ? new ArrayList<CmsProperty>(readAheadData.m_properties)
+                : getCms().readPropertyObjects(getCms().getSitePath(resource), false);
                 CmsProperty exportTypeProp = CmsProperty.get(CmsPropertyDefinition.PROPERTY_EXPORT_TYPE, properties);
                 String exportType = exportTypeProp.getValue();
                 if ((exportType != null) && CmsResourceTypePlain.getStaticTypeName().equals(typeElem.getText())) {
@@ -635,15 +745,24 @@ public class CmsExport {
                 }
 
                 // Write the relations to the manifest
-                List<CmsRelation> relations = getCms().getRelationsForResource(
-                    resource,
-                    CmsRelationFilter.TARGETS.filterNotDefinedInContent());
+                List<CmsRelation> relations = readAheadData != null
+                ? readAheadData.m_relations
+                : getCms().getRelationsForResource(resource, CmsRelationFilter.TARGETS.filterNotDefinedInContent());
                 Element relationsElement = fileElement.addElement(CmsImportVersion10.N_RELATIONS);
                 // iterate over the relations
-                for (CmsRelation relation : relations) {
+                for (int r = 0; r < relations.size(); r++) {
+                    CmsRelation relation = relations.get(r);
                     // relation may be broken already:
                     try {
-                        CmsResource target = relation.getTarget(getCms(), CmsResourceFilter.ALL);
+                        CmsResource target;
+                        if (readAheadData != null) {
+                            if (readAheadData.m_relationErrors.get(r) != null) {
+                                throw readAheadData.m_relationErrors.get(r);
+                            }
+                            target = readAheadData.m_relationTargets.get(r);
+                        } else {
+                            target = relation.getTarget(getCms(), CmsResourceFilter.ALL);
+                        }
                         String structureId = target.getStructureId().toString();
                         String sitePath = getCms().getSitePath(target);
                         String relationType = relation.getType().getName();
@@ -667,9 +786,9 @@ public class CmsExport {
                 Element acl = fileElement.addElement(CmsImportVersion10.N_ACCESSCONTROL_ENTRIES);
 
                 // read the access control entries
-                List<CmsAccessControlEntry> fileAcEntries = getCms().getAccessControlEntries(
-                    getCms().getSitePath(resource),
-                    false);
+                List<CmsAccessControlEntry> fileAcEntries = readAheadData != null
+                ? readAheadData.m_accessControlEntries
+                : getCms().getAccessControlEntries(getCms().getSitePath(resource), false);
                 Iterator<CmsAccessControlEntry> i = fileAcEntries.iterator();
 
                 // create xml elements for each access control entry
@@ -937,6 +1056,54 @@ public class CmsExport {
             I_CmsReport.FORMAT_OK);
     }
 
+    /**
+     * Exports the files with the given site paths, in the given order.<p>
+     *
+     * If a read ahead executor is available, the files are read in parallel with a limited look ahead,
+     * while they are still written to the export strictly in the given order.<p>
+     *
+     * @param sitePaths the site paths of the files to export
+     *
+     * @throws CmsException if something goes wrong reading the files
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for a file could be appended to the ZIP archive
+     */
+    protected void exportFiles(List<String> sitePaths) throws CmsException, SAXException, IOException {
+
+        if (m_readAheadExecutor == null) {
+            for (String sitePath : sitePaths) {
+                exportFile(getCms().readFile(sitePath, CmsResourceFilter.IGNORE_EXPIRATION));
+            }
+            return;
+        }
+        int lookAhead = 2 * m_parameters.getParallelism();
+        LinkedList<Future<CmsReadAheadData>> pending = new LinkedList<Future<CmsReadAheadData>>();
+        Iterator<String> it = sitePaths.iterator();
+        try {
+            while (it.hasNext() || !pending.isEmpty()) {
+                while (it.hasNext() && (pending.size() < lookAhead)) {
+                    final String sitePath = it.next();
+                    // CmsObject instances are not thread safe, so each read ahead task uses its own copy
+                    final CmsObject cms = OpenCms.initCmsObject(getCms());
+                    pending.add(m_readAheadExecutor.submit(new Callable<CmsReadAheadData>() {
+
+                        public CmsReadAheadData call() throws Exception {
+
+                            return new CmsReadAheadData(cms, sitePath);
+                        }
+                    }));
+                }
+                m_readAheadData = getReadAheadResult(pending.removeFirst());
+                exportFile(m_readAheadData.getFile());
+            }
+        } finally {
+            m_readAheadData = null;
+            for (Future<CmsReadAheadData> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
     /**
      * Exports one single group with all it's data.<p>
      *
@@ -1394,6 +1561,21 @@ public class CmsExport {
         return m_cms;
     }
 
+    /**
+     * Returns the read ahead data for the given resource, if available.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the read ahead data, or <code>null</code> if the resource was not read ahead
+     */
+    protected CmsReadAheadData getReadAheadData(CmsResource resource) {
+
+        if ((m_readAheadData != null) && m_readAheadData.getFile().getStructureId().equals(resource.getStructureId())) {
+            return m_readAheadData;
+        }
+        return null;
+    }
+
     /**
      * Returns the name of the export file.<p>
      *
@@ -1503,7 +1685,8 @@ public class CmsExport {
         m_exportWriter = new CmsExportHelper(
             getExportFileName(),
             m_parameters.isExportAsFiles(),
-            m_parameters.isXmlValidation());
+            m_parameters.isXmlValidation(),
+            m_parameters.getCompressionLevel());
         // initialize the dom4j writer object as member variable
         setSaxWriter(m_exportWriter.getSaxWriter());
 
@@ -1562,6 +1745,36 @@ public class CmsExport {
         return resourceName;
     }
 
+    /**
+     * Waits for the result of a read ahead task.<p>
+     *
+     * @param future the future of the read ahead task
+     *
+     * @return the read ahead data
+     *
+     * @throws CmsException if reading the data failed
+     * @throws IOException if the export was interrupted
+     */
+    private CmsReadAheadData getReadAheadResult(Future<CmsReadAheadData> future) throws CmsException, IOException {
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getLocalizedMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new CmsImportExportException(
+                Messages.get().container(Messages.ERR_IMPORTEXPORT_ERROR_READ_AHEAD_0),
+                cause);
+        }
+    }
+
     /** Returns the manifest entry for the <code>&lt;datelastmodified&gt;</code> node of the resource.
      * Depending on the export.timestamp property, the time stamp from the VFS (default) or
      * special macros are used.
@@ -33,12 +33,16 @@ import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsXmlSaxWriter;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -52,7 +56,7 @@ import org.xml.sax.SAXException;
  */
 public class CmsExportHelper {
 
-    /** Length that can be safely written to ZIP output. */
+    /** Buffer length used when copying the manifest to the ZIP output. */
     private static final int SUB_LENGTH = 4096;
 
     /** The main export path. */
@@ -64,6 +68,12 @@ public class CmsExportHelper {
     /** Indicates if the resources are exported in one export .ZIP file or as individual files. */
     private boolean m_isExportAsFiles;
 
+    /** The temporary file the manifest is written to in case of a ZIP export. */
+    private File m_manifestFile;
+
+    /** The writer for the manifest file. */
+    private Writer m_manifestWriter;
+
     /** The SAX writer for the Manifest file. */
     private SAXWriter m_saxWriter;
 
@@ -78,6 +88,23 @@ public class CmsExportHelper {
      * @throws IOException in case of file access issues
      */
     public CmsExportHelper(String exportPath, boolean exportAsFiles, boolean validateXml)
+    throws SAXException, IOException {
+
+        this(exportPath, exportAsFiles, validateXml, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a new export helper.<p>
+     *
+     * @param exportPath the export path
+     * @param exportAsFiles indicates if the resources should be exported as individual files or in one big ZIP file
+     * @param validateXml indicates of the manifest.xml should be validated
+     * @param compressionLevel the compression level for the ZIP file, see {@link Deflater}
+     *
+     * @throws SAXException in case of issues creating the manifest.xml
+     * @throws IOException in case of file access issues
+     */
+    public CmsExportHelper(String exportPath, boolean exportAsFiles, boolean validateXml, int compressionLevel)
     throws SAXException, IOException {
 
         m_exportPath = exportPath;
@@ -100,10 +127,21 @@ public class CmsExportHelper {
             rfsFile.getParentFile().mkdirs();
             // create the export ZIP stream
             m_exportZipStream = new ZipOutputStream(new FileOutputStream(m_exportPath));
-            // delegate writing to a String writer
-            writer = new StringWriter(SUB_LENGTH);
+            m_exportZipStream.setLevel(compressionLevel);
+            // the manifest must be the last entry of the ZIP file, so write it to a temporary file first
+            // (for large exports the manifest does not fit into memory), next to the ZIP file
+            m_manifestFile = File.createTempFile(
+                rfsFile.getName() + ".",
+                "." + CmsImportExportManager.EXPORT_MANIFEST,
+                rfsFile.getAbsoluteFile().getParentFile());
+            writer = new BufferedWriter(
+                new OutputStreamWriter(
+                    new FileOutputStream(m_manifestFile),
+                    OpenCms.getSystemInfo().getDefaultEncoding()));
         }
 
+        m_manifestWriter = writer;
+
         // generate the SAX XML writer
         CmsXmlSaxWriter saxHandler = new CmsXmlSaxWriter(writer, OpenCms.getSystemInfo().getDefaultEncoding());
         saxHandler.setEscapeXml(true);
@@ -123,6 +161,31 @@ public class CmsExportHelper {
         m_saxWriter = new SAXWriter(saxHandler, saxHandler);
     }
 
+    /**
+     * Closes the export, also if it was aborted because of an error.<p>
+     *
+     * The open streams are closed and the temporary manifest file is removed.
+     * Calling this method after the manifest has been written is harmless.<p>
+     */
+    public void close() {
+
+        try {
+            m_manifestWriter.close();
+        } catch (IOException e) {
+            // ignore, the export is already finished or has failed
+        }
+        if (m_exportZipStream != null) {
+            try {
+                m_exportZipStream.close();
+            } catch (IOException e) {
+                // ignore, the export is already finished or has failed
+            }
+        }
+        if ((m_manifestFile != null) && m_manifestFile.exists()) {
+            m_manifestFile.delete();
+        }
+    }
+
     /**
      * Returns the SAX writer for the Manifest file.<p>
      *
@@ -263,7 +326,7 @@ public class CmsExportHelper {
     /**
      * Writes the OpenCms manifest.xml file to the ZIP export.<p>
      *
-     * In case of the ZIP export the manifest is written to an internal StringBuffer
+     * In case of the ZIP export the manifest is written to a temporary file
      * first, which is then stored in the ZIP file when this method is called.<p>
      *
      * @param xmlSaxWriter the SAX writer to use
@@ -281,20 +344,19 @@ public class CmsExportHelper {
         ZipEntry entry = new ZipEntry(CmsImportExportManager.EXPORT_MANIFEST);
         m_exportZipStream.putNextEntry(entry);
 
-        // complex substring operation is required to ensure handling for very large export manifest files
-        StringBuffer result = ((StringWriter)xmlSaxWriter.getWriter()).getBuffer();
-        int steps = result.length() / SUB_LENGTH;
-        int rest = result.length() % SUB_LENGTH;
-        int pos = 0;
-        for (int i = 0; i < steps; i++) {
-            String sub = result.substring(pos, pos + SUB_LENGTH);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
-            pos += SUB_LENGTH;
-        }
-        if (rest > 0) {
-            String sub = result.substring(pos, pos + rest);
-            m_exportZipStream.write(sub.getBytes(OpenCms.getSystemInfo().getDefaultEncoding()));
+        // copy the manifest from the temporary file in chunks
+        InputStream in = new FileInputStream(m_manifestFile);
+        try {
+            byte[] buffer = new byte[SUB_LENGTH];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                m_exportZipStream.write(buffer, 0, len);
+            }
+        } finally {
+            in.close();
+            m_manifestFile.delete();
         }
+        m_manifestFile = null;
 
         // close the zip entry for the manifest XML document
         m_exportZipStream.closeEntry();
@@ -28,11 +28,13 @@
 package org.opencms.importexport;
 
 import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.main.OpenCms;
 import org.opencms.module.CmsModule.ExportMode;
 import org.opencms.util.CmsStringUtil;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.dom4j.Element;
 
@@ -43,6 +45,9 @@ import org.dom4j.Element;
  */
 public class CmsExportParameters {
 
+    /** The compression level used for the export ZIP file, or <code>null</code> for the configured default. */
+    private Integer m_compressionLevel;
+
     /** Only resources modified after this time stamp will be exported. */
     private long m_contentAge;
 
@@ -70,6 +75,9 @@ public class CmsExportParameters {
     /** The module informations if to export a module. */
     private Element m_moduleInfo;
 
+    /** The number of threads reading resources ahead of the export, or <code>null</code> for the configured default. */
+    private Integer m_parallelism;
+
     /** The file path, should be a zip file. */
     private String m_path;
 
@@ -193,6 +201,22 @@ public class CmsExportParameters {
         setAdditionalResourcesToExportWithMetaData(additionalResourcesToExportWithMetaData);
     }
 
+    /**
+     * Returns the compression level used for the export ZIP file.<p>
+     *
+     * If no compression level was set, the default configured in the import/export manager is used.<p>
+     *
+     * @return the compression level, see {@link Deflater}
+     */
+    public int getCompressionLevel() {
+
+        if (m_compressionLevel != null) {
+            return m_compressionLevel.intValue();
+        }
+        CmsImportExportManager manager = OpenCms.getImportExportManager();
+        return manager != null ? manager.getExportCompressionLevel() : Deflater.DEFAULT_COMPRESSION;
+    }
+
     /**
      * Returns the content Age.<p>
      *
@@ -223,6 +247,22 @@ public class CmsExportParameters {
         return m_moduleInfo;
     }
 
+    /**
+     * Returns the number of threads used to read resources ahead of writing them to the export.<p>
+     *
+     * If no number of threads was set, the default configured in the import/export manager is used.<p>
+     *
+     * @return the number of read ahead threads
+     */
+    public int getParallelism() {
+
+        if (m_parallelism != null) {
+            return m_parallelism.intValue();
+        }
+        CmsImportExportManager manager = OpenCms.getImportExportManager();
+        return manager != null ? manager.getExportParallelism() : 1;
+    }
+
     /**
      * Returns the file path, should be a zip file.<p>
      *
@@ -365,6 +405,21 @@ public class CmsExportParameters {
 
     }
 
+    /**
+     * Sets the compression level used for the export ZIP file.<p>
+     *
+     * @param compressionLevel the compression level, from 0 (no compression) to 9 (best compression),
+     *      or -1 for the default compression
+     */
+    public void setCompressionLevel(int compressionLevel) {
+
+        if ((compressionLevel < Deflater.DEFAULT_COMPRESSION) || (compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new CmsIllegalArgumentException(
+                Messages.get().container(Messages.ERR_BAD_COMPRESSION_LEVEL_1, Integer.toString(compressionLevel)));
+        }
+        m_compressionLevel = Integer.valueOf(compressionLevel);
+    }
+
     /**
      * Sets the content Age.<p>
      *
@@ -470,6 +525,18 @@ public class CmsExportParameters {
         m_moduleInfo = moduleInfo;
     }
 
+    /**
+     * Sets the number of threads used to read resources ahead of writing them to the export.<p>
+     *
+     * The output of the export does not depend on this setting.<p>
+     *
+     * @param parallelism the number of read ahead threads, values below 1 are treated as 1
+     */
+    public void setParallelism(int parallelism) {
+
+        m_parallelism = Integer.valueOf(Math.max(1, parallelism));
+    }
+
     /**
      * Sets the file path, should be a zip file.<p>
      *
@@ -37,6 +37,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
@@ -54,6 +55,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.Deflater;
 
 import org.apache.commons.logging.Log;
 
@@ -414,6 +416,12 @@ public class CmsImportExportManager {
     /** Map from resource types to default timestamp modes. */
     private Map<String, TimestampMode> m_defaultTimestampModes;
 
+    /** The configured compression level of export ZIP files, or <code>null</code>. */
+    private Integer m_exportCompressionLevel;
+
+    /** The configured number of threads reading resources ahead of an export, or <code>null</code>. */
+    private Integer m_exportParallelism;
+
     /** The default values of the HTML->OpenCms Template converter. */
     private CmsExtendedHtmlImportDefault m_extendedHtmlImportDefault;
 
@@ -693,6 +701,46 @@ public class CmsImportExportManager {
         return result;
     }
 
+    /**
+     * Returns the compression level used for export ZIP files by default.<p>
+     *
+     * @return the compression level, see {@link Deflater}
+     */
+    public int getExportCompressionLevel() {
+
+        return m_exportCompressionLevel != null ? m_exportCompressionLevel.intValue() : Deflater.DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * Returns the configured compression level of export ZIP files.<p>
+     *
+     * @return the configured compression level, or <code>null</code> if not configured
+     */
+    public Integer getExportCompressionLevelForConfiguration() {
+
+        return m_exportCompressionLevel;
+    }
+
+    /**
+     * Returns the number of threads used to read resources ahead of writing them to an export by default.<p>
+     *
+     * @return the number of read ahead threads
+     */
+    public int getExportParallelism() {
+
+        return m_exportParallelism != null ? m_exportParallelism.intValue() : 1;
+    }
+
+    /**
+     * Returns the configured number of threads used to read resources ahead of writing them to an export.<p>
+     *
+     * @return the configured number of read ahead threads, or <code>null</code> if not configured
+     */
+    public Integer getExportParallelismForConfiguration() {
+
+        return m_exportParallelism;
+    }
+
     /**
      * Returns the extendedHtmlImportDefault.<p>
      *
@@ -894,6 +942,10 @@ public class CmsImportExportManager {
 
         // check the required role permissions
         OpenCms.getRoleManager().checkRole(cms, CmsRole.DATABASE_MANAGER);
+        if (parameters.isBulkImport()) {
+            // bulk imports bypass the cache updates for all users, so they are restricted to the root administrator
+            OpenCms.getRoleManager().checkRole(cms, CmsRole.ROOT_ADMIN);
+        }
 
         try {
             OpenCms.fireCmsEvent(
@@ -992,6 +1044,33 @@ public class CmsImportExportManager {
         setConvertToXmlPage(Boolean.valueOf(convertToXmlPage).booleanValue());
     }
 
+    /**
+     * Sets the compression level used for export ZIP files by default.<p>
+     *
+     * @param compressionLevel the compression level, from 0 (no compression) to 9 (best compression),
+     *      or -1 for the default compression
+     */
+    public void setExportCompressionLevel(String compressionLevel) {
+
+        int value = Integer.parseInt(compressionLevel.trim());
+        if ((value < Deflater.DEFAULT_COMPRESSION) || (value > Deflater.BEST_COMPRESSION)) {
+            throw new CmsIllegalArgumentException(
+                Messages.get().container(Messages.ERR_BAD_COMPRESSION_LEVEL_1, compressionLevel));
+        }
+        m_exportCompressionLevel = Integer.valueOf(value);
+    }
+
+    /**
+     * Sets the number of threads used to read resources ahead of writing them to an export by default.<p>
+     *
+     * @param parallelism the number of read ahead threads, values below 1 are treated as 1
+     */
+    public void setExportParallelism(String parallelism) {
+
+        int value = Integer.parseInt(parallelism.trim());
+        m_exportParallelism = Integer.valueOf(Math.max(1, value));
+    }
+
     /**
      * Sets the extendedHtmlImportDefault.<p>
      *
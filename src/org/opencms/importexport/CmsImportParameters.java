@@ -34,6 +34,9 @@ package org.opencms.importexport;
  */
 public class CmsImportParameters {
 
+    /** If set, the import runs in bulk mode, without per resource cache updates and events. */
+    private boolean m_bulkImport;
+
     /** The path in the OpenCms VFS to import into.*/
     private String m_destinationPath;
 
@@ -80,6 +83,21 @@ public class CmsImportParameters {
         return m_path;
     }
 
+    /**
+     * Checks if the import runs in bulk mode.<p>
+     *
+     * In bulk mode, the internal caches are not updated and no events are fired for the single imported resources.
+     * Instead, the caches are cleared and the offline search indexes are updated once after all resources
+     * have been imported. This is meant for large initial imports, where no other user works on the imported
+     * resources at the same time.<p>
+     *
+     * @return the bulk import flag
+     */
+    public boolean isBulkImport() {
+
+        return m_bulkImport;
+    }
+
     /**
      * Returns the keep permissions flags.
      * if set, the permissions set on existing resources will not be modified.<p>
@@ -101,6 +119,18 @@ public class CmsImportParameters {
         return m_xmlValidation;
     }
 
+    /**
+     * Sets the bulk import flag.<p>
+     *
+     * @param bulkImport the bulk import flag to set
+     *
+     * @see #isBulkImport()
+     */
+    public void setBulkImport(boolean bulkImport) {
+
+        m_bulkImport = bulkImport;
+    }
+
     /**
      * Sets the path in the OpenCms VFS to import into.<p>
      *
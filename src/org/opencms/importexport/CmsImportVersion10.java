@@ -30,6 +30,7 @@ package org.opencms.importexport;
 import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsParameterConfiguration;
 import org.opencms.db.CmsDbEntryNotFoundException;
+import org.opencms.db.CmsDriverManager;
 import org.opencms.db.log.CmsLogEntry;
 import org.opencms.file.CmsDataAccessException;
 import org.opencms.file.CmsFile;
@@ -50,10 +51,13 @@ import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.importexport.CmsImportExportManager.TimestampMode;
 import org.opencms.loader.CmsLoaderException;
 import org.opencms.lock.CmsLock;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalStateException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.relations.CmsRelationType;
 import org.opencms.relations.I_CmsLinkParseable;
 import org.opencms.report.I_CmsReport;
@@ -556,6 +560,12 @@ public class CmsImportVersion10 implements I_CmsImport {
     /** The export version. */
     protected int m_version;
 
+    /** The resources imported in bulk mode, <code>null</code> if not in bulk mode. */
+    private List<CmsResource> m_bulkImportedResources;
+
+    /** The log entry attribute of the request context before the bulk import, restored when the bulk import ends. */
+    private Object m_bulkImportLogEntry;
+
     /**
      * Maps index of files in import to structure ids of imported resources.
      * Necessary because not all entries in the manifest may have a structure id, and even for entries
@@ -920,6 +930,9 @@ public class CmsImportVersion10 implements I_CmsImport {
         // and now the organizational unit resources
         digester.addCallMethod(CmsImportExportManager.N_EXPORT + "/" + N_FILES, "associateOrgUnitResources");
 
+        // the end rules are fired in reverse order, so this runs before the relations and links are processed
+        digester.addCallMethod(CmsImportExportManager.N_EXPORT + "/" + N_FILES, "finishBulkImport");
+
         // then projects
         xpath = CmsImportExportManager.N_EXPORT + "/" + N_PROJECTS + "/" + N_PROJECT + "/";
         addProjectRules(digester, xpath);
@@ -1017,6 +1030,49 @@ public class CmsImportVersion10 implements I_CmsImport {
         m_orgUnitResources = null;
     }
 
+    /**
+     * Finishes a bulk import.<p>
+     *
+     * Clears the internal caches and updates the offline search indexes once for all imported resources.
+     * This is a global process that occurs only once after all resources have been imported,
+     * before the relations and links are processed. Does nothing if the import does not run in bulk mode.<p>
+     *
+     * @see CmsImportParameters#isBulkImport()
+     * @see #addXmlDigesterRules(Digester)
+     */
+    public void finishBulkImport() {
+
+        if (m_bulkImportedResources == null) {
+            return;
+        }
+        List<CmsResource> resources = m_bulkImportedResources;
+        m_bulkImportedResources = null;
+        getRequestContext().removeAttribute(CmsDriverManager.ATTR_BULK_IMPORT);
+        if (m_bulkImportLogEntry != null) {
+            getRequestContext().setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, m_bulkImportLogEntry);
+            m_bulkImportLogEntry = null;
+        } else {
+            getRequestContext().removeAttribute(CmsLogEntry.ATTR_LOG_ENTRY);
+        }
+
+        getReport().println(
+            Messages.get().container(Messages.RPT_FINISH_BULK_IMPORT_1, String.valueOf(resources.size())),
+            I_CmsReport.FORMAT_HEADLINE);
+        OpenCms.getMemoryMonitor().clearAccessControlListCache();
+        OpenCms.getMemoryMonitor().flushCache(
+            CmsMemoryMonitor.CacheType.PROPERTY,
+            CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+        OpenCms.fireCmsEvent(
+            new CmsEvent(I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES, Collections.<String, Object> emptyMap()));
+        if (!resources.isEmpty()) {
+            // a single event, so the offline indexes are updated in one go
+            OpenCms.fireCmsEvent(
+                new CmsEvent(
+                    I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCES, resources)));
+        }
+    }
+
     /**
      * Returns the ace Flags.<p>
      *
@@ -1569,6 +1625,12 @@ public class CmsImportVersion10 implements I_CmsImport {
 
         InputStream stream = null;
         m_helper = new CmsImportHelper(m_parameters);
+        if (m_parameters.isBulkImport()) {
+            m_bulkImportedResources = new ArrayList<CmsResource>();
+            m_cms.getRequestContext().setAttribute(CmsDriverManager.ATTR_BULK_IMPORT, Boolean.TRUE);
+            m_bulkImportLogEntry = m_cms.getRequestContext().getAttribute(CmsLogEntry.ATTR_LOG_ENTRY);
+            m_cms.getRequestContext().setAttribute(CmsLogEntry.ATTR_LOG_ENTRY, Boolean.FALSE);
+        }
         try {
             m_helper.openFile();
             m_helper.cacheDtdSystemId(DTD_LOCATION, DTD_FILENAME, CmsConfigurationManager.DEFAULT_DTD_PREFIX);
@@ -1594,6 +1656,8 @@ public class CmsImportVersion10 implements I_CmsImport {
                 // noop
             }
             m_helper.closeFile();
+            // in case the import was aborted
+            finishBulkImport();
         }
     }
 
@@ -2068,6 +2132,9 @@ public class CmsImportVersion10 implements I_CmsImport {
 
                 if (m_resource != null) {
                     m_indexToStructureId.put(Integer.valueOf(m_fileCounter), m_resource.getStructureId());
+                    if (m_bulkImportedResources != null) {
+                        m_bulkImportedResources.add(m_resource);
+                    }
                 }
 
                 // only set permissions if the resource did not exists or if the keep permissions flag is not set
@@ -37,6 +37,9 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_BAD_COMPRESSION_LEVEL_1 = "ERR_BAD_COMPRESSION_LEVEL_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_BAD_CONTENT_AGE_1 = "ERR_BAD_CONTENT_AGE_1";
 
@@ -121,6 +124,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORTEXPORT_ERROR_READING_FILE_1 = "ERR_IMPORTEXPORT_ERROR_READING_FILE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMPORTEXPORT_ERROR_READ_AHEAD_0 = "ERR_IMPORTEXPORT_ERROR_READ_AHEAD_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORTEXPORT_ERROR_REMOVING_FOLDERS_OF_IMPORTED_BODY_FILES_0 = "ERR_IMPORTEXPORT_ERROR_REMOVING_FOLDERS_OF_IMPORTED_BODY_FILES_0";
 
@@ -312,6 +318,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORT_USER_0 = "RPT_EXPORT_USER_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_FINISH_BULK_IMPORT_1 = "RPT_FINISH_BULK_IMPORT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMPORT_ACL_DATA_FAILED_0 = "RPT_IMPORT_ACL_DATA_FAILED_0";
 
@@ -25,30 +25,77 @@
  * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
  */
 
+
 package org.opencms.jlan;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
 /**
- * Buffer class which holds file contents for JLAN file access in memory before they are written to the VFS.<p>
+ * Buffer class which holds file contents for JLAN file access before they are written to the VFS.<p>
  *
- * This is implemented as a CmsByteBuffer instance together with a 'position' index which marks the next write position
+ * The buffer starts with the shared, read only content of the file from the {@link CmsJlanContentCache}.
+ * On the first modification a private copy is created. Copies smaller than the spill threshold are held
+ * in memory as a CmsByteBuffer instance, larger ones are written to a temporary file.
+ * The buffer also has a 'position' index which marks the next write position.<p>
  */
 public class CmsFileBuffer {
 
-    /** The buffer used to store the file contents. */
+    /** The private buffer used to store the modified file contents in memory. */
     CmsByteBuffer m_buffer = new CmsByteBuffer(8192);
 
+    /** The shared content, or <code>null</code> if a private copy is used. */
+    CmsJlanContentCache.Content m_content;
+
     /** The current write position. */
     long m_position;
 
+    /** The temporary file holding a large private copy, or <code>null</code>. */
+    RandomAccessFile m_spill;
+
+    /** The path of the temporary file holding a large private copy. */
+    File m_spillFile;
+
+    /** The length from which private copies are written to a temporary file. */
+    int m_spillThreshold = Integer.MAX_VALUE;
+
+    /**
+     * Releases the temporary file of this buffer, if any.<p>
+     */
+    public void close() {
+
+        if (m_spill != null) {
+            try {
+                m_spill.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            m_spill = null;
+            m_spillFile.delete();
+            m_spillFile = null;
+        }
+    }
+
     /**
      * Gets the contents of this buffer as a byte array.<p>
      *
      * @return the file content
+     *
+     * @throws IOException if reading the temporary file fails
      */
-    public byte[] getContents() {
+    public byte[] getContents() throws IOException {
 
-        byte[] contents = new byte[m_buffer.size()];
-        m_buffer.readBytes(contents, 0, 0, m_buffer.size());
+        byte[] contents = new byte[(int)getLength()];
+        if (m_content != null) {
+            m_content.read(contents, contents.length, 0, 0);
+        } else if (m_spill != null) {
+            m_spill.seek(0);
+            m_spill.readFully(contents);
+        } else {
+            m_buffer.readBytes(contents, 0, 0, m_buffer.size());
+        }
         return contents;
     }
 
@@ -57,9 +104,15 @@ public class CmsFileBuffer {
      *
      * @return the content length
      *
+     * @throws IOException if accessing the temporary file fails
      */
-    public long getLength() {
+    public long getLength() throws IOException {
 
+        if (m_content != null) {
+            return m_content.getLength();
+        } else if (m_spill != null) {
+            return m_spill.length();
+        }
         return m_buffer.size();
     }
 
@@ -84,6 +137,20 @@ public class CmsFileBuffer {
         m_buffer.writeBytes(data, 0, 0, data.length);
     }
 
+    /**
+     * Initializes the buffer with a shared, read only content.<p>
+     *
+     * @param content the shared content
+     * @param spillThreshold the length from which a private copy is written to a temporary file
+     */
+    public void init(CmsJlanContentCache.Content content, int spillThreshold) {
+
+        m_position = 0;
+        m_content = content;
+        m_spillThreshold = spillThreshold;
+        m_buffer = null;
+    }
+
     /**
      * Transfers data from this buffer to a byte array.<p>
      *
@@ -94,17 +161,28 @@ public class CmsFileBuffer {
      * @param fileOffset the start index for this instance
      *
      * @return the number of bytes read, or -1 if we are at the end of the file
+     *
+     * @throws IOException if reading the temporary file fails
      */
-    public int read(byte[] dest, int length, int bufferOffset, int fileOffset) {
+    public int read(byte[] dest, int length, int bufferOffset, int fileOffset) throws IOException {
 
-        if (fileOffset >= m_buffer.size()) {
+        if (m_content != null) {
+            return m_content.read(dest, length, bufferOffset, fileOffset);
+        }
+        long size = getLength();
+        if (fileOffset >= size) {
             return -1;
         }
         int readEnd = fileOffset + length;
-        if (readEnd > m_buffer.size()) {
-            length = length - (readEnd - m_buffer.size());
+        if (readEnd > size) {
+            length = length - (int)(readEnd - size);
+        }
+        if (m_spill != null) {
+            m_spill.seek(fileOffset);
+            m_spill.readFully(dest, bufferOffset, length);
+        } else {
+            m_buffer.readBytes(dest, fileOffset, bufferOffset, length);
         }
-        m_buffer.readBytes(dest, fileOffset, bufferOffset, length);
         return length;
     }
 
@@ -122,10 +200,17 @@ public class CmsFileBuffer {
      * Changes the size of this buffer.<p>
      *
      * @param size the new size
+     *
+     * @throws IOException if accessing the temporary file fails
      */
-    public void truncate(int size) {
+    public void truncate(int size) throws IOException {
 
-        m_buffer.truncate(size);
+        ensureWritable(size);
+        if (m_spill != null) {
+            m_spill.setLength(size);
+        } else {
+            m_buffer.truncate(size);
+        }
         m_position = Math.min(size, m_position);
     }
 
@@ -133,9 +218,49 @@ public class CmsFileBuffer {
      * Writes the data to the internal buffer.<p>
      *
      * @param data the data to write
+     *
+     * @throws IOException if writing the temporary file fails
      */
-    public void write(byte[] data) {
+    public void write(byte[] data) throws IOException {
 
-        m_buffer.writeBytes(data, 0, (int)m_position, data.length);
+        ensureWritable(m_position + data.length);
+        if (m_spill != null) {
+            m_spill.seek(m_position);
+            m_spill.write(data);
+        } else {
+            m_buffer.writeBytes(data, 0, (int)m_position, data.length);
+        }
+    }
+
+    /**
+     * Creates the private copy of the content if necessary, and moves it to a temporary file
+     * if it would grow beyond the spill threshold.<p>
+     *
+     * @param requiredLength the length the content will have after the modification
+     *
+     * @throws IOException if writing the temporary file fails
+     */
+    private void ensureWritable(long requiredLength) throws IOException {
+
+        if (m_spill != null) {
+            return;
+        }
+        long length = Math.max(requiredLength, getLength());
+        if (length >= m_spillThreshold) {
+            ByteBuffer current = m_content != null ? m_content.asByteBuffer() : ByteBuffer.wrap(getContents());
+            m_spillFile = CmsJlanContentCache.createTempFile();
+            m_spill = new RandomAccessFile(m_spillFile, "rw");
+            while (current.hasRemaining()) {
+                m_spill.getChannel().write(current);
+            }
+            m_content = null;
+            m_buffer = null;
+        } else if (m_content != null) {
+            m_buffer = new CmsByteBuffer((int)length);
+            byte[] data = new byte[m_content.getLength()];
+            m_content.read(data, data.length, 0, 0);
+            m_buffer.writeBytes(data, 0, 0, data.length);
+            m_content = null;
+        }
     }
 }
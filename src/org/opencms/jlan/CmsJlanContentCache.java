@@ -0,0 +1,350 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (C) Alkacon Software (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jlan;
+
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * Cache for the contents of files accessed through the JLAN server, shared by all open file handles.<p>
+ *
+ * A content is identified by the project, the resource id, the content date and the length of a file,
+ * so every version of a file is only read from the VFS once per project, no matter how many handles are
+ * opened for it. Contents larger than the mapping threshold are written to a temporary file which is
+ * memory mapped, so they don't occupy heap space.<p>
+ *
+ * Each JLAN repository uses its own cache, configured with the repository parameters
+ * {@link CmsJlanRepository#PARAM_CONTENT_CACHE_SIZE} and {@link CmsJlanRepository#PARAM_CONTENT_MAPPING_THRESHOLD}.<p>
+ *
+ * The contents are read only. A file handle that is written to works on a private copy of the content,
+ * see {@link CmsFileBuffer}.<p>
+ */
+public final class CmsJlanContentCache {
+
+    /**
+     * A read only file content, either held on the heap or memory mapped.<p>
+     */
+    public static final class Content {
+
+        /** The content, if held on the heap. */
+        private byte[] m_data;
+
+        /** The mapped content, if the content is memory mapped. */
+        private ByteBuffer m_mapped;
+
+        /**
+         * Creates a content held on the heap.<p>
+         *
+         * @param data the content data
+         */
+        public Content(byte[] data) {
+
+            m_data = data;
+        }
+
+        /**
+         * Creates a memory mapped content.<p>
+         *
+         * @param mapped the mapped content
+         */
+        public Content(ByteBuffer mapped) {
+
+            m_mapped = mapped;
+        }
+
+        /**
+         * Returns a read only view of this content, positioned at the start.<p>
+         *
+         * @return a read only view of this content
+         */
+        public ByteBuffer asByteBuffer() {
+
+            return m_data != null ? ByteBuffer.wrap(m_data).asReadOnlyBuffer() : m_mapped.duplicate();
+        }
+
+        /**
+         * Returns the length of this content.<p>
+         *
+         * @return the content length
+         */
+        public int getLength() {
+
+            return m_data != null ? m_data.length : m_mapped.capacity();
+        }
+
+        /**
+         * Checks if this content is memory mapped.<p>
+         *
+         * @return <code>true</code> if this content is memory mapped
+         */
+        public boolean isMapped() {
+
+            return m_mapped != null;
+        }
+
+        /**
+         * Transfers data from this content to a byte array.<p>
+         *
+         * @param dest the target byte array
+         * @param length the number of bytes to transfer
+         * @param bufferOffset the start index for the target array
+         * @param fileOffset the start index in this content
+         *
+         * @return the number of bytes read, or -1 if the offset is at the end of the content
+         */
+        public int read(byte[] dest, int length, int bufferOffset, int fileOffset) {
+
+            int size = getLength();
+            if (fileOffset >= size) {
+                return -1;
+            }
+            int len = Math.min(length, size - fileOffset);
+            if (m_data != null) {
+                System.arraycopy(m_data, fileOffset, dest, bufferOffset, len);
+            } else {
+                // work on a duplicate, the position of the shared buffer must not be changed
+                ByteBuffer view = m_mapped.duplicate();
+                view.position(fileOffset);
+                view.get(dest, bufferOffset, len);
+            }
+            return len;
+        }
+    }
+
+    /** The default content length from which contents are memory mapped. */
+    public static final int DEFAULT_MAPPING_THRESHOLD = 1024 * 1024;
+
+    /** The default maximum total length of the cached contents. */
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJlanContentCache.class);
+
+    /** The instance used if no cache is configured for a repository. */
+    private static final CmsJlanContentCache INSTANCE = new CmsJlanContentCache(
+        DEFAULT_MAPPING_THRESHOLD,
+        DEFAULT_MAX_SIZE);
+
+    /** The cached contents, by their key. */
+    private Cache<String, Content> m_cache;
+
+    /** The content length from which contents are memory mapped. */
+    private int m_mappingThreshold;
+
+    /**
+     * Creates a new content cache.<p>
+     *
+     * @param mappingThreshold the content length from which contents are memory mapped
+     * @param maxSize the maximum total length of the cached contents
+     */
+    public CmsJlanContentCache(int mappingThreshold, long maxSize) {
+
+        m_mappingThreshold = mappingThreshold;
+        m_cache = CacheBuilder.newBuilder().maximumWeight(maxSize).weigher(new Weigher<String, Content>() {
+
+            public int weigh(String key, Content value) {
+
+                return value.getLength();
+            }
+        }).build();
+    }
+
+    /**
+     * Returns the content cache with the default settings, used if no cache is configured for a repository.<p>
+     *
+     * @return the default content cache
+     */
+    public static CmsJlanContentCache getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the key identifying the content version of a file in a project.<p>
+     *
+     * @param projectId the id of the project the file was read in
+     * @param resource the file
+     *
+     * @return the content key
+     */
+    public static String getKey(CmsUUID projectId, CmsResource resource) {
+
+        return projectId
+            + "_"
+            + resource.getResourceId()
+            + "_"
+            + resource.getDateContent()
+            + "_"
+            + resource.getLength();
+    }
+
+    /**
+     * Creates a temporary file which is deleted when the JVM exits.<p>
+     *
+     * @return the temporary file
+     *
+     * @throws IOException if the file could not be created
+     */
+    static File createTempFile() throws IOException {
+
+        File file = File.createTempFile("opencms-jlan-", ".tmp");
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Removes all contents from the cache.<p>
+     */
+    public void clear() {
+
+        m_cache.invalidateAll();
+    }
+
+    /**
+     * Returns the cached content of the given file version.<p>
+     *
+     * @param projectId the id of the project the file was read in
+     * @param resource the file
+     *
+     * @return the cached content, or <code>null</code> if the content is not cached
+     */
+    public Content get(CmsUUID projectId, CmsResource resource) {
+
+        return m_cache.getIfPresent(getKey(projectId, resource));
+    }
+
+    /**
+     * Returns the content length from which contents are memory mapped.<p>
+     *
+     * @return the mapping threshold
+     */
+    public int getMappingThreshold() {
+
+        return m_mappingThreshold;
+    }
+
+    /**
+     * Adds the content of a file version to the cache.<p>
+     *
+     * If another thread already added the content of the same version, that content is returned.<p>
+     *
+     * @param projectId the id of the project the file was read in
+     * @param resource the file
+     * @param data the content data
+     *
+     * @return the cached content
+     *
+     * @throws IOException if a large content could not be written to a temporary file
+     */
+    public Content put(CmsUUID projectId, CmsResource resource, byte[] data) throws IOException {
+
+        String key = getKey(projectId, resource);
+        Content content = m_cache.getIfPresent(key);
+        if (content == null) {
+            content = data.length >= m_mappingThreshold ? new Content(map(data)) : new Content(data);
+            Content previous = m_cache.asMap().putIfAbsent(key, content);
+            if (previous != null) {
+                content = previous;
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Removes the content of the given file version from the cache, e.g. because it has been overwritten.<p>
+     *
+     * Handles that already use the content keep it until they are closed.<p>
+     *
+     * @param projectId the id of the project the file was read in
+     * @param resource the file
+     */
+    public void remove(CmsUUID projectId, CmsResource resource) {
+
+        m_cache.invalidate(getKey(projectId, resource));
+    }
+
+    /**
+     * Returns the number of cached contents.<p>
+     *
+     * @return the number of cached contents
+     */
+    public long size() {
+
+        return m_cache.size();
+    }
+
+    /**
+     * Writes data to a temporary file and maps it into memory.<p>
+     *
+     * The temporary file is deleted right away if the platform allows this for mapped files,
+     * otherwise when the JVM exits. The mapping stays valid until the returned buffer is garbage collected.<p>
+     *
+     * @param data the data
+     *
+     * @return the mapped data
+     *
+     * @throws IOException if writing or mapping the file fails
+     */
+    private ByteBuffer map(byte[] data) throws IOException {
+
+        File file = createTempFile();
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(data);
+            } finally {
+                out.close();
+            }
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, data.length);
+            } finally {
+                raf.close();
+            }
+        } finally {
+            if (!file.delete() && LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_DELETE_MAPPED_FILE_FAILED_1, file));
+            }
+        }
+    }
+}
@@ -101,18 +101,22 @@ public class CmsJlanNetworkFile extends NetworkFile {
     @Override
     public void closeFile() throws IOException {
 
-        if (hasDeleteOnClose()) {
-            delete();
-        } else {
-            flushFile();
-            if ((getWriteCount() > 0) && m_needToUnlock) {
-                try {
-                    m_cms.unlockResource(m_cms.getSitePath(m_resource));
-                    m_needToUnlock = false;
-                } catch (CmsException e) {
-                    LOG.error("Couldn't unlock file: " + m_resource.getRootPath());
+        try {
+            if (hasDeleteOnClose()) {
+                delete();
+            } else {
+                flushFile();
+                if ((getWriteCount() > 0) && m_needToUnlock) {
+                    try {
+                        m_cms.unlockResource(m_cms.getSitePath(m_resource));
+                        m_needToUnlock = false;
+                    } catch (CmsException e) {
+                        LOG.error("Couldn't unlock file: " + m_resource.getRootPath());
+                    }
                 }
             }
+        } finally {
+            m_buffer.close();
         }
     }
 
@@ -164,9 +168,11 @@ public class CmsJlanNetworkFile extends NetworkFile {
                     if (CmsResourceTypeXmlContent.isXmlContent(file)) {
                         content = removeTrailingNulBytes(content);
                     }
-                    file.setContents(content);
+                    file = createFile(file, content);
                     ensureLock();
                     m_cms.writeFile(file);
+                    // the previous content version will not be read again in this project
+                    getContentCache().remove(m_cms.getRequestContext().getCurrentProject().getUuid(), m_resource);
                 }
             }
             m_lastFlush = writeCount;
@@ -418,12 +424,16 @@ public class CmsJlanNetworkFile extends NetworkFile {
     /**
      * Gets the CmsFile instance for this file, or null if the file contents haven'T been loaded already.<p>
      *
+     * The contents of the returned file are not set, they are held by the file buffer.<p>
+     *
      * @return the CmsFile instance
      */
     protected CmsFile getFile() {
 
         if (m_resource instanceof CmsFile) {
             return (CmsFile)m_resource;
+        } else if (m_bufferInitialized) {
+            return new CmsFile(m_resource);
         }
         return null;
     }
@@ -456,14 +466,29 @@ public class CmsJlanNetworkFile extends NetworkFile {
             if (m_resource.isFolder() && needContent) {
                 throw new AccessDeniedException("Operation not supported for directories!");
             }
-            if (m_resource.isFile() && needContent && (!(m_resource instanceof CmsFile))) {
-                m_resource = m_cms.readFile(m_cms.getSitePath(m_resource), CmsJlanDiskInterface.STANDARD_FILTER);
-            }
-            if (!m_bufferInitialized && (getFile() != null)) {
-                // readResource may already have returned a CmsFile, this is why we need to initialize the buffer
-                // here and not in the if-block above
-                m_buffer.init(getFile().getContents());
+            // readResource may already have returned a CmsFile, this is why the buffer is also initialized
+            // if the content is not needed yet
+            if (!m_bufferInitialized
+                && m_resource.isFile()
+                && (needContent || (m_resource instanceof CmsFile))) {
+                // the content of a file version is shared by all handles, so it is only read if not cached
+                CmsJlanContentCache cache = getContentCache();
+                CmsUUID projectId = m_cms.getRequestContext().getCurrentProject().getUuid();
+                CmsJlanContentCache.Content content = null;
+                if (!(m_resource instanceof CmsFile)) {
+                    content = cache.get(projectId, m_resource);
+                }
+                if (content == null) {
+                    CmsFile file = m_resource instanceof CmsFile
+                    ? (CmsFile)m_resource
+                    : m_cms.readFile(m_cms.getSitePath(m_resource), CmsJlanDiskInterface.STANDARD_FILTER);
+                    m_resource = file;
+                    content = cache.put(projectId, file, file.getContents());
+                }
+                m_buffer.init(content, cache.getMappingThreshold());
                 m_bufferInitialized = true;
+                // don't keep a second reference to the content
+                m_resource = m_resource.getCopy();
             }
         } catch (CmsException e) {
             throw e;
@@ -501,6 +526,51 @@ public class CmsJlanNetworkFile extends NetworkFile {
         setAttributes(m_resource.isFile() ? FileAttribute.Normal : FileAttribute.Directory);
     }
 
+    /**
+     * Creates a copy of a file with new contents.<p>
+     *
+     * Like {@link CmsFile#setContents(byte[])}, this updates the content date, unless the file was empty.<p>
+     *
+     * @param file the file
+     * @param content the new contents
+     *
+     * @return the file with the new contents
+     */
+    private CmsFile createFile(CmsFile file, byte[] content) {
+
+        return new CmsFile(
+            file.getStructureId(),
+            file.getResourceId(),
+            file.getRootPath(),
+            file.getTypeId(),
+            file.getFlags(),
+            file.getProjectLastModified(),
+            file.getState(),
+            file.getDateCreated(),
+            file.getUserCreated(),
+            file.getDateLastModified(),
+            file.getUserLastModified(),
+            file.getDateReleased(),
+            file.getDateExpired(),
+            file.getSiblingCount(),
+            content.length,
+            file.getLength() > 0 ? System.currentTimeMillis() : file.getDateContent(),
+            file.getVersion(),
+            content);
+    }
+
+    /**
+     * Returns the content cache of the repository this file belongs to.<p>
+     *
+     * @return the content cache
+     */
+    private CmsJlanContentCache getContentCache() {
+
+        CmsJlanContentCache cache = (CmsJlanContentCache)m_cms.getRequestContext().getAttribute(
+            CmsJlanRepository.JLAN_CONTENT_CACHE);
+        return cache != null ? cache : CmsJlanContentCache.getInstance();
+    }
+
     /**
      * Replace sequences of consecutive slashes/backslashes to a single backslash.<p>
      *
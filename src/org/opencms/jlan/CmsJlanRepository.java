@@ -68,12 +68,21 @@ import com.google.common.collect.Lists;
  */
 public class CmsJlanRepository implements I_CmsRepository {
 
+    /** Request context attribute for the content cache of the repository. */
+    public static final String JLAN_CONTENT_CACHE = "jlan.contentCache";
+
     /** Request context attribute to control error handling for write errors. */
     public static final String JLAN_IGNORE_WRITE_ERRORS = "jlan.ignoreWriteErrors";
 
     /** Parameter for controlling whether byte order marks should be added to plaintext files. */
     public static final String PARAM_ADD_BOM = "addBOM";
 
+    /** Parameter for the maximum total size of the cached file contents in kilobytes. */
+    public static final String PARAM_CONTENT_CACHE_SIZE = "contentCacheSize";
+
+    /** Parameter for the content size in kilobytes from which cached file contents are memory mapped. */
+    public static final String PARAM_CONTENT_MAPPING_THRESHOLD = "contentMappingThreshold";
+
     /** Parameter that controls whether to ignore file write errors. */
     public static final String PARAM_IGNORE_WRITE_ERRORS = "ignoreWriteErrors";
 
@@ -95,6 +104,9 @@ public class CmsJlanRepository implements I_CmsRepository {
     /** The CMS context. */
     private CmsObject m_cms;
 
+    /** The cache for the file contents read through this repository. */
+    private CmsJlanContentCache m_contentCache = CmsJlanContentCache.getInstance();
+
     /** The configuration for this repository. */
     private CmsParameterConfiguration m_configuration = new CmsParameterConfiguration();
 
@@ -236,6 +248,7 @@ public class CmsJlanRepository implements I_CmsRepository {
         result.setAddByteOrderMark(m_addByteOrderMark);
         result.getRequestContext().setAttribute(CmsXmlContent.AUTO_CORRECTION_ATTRIBUTE, Boolean.TRUE);
         result.getRequestContext().setAttribute(JLAN_IGNORE_WRITE_ERRORS, Boolean.valueOf(m_ignoreWriteErrors));
+        result.getRequestContext().setAttribute(JLAN_CONTENT_CACHE, m_contentCache);
         return result;
     }
 
@@ -247,6 +260,16 @@ public class CmsJlanRepository implements I_CmsRepository {
         return m_configuration;
     }
 
+    /**
+     * Returns the cache for the file contents read through this repository.<p>
+     *
+     * @return the content cache
+     */
+    public CmsJlanContentCache getContentCache() {
+
+        return m_contentCache;
+    }
+
     /**
      * Gets the device context for this repository.<p>
      *
@@ -328,6 +351,16 @@ public class CmsJlanRepository implements I_CmsRepository {
         String addByteOrderMarkStr = getConfiguration().getString(PARAM_ADD_BOM, "" + true).trim();
         m_addByteOrderMark = Boolean.parseBoolean(addByteOrderMarkStr);
         m_ignoreWriteErrors = Boolean.parseBoolean(getConfiguration().getString(PARAM_IGNORE_WRITE_ERRORS, "false"));
+        if (getConfiguration().containsKey(PARAM_CONTENT_CACHE_SIZE)
+            || getConfiguration().containsKey(PARAM_CONTENT_MAPPING_THRESHOLD)) {
+            int cacheSize = getConfiguration().getInteger(
+                PARAM_CONTENT_CACHE_SIZE,
+                (int)(CmsJlanContentCache.DEFAULT_MAX_SIZE / 1024));
+            int mappingThreshold = getConfiguration().getInteger(
+                PARAM_CONTENT_MAPPING_THRESHOLD,
+                CmsJlanContentCache.DEFAULT_MAPPING_THRESHOLD / 1024);
+            m_contentCache = new CmsJlanContentCache(mappingThreshold * 1024, cacheSize * 1024L);
+        }
     }
 
     /**
@@ -27,8 +27,6 @@
 
 package org.opencms.jsp.util;
 
-import org.opencms.util.CmsRequestUtil;
-
 import java.util.Arrays;
 import java.util.List;
 
@@ -59,10 +57,9 @@ public class CmsJspDeviceSelector implements I_CmsJspDeviceSelector {
      */
     public String getDeviceType(HttpServletRequest req) {
 
-        m_userAgentInfo = new UAgentInfo(
-            req.getHeader(CmsRequestUtil.HEADER_USER_AGENT),
-            req.getHeader(CmsRequestUtil.HEADER_ACCEPT));
-        if (m_userAgentInfo.detectMobileQuick()) {
+        CmsJspUserAgentCache.UserAgent userAgent = CmsJspUserAgentCache.getUserAgent(req);
+        m_userAgentInfo = userAgent.getInfo();
+        if (userAgent.isMobile()) {
             return C_MOBILE;
         }
         return C_DESKTOP;
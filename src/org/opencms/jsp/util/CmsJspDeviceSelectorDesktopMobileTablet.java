@@ -29,7 +29,6 @@ package org.opencms.jsp.util;
 
 import org.opencms.loader.CmsTemplateContext;
 import org.opencms.loader.CmsTemplateContextManager;
-import org.opencms.util.CmsRequestUtil;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -68,14 +67,13 @@ public class CmsJspDeviceSelectorDesktopMobileTablet implements I_CmsJspDeviceSe
         if ((templateContext != null) && isTemplateContextCompatible(templateContext)) {
             return templateContext.getKey();
         }
-        m_userAgentInfo = new UAgentInfo(
-            req.getHeader(CmsRequestUtil.HEADER_USER_AGENT),
-            req.getHeader(CmsRequestUtil.HEADER_ACCEPT));
-        if (m_userAgentInfo.detectMobileQuick()) {
+        CmsJspUserAgentCache.UserAgent userAgent = CmsJspUserAgentCache.getUserAgent(req);
+        m_userAgentInfo = userAgent.getInfo();
+        if (userAgent.isMobile()) {
             return C_MOBILE;
         }
 
-        if (m_userAgentInfo.getIsTierTablet()) {
+        if (userAgent.isTablet()) {
             return C_TABLET;
         }
         return C_DESKTOP;
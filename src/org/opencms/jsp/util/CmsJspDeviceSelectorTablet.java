@@ -27,8 +27,6 @@
 
 package org.opencms.jsp.util;
 
-import org.opencms.util.CmsRequestUtil;
-
 import java.util.Arrays;
 import java.util.List;
 
@@ -66,10 +64,9 @@ public class CmsJspDeviceSelectorTablet implements I_CmsJspDeviceSelector {
      */
     public String getDeviceType(HttpServletRequest req) {
 
-        m_userAgentInfo = new UAgentInfo(
-            req.getHeader(CmsRequestUtil.HEADER_USER_AGENT),
-            req.getHeader(CmsRequestUtil.HEADER_ACCEPT));
-        if (m_userAgentInfo.detectMobileQuick() || m_userAgentInfo.getIsTierTablet()) {
+        CmsJspUserAgentCache.UserAgent userAgent = CmsJspUserAgentCache.getUserAgent(req);
+        m_userAgentInfo = userAgent.getInfo();
+        if (userAgent.isMobile() || userAgent.isTablet()) {
             return C_MOBILE;
         }
         return C_DESKTOP;
@@ -0,0 +1,225 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp.util;
+
+import org.opencms.flex.CmsFlexController;
+import org.opencms.util.CmsRequestUtil;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Bounded cache for the classification of user agents.<p>
+ *
+ * Detecting the device type from the "User-Agent" and "Accept" headers requires a long chain of substring checks,
+ * so the detection result is cached for each distinct pair of header values. Within a Flex request, the result
+ * is additionally stored in the {@link CmsFlexController}, so it is looked up only once per request.<p>
+ *
+ * Custom {@link I_CmsJspDeviceSelector} implementations should use {@link #getUserAgent(HttpServletRequest)}
+ * instead of creating a new {@link UAgentInfo} for every request.<p>
+ */
+public final class CmsJspUserAgentCache {
+
+    /**
+     * The cached detection result for a user agent.<p>
+     */
+    public static class UserAgent {
+
+        /** The user agent info. */
+        private UAgentInfo m_info;
+
+        /** The result of the quick mobile detection. */
+        private boolean m_mobile;
+
+        /** The result of the tablet detection. */
+        private boolean m_tablet;
+
+        /**
+         * Creates a new detection result.<p>
+         *
+         * @param info the user agent info
+         */
+        UserAgent(UAgentInfo info) {
+
+            m_info = info;
+            m_mobile = info.detectMobileQuick();
+            m_tablet = info.getIsTierTablet();
+        }
+
+        /**
+         * Returns the user agent info.<p>
+         *
+         * The returned info is shared between requests and must not be modified.<p>
+         *
+         * @return the user agent info
+         */
+        public UAgentInfo getInfo() {
+
+            return m_info;
+        }
+
+        /**
+         * Returns the result of {@link UAgentInfo#detectMobileQuick()}.<p>
+         *
+         * @return true if the user agent is a mobile device, not including tablets
+         */
+        public boolean isMobile() {
+
+            return m_mobile;
+        }
+
+        /**
+         * Returns the result of {@link UAgentInfo#getIsTierTablet()}.<p>
+         *
+         * @return true if the user agent is a tablet
+         */
+        public boolean isTablet() {
+
+            return m_tablet;
+        }
+    }
+
+    /** The maximum number of distinct user agents kept in the shared cache. */
+    public static final int DEFAULT_MAX_SIZE = 2000;
+
+    /** The shared instance. */
+    private static final CmsJspUserAgentCache INSTANCE = new CmsJspUserAgentCache(DEFAULT_MAX_SIZE);
+
+    /** The cached detection results, by user agent and accept header. */
+    private Cache<String, UserAgent> m_cache;
+
+    /**
+     * Creates a new user agent cache.<p>
+     *
+     * @param maxSize the maximum number of distinct user agents to cache
+     */
+    public CmsJspUserAgentCache(int maxSize) {
+
+        m_cache = CacheBuilder.newBuilder().concurrencyLevel(4).maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * Returns the shared user agent cache.<p>
+     *
+     * @return the shared user agent cache
+     */
+    public static CmsJspUserAgentCache getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the detection result for the user agent of the given request.<p>
+     *
+     * Within a Flex request, the result stored in the Flex controller is used.<p>
+     *
+     * @param req the current request
+     *
+     * @return the detection result
+     */
+    public static UserAgent getUserAgent(HttpServletRequest req) {
+
+        CmsFlexController controller = CmsFlexController.getController(req);
+        if ((controller != null) && (controller.getTopRequest() != null)) {
+            return controller.getUserAgent();
+        }
+        return INSTANCE.get(req);
+    }
+
+    /**
+     * Removes all cached detection results.<p>
+     */
+    public void clear() {
+
+        m_cache.invalidateAll();
+    }
+
+    /**
+     * Returns the detection result for the user agent of the given request.<p>
+     *
+     * @param req the request
+     *
+     * @return the detection result
+     */
+    public UserAgent get(HttpServletRequest req) {
+
+        return get(req.getHeader(CmsRequestUtil.HEADER_USER_AGENT), req.getHeader(CmsRequestUtil.HEADER_ACCEPT));
+    }
+
+    /**
+     * Returns the detection result for the given header values.<p>
+     *
+     * @param userAgent the value of the "User-Agent" header, may be <code>null</code>
+     * @param httpAccept the value of the "Accept" header, may be <code>null</code>
+     *
+     * @return the detection result
+     */
+    public UserAgent get(String userAgent, String httpAccept) {
+
+        String key = (userAgent != null ? userAgent : "") + "\n" + (httpAccept != null ? httpAccept : "");
+        UserAgent result = m_cache.getIfPresent(key);
+        if (result == null) {
+            // the detection is deterministic, so concurrent detections of the same agent do no harm
+            result = new UserAgent(new UAgentInfo(userAgent, httpAccept));
+            m_cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct user agents currently cached.<p>
+     *
+     * @return the number of distinct user agents currently cached
+     */
+    public long getDistinctAgents() {
+
+        return m_cache.size();
+    }
+
+    /**
+     * Returns the ratio of lookups that were answered from the cache.<p>
+     *
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+
+        return m_cache.stats().hitRate();
+    }
+
+    /**
+     * Returns the total number of lookups.<p>
+     *
+     * @return the total number of lookups
+     */
+    public long getRequestCount() {
+
+        return m_cache.stats().requestCount();
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.ade.galleries.shared.CmsPoint;
+import org.opencms.main.CmsLog;
+
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.commons.logging.Log;
+
+import com.drew.imaging.ImageMetadataReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifDirectoryBase;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+
+/**
+ * The metadata of an image, read from the image header without decoding the pixels.<p>
+ *
+ * The dimensions are read with the registered ImageIO readers, the orientation and the subject
+ * of the image are read from the EXIF data if available. Use {@link #readDimensions(byte[], String)}
+ * if only the dimensions are needed, this skips parsing the EXIF data.<p>
+ *
+ * @since 12.0.0
+ */
+public class CmsImageMetadata {
+
+    /** The EXIF orientation value for an image which is stored upright. */
+    public static final int ORIENTATION_NORMAL = 1;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsImageMetadata.class);
+
+    /** The image height in pixels. */
+    private int m_height;
+
+    /** The EXIF orientation of the image. */
+    private int m_orientation;
+
+    /** The location of the main subject of the image, or <code>null</code>. */
+    private CmsPoint m_subjectLocation;
+
+    /** The image width in pixels. */
+    private int m_width;
+
+    /**
+     * Creates a new image metadata object.<p>
+     *
+     * @param width the image width in pixels
+     * @param height the image height in pixels
+     */
+    protected CmsImageMetadata(int width, int height) {
+
+        m_width = width;
+        m_height = height;
+        m_orientation = ORIENTATION_NORMAL;
+    }
+
+    /**
+     * Reads the metadata of the given image from the image header.<p>
+     *
+     * @param content the image content
+     * @param rootPath the root path of the image (for error logging)
+     *
+     * @return the image metadata, or <code>null</code> if the dimensions can not be read from the image header
+     */
+    public static CmsImageMetadata read(byte[] content, String rootPath) {
+
+        CmsImageMetadata result = readDimensions(content, rootPath);
+        if (result != null) {
+            try {
+                result.readExif(content);
+            } catch (Exception e) {
+                // the EXIF data is optional, the dimensions are still valid
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_UNABLE_TO_READ_EXIF_1, rootPath), e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads only the dimensions of the given image from the image header, without the EXIF data.<p>
+     *
+     * The orientation of the result is always {@link #ORIENTATION_NORMAL}, and it has no subject location.<p>
+     *
+     * @param content the image content
+     * @param rootPath the root path of the image (for error logging)
+     *
+     * @return the image metadata, or <code>null</code> if the dimensions can not be read from the image header
+     */
+    public static CmsImageMetadata readDimensions(byte[] content, String rootPath) {
+
+        try {
+            return readImageHeader(content);
+        } catch (Exception e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.ERR_UNABLE_TO_EXTRACT_IMAGE_SIZE_1, rootPath), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the image dimensions with the first ImageIO reader that accepts the image.<p>
+     *
+     * @param content the image content
+     *
+     * @return the image metadata with the dimensions, or <code>null</code> if no reader accepts the image
+     *
+     * @throws Exception if reading the image header fails
+     */
+    private static CmsImageMetadata readImageHeader(byte[] content) throws Exception {
+
+        ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(content));
+        if (in == null) {
+            return null;
+        }
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    int width = reader.getWidth(0);
+                    int height = reader.getHeight(0);
+                    if ((width > 0) && (height > 0)) {
+                        return new CmsImageMetadata(width, height);
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the image height in pixels, as stored in the image.<p>
+     *
+     * @return the image height in pixels
+     */
+    public int getHeight() {
+
+        return m_height;
+    }
+
+    /**
+     * Returns the EXIF orientation of the image.<p>
+     *
+     * The values are defined by the EXIF specification, {@link #ORIENTATION_NORMAL} is returned
+     * if the image has no orientation.<p>
+     *
+     * @return the EXIF orientation of the image
+     */
+    public int getOrientation() {
+
+        return m_orientation;
+    }
+
+    /**
+     * Returns the location of the main subject of the image in pixels, as stored in the EXIF data.<p>
+     *
+     * This is a sensible default for the focal point of the image.<p>
+     *
+     * @return the location of the main subject, or <code>null</code> if the image does not define it
+     */
+    public CmsPoint getSubjectLocation() {
+
+        return m_subjectLocation;
+    }
+
+    /**
+     * Returns the image width in pixels, as stored in the image.<p>
+     *
+     * @return the image width in pixels
+     */
+    public int getWidth() {
+
+        return m_width;
+    }
+
+    /**
+     * Returns if the image is displayed with width and height swapped because of its orientation.<p>
+     *
+     * @return <code>true</code> if the image is displayed with width and height swapped
+     */
+    public boolean isTransposed() {
+
+        // orientations 5 to 8 rotate the image by 90 or 270 degrees
+        return m_orientation >= 5;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "" + m_width + "x" + m_height + " orientation=" + m_orientation + " subject=" + m_subjectLocation;
+    }
+
+    /**
+     * Reads the orientation and the subject location from the EXIF data of the image.<p>
+     *
+     * @param content the image content
+     *
+     * @throws Exception if reading the EXIF data fails
+     */
+    private void readExif(byte[] content) throws Exception {
+
+        Metadata metadata = ImageMetadataReader.readMetadata(new ByteArrayInputStream(content), content.length);
+        ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        if ((ifd0 != null) && ifd0.containsTag(ExifDirectoryBase.TAG_ORIENTATION)) {
+            int orientation = ifd0.getInt(ExifDirectoryBase.TAG_ORIENTATION);
+            if ((orientation >= 1) && (orientation <= 8)) {
+                m_orientation = orientation;
+            }
+        }
+        ExifSubIFDDirectory subIfd = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        if (subIfd != null) {
+            int[] location = subIfd.getIntArray(ExifDirectoryBase.TAG_SUBJECT_LOCATION);
+            if (location == null) {
+                // the subject area starts with the center of the subject, followed by its size
+                location = subIfd.getIntArray(ExifDirectoryBase.TAG_SUBJECT_LOCATION_TIFF_EP);
+            }
+            if ((location != null)
+                && (location.length >= 2)
+                && (location[0] >= 0)
+                && (location[0] < m_width)
+                && (location[1] >= 0)
+                && (location[1] < m_height)) {
+                m_subjectLocation = new CmsPoint(location[0], location[1]);
+            }
+        }
+    }
+}
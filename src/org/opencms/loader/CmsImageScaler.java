@@ -194,6 +194,10 @@ public class CmsImageScaler {
      * to extract the image dimensions, for example when creating a String value for
      * the <code>{@link CmsPropertyDefinition#PROPERTY_IMAGE_SIZE}</code> property.<p>
      *
+     * The dimensions are read from the image header without the EXIF data,
+     * see {@link CmsImageMetadata#readDimensions(byte[], String)}. Only if no image reader
+     * can read the header, the image is fully decoded.<p>
+     *
      * In case the byte array can not be decoded to an image, or in case of other errors,
      * <code>{@link #isValid()}</code> will return <code>false</code>.<p>
      *
@@ -203,6 +207,13 @@ public class CmsImageScaler {
     public CmsImageScaler(byte[] content, String rootPath) {
 
         init();
+        // only the dimensions are needed, so the EXIF data is not read
+        CmsImageMetadata metadata = CmsImageMetadata.readDimensions(content, rootPath);
+        if (metadata != null) {
+            m_height = metadata.getHeight();
+            m_width = metadata.getWidth();
+            return;
+        }
         try {
             // read the scaled image
             BufferedImage image = Simapi.read(content);
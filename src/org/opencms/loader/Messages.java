@@ -250,6 +250,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_READ_MIMETYPES_FAILED_2 = "LOG_READ_MIMETYPES_FAILED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_UNABLE_TO_READ_EXIF_1 = "LOG_UNABLE_TO_READ_EXIF_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UNSUPPORTED_ENC_1 = "LOG_UNSUPPORTED_ENC_1";
 
@@ -392,6 +392,61 @@ public final class CmsLockManager {
         return locks;
     }
 
+    /**
+     * Returns the lock states of the given resources.<p>
+     *
+     * The result is the same as calling {@link #getLock(CmsDbContext, CmsResource)} for every resource,
+     * but the locks inherited from the parent folders are only looked up once per folder, and siblings
+     * are only read for resources that have siblings.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources
+     *
+     * @return the lock states of the given resources, in the same order
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsLock> getLocks(CmsDbContext dbc, List<CmsResource> resources) throws CmsException {
+
+        List<CmsLock> locks = new ArrayList<CmsLock>(resources.size());
+        boolean online = dbc.currentProject().isOnlineProject();
+        // the parent folder locks, by parent folder, since they are the same for all resources of a folder
+        Map<String, CmsLock> parentFolderLocks = new HashMap<String, CmsLock>();
+        for (CmsResource resource : resources) {
+            if ((resource == null) || online) {
+                locks.add(CmsLock.getNullLock());
+                continue;
+            }
+            String resourceName = resource.getRootPath();
+            CmsLock lock = getDirectLock(resourceName);
+            if ((lock == null) && (resource.getSiblingCount() > 1)) {
+                lock = getSiblingsLock(internalReadSiblings(dbc, resource), resourceName);
+            }
+            if (lock == null) {
+                String parentFolder = CmsResource.getParentFolder(resourceName);
+                CmsLock parentFolderLock = parentFolderLocks.get(parentFolder);
+                if (parentFolderLock == null) {
+                    parentFolderLock = getParentFolderLock(resourceName);
+                    parentFolderLocks.put(parentFolder, parentFolderLock);
+                }
+                lock = parentFolderLock.isNullLock()
+                ? CmsLock.getNullLock()
+                : new CmsLock(
+                    resourceName,
+                    parentFolderLock.getUserId(),
+                    parentFolderLock.getProject(),
+                    CmsLockType.INHERITED);
+            }
+            if (!lock.getSystemLock().isUnlocked()) {
+                lock = lock.getSystemLock();
+            } else {
+                lock = lock.getEditionLock();
+            }
+            locks.add(lock);
+        }
+        return locks;
+    }
+
     /**
      * Returns <code>true</code> if the given resource contains a resource that has a system lock.<p>
      *
@@ -945,6 +945,33 @@ class CmsShellCommands implements I_CmsShellCommands {
             params);
     }
 
+    /**
+     * Imports a resource into the Cms in bulk mode.<p>
+     *
+     * In bulk mode, caches are updated and the offline search indexes are refreshed only once at the end of the import.
+     * This is meant for large initial imports and requires the root administrator role.<p>
+     *
+     * @param importFile the name (absolute Path) of the import resource (zip or folder)
+     * @param importPath the name (absolute Path) of folder in which should be imported
+     *
+     * @throws Exception if something goes wrong
+     *
+     * @see CmsImportParameters#isBulkImport()
+     */
+    public void importResourcesBulk(String importFile, String importPath) throws Exception {
+
+        CmsImportParameters params = new CmsImportParameters(
+            OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(importFile),
+            importPath,
+            true);
+        params.setBulkImport(true);
+
+        OpenCms.getImportExportManager().importData(
+            m_cms,
+            new CmsShellReport(m_cms.getRequestContext().getLocale()),
+            params);
+    }
+
     /**
      * Imports a folder or a ZIP file to the root folder of the
      * current site, creating a temporary project for this.<p>
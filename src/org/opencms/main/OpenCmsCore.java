@@ -46,6 +46,7 @@ import org.opencms.db.CmsDbEntryNotFoundException;
 import org.opencms.db.CmsDefaultUsers;
 import org.opencms.db.CmsExportPoint;
 import org.opencms.db.CmsLoginManager;
+import org.opencms.db.CmsRequestReadMemo;
 import org.opencms.db.CmsSecurityManager;
 import org.opencms.db.CmsSqlManager;
 import org.opencms.db.CmsSubscriptionManager;
@@ -2061,6 +2062,9 @@ public final class OpenCmsCore {
         CmsObject cms = null;
         try {
             cms = initCmsObject(req, res);
+            if (CmsRequestReadMemo.isEnabledForRequests()) {
+                CmsRequestReadMemo.enable(cms.getRequestContext());
+            }
             if (cms.getRequestContext().getCurrentProject().isOnlineProject()) {
                 String uri = cms.getRequestContext().getUri();
                 if (uri.startsWith(CmsWorkplace.VFS_PATH_SITES)) {
@@ -2105,6 +2109,10 @@ public final class OpenCmsCore {
 
         } catch (Throwable t) {
             errorHandling(cms, req, res, t);
+        } finally {
+            if (cms != null) {
+                CmsRequestReadMemo.disable(cms.getRequestContext());
+            }
         }
     }
 
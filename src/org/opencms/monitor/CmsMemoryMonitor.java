@@ -32,6 +32,7 @@ import org.opencms.cache.CmsMemoryObjectCache;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
+import org.opencms.db.CmsDbPoolV11;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
@@ -80,6 +81,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.mail.internet.InternetAddress;
 
@@ -243,6 +245,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Map to keep track of disabled caches. */
     private Map<CacheType, Boolean> m_disabled = new HashMap<CacheType, Boolean>();
 
+    /** Counts the flushes of the caches that hold resources, properties or permission data. */
+    private volatile long m_flushCount;
+
     /** Interval in which emails are send. */
     private int m_intervalEmail;
 
@@ -288,6 +293,12 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Buffer for publish jobs. */
     private Buffer m_publishQueue;
 
+    /** The number of reads answered from request read memos. */
+    private AtomicLong m_readMemoHits = new AtomicLong();
+
+    /** The number of reads that request read memos could not answer. */
+    private AtomicLong m_readMemoMisses = new AtomicLong();
+
     /** Flag for memory warning mail send. */
     private boolean m_warningLoggedSinceLastStatus;
 
@@ -1019,6 +1030,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public void flushCache(CacheType... types) {
 
         for (CacheType type : types) {
+            switch (type) {
+                case ACL:
+                case HAS_ROLE:
+                case PERMISSION:
+                case PROJECT:
+                case PROPERTY:
+                case PROPERTY_LIST:
+                case RESOURCE:
+                case RESOURCE_LIST:
+                case USERGROUPS:
+                    m_flushCount++;
+                    break;
+                default:
+                    // other caches do not affect the data read through the security manager
+            }
             switch (type) {
                 case ACL:
                     m_cacheAccessControlList.clear();
@@ -1754,6 +1780,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Returns the number of flushes of the caches that hold resources, properties or permission data.<p>
+     *
+     * This can be used to detect whether data read earlier may have become stale since.<p>
+     *
+     * @return the number of flushes of the resource, property and permission related caches
+     */
+    public long getFlushCount() {
+
+        return m_flushCount;
+    }
+
     /**
      * Returns the log count.<p>
      *
@@ -1775,6 +1813,30 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_memoryCurrent;
     }
 
+    /**
+     * Returns the number of reads answered from request read memos since the system was started.<p>
+     *
+     * @return the number of reads answered from request read memos
+     *
+     * @see org.opencms.db.CmsRequestReadMemo
+     */
+    public long getReadMemoHits() {
+
+        return m_readMemoHits.get();
+    }
+
+    /**
+     * Returns the number of reads that request read memos could not answer since the system was started.<p>
+     *
+     * @return the number of reads not answered from request read memos
+     *
+     * @see org.opencms.db.CmsRequestReadMemo
+     */
+    public long getReadMemoMisses() {
+
+        return m_readMemoMisses.get();
+    }
+
     /**
      * Initializes the monitor with the provided configuration.<p>
      *
@@ -2298,6 +2360,20 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheXmlTemporaryEntity.remove(key);
     }
 
+    /**
+     * Adds the hits and misses of a request read memo to the statistics written to the status log.<p>
+     *
+     * @param hits the number of reads answered from the memo
+     * @param misses the number of reads the memo could not answer
+     *
+     * @see org.opencms.db.CmsRequestReadMemo
+     */
+    public void updateReadMemoStatistics(long hits, long misses) {
+
+        m_readMemoHits.addAndGet(hits);
+        m_readMemoMisses.addAndGet(misses);
+    }
+
     /**
      * Clears the OpenCms caches.<p>
      */
@@ -2706,6 +2782,17 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             }
             sm = null;
 
+            long readMemoHits = m_readMemoHits.get();
+            long readMemoTotal = readMemoHits + m_readMemoMisses.get();
+            if (readMemoTotal > 0) {
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_MM_READ_MEMO_3,
+                        String.valueOf(readMemoHits),
+                        String.valueOf(readMemoTotal - readMemoHits),
+                        String.valueOf((readMemoHits * 100) / readMemoTotal)));
+            }
+
             for (Iterator<String> i = OpenCms.getSqlManager().getDbPoolUrls().iterator(); i.hasNext();) {
                 String poolname = i.next();
                 try {
@@ -2715,6 +2802,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                             poolname,
                             Integer.toString(OpenCms.getSqlManager().getActiveConnections(poolname)),
                             Integer.toString(OpenCms.getSqlManager().getIdleConnections(poolname))));
+                    CmsDbPoolV11 pool = OpenCms.getSqlManager().getPool(poolname);
+                    if ((pool != null) && ((pool.getReplicaReads() > 0) || (pool.getReplicaFailures() > 0))) {
+                        LOG.info(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_MM_REPLICA_CONNECTIONS_3,
+                                poolname,
+                                Long.toString(pool.getReplicaReads()),
+                                Long.toString(pool.getReplicaFailures())));
+                    }
                 } catch (Exception exc) {
                     LOG.info(
                         Messages.get().getBundle().key(
@@ -76,6 +76,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_NOWARN_STATUS_5 = "LOG_MM_NOWARN_STATUS_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_READ_MEMO_3 = "LOG_MM_READ_MEMO_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_REPLICA_CONNECTIONS_3 = "LOG_MM_REPLICA_CONNECTIONS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_SESSION_STAT_3 = "LOG_MM_SESSION_STAT_3";
 
@@ -33,6 +33,8 @@ import org.opencms.main.CmsException;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -117,8 +119,13 @@ public class CmsPublishListVerifier {
      */
     public void checkPublishList(CmsPublishList publishList) throws CmsException {
 
+        // the check only uses the root paths already contained in the publish list, no resources are read
+        List<ForbiddenFolderEntry> entries = new ArrayList<ForbiddenFolderEntry>(m_forbiddenParentFolders.values());
+        if (entries.isEmpty()) {
+            return;
+        }
         for (CmsResource resource : publishList.getAllResources()) {
-            for (ForbiddenFolderEntry entry : m_forbiddenParentFolders.values()) {
+            for (ForbiddenFolderEntry entry : entries) {
                 if (CmsStringUtil.isPrefixPath(entry.getRootPath(), resource.getRootPath())) {
                     throw new CmsPublishException(
                         Messages.get().container(
@@ -0,0 +1,343 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.relations;
+
+import org.opencms.main.CmsLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Futures;
+
+/**
+ * Checks absolute HTTP links with a bounded pool of worker threads.<p>
+ *
+ * Requests to the same host are spaced by a minimum interval, so a validation run does not flood
+ * a single server. The checks use <code>HEAD</code> requests and release the connections for reuse
+ * by the JDK keep-alive cache. Results are cached for a configurable time, shared by all checker instances.<p>
+ */
+public class CmsExternalLinkChecker {
+
+    /**
+     * A cached check result.<p>
+     */
+    private static class CachedResult {
+
+        /** The time the check was done. */
+        long m_time;
+
+        /** The result of the check. */
+        boolean m_valid;
+
+        /**
+         * Creates a new cached result.<p>
+         *
+         * @param valid the result of the check
+         * @param time the time the check was done
+         */
+        CachedResult(boolean valid, long time) {
+
+            m_valid = valid;
+            m_time = time;
+        }
+    }
+
+    /** The default time in milliseconds check results are cached. */
+    public static final long DEFAULT_CACHE_TTL = 60 * 60 * 1000L;
+
+    /** The default minimum interval in milliseconds between two requests to the same host. */
+    public static final int DEFAULT_HOST_INTERVAL = 200;
+
+    /** The default number of worker threads. */
+    public static final int DEFAULT_THREADS = 8;
+
+    /** The default connect and read timeout in milliseconds. */
+    public static final int DEFAULT_TIMEOUT = 10000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsExternalLinkChecker.class);
+
+    /** The maximum number of cached check results. */
+    private static final int MAX_CACHED_RESULTS = 100000;
+
+    /** The check results shared by all checkers, keyed by URL. */
+    private static final Cache<String, CachedResult> RESULT_CACHE = CacheBuilder.newBuilder().maximumSize(
+        MAX_CACHED_RESULTS).build();
+
+    /** Counter for the created thread names. */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** The time in milliseconds check results are cached. */
+    private long m_cacheTtl;
+
+    /** The number of checks answered from the cache. */
+    private AtomicInteger m_cacheHits = new AtomicInteger();
+
+    /** The executor running the checks. */
+    private ExecutorService m_executor;
+
+    /** The minimum interval in milliseconds between two requests to the same host. */
+    private int m_hostInterval;
+
+    /** The earliest time of the next request, keyed by host. */
+    private Map<String, AtomicLong> m_nextRequestTimes = new ConcurrentHashMap<String, AtomicLong>();
+
+    /** The number of HTTP requests sent. */
+    private AtomicInteger m_requests = new AtomicInteger();
+
+    /** The connect and read timeout in milliseconds. */
+    private int m_timeout;
+
+    /**
+     * Creates a new link checker.<p>
+     *
+     * @param threads the number of worker threads
+     * @param hostInterval the minimum interval in milliseconds between two requests to the same host
+     * @param cacheTtl the time in milliseconds check results are cached, <code>0</code> to disable the cache
+     * @param timeout the connect and read timeout in milliseconds
+     */
+    public CmsExternalLinkChecker(int threads, int hostInterval, long cacheTtl, int timeout) {
+
+        m_hostInterval = Math.max(0, hostInterval);
+        m_cacheTtl = cacheTtl;
+        m_timeout = timeout;
+        int workers = Math.max(1, threads);
+        m_executor = new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: External link checker " + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    }
+
+    /**
+     * Removes all cached check results.<p>
+     */
+    public static void clearCache() {
+
+        RESULT_CACHE.invalidateAll();
+    }
+
+    /**
+     * Checks the given absolute URL in the calling thread.<p>
+     *
+     * Only HTTP links are requested, all other protocols are regarded as valid.<p>
+     *
+     * @param url the URL to check
+     *
+     * @return <code>true</code> if the URL could be accessed
+     */
+    public boolean check(URL url) {
+
+        String key = url.toExternalForm();
+        CachedResult cached = RESULT_CACHE.getIfPresent(key);
+        if ((cached != null) && ((System.currentTimeMillis() - cached.m_time) < m_cacheTtl)) {
+            m_cacheHits.incrementAndGet();
+            return cached.m_valid;
+        }
+        boolean valid = true;
+        if ("http".equals(url.getProtocol())) {
+            waitForHost(url.getHost());
+            valid = request(url);
+        }
+        if (m_cacheTtl > 0) {
+            RESULT_CACHE.put(key, new CachedResult(valid, System.currentTimeMillis()));
+        }
+        return valid;
+    }
+
+    /**
+     * Returns the number of checks answered from the cache.<p>
+     *
+     * @return the number of checks answered from the cache
+     */
+    public int getCacheHits() {
+
+        return m_cacheHits.get();
+    }
+
+    /**
+     * Returns the number of HTTP requests sent.<p>
+     *
+     * @return the number of HTTP requests sent
+     */
+    public int getRequests() {
+
+        return m_requests.get();
+    }
+
+    /**
+     * Stops the worker threads.<p>
+     */
+    public void shutdown() {
+
+        m_executor.shutdownNow();
+    }
+
+    /**
+     * Submits a check of the given absolute URL to the worker threads.<p>
+     *
+     * @param url the URL to check
+     *
+     * @return the future result of the check
+     */
+    public Future<Boolean> submit(final URL url) {
+
+        CachedResult cached = RESULT_CACHE.getIfPresent(url.toExternalForm());
+        if ((cached != null) && ((System.currentTimeMillis() - cached.m_time) < m_cacheTtl)) {
+            m_cacheHits.incrementAndGet();
+            return Futures.immediateFuture(Boolean.valueOf(cached.m_valid));
+        }
+        return m_executor.submit(new Callable<Boolean>() {
+
+            public Boolean call() {
+
+                return Boolean.valueOf(check(url));
+            }
+        });
+    }
+
+    /**
+     * Sends a request to the given URL and returns the response code.<p>
+     *
+     * The response is consumed, so the connection can be reused for the next request to the same host.<p>
+     *
+     * @param url the URL
+     * @param method the request method
+     *
+     * @return the response code
+     *
+     * @throws IOException if the request fails
+     */
+    protected int getResponseCode(URL url, String method) throws IOException {
+
+        m_requests.incrementAndGet();
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(m_timeout);
+        connection.setReadTimeout(m_timeout);
+        int responseCode = connection.getResponseCode();
+        if ("HEAD".equals(method)) {
+            InputStream in = responseCode < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                while (in.read() != -1) {
+                    // consume the (empty) body
+                }
+                in.close();
+            }
+        } else {
+            // do not read a possibly large body
+            connection.disconnect();
+        }
+        return responseCode;
+    }
+
+    /**
+     * Requests the given URL with <code>HEAD</code>, or with <code>GET</code> if the server does not support it.<p>
+     *
+     * @param url the URL
+     *
+     * @return <code>true</code> if the response code is a 2xx success or a 3xx redirect
+     */
+    private boolean request(URL url) {
+
+        try {
+            int responseCode = getResponseCode(url, "HEAD");
+            if ((responseCode == HttpURLConnection.HTTP_BAD_METHOD)
+                || (responseCode == HttpURLConnection.HTTP_NOT_IMPLEMENTED)) {
+                responseCode = getResponseCode(url, "GET");
+            }
+            return ((responseCode >= 200) && (responseCode < 400));
+        } catch (Exception e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reserves the next request slot for the given host and waits until it is reached.<p>
+     *
+     * @param host the host
+     */
+    private void waitForHost(String host) {
+
+        if (m_hostInterval == 0) {
+            return;
+        }
+        AtomicLong nextRequest = m_nextRequestTimes.get(host);
+        if (nextRequest == null) {
+            m_nextRequestTimes.putIfAbsent(host, new AtomicLong());
+            nextRequest = m_nextRequestTimes.get(host);
+        }
+        long slot;
+        while (true) {
+            long next = nextRequest.get();
+            slot = Math.max(next, System.currentTimeMillis());
+            if (nextRequest.compareAndSet(next, slot + m_hostInterval)) {
+                break;
+            }
+        }
+        long wait = slot - System.currentTimeMillis();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.scheduler.I_CmsScheduledJob;
+import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUriSplitter;
 
 import java.net.HttpURLConnection;
@@ -46,19 +47,86 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.Futures;
 
 /**
  * Class to validate pointer links.<p>
  *
+ * The external links are checked concurrently by a {@link CmsExternalLinkChecker}.<p>
+ *
+ * Parameters used by this job (all optional):
+ * <code>writeLog</code> parameter, if <code>true</code> the report is written to the log.<p>
+ * <code>threads</code> parameter, the number of links checked concurrently.<p>
+ * <code>hostInterval</code> parameter, the minimum interval in milliseconds between two requests to the same host.<p>
+ * <code>cacheTtl</code> parameter, the time in milliseconds the result of a checked link is reused.<p>
+ * <code>timeout</code> parameter, the connect and read timeout in milliseconds.<p>
+ *
  * @since 6.0.0
  */
 public class CmsExternalLinksValidator implements I_CmsScheduledJob {
 
+    /**
+     * A link which is checked, with the data needed to write the result to the report.<p>
+     */
+    private static class PendingLink {
+
+        /** The root path of the pointer resource. */
+        String m_rootPath;
+
+        /** The future check result. */
+        Future<Boolean> m_result;
+
+        /** The URL the pointer points to. */
+        String m_url;
+
+        /**
+         * Creates a new pending link.<p>
+         *
+         * @param rootPath the root path of the pointer resource
+         * @param url the URL the pointer points to
+         * @param result the future check result
+         */
+        PendingLink(String rootPath, String url, Future<Boolean> result) {
+
+            m_rootPath = rootPath;
+            m_url = url;
+            m_result = result;
+        }
+    }
+
+    /** The cache TTL parameter name. */
+    public static final String PARAM_CACHE_TTL = "cacheTtl";
+
+    /** The host interval parameter name. */
+    public static final String PARAM_HOST_INTERVAL = "hostInterval";
+
+    /** The threads parameter name. */
+    public static final String PARAM_THREADS = "threads";
+
+    /** The timeout parameter name. */
+    public static final String PARAM_TIMEOUT = "timeout";
+
+    /** The time in milliseconds the result of a checked link is reused. */
+    private long m_cacheTtl = CmsExternalLinkChecker.DEFAULT_CACHE_TTL;
+
+    /** The minimum interval in milliseconds between two requests to the same host. */
+    private int m_hostInterval = CmsExternalLinkChecker.DEFAULT_HOST_INTERVAL;
+
     /** The report for the output. */
     private I_CmsReport m_report;
 
+    /** The number of links checked concurrently. */
+    private int m_threads = CmsExternalLinkChecker.DEFAULT_THREADS;
+
+    /** The connect and read timeout in milliseconds. */
+    private int m_timeout = CmsExternalLinkChecker.DEFAULT_TIMEOUT;
+
     /**
      * Checks if the given url is valid.<p>
      *
@@ -111,6 +179,13 @@ public class CmsExternalLinksValidator implements I_CmsScheduledJob {
         if (Boolean.valueOf(parameters.get("writeLog")).booleanValue()) {
             m_report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsExternalLinksValidator.class);
         }
+        m_threads = CmsStringUtil.getIntValue(parameters.get(PARAM_THREADS), m_threads, PARAM_THREADS);
+        m_hostInterval = CmsStringUtil.getIntValue(
+            parameters.get(PARAM_HOST_INTERVAL),
+            m_hostInterval,
+            PARAM_HOST_INTERVAL);
+        m_cacheTtl = CmsStringUtil.getLongValue(parameters.get(PARAM_CACHE_TTL), m_cacheTtl, PARAM_CACHE_TTL);
+        m_timeout = CmsStringUtil.getIntValue(parameters.get(PARAM_TIMEOUT), m_timeout, PARAM_TIMEOUT);
         validateLinks(cms);
         return "CmsExternLinkValidator.launch(): Links checked.";
     }
@@ -152,36 +227,25 @@ public class CmsExternalLinksValidator implements I_CmsScheduledJob {
         Iterator<CmsResource> iterator = links.iterator();
         Map<String, String> brokenLinks = new HashMap<String, String>();
 
-        for (int i = 1; iterator.hasNext(); i++) {
-            CmsFile link = cms.readFile(cms.getSitePath(iterator.next()), filter);
-            String linkUrl = new String(link.getContents());
-
-            // print to the report
-            m_report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_1,
-                    new Integer(i),
-                    new Integer(links.size())),
-                I_CmsReport.FORMAT_NOTE);
-            m_report.print(Messages.get().container(Messages.RPT_VALIDATE_LINK_0), I_CmsReport.FORMAT_NOTE);
-            m_report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    link.getRootPath()));
-            m_report.print(Messages.get().container(Messages.GUI_LINK_POINTING_TO_0), I_CmsReport.FORMAT_NOTE);
-            m_report.print(
-                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, linkUrl));
-            m_report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-
-            // check link and append it to the list of broken links, if test fails
-            if (!checkUrl(cms, linkUrl)) {
-                brokenLinks.put(link.getRootPath(), linkUrl);
-                m_report.println(Messages.get().container(Messages.RPT_BROKEN_0), I_CmsReport.FORMAT_ERROR);
-            } else {
-                m_report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
+        // the links are checked concurrently, but reported in their original order
+        CmsExternalLinkChecker checker = new CmsExternalLinkChecker(m_threads, m_hostInterval, m_cacheTtl, m_timeout);
+        LinkedList<PendingLink> pending = new LinkedList<PendingLink>();
+        int maxPending = Math.max(1, m_threads) * 4;
+        int count = 0;
+        try {
+            while (iterator.hasNext()) {
+                CmsFile link = cms.readFile(cms.getSitePath(iterator.next()), filter);
+                String linkUrl = new String(link.getContents());
+                pending.add(new PendingLink(link.getRootPath(), linkUrl, submitCheck(cms, checker, linkUrl)));
+                while (pending.size() >= maxPending) {
+                    reportLink(pending.removeFirst(), ++count, links.size(), brokenLinks);
+                }
             }
+            while (!pending.isEmpty()) {
+                reportLink(pending.removeFirst(), ++count, links.size(), brokenLinks);
+            }
+        } finally {
+            checker.shutdown();
         }
 
         m_report.println(
@@ -196,4 +260,73 @@ public class CmsExternalLinksValidator implements I_CmsScheduledJob {
 
         OpenCms.getLinkManager().setPointerLinkValidationResult(new CmsExternalLinksValidationResult(brokenLinks));
     }
+
+    /**
+     * Waits for the check result of the given link and writes it to the report.<p>
+     *
+     * @param link the link
+     * @param index the index of the link
+     * @param size the number of all links
+     * @param brokenLinks the broken links found so far, the link is added if it is broken
+     */
+    private void reportLink(PendingLink link, int index, int size, Map<String, String> brokenLinks) {
+
+        // print to the report
+        m_report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_1,
+                new Integer(index),
+                new Integer(size)),
+            I_CmsReport.FORMAT_NOTE);
+        m_report.print(Messages.get().container(Messages.RPT_VALIDATE_LINK_0), I_CmsReport.FORMAT_NOTE);
+        m_report.print(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, link.m_rootPath));
+        m_report.print(Messages.get().container(Messages.GUI_LINK_POINTING_TO_0), I_CmsReport.FORMAT_NOTE);
+        m_report.print(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, link.m_url));
+        m_report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        boolean valid = false;
+        try {
+            valid = link.m_result.get().booleanValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // the link is regarded as broken
+        }
+        // append the link to the list of broken links, if the check failed
+        if (!valid) {
+            brokenLinks.put(link.m_rootPath, link.m_url);
+            m_report.println(Messages.get().container(Messages.RPT_BROKEN_0), I_CmsReport.FORMAT_ERROR);
+        } else {
+            m_report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        }
+    }
+
+    /**
+     * Starts the check of the given link.<p>
+     *
+     * Links to the VFS are checked directly, absolute links are submitted to the link checker.<p>
+     *
+     * @param cms a OpenCms context object
+     * @param checker the link checker
+     * @param check the link to check
+     *
+     * @return the future check result
+     */
+    private Future<Boolean> submitCheck(CmsObject cms, CmsExternalLinkChecker checker, String check) {
+
+        try {
+            URI uri = new CmsUriSplitter(check, true).toURI();
+            if (uri.isAbsolute()) {
+                return checker.submit(uri.toURL());
+            }
+        } catch (Exception e) {
+            return Futures.immediateFuture(Boolean.FALSE);
+        }
+        // the CmsObject must not be used by the worker threads
+        return Futures.immediateFuture(Boolean.valueOf(checkUrl(cms, check)));
+    }
 }
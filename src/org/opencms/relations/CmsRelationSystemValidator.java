@@ -29,7 +29,9 @@ package org.opencms.relations;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishClosure;
 import org.opencms.db.CmsPublishList;
+import org.opencms.db.I_CmsVfsDriver;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
@@ -41,10 +43,13 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.workplace.threads.A_CmsProgressThread;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -68,6 +73,47 @@ import com.google.common.collect.HashMultimap;
  */
 public class CmsRelationSystemValidator {
 
+    /**
+     * The relations of all resources to validate and the link targets they point to, read with a few bulk queries.<p>
+     */
+    private static class RelationLookup {
+
+        /** The root paths of the link targets which exist in the validated project, keyed by structure id. */
+        Map<CmsUUID, String> m_targetPathsById = Collections.emptyMap();
+
+        /** The link target paths which exist in the validated project. */
+        Set<String> m_existingTargetPaths = Collections.emptySet();
+
+        /** The online relations pointing to the deleted resources, keyed by their structure id. */
+        Map<CmsUUID, List<CmsRelation>> m_incomingRelations = Collections.emptyMap();
+
+        /** The offline relations of the new or changed resources, keyed by their structure id. */
+        Map<CmsUUID, List<CmsRelation>> m_outgoingRelations = Collections.emptyMap();
+
+        /**
+         * Returns the relations to validate for the given resource.<p>
+         *
+         * @param resource the resource
+         *
+         * @return the relations to validate
+         */
+        List<CmsRelation> getRelations(CmsResource resource) {
+
+            Map<CmsUUID, List<CmsRelation>> relations = resource.getState().isDeleted()
+            ? m_incomingRelations
+            : m_outgoingRelations;
+            List<CmsRelation> result = relations.get(resource.getStructureId());
+            return result != null ? result : Collections.<CmsRelation> emptyList();
+        }
+    }
+
+    /**
+     * Request context attribute to read the relations of each validated resource on its own, instead of in bulk.<p>
+     *
+     * Only the presence of the attribute is checked. It allows to compare the results of both ways.<p>
+     */
+    public static final String ATTR_VALIDATE_SINGLY = "ATTR_VALIDATE_SINGLY";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsRelationSystemValidator.class);
 
@@ -195,6 +241,20 @@ public class CmsRelationSystemValidator {
             }
         }
 
+        RelationLookup lookup = null;
+        if ((dbc.getRequestContext() == null)
+            || (dbc.getRequestContext().getAttribute(ATTR_VALIDATE_SINGLY) == null)) {
+            try {
+                lookup = readRelationLookup(
+                    dbc,
+                    resources,
+                    project,
+                    publishList != null ? publishList.getPublishClosure() : null);
+            } catch (CmsException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_LINK_VALIDATION_BULK_READ_FAILED_0), e);
+            }
+        }
+
         boolean foundBrokenLinks = false;
         for (int index = 0, size = resources.size(); index < size; index++) {
 
@@ -226,7 +286,13 @@ public class CmsRelationSystemValidator {
                         dbc.removeSiteRoot(resourceName)));
                 report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
             }
-            List<CmsRelation> brokenLinks = validateLinks(dbc, resource, offlineFilesLookup, project, report);
+            List<CmsRelation> brokenLinks;
+            if (lookup != null) {
+                List<CmsRelation> relations = lookup.getRelations(resource);
+                brokenLinks = validateRelations(dbc, resource, relations, offlineFilesLookup, project, lookup, report);
+            } else {
+                brokenLinks = validateLinks(dbc, resource, offlineFilesLookup, project, report);
+            }
             if (brokenLinks.size() > 0) {
                 // the resource contains broken links
                 invalidResources.put(resourceName, brokenLinks);
@@ -376,9 +442,6 @@ public class CmsRelationSystemValidator {
         CmsProject project,
         I_CmsReport report) {
 
-        List<CmsRelation> brokenRelations = new ArrayList<CmsRelation>();
-        Map<String, Boolean> validatedLinks = new HashMap<String, Boolean>();
-
         // get the relations
         List<CmsRelation> incomingRelationsOnline = new ArrayList<CmsRelation>();
         List<CmsRelation> outgoingRelationsOffline = new ArrayList<CmsRelation>();
@@ -409,12 +472,170 @@ public class CmsRelationSystemValidator {
                     Messages.get().container(Messages.LOG_LINK_SEARCH_1, dbc.removeSiteRoot(resource.getRootPath())),
                     I_CmsReport.FORMAT_ERROR);
             }
-            return brokenRelations;
+            return new ArrayList<CmsRelation>();
         }
 
         List<CmsRelation> relations = new ArrayList<CmsRelation>();
         relations.addAll(incomingRelationsOnline);
         relations.addAll(outgoingRelationsOffline);
+        return validateRelations(dbc, resource, relations, fileLookup, project, null, report);
+    }
+
+    /**
+     * Checks a link from a resource which has changed, using the link targets read in advance.<p>
+     *
+     * Gives the same result as
+     * {@link #checkLinkForNewOrChangedLinkSource(CmsDbContext, CmsResource, CmsRelation, String, CmsProject, Map)}.<p>
+     *
+     * @param relation the relation
+     * @param link the link target
+     * @param fileLookup a lookup table which contains the files which are going to be published
+     * @param lookup the link targets read in advance
+     *
+     * @return true if the link will be valid after publishing
+     */
+    private boolean checkLinkForNewOrChangedLinkSource(
+        CmsRelation relation,
+        String link,
+        Map<String, CmsResource> fileLookup,
+        RelationLookup lookup) {
+
+        boolean isValidLink = true;
+        String targetPath = lookup.m_targetPathsById.get(relation.getTargetId());
+        if (targetPath != null) {
+            // the linked resource exists in the validated project
+            link = targetPath;
+        } else if (!lookup.m_existingTargetPaths.contains(relation.getTargetPath()) && !fileLookup.containsKey(link)) {
+            // the linked resource neither exists nor gets published
+            isValidLink = false;
+        }
+        if (fileLookup.containsKey(link) && fileLookup.get(link).getState().isDeleted()) {
+            // the linked resource gets deleted
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_LINK_VALIDATION_RESOURCEDELETED_1, link));
+            }
+            isValidLink = false;
+        }
+        return isValidLink;
+    }
+
+    /**
+     * Returns the id of the project the relations are read from, like the driver manager does.<p>
+     *
+     * @param dbc the database context
+     * @param project the project to read from
+     *
+     * @return the project id
+     */
+    private CmsUUID getProjectId(CmsDbContext dbc, CmsProject project) {
+
+        CmsUUID projectId = dbc.getProjectId();
+        if (projectId.isNullUUID()) {
+            projectId = project.getUuid();
+        }
+        return projectId;
+    }
+
+    /**
+     * Reads the relations of all given resources and their link targets in the validated project.<p>
+     *
+     * Instead of a few queries per resource, only a few queries per chunk of resources are executed.<p>
+     *
+     * @param dbc the database context
+     * @param resources the resources to validate
+     * @param project the project to validate against
+     * @param closure the relations already read for the resources to publish, or <code>null</code>
+     *
+     * @return the relations and link targets
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private RelationLookup readRelationLookup(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        CmsProject project,
+        CmsPublishClosure closure)
+    throws CmsException {
+
+        I_CmsVfsDriver vfsDriver = m_driverManager.getVfsDriver(dbc);
+        CmsUUID offlineProjectId = getProjectId(dbc, dbc.currentProject());
+        if ((closure != null) && !closure.getProjectId().equals(offlineProjectId)) {
+            closure = null;
+        }
+        Map<CmsUUID, List<CmsRelation>> outgoingRelations = new HashMap<CmsUUID, List<CmsRelation>>();
+        Set<CmsUUID> changedIds = new HashSet<CmsUUID>();
+        Set<CmsUUID> deletedIds = new HashSet<CmsUUID>();
+        for (CmsResource resource : resources) {
+            if (resource.getState().isDeleted()) {
+                deletedIds.add(resource.getStructureId());
+            } else if ((closure != null) && closure.isLoaded(resource)) {
+                // the relations were already read when the related resources were computed
+                outgoingRelations.put(resource.getStructureId(), closure.getRelations(resource));
+            } else {
+                changedIds.add(resource.getStructureId());
+            }
+        }
+
+        RelationLookup lookup = new RelationLookup();
+        if (!changedIds.isEmpty()) {
+            // the targets of links in the current (offline) project
+            outgoingRelations.putAll(vfsDriver.readRelations(dbc, offlineProjectId, changedIds, true));
+        }
+        if (!outgoingRelations.isEmpty()) {
+            lookup.m_outgoingRelations = outgoingRelations;
+            Set<CmsUUID> targetIds = new HashSet<CmsUUID>();
+            Set<String> targetPaths = new HashSet<String>();
+            for (List<CmsRelation> relations : lookup.m_outgoingRelations.values()) {
+                for (CmsRelation relation : relations) {
+                    targetIds.add(relation.getTargetId());
+                }
+            }
+            lookup.m_targetPathsById = vfsDriver.readRootPaths(dbc, project.getUuid(), targetIds);
+            for (List<CmsRelation> relations : lookup.m_outgoingRelations.values()) {
+                for (CmsRelation relation : relations) {
+                    if (!lookup.m_targetPathsById.containsKey(relation.getTargetId())
+                        && CmsStringUtil.isNotEmptyOrWhitespaceOnly(relation.getTargetPath())) {
+                        targetPaths.add(relation.getTargetPath());
+                    }
+                }
+            }
+            lookup.m_existingTargetPaths = vfsDriver.validateRootPathsExist(dbc, project.getUuid(), targetPaths);
+        }
+        if (!deletedIds.isEmpty()) {
+            // the sources of links in the online project
+            lookup.m_incomingRelations = vfsDriver.readRelations(dbc, getProjectId(dbc, project), deletedIds, false);
+        }
+        return lookup;
+    }
+
+    /**
+     * Validates the given relations of the specified resource.<p>
+     *
+     * @param dbc the database context
+     * @param resource the resource that will be validated
+     * @param relations the relations to validate
+     * @param fileLookup a map for faster lookup with all resources keyed by their rootpath
+     * @param project the project to validate
+     * @param lookup the link targets read in advance, or <code>null</code> to read them one by one
+     * @param report the report to write to
+     *
+     * @return a list with the broken links as {@link CmsRelation} objects for the specified resource,
+     *          or an empty list if no broken links were found
+     */
+    private List<CmsRelation> validateRelations(
+        CmsDbContext dbc,
+        CmsResource resource,
+        List<CmsRelation> relations,
+        Map<String, CmsResource> fileLookup,
+        CmsProject project,
+        RelationLookup lookup,
+        I_CmsReport report) {
+
+        List<CmsRelation> brokenRelations = new ArrayList<CmsRelation>();
+        Map<String, Boolean> validatedLinks = new HashMap<String, Boolean>();
+        List<CmsRelation> outgoingRelationsOffline = resource.getState().isDeleted()
+        ? Collections.<CmsRelation> emptyList()
+        : relations;
         HashMultimap<String, String> outgoingRelationTargets = HashMultimap.create();
         for (CmsRelation outRelation : outgoingRelationsOffline) {
             String sourcePath = outRelation.getSourcePath();
@@ -449,9 +670,10 @@ public class CmsRelationSystemValidator {
             boolean result;
             if (resource.getState().isDeleted()) {
                 result = checkLinkForDeletedLinkTarget(relation, link, fileLookup, outgoingRelationTargets);
+            } else if (lookup != null) {
+                result = checkLinkForNewOrChangedLinkSource(relation, link, fileLookup, lookup);
             } else {
                 result = checkLinkForNewOrChangedLinkSource(dbc, resource, relation, link, project, fileLookup);
-
             }
             boolean isValidLink = result;
             if (!isValidLink) {
@@ -115,6 +115,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_LINK_SEARCH_1 = "LOG_LINK_SEARCH_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LINK_VALIDATION_BULK_READ_FAILED_0 = "LOG_LINK_VALIDATION_BULK_READ_FAILED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_LINK_VALIDATION_READBYID_FAILED_2 = "LOG_LINK_VALIDATION_READBYID_FAILED_2";
 
@@ -42,10 +42,24 @@ import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.scheduler.I_CmsScheduledJob;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.Futures;
 
 /**
  * A schedulable OpenCms job to calculate image size information.<p>
@@ -53,17 +67,69 @@ import java.util.Map;
  * Image size information is stored in the <code>{@link CmsPropertyDefinition#PROPERTY_IMAGE_SIZE}</code> property
  * of an image file must have the format "h:x,w:y" with x and y being positive Integer vaulues.<p>
  *
+ * The image contents are read and the image headers are parsed by a pool of worker threads,
+ * the properties are written in the job thread in the original order of the images.<p>
+ *
  * Job parameters:<p>
  * <dl>
  * <dt><code>downscale=true|false</code></dt>
  * <dd>Controls if images are automatically downscaled according to the configured image
  * downscale settings, by default this is <code>false</code>.</dd>
+ * <dt><code>incremental=true|false</code></dt>
+ * <dd>Controls if images which already have image size information are skipped, unless their
+ * content has changed since the last run of the job, by default this is <code>false</code>.</dd>
+ * <dt><code>threads=n</code></dt>
+ * <dd>The number of worker threads reading the images, by default this is <code>4</code>.</dd>
  * </dl>
  *
  * @since 6.0.2
  */
 public class CmsCreateImageSizeJob implements I_CmsScheduledJob {
 
+    /**
+     * The image information read by a worker thread.<p>
+     */
+    private static class ImageInfo {
+
+        /** The image file, only kept if the image must be downscaled. */
+        CmsFile m_file;
+
+        /** The scaler with the size of the image. */
+        CmsImageScaler m_scaler;
+
+        /** The scaler with the downscale settings, or <code>null</code>. */
+        CmsImageScaler m_downScaler;
+    }
+
+    /**
+     * An image waiting to be processed in the job thread.<p>
+     */
+    private static class PendingImage {
+
+        /** The image information read by a worker thread, <code>null</code> if the image is locked. */
+        Future<ImageInfo> m_info;
+
+        /** The lock of the image. */
+        CmsLock m_lock;
+
+        /** The image resource. */
+        CmsResource m_resource;
+
+        /**
+         * Creates a new pending image.<p>
+         *
+         * @param resource the image resource
+         * @param lock the lock of the image
+         * @param info the image information read by a worker thread, <code>null</code> if the image is locked
+         */
+        PendingImage(CmsResource resource, CmsLock lock, Future<ImageInfo> info) {
+
+            m_resource = resource;
+            m_lock = lock;
+            m_info = info;
+        }
+    }
+
     /**
      * This job parameter controls if images are automatically downscaled according to the configured image
      * downscale settings, by default this is <code>false</code>.
@@ -75,6 +141,28 @@ public class CmsCreateImageSizeJob implements I_CmsScheduledJob {
      */
     public static final String PARAM_DOWNSCALE = "downscale";
 
+    /**
+     * This job parameter controls if only images without image size information and images
+     * changed since the last run of the job are processed, by default this is <code>false</code>.<p>
+     *
+     * The time of the last run and the images that could not be processed in it, e.g. because
+     * they were locked, are kept in memory, so after a restart only the images without image size
+     * information are processed. Incremental mode is ignored if images are downscaled.<p>
+     */
+    public static final String PARAM_INCREMENTAL = "incremental";
+
+    /** This job parameter controls the number of worker threads reading the images. */
+    public static final String PARAM_THREADS = "threads";
+
+    /** The default number of worker threads. */
+    private static final int DEFAULT_THREADS = 4;
+
+    /** The start times of the last runs of the job, keyed by project id. */
+    private static final Map<CmsUUID, Long> LAST_RUN_TIMES = new ConcurrentHashMap<CmsUUID, Long>();
+
+    /** The ids of the images not processed successfully in the last runs of the job, keyed by project id. */
+    private static final Map<CmsUUID, Set<CmsUUID>> UNFINISHED_IMAGES = new ConcurrentHashMap<CmsUUID, Set<CmsUUID>>();
+
     /**
      * @see org.opencms.scheduler.I_CmsScheduledJob#launch(CmsObject, Map)
      */
@@ -85,13 +173,21 @@ public class CmsCreateImageSizeJob implements I_CmsScheduledJob {
             return Messages.get().getBundle().key(Messages.LOG_IMAGE_SCALING_DISABLED_0);
         }
 
-        // read the downscale parameter
+        // read the parameters
         boolean downscale = Boolean.valueOf(parameters.get(PARAM_DOWNSCALE)).booleanValue();
+        boolean incremental = !downscale && Boolean.valueOf(parameters.get(PARAM_INCREMENTAL)).booleanValue();
+        int threads = Math.max(
+            1,
+            CmsStringUtil.getIntValue(parameters.get(PARAM_THREADS), DEFAULT_THREADS, PARAM_THREADS));
+        long startTime = System.currentTimeMillis();
+        CmsUUID projectId = cms.getRequestContext().getCurrentProject().getUuid();
 
         I_CmsReport report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsCreateImageSizeJob.class);
         report.println(Messages.get().container(Messages.RPT_IMAGE_SIZE_START_0), I_CmsReport.FORMAT_HEADLINE);
 
         List<CmsResource> resources = Collections.emptyList();
+        Set<CmsUUID> upToDate = Collections.emptySet();
+        boolean readFailed = false;
         try {
             // get all image resources
             resources = cms.readResources(
@@ -99,123 +195,123 @@ public class CmsCreateImageSizeJob implements I_CmsScheduledJob {
                 CmsResourceFilter.IGNORE_EXPIRATION.addRequireType(
                     OpenCms.getResourceManager().getResourceType(
                         CmsResourceTypeImage.getStaticTypeName()).getTypeId()));
+            if (incremental) {
+                upToDate = readUpToDateImages(
+                    cms,
+                    LAST_RUN_TIMES.get(projectId),
+                    UNFINISHED_IMAGES.get(projectId));
+            }
         } catch (CmsException e) {
             report.println(e);
+            readFailed = true;
         }
 
-        int count = 0;
-        // now iterate through all resources
-        for (int i = 0; i < resources.size(); i++) {
-
-            try {
-
-                CmsResource res = resources.get(i);
-                report.print(
-                    Messages.get().container(
-                        Messages.RPT_IMAGE_SIZE_PROCESS_3,
-                        String.valueOf(i + 1),
-                        String.valueOf(resources.size()),
-                        res.getRootPath()),
-                    I_CmsReport.FORMAT_HEADLINE);
-
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        List<CmsResource> images = new ArrayList<CmsResource>(resources.size());
+        // images are removed from this set once they are processed successfully
+        Set<CmsUUID> unfinished = new HashSet<CmsUUID>();
+        for (CmsResource res : resources) {
+            if (!upToDate.contains(res.getStructureId())) {
+                images.add(res);
+                unfinished.add(res.getStructureId());
+            }
+        }
+        int skipped = resources.size() - images.size();
 
+        int count = 0;
+        // the images are read by the workers, but processed in the original order
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        LinkedList<PendingImage> pending = new LinkedList<PendingImage>();
+        int index = 0;
+        try {
+            for (CmsResource res : images) {
                 // check if the resource is locked by another user
                 // we cannot process resources that are locked by someone else
-                CmsLock lock = cms.getLock(res);
-                if (lock.isNullLock() || lock.isOwnedBy(cms.getRequestContext().getCurrentUser())) {
-
-                    // read the file content
-                    CmsFile file = cms.readFile(res);
-                    // get the image size information
-                    CmsImageScaler scaler = new CmsImageScaler(file.getContents(), file.getRootPath());
-
-                    if (scaler.isValid()) {
-                        // the image can be scaled, width and height are known
-                        boolean updated = false;
-
-                        // check if the image must be downscaled
-                        CmsImageScaler downScaler = null;
-                        if (downscale) {
-                            // scheduled job parameter is set for downscaling
-                            downScaler = CmsResourceTypeImage.getDownScaler(cms, res.getRootPath());
-                        }
-
-                        if (scaler.isDownScaleRequired(downScaler)) {
-                            // downscaling is required - just write the file again, in this case everything is updated
-                            lockResource(cms, lock, res);
-                            cms.writeFile(file);
-                            // calculate the downscaled image size (only used for the output report)
-                            scaler = scaler.getDownScaler(downScaler);
-                            // the resource was updated
-                            updated = true;
-                        } else {
-                            // check if the "image.size" property must be updated
-                            CmsProperty prop = cms.readPropertyObject(
-                                res,
-                                CmsPropertyDefinition.PROPERTY_IMAGE_SIZE,
-                                false);
-                            // update the property if it does not exist or it is different than the newly calculated one
-                            if (prop.isNullProperty() || !prop.getValue().equals(scaler.toString())) {
-                                // lock resource
-                                lockResource(cms, lock, res);
-                                // set the shared value of the property or create a new one if required
-                                if (prop.isNullProperty()) {
-                                    prop = new CmsProperty(
-                                        CmsPropertyDefinition.PROPERTY_IMAGE_SIZE,
-                                        null,
-                                        scaler.toString());
-                                } else {
-                                    // delete any individual proprety value (just in case)
-                                    prop.setStructureValue(CmsProperty.DELETE_VALUE);
-                                    // set the calculated value as shared property
-                                    prop.setResourceValue(scaler.toString());
-                                }
-                                // write the property
-                                cms.writePropertyObject(res.getRootPath(), prop);
-                                // the resource was updated
-                                updated = true;
-                            }
-                        }
-
-                        if (updated) {
-                            // the resource was updated
-                            unlockResource(cms, lock, res);
-                            // increase counter
-                            count++;
-                            // write report information
-                            report.println(
-                                Messages.get().container(Messages.RPT_IMAGE_SIZE_UPDATE_1, scaler.toString()),
-                                I_CmsReport.FORMAT_DEFAULT);
-
-                        } else {
-                            // no changes have been made to the resource
-                            report.println(
-                                Messages.get().container(Messages.RPT_IMAGE_SIZE_SKIP_1, scaler.toString()),
-                                I_CmsReport.FORMAT_DEFAULT);
-                        }
-                    } else {
-                        // no valid image scaler
-                        report.println(
-                            Messages.get().container(Messages.RPT_IMAGE_SIZE_UNABLE_TO_CALCULATE_0),
-                            I_CmsReport.FORMAT_DEFAULT);
+                CmsLock lock = CmsLock.getNullLock();
+                Future<ImageInfo> info = null;
+                try {
+                    lock = cms.getLock(res);
+                    if (lock.isNullLock() || lock.isOwnedBy(cms.getRequestContext().getCurrentUser())) {
+                        info = executor.submit(createReadTask(cms, res, downscale));
+                    }
+                } catch (CmsException e) {
+                    info = Futures.immediateFailedFuture(e);
+                }
+                pending.add(new PendingImage(res, lock, info));
+                while (pending.size() >= (threads * 4)) {
+                    if (processImage(cms, pending.removeFirst(), ++index, images.size(), unfinished, report)) {
+                        count++;
                     }
-                } else {
-                    // the resource is locked by someone else
-                    report.println(
-                        Messages.get().container(Messages.RPT_IMAGE_SIZE_LOCKED_0),
-                        I_CmsReport.FORMAT_DEFAULT);
                 }
-            } catch (CmsException e) {
-                report.println(e);
+            }
+            while (!pending.isEmpty()) {
+                if (processImage(cms, pending.removeFirst(), ++index, images.size(), unfinished, report)) {
+                    count++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            if (!readFailed) {
+                // images that were locked, failed or not reached are processed again in the next run
+                UNFINISHED_IMAGES.put(projectId, unfinished);
+                LAST_RUN_TIMES.put(projectId, Long.valueOf(startTime));
             }
         }
+        if (skipped > 0) {
+            report.println(
+                Messages.get().container(Messages.RPT_IMAGE_SIZE_INCREMENTAL_SKIPPED_1, new Integer(skipped)),
+                I_CmsReport.FORMAT_NOTE);
+        }
 
         report.println(Messages.get().container(Messages.RPT_IMAGE_SIZE_END_0), I_CmsReport.FORMAT_HEADLINE);
 
         return Messages.get().getBundle().key(Messages.LOG_IMAGE_SIZE_UPDATE_COUNT_1, new Integer(count));
     }
 
+    /**
+     * Creates the task reading the size of the given image in a worker thread.<p>
+     *
+     * @param cms the OpenCms user context, not used by the worker thread
+     * @param res the image resource
+     * @param downscale if the image should be checked for downscaling
+     *
+     * @return the task reading the image
+     */
+    private Callable<ImageInfo> createReadTask(final CmsObject cms, final CmsResource res, final boolean downscale) {
+
+        final CmsObject workerCms;
+        try {
+            // the CmsObject is not thread safe, each worker uses its own copy
+            workerCms = OpenCms.initCmsObject(cms);
+        } catch (final CmsException e) {
+            return new Callable<ImageInfo>() {
+
+                public ImageInfo call() throws CmsException {
+
+                    throw e;
+                }
+            };
+        }
+        return new Callable<ImageInfo>() {
+
+            public ImageInfo call() throws CmsException {
+
+                ImageInfo info = new ImageInfo();
+                // read the file content
+                CmsFile file = workerCms.readFile(res);
+                // get the image size information from the image header
+                info.m_scaler = new CmsImageScaler(file.getContents(), file.getRootPath());
+                if (downscale && info.m_scaler.isValid()) {
+                    // scheduled job parameter is set for downscaling
+                    info.m_downScaler = CmsResourceTypeImage.getDownScaler(workerCms, res.getRootPath());
+                    if (info.m_scaler.isDownScaleRequired(info.m_downScaler)) {
+                        info.m_file = file;
+                    }
+                }
+                return info;
+            }
+        };
+    }
+
     /**
      * Locks the given resource (if required).<p>
      *
@@ -232,6 +328,142 @@ public class CmsCreateImageSizeJob implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Waits for the image information read by the worker thread, updates the image and writes the report.<p>
+     *
+     * @param cms the OpenCms user context
+     * @param image the pending image
+     * @param index the index of the image
+     * @param size the number of all processed images
+     * @param unfinished the ids of the images not processed successfully yet, the image is removed on success
+     * @param report the report to write to
+     *
+     * @return <code>true</code> if the image was updated
+     */
+    private boolean processImage(
+        CmsObject cms,
+        PendingImage image,
+        int index,
+        int size,
+        Set<CmsUUID> unfinished,
+        I_CmsReport report) {
+
+        CmsResource res = image.m_resource;
+        CmsLock lock = image.m_lock;
+        report.print(
+            Messages.get().container(
+                Messages.RPT_IMAGE_SIZE_PROCESS_3,
+                String.valueOf(index),
+                String.valueOf(size),
+                res.getRootPath()),
+            I_CmsReport.FORMAT_HEADLINE);
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+        if (image.m_info == null) {
+            // the resource is locked by someone else
+            report.println(Messages.get().container(Messages.RPT_IMAGE_SIZE_LOCKED_0), I_CmsReport.FORMAT_DEFAULT);
+            return false;
+        }
+        try {
+            ImageInfo info;
+            try {
+                info = image.m_info.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof CmsException) {
+                    throw (CmsException)e.getCause();
+                }
+                report.println(e.getCause());
+                return false;
+            }
+            CmsImageScaler scaler = info.m_scaler;
+            if (!scaler.isValid()) {
+                // no valid image scaler
+                report.println(
+                    Messages.get().container(Messages.RPT_IMAGE_SIZE_UNABLE_TO_CALCULATE_0),
+                    I_CmsReport.FORMAT_DEFAULT);
+                return false;
+            }
+            // the image can be scaled, width and height are known
+            boolean updated = false;
+            if (info.m_file != null) {
+                // downscaling is required - just write the file again, in this case everything is updated
+                lockResource(cms, lock, res);
+                cms.writeFile(info.m_file);
+                // calculate the downscaled image size (only used for the output report)
+                scaler = scaler.getDownScaler(info.m_downScaler);
+                // the resource was updated
+                updated = true;
+            } else {
+                // check if the "image.size" property must be updated
+                CmsProperty prop = cms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_IMAGE_SIZE, false);
+                // update the property if it does not exist or it is different than the newly calculated one
+                if (prop.isNullProperty() || !prop.getValue().equals(scaler.toString())) {
+                    // lock resource
+                    lockResource(cms, lock, res);
+                    // set the shared value of the property or create a new one if required
+                    if (prop.isNullProperty()) {
+                        prop = new CmsProperty(CmsPropertyDefinition.PROPERTY_IMAGE_SIZE, null, scaler.toString());
+                    } else {
+                        // delete any individual proprety value (just in case)
+                        prop.setStructureValue(CmsProperty.DELETE_VALUE);
+                        // set the calculated value as shared property
+                        prop.setResourceValue(scaler.toString());
+                    }
+                    // write the property
+                    cms.writePropertyObject(res.getRootPath(), prop);
+                    // the resource was updated
+                    updated = true;
+                }
+            }
+
+            if (updated) {
+                // the resource was updated
+                unlockResource(cms, lock, res);
+                // write report information
+                report.println(
+                    Messages.get().container(Messages.RPT_IMAGE_SIZE_UPDATE_1, scaler.toString()),
+                    I_CmsReport.FORMAT_DEFAULT);
+            } else {
+                // no changes have been made to the resource
+                report.println(
+                    Messages.get().container(Messages.RPT_IMAGE_SIZE_SKIP_1, scaler.toString()),
+                    I_CmsReport.FORMAT_DEFAULT);
+            }
+            unfinished.remove(res.getStructureId());
+            return updated;
+        } catch (CmsException e) {
+            report.println(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            report.println(e);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ids of the images with image size information which have not changed since the given time.<p>
+     *
+     * @param cms the OpenCms user context
+     * @param lastRunTime the start time of the last run of the job, or <code>null</code> if unknown
+     * @param unfinished the ids of the images not processed successfully in the last run, or <code>null</code>
+     *
+     * @return the ids of the up to date images
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Set<CmsUUID> readUpToDateImages(CmsObject cms, Long lastRunTime, Set<CmsUUID> unfinished)
+    throws CmsException {
+
+        Set<CmsUUID> result = new HashSet<CmsUUID>();
+        for (CmsResource res : cms.readResourcesWithProperty("/", CmsPropertyDefinition.PROPERTY_IMAGE_SIZE)) {
+            if (((lastRunTime == null) || (res.getDateContent() < lastRunTime.longValue()))
+                && ((unfinished == null) || !unfinished.contains(res.getStructureId()))) {
+                result.add(res.getStructureId());
+            }
+        }
+        return result;
+    }
+
     /**
      * Unlocks the given resource (if required).<p>
      *
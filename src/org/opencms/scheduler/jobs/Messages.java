@@ -73,6 +73,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMAGE_SIZE_END_0 = "RPT_IMAGE_SIZE_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_IMAGE_SIZE_INCREMENTAL_SKIPPED_1 = "RPT_IMAGE_SIZE_INCREMENTAL_SKIPPED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_IMAGE_SIZE_LOCKED_0 = "RPT_IMAGE_SIZE_LOCKED_0";
 
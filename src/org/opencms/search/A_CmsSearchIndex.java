@@ -749,6 +749,18 @@ public abstract class A_CmsSearchIndex implements I_CmsSearchIndex {
      */
     protected abstract I_CmsIndexWriter createIndexWriter(boolean create, I_CmsReport report) throws CmsIndexException;
 
+    /**
+     * Returns the index writer that is kept open for incremental updates of this index.<p>
+     *
+     * @return the index writer kept open for incremental updates, or <code>null</code> if there is none
+     *
+     * @see #getIndexWriter(I_CmsReport, boolean)
+     */
+    protected I_CmsIndexWriter getIndexWriter() {
+
+        return m_indexWriter;
+    }
+
     /**
      * Checks if the given resource should be indexed by this index or not.<p>
      *
@@ -135,6 +135,18 @@ public class CmsLuceneIndexWriter implements I_CmsIndexWriter {
         m_indexWriter.deleteDocuments(term);
     }
 
+    /**
+     * Returns the standard Lucene IndexWriter this writer delegates to.<p>
+     *
+     * The returned writer can be used to open near real-time readers on the index.<p>
+     *
+     * @return the standard Lucene IndexWriter this writer delegates to
+     */
+    public IndexWriter getLuceneIndexWriter() {
+
+        return m_indexWriter;
+    }
+
     /**
      * @see org.opencms.search.I_CmsIndexWriter#optimize()
      *
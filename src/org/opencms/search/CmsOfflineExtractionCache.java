@@ -0,0 +1,214 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.file.CmsResource;
+import org.opencms.search.extractors.I_CmsExtractionResult;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * In-memory cache for the extraction results of binary files, shared by all offline search indexes.<p>
+ *
+ * A binary file is extracted only once for all offline indexes, and the result is reused as long as the
+ * file content does not change. The cache is bounded by the total number of characters of the cached
+ * extraction results.<p>
+ *
+ * @since 12.0.0
+ */
+public class CmsOfflineExtractionCache {
+
+    /** The default maximum number of characters of all cached extraction results. */
+    public static final long DEFAULT_MAX_WEIGHT = 8 * 1024 * 1024;
+
+    /** The cached extraction results. */
+    private Cache<String, I_CmsExtractionResult> m_cache;
+
+    /** The number of extraction results found in the cache. */
+    private AtomicLong m_hits = new AtomicLong();
+
+    /** The number of extraction results not found in the cache. */
+    private AtomicLong m_misses = new AtomicLong();
+
+    /**
+     * Creates a new cache with the default maximum weight.<p>
+     */
+    public CmsOfflineExtractionCache() {
+
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Creates a new cache.<p>
+     *
+     * @param maxWeight the maximum number of characters of all cached extraction results
+     */
+    public CmsOfflineExtractionCache(long maxWeight) {
+
+        m_cache = CacheBuilder.newBuilder().maximumWeight(maxWeight).weigher(
+            new Weigher<String, I_CmsExtractionResult>() {
+
+                public int weigh(String key, I_CmsExtractionResult value) {
+
+                    return getWeight(key, value);
+                }
+            }).build();
+    }
+
+    /**
+     * Returns the key for caching the extraction result of a file.<p>
+     *
+     * @param resource the file
+     * @param locale the locale the content was extracted for, or <code>null</code>
+     * @param docTypeName the name of the document type used for the extraction
+     *
+     * @return the key for the extraction result cache
+     */
+    public static String getKey(CmsResource resource, Locale locale, String docTypeName) {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(resource.getResourceId());
+        result.append('_');
+        result.append(resource.getDateContent());
+        result.append('_');
+        result.append(docTypeName);
+        if (locale != null) {
+            result.append('_');
+            result.append(locale);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the weight of a cached extraction result, that is the number of characters of its key and contents.<p>
+     *
+     * @param key the cache key
+     * @param result the extraction result
+     *
+     * @return the weight of the extraction result
+     */
+    static int getWeight(String key, I_CmsExtractionResult result) {
+
+        long weight = key.length();
+        Map<String, String> items = result.getContentItems();
+        if (items != null) {
+            for (Map.Entry<String, String> item : items.entrySet()) {
+                weight += item.getKey().length();
+                if (item.getValue() != null) {
+                    weight += item.getValue().length();
+                }
+            }
+        }
+        return (int)Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes all cached extraction results.<p>
+     */
+    public void clear() {
+
+        m_cache.invalidateAll();
+    }
+
+    /**
+     * Returns the cached extraction result for the given key.<p>
+     *
+     * @param key the key, see {@link #getKey(CmsResource, Locale, String)}
+     *
+     * @return the cached extraction result, or <code>null</code>
+     */
+    public I_CmsExtractionResult get(String key) {
+
+        I_CmsExtractionResult result = m_cache.getIfPresent(key);
+        if (result == null) {
+            m_misses.incrementAndGet();
+        } else {
+            m_hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns a map view of the cached extraction results, e.g. for the memory monitor.<p>
+     *
+     * @return the cached extraction results, by key
+     */
+    public Map<String, I_CmsExtractionResult> getCacheMap() {
+
+        return m_cache.asMap();
+    }
+
+    /**
+     * Returns the number of extraction results found in the cache.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the number of extraction results not found in the cache.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Caches the extraction result for the given key.<p>
+     *
+     * @param key the key, see {@link #getKey(CmsResource, Locale, String)}
+     * @param result the extraction result
+     */
+    public void put(String key, I_CmsExtractionResult result) {
+
+        if (result != null) {
+            m_cache.put(key, result);
+        }
+    }
+
+    /**
+     * Returns the number of cached extraction results.<p>
+     *
+     * @return the number of cached extraction results
+     */
+    public long size() {
+
+        return m_cache.size();
+    }
+}
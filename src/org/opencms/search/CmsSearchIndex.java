@@ -82,12 +82,16 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiTermQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
@@ -99,6 +103,65 @@ import org.apache.solr.uninverting.UninvertingReader.Type;
  */
 public class CmsSearchIndex extends A_CmsSearchIndex {
 
+    /**
+     * Creates the index searchers handed out by the searcher manager of this index.<p>
+     */
+    private class CmsSearcherFactory extends SearcherFactory {
+
+        /**
+         * @see org.apache.lucene.search.SearcherFactory#newSearcher(org.apache.lucene.index.IndexReader, org.apache.lucene.index.IndexReader)
+         */
+        @Override
+        public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+
+            IndexSearcher searcher = new IndexSearcher(reader);
+            searcher.setSimilarity(m_sim);
+            return searcher;
+        }
+    }
+
+    /**
+     * Collects the reopen statistics of the searcher manager of this index.<p>
+     *
+     * The searcher manager calls the listener only from the thread that performs the refresh,
+     * and never for two refreshes at the same time.<p>
+     */
+    private class CmsSearcherRefreshListener implements ReferenceManager.RefreshListener {
+
+        /** The start time of the current refresh. */
+        private long m_refreshStart;
+
+        /**
+         * @see org.apache.lucene.search.ReferenceManager.RefreshListener#afterRefresh(boolean)
+         */
+        public void afterRefresh(boolean didRefresh) {
+
+            if (didRefresh) {
+                long time = System.currentTimeMillis() - m_refreshStart;
+                m_reopenTimeLast = time;
+                m_reopenTimeMax = Math.max(m_reopenTimeMax, time);
+                m_reopenTimeTotal += time;
+                m_reopenCount++;
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_INDEX_SEARCHER_REOPENED_3,
+                            getName(),
+                            Long.valueOf(time),
+                            Long.valueOf(m_reopenCount)));
+                }
+            }
+        }
+
+        /**
+         * @see org.apache.lucene.search.ReferenceManager.RefreshListener#beforeRefresh()
+         */
+        public void beforeRefresh() {
+
+            m_refreshStart = System.currentTimeMillis();
+        }
+    }
+
     /** A constant for the full qualified name of the CmsSearchIndex class. */
     public static final String A_PARAM_PREFIX = "org.opencms.search.CmsSearchIndex";
 
@@ -226,9 +289,6 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
      */
     private boolean m_ignoreExpiration;
 
-    /** The Lucene index searcher to use. */
-    private transient IndexSearcher m_indexSearcher;
-
     /** The Lucene index RAM buffer size, see {@link IndexWriterConfig#setRAMBufferSizeMB(double)}. */
     private Double m_luceneRAMBufferSizeMB;
 
@@ -238,9 +298,24 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
     /** The thread priority for a search. */
     private int m_priority;
 
+    /** The number of times the index searcher was reopened. */
+    private transient volatile long m_reopenCount;
+
+    /** The time in milliseconds the last reopen of the index searcher took. */
+    private transient volatile long m_reopenTimeLast;
+
+    /** The maximum time in milliseconds a reopen of the index searcher took. */
+    private transient volatile long m_reopenTimeMax;
+
+    /** The total time in milliseconds spent for reopening the index searcher. */
+    private transient volatile long m_reopenTimeTotal;
+
     /** Controls if a resource requires view permission to be displayed in the result list. */
     private boolean m_requireViewPermission;
 
+    /** The Lucene searcher manager that hands out reference counted index searchers. */
+    private transient volatile SearcherManager m_searcherManager;
+
     /** The cms specific Similarity implementation. */
     private final transient Similarity m_sim = new CmsSearchSimilarity();
 
@@ -416,6 +491,32 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
         return result;
     }
 
+    /**
+     * Acquires the current Lucene index searcher of this index.<p>
+     *
+     * The searcher stays usable until it is handed back with {@link #releaseSearcher(IndexSearcher)},
+     * even if the index is reopened in the meantime. Every acquired searcher must be released exactly once.<p>
+     *
+     * @return the current Lucene index searcher of this index, or <code>null</code> if the index has not been opened
+     */
+    public IndexSearcher acquireSearcher() {
+
+        SearcherManager manager = m_searcherManager;
+        while (manager != null) {
+            try {
+                return manager.acquire();
+            } catch (AlreadyClosedException e) {
+                // the index has been reopened concurrently, try again with the new searcher manager
+                SearcherManager current = m_searcherManager;
+                manager = (current != manager) ? current : null;
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
+                manager = null;
+            }
+        }
+        return null;
+    }
+
     /**
      * Adds a parameter.<p>
      *
@@ -568,11 +669,15 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
      */
     public I_CmsSearchDocument getDocument(int docId) {
 
-        try {
-            IndexSearcher searcher = getSearcher();
-            return new CmsLuceneDocument(searcher.doc(docId));
-        } catch (IOException e) {
-            // ignore, return null and assume document was not found
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher != null) {
+            try {
+                return new CmsLuceneDocument(searcher.doc(docId));
+            } catch (IOException e) {
+                // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
+            }
         }
         return null;
     }
@@ -608,7 +713,7 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
     public I_CmsSearchDocument getDocument(String field, String term) {
 
         Document result = null;
-        IndexSearcher searcher = getSearcher();
+        IndexSearcher searcher = acquireSearcher();
         if (searcher != null) {
             // search for an exact match on the selected field
             Term resultTerm = new Term(field, term);
@@ -619,6 +724,8 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
                 }
             } catch (IOException e) {
                 // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
             }
         }
         if (result != null) {
@@ -706,11 +813,61 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
     /**
      * Returns the Lucene index searcher used for this search index.<p>
      *
+     * The returned searcher is not reference counted, so its reader may be closed at any time
+     * once the index has been reopened.<p>
+     *
      * @return the Lucene index searcher used for this search index
+     *
+     * @deprecated use {@link #acquireSearcher()} and {@link #releaseSearcher(IndexSearcher)} instead
      */
+    @Deprecated
     public IndexSearcher getSearcher() {
 
-        return m_indexSearcher;
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher != null) {
+            releaseSearcher(searcher);
+        }
+        return searcher;
+    }
+
+    /**
+     * Returns how often the index searcher of this index has been reopened.<p>
+     *
+     * @return how often the index searcher of this index has been reopened
+     */
+    public long getSearcherReopenCount() {
+
+        return m_reopenCount;
+    }
+
+    /**
+     * Returns the time in milliseconds the last reopen of the index searcher took.<p>
+     *
+     * @return the time in milliseconds the last reopen of the index searcher took
+     */
+    public long getSearcherReopenTimeLast() {
+
+        return m_reopenTimeLast;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a reopen of the index searcher took.<p>
+     *
+     * @return the maximum time in milliseconds a reopen of the index searcher took
+     */
+    public long getSearcherReopenTimeMax() {
+
+        return m_reopenTimeMax;
+    }
+
+    /**
+     * Returns the total time in milliseconds spent for reopening the index searcher.<p>
+     *
+     * @return the total time in milliseconds spent for reopening the index searcher
+     */
+    public long getSearcherReopenTimeTotal() {
+
+        return m_reopenTimeTotal;
     }
 
     /**
@@ -857,6 +1014,24 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
         }
     }
 
+    /**
+     * Releases an index searcher that has been obtained by {@link #acquireSearcher()}.<p>
+     *
+     * The reader of the searcher is closed as soon as it has been released by all users
+     * and the index has been reopened in the meantime.<p>
+     *
+     * @param searcher the index searcher to release
+     */
+    public void releaseSearcher(IndexSearcher searcher) {
+
+        try {
+            // same as SearcherManager.release(), but independent of the manager the searcher was acquired from
+            searcher.getIndexReader().decRef();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
+        }
+    }
+
     /**
      * Performs a search on the index within the given fields.<p>
      *
@@ -887,6 +1062,9 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
 
         int previousPriority = Thread.currentThread().getPriority();
 
+        // the index searcher acquired for this search
+        IndexSearcher searcher = null;
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -923,9 +1101,9 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
             // store separate fields query for excerpt highlighting
             Query fieldsQuery = null;
 
-            // get an index searcher that is certainly up to date
+            // get an index searcher that is up to date, this does not wait for a reopen running in another thread
             indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
+            searcher = acquireSearcher();
 
             if (!params.isIgnoreQuery()) {
                 // since OpenCms 8 the query can be empty in which case only filters are used for the result
@@ -1108,6 +1286,9 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
             throw new CmsSearchException(Messages.get().container(Messages.ERR_SEARCH_PARAMS_1, params), e);
         } finally {
 
+            if (searcher != null) {
+                releaseSearcher(searcher);
+            }
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
         }
@@ -1631,12 +1812,17 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
             terms.forEach(term -> build.add(new TermQuery(term), Occur.SHOULD));
             Query termsQuery = build.build(); //termsFilter
 
+            IndexSearcher searcher = acquireSearcher();
             try {
-                result = termsQuery.createWeight(m_indexSearcher, ScoreMode.COMPLETE_NO_SCORES, 1).getQuery();
+                result = termsQuery.createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, 1).getQuery();
                 m_displayFilters.put(field + termsStr, result);
             } catch (IOException e) {
                 // TODO don't know what happend
                 e.printStackTrace();
+            } finally {
+                if (searcher != null) {
+                    releaseSearcher(searcher);
+                }
             }
         }
         return result;
@@ -1725,24 +1911,29 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
     /**
      * Closes the index searcher for this index.<p>
      *
+     * Searchers that are still in use are closed as soon as they are released.<p>
+     *
      * @see #indexSearcherOpen(String)
      */
     protected synchronized void indexSearcherClose() {
 
-        indexSearcherClose(m_indexSearcher);
+        SearcherManager manager = m_searcherManager;
+        m_searcherManager = null;
+        indexSearcherClose(manager);
     }
 
     /**
-     * Closes the given Lucene index searcher.<p>
+     * Closes the given Lucene searcher manager.<p>
+     *
+     * Searchers that are still in use are closed as soon as they are released.<p>
      *
-     * @param searcher the searcher to close
+     * @param manager the searcher manager to close
      */
-    protected synchronized void indexSearcherClose(IndexSearcher searcher) {
+    protected void indexSearcherClose(SearcherManager manager) {
 
-        // in case there is an index searcher available close it
-        if ((searcher != null) && (searcher.getIndexReader() != null)) {
+        if (manager != null) {
             try {
-                searcher.getIndexReader().close();
+                manager.close();
             } catch (Exception e) {
                 LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
             }
@@ -1758,25 +1949,38 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
      * for all searches. However, if the index is updated or changed
      * this searcher instance needs to be re-initialized.<p>
      *
+     * In case the index writer for incremental updates of this index is open, a near real-time
+     * reader is opened from that writer, so later reopens do not need to read the index directory.<p>
+     *
      * @param path the path to the index directory
      */
     protected synchronized void indexSearcherOpen(String path) {
 
-        IndexSearcher oldSearcher = null;
+        SearcherManager oldManager = m_searcherManager;
         Directory indexDirectory = null;
         try {
-            indexDirectory = FSDirectory.open(Paths.get(path));
-            if (DirectoryReader.indexExists(indexDirectory)) {
-                IndexReader reader = UninvertingReader.wrap(
-                    DirectoryReader.open(indexDirectory),
-                    createUninvertingMap());
-                if (m_indexSearcher != null) {
-                    // store old searcher instance to close it later
-                    oldSearcher = m_indexSearcher;
+            DirectoryReader reader = null;
+            I_CmsIndexWriter writer = getPath().equals(path) ? getIndexWriter() : null;
+            if (writer instanceof CmsLuceneIndexWriter) {
+                try {
+                    reader = DirectoryReader.open(((CmsLuceneIndexWriter)writer).getLuceneIndexWriter());
+                } catch (AlreadyClosedException e) {
+                    // the writer has been closed in the meantime, read the index from the directory
+                }
+            }
+            if (reader == null) {
+                indexDirectory = FSDirectory.open(Paths.get(path));
+                if (DirectoryReader.indexExists(indexDirectory)) {
+                    reader = DirectoryReader.open(indexDirectory);
                 }
-                m_indexSearcher = new IndexSearcher(reader);
-                m_indexSearcher.setSimilarity(m_sim);
+            }
+            if (reader != null) {
+                SearcherManager manager = new SearcherManager(
+                    UninvertingReader.wrap(reader, createUninvertingMap()),
+                    new CmsSearcherFactory());
+                manager.addListener(new CmsSearcherRefreshListener());
                 m_displayFilters = new HashMap<>();
+                m_searcherManager = manager;
             }
         } catch (IOException e) {
             LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
@@ -1788,31 +1992,30 @@ public class CmsSearchIndex extends A_CmsSearchIndex {
                 }
             }
         }
-        if (oldSearcher != null) {
-            // close the old searcher if required
-            indexSearcherClose(oldSearcher);
+        if ((oldManager != null) && (oldManager != m_searcherManager)) {
+            // close the old searcher, readers still in use are closed when they are released
+            indexSearcherClose(oldManager);
         }
     }
 
     /**
      * Reopens the index search reader for this index, required after the index has been changed.<p>
      *
+     * In case another thread is currently reopening the reader, this method returns immediately
+     * and the current searcher is used until the reopen has finished.<p>
+     *
      * @see #indexSearcherOpen(String)
      */
-    protected synchronized void indexSearcherUpdate() {
+    protected void indexSearcherUpdate() {
 
-        IndexSearcher oldSearcher = m_indexSearcher;
-        if ((oldSearcher != null) && (oldSearcher.getIndexReader() != null)) {
-            // in case there is an index searcher available close it
+        SearcherManager manager = m_searcherManager;
+        if (manager != null) {
             try {
-                if (oldSearcher.getIndexReader() instanceof DirectoryReader) {
-                    IndexReader newReader = DirectoryReader.openIfChanged(
-                        (DirectoryReader)oldSearcher.getIndexReader());
-                    if (newReader != null) {
-                        m_indexSearcher = new IndexSearcher(newReader);
-                        m_indexSearcher.setSimilarity(m_sim);
-                        indexSearcherClose(oldSearcher);
-                    }
+                manager.maybeRefresh();
+            } catch (AlreadyClosedException e) {
+                // either the manager was replaced in the meantime, or the near real-time writer has been closed
+                if (manager == m_searcherManager) {
+                    indexSearcherOpen(getPath());
                 }
             } catch (Exception e) {
                 LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
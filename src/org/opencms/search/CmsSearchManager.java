@@ -170,15 +170,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
 
-        /** The list of resources to index. */
-        private List<CmsPublishedResource> m_resourcesToIndex;
-
         /**
          * Initializes the offline index handler.<p>
          */
         protected CmsSearchOfflineHandler() {
 
-            m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            // noop
         }
 
         /**
@@ -240,22 +237,25 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
          *
          * @param resourcesToIndex the list of {@link CmsPublishedResource} objects to be indexed
          */
-        protected synchronized void addResourcesToIndex(List<CmsPublishedResource> resourcesToIndex) {
+        protected void addResourcesToIndex(List<CmsPublishedResource> resourcesToIndex) {
 
-            m_resourcesToIndex.addAll(resourcesToIndex);
+            m_offlineUpdateQueue.add(resourcesToIndex);
         }
 
         /**
-         * Returns the list of {@link CmsPublishedResource} objects to index.<p>
+         * Returns the next batch of {@link CmsPublishedResource} objects to index.<p>
+         *
+         * The resources are taken from the offline update queue, which keeps only the latest change of
+         * each resource. The resources whose index documents depend on them are added to the batch.<p>
          *
-         * @return the resources to index
+         * @return the batch of resources to index
          */
-        protected List<CmsPublishedResource> getResourcesToIndex() {
+        protected CmsSearchOfflineUpdateQueue.Batch getResourcesToIndex() {
 
-            List<CmsPublishedResource> result;
-            synchronized (this) {
-                result = m_resourcesToIndex;
-                m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            CmsSearchOfflineUpdateQueue.Batch batch = m_offlineUpdateQueue.poll();
+            List<CmsPublishedResource> result = batch.getResources();
+            if (result.isEmpty()) {
+                return batch;
             }
             try {
                 CmsObject cms = m_adminCms;
@@ -269,7 +269,11 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             } catch (CmsException e) {
                 LOG.error(e.getLocalizedMessage(), e);
             }
-            return result;
+            // the additionally affected resources may already be contained in the batch
+            return new CmsSearchOfflineUpdateQueue.Batch(
+                CmsSearchOfflineUpdateQueue.coalesce(result),
+                batch.getPolledCount(),
+                batch.isLimited());
         }
 
         /**
@@ -413,10 +417,15 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                         // set update trigger to false since we do the update now
                         m_updateTriggered = false;
                         // get list of resource to update
-                        List<CmsPublishedResource> resourcesToIndex = getResourcesToIndex();
+                        CmsSearchOfflineUpdateQueue.Batch batch = getResourcesToIndex();
+                        List<CmsPublishedResource> resourcesToIndex = batch.getResources();
                         if (resourcesToIndex.size() > 0) {
                             // only start indexing if there is at least one resource
-                            startOfflineUpdateThread(report, resourcesToIndex);
+                            startOfflineUpdateThread(report, resourcesToIndex, batch.getPolledCount());
+                            if (batch.isLimited()) {
+                                // the batch size was exceeded, continue with the remaining resources right away
+                                m_updateTriggered = true;
+                            }
                         } else {
                             getWaitHandle().release();
                         }
@@ -442,37 +451,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
 
         /**
-         * Obtains the list of resource to update in the offline index,
-         * then optimizes the list by removing duplicate entries.<p>
+         * Obtains the next batch of resources to update in the offline index.<p>
          *
-         * @return the list of resource to update in the offline index
+         * @return the batch of resources to update in the offline index
          */
-        protected List<CmsPublishedResource> getResourcesToIndex() {
-
-            List<CmsPublishedResource> resourcesToIndex = m_handler.getResourcesToIndex();
-            List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(resourcesToIndex.size());
-
-            // Reverse to always keep the last list entries
-            Collections.reverse(resourcesToIndex);
-            for (CmsPublishedResource pubRes : resourcesToIndex) {
-                boolean addResource = true;
-                for (CmsPublishedResource resRes : result) {
-                    if (pubRes.equals(resRes)
-                        && (pubRes.getState() == resRes.getState())
-                        && (pubRes.getMovedState() == resRes.getMovedState())
-                        && pubRes.getRootPath().equals(resRes.getRootPath())) {
-                        // resource already in the update list
-                        addResource = false;
-                        break;
-                    }
-                }
-                if (addResource) {
-                    result.add(pubRes);
-                }
+        protected CmsSearchOfflineUpdateQueue.Batch getResourcesToIndex() {
 
-            }
-            Collections.reverse(result);
-            return changeStateOfMoveOriginsToDeleted(result);
+            return m_handler.getResourcesToIndex();
         }
 
         /**
@@ -504,8 +489,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
          *
          * @param report the report to write the index information to
          * @param resourcesToIndex the list of {@link CmsPublishedResource} objects to index
+         * @param polledCount the number of entries taken from the offline update queue for the resources to index
          */
-        protected void startOfflineUpdateThread(I_CmsReport report, List<CmsPublishedResource> resourcesToIndex) {
+        protected void startOfflineUpdateThread(
+            I_CmsReport report,
+            List<CmsPublishedResource> resourcesToIndex,
+            int polledCount) {
 
             CmsSearchOfflineIndexWorkThread thread = new CmsSearchOfflineIndexWorkThread(report, resourcesToIndex);
             long startTime = System.currentTimeMillis();
@@ -537,6 +526,10 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             } while (thread.isAlive());
             m_isUpdating = false;
+            m_offlineUpdateQueue.cycleFinished(
+                polledCount,
+                System.currentTimeMillis() - startTime,
+                getOfflineUpdateFrequency());
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug(
@@ -546,50 +539,6 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                         Long.valueOf(System.currentTimeMillis() - startTime)));
             }
         }
-
-        /**
-         * Helper method which changes the states of resources which are to be indexed but have the wrong path to 'deleted'.
-         * This is needed to deal with moved resources, since the documents with the old paths must be removed from the index,
-         *
-         * @param resourcesToIndex the resources to index
-         *
-         * @return the resources to index, but resource states are set to 'deleted' for resources with outdated paths
-         */
-        private List<CmsPublishedResource> changeStateOfMoveOriginsToDeleted(
-            List<CmsPublishedResource> resourcesToIndex) {
-
-            Map<CmsUUID, String> lastValidPaths = new HashMap<CmsUUID, String>();
-            for (CmsPublishedResource resource : resourcesToIndex) {
-                if (resource.getState().isDeleted()) {
-                    // we don't want the last path to be from a deleted resource
-                    continue;
-                }
-                lastValidPaths.put(resource.getStructureId(), resource.getRootPath());
-            }
-            List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>();
-            for (CmsPublishedResource resource : resourcesToIndex) {
-                if (resource.getState().isDeleted()) {
-                    result.add(resource);
-                    continue;
-                }
-                String lastValidPath = lastValidPaths.get(resource.getStructureId());
-                if (resource.getRootPath().equals(lastValidPath) || resource.getStructureId().isNullUUID()) {
-                    result.add(resource);
-                } else {
-                    result.add(
-                        new CmsPublishedResource(
-                            resource.getStructureId(),
-                            resource.getResourceId(),
-                            resource.getPublishTag(),
-                            resource.getRootPath(),
-                            resource.getType(),
-                            resource.isFolder(),
-                            CmsResource.STATE_DELETED, // make sure index entry with outdated path is deleted
-                            resource.getSiblingCount()));
-                }
-            }
-            return result;
-        }
     }
 
     /**
@@ -722,12 +671,18 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The cache for the extraction results of binary files, shared by the offline indexes. */
+    private CmsOfflineExtractionCache m_offlineExtractionCache;
+
     /** The offline index search handler. */
     private CmsSearchOfflineHandler m_offlineHandler;
 
     /** The update frequency of the offline indexer in milliseconds. */
     private long m_offlineUpdateFrequency;
 
+    /** The queue of resources waiting to be updated in the offline indexes. */
+    private CmsSearchOfflineUpdateQueue m_offlineUpdateQueue;
+
     /** The maximal time to wait for re-indexing after a content is edited (in milliseconds). */
     private long m_maxIndexWaitTime;
 
@@ -752,6 +707,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_indexes = new ArrayList<I_CmsSearchIndex>();
         m_indexSources = new TreeMap<String, CmsSearchIndexSource>();
         m_offlineHandler = new CmsSearchOfflineHandler();
+        m_offlineUpdateQueue = new CmsSearchOfflineUpdateQueue();
+        m_offlineExtractionCache = new CmsOfflineExtractionCache();
         m_extractionCacheMaxAge = DEFAULT_EXTRACTION_CACHE_MAX_AGE;
         m_maxExcerptLength = DEFAULT_EXCERPT_LENGTH;
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
@@ -1002,6 +959,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
+                m_offlineExtractionCache.clear();
                 break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
                 // event data contains a list of the published resources
@@ -1486,6 +1444,26 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_maxModificationsBeforeCommit;
     }
 
+    /**
+     * Returns the cache for the extraction results of binary files, shared by the offline indexes.<p>
+     *
+     * @return the offline extraction cache
+     */
+    public CmsOfflineExtractionCache getOfflineExtractionCache() {
+
+        return m_offlineExtractionCache;
+    }
+
+    /**
+     * Returns the queue of resources waiting to be updated in the offline indexes.<p>
+     *
+     * @return the offline update queue
+     */
+    public CmsSearchOfflineUpdateQueue getOfflineUpdateQueue() {
+
+        return m_offlineUpdateQueue;
+    }
+
     /**
      * Returns the update frequency of the offline indexer in milliseconds.<p>
      *
@@ -1600,6 +1578,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_extractionResultCache = new CmsExtractionResultCache(
             OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(getDirectory()),
             "/extractCache");
+        OpenCms.getMemoryMonitor().register(
+            getClass().getName() + ".m_offlineExtractionCache",
+            m_offlineExtractionCache.getCacheMap());
         initializeFieldConfigurations();
         initializeIndexes();
         initOfflineIndexes();
@@ -0,0 +1,379 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Coalescing queue for the resources waiting to be updated in the offline search indexes.<p>
+ *
+ * The queue keeps a single entry per structure id, holding the latest change of the resource.
+ * If the root path of a resource changed while it was queued, the index documents for the outdated paths
+ * are deleted when the entry is taken from the queue.<p>
+ *
+ * The number of resources taken from the queue in one update cycle adapts to the time the previous cycles took.<p>
+ *
+ * @since 12.0.0
+ */
+public class CmsSearchOfflineUpdateQueue {
+
+    /**
+     * A batch of resources taken from the queue.<p>
+     */
+    public static class Batch {
+
+        /** Flag indicating the batch was limited by the batch size, so resources are left in the queue. */
+        private boolean m_limited;
+
+        /** The number of queue entries taken from the queue. */
+        private int m_polledCount;
+
+        /** The resources to update. */
+        private List<CmsPublishedResource> m_resources;
+
+        /**
+         * Creates a new batch.<p>
+         *
+         * @param resources the resources to update
+         * @param polledCount the number of queue entries taken from the queue
+         * @param limited <code>true</code> if the batch was limited by the batch size
+         */
+        public Batch(List<CmsPublishedResource> resources, int polledCount, boolean limited) {
+
+            m_resources = resources;
+            m_polledCount = polledCount;
+            m_limited = limited;
+        }
+
+        /**
+         * Returns the number of queue entries taken from the queue.<p>
+         *
+         * This may be less than the number of resources to update, since deleted entries for outdated
+         * root paths and additionally affected resources are added.<p>
+         *
+         * @return the number of queue entries taken from the queue
+         */
+        public int getPolledCount() {
+
+            return m_polledCount;
+        }
+
+        /**
+         * Returns the resources to update.<p>
+         *
+         * @return the resources to update
+         */
+        public List<CmsPublishedResource> getResources() {
+
+            return m_resources;
+        }
+
+        /**
+         * Returns <code>true</code> if the batch was limited by the batch size, so resources are left in the queue.<p>
+         *
+         * @return <code>true</code> if the batch was limited by the batch size
+         */
+        public boolean isLimited() {
+
+            return m_limited;
+        }
+    }
+
+    /**
+     * A queued resource, together with the outdated root paths of the resource.<p>
+     */
+    private static class QueueEntry {
+
+        /** The outdated root paths of the resource. */
+        Set<String> m_outdatedPaths;
+
+        /** The latest change of the resource. */
+        CmsPublishedResource m_resource;
+
+        /**
+         * Creates a new queue entry.<p>
+         *
+         * @param resource the latest change of the resource
+         */
+        QueueEntry(CmsPublishedResource resource) {
+
+            m_resource = resource;
+        }
+    }
+
+    /** The initial number of resources taken from the queue in one update cycle. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** The maximum number of resources taken from the queue in one update cycle. */
+    public static final int MAX_BATCH_SIZE = 16000;
+
+    /** The minimum number of resources taken from the queue in one update cycle. */
+    public static final int MIN_BATCH_SIZE = 100;
+
+    /** The number of resources currently taken from the queue in one update cycle. */
+    private int m_batchSize = DEFAULT_BATCH_SIZE;
+
+    /** The number of changes which replaced an already queued change of the same resource. */
+    private long m_coalescedCount;
+
+    /** The number of finished update cycles. */
+    private long m_cycleCount;
+
+    /** The queued entries, in the order of their latest change. */
+    private Map<Object, QueueEntry> m_entries = new LinkedHashMap<Object, QueueEntry>();
+
+    /** The duration of the last update cycle in milliseconds. */
+    private long m_lastCycleDuration;
+
+    /** The number of queue entries updated in the last update cycle. */
+    private int m_lastCycleSize;
+
+    /** The number of changes added to the queue. */
+    private long m_queuedCount;
+
+    /**
+     * Returns the given changes with a single entry per resource, holding its latest change.<p>
+     *
+     * For resources whose root path changed, deleted entries for the outdated paths are added before the latest
+     * change of the resource.<p>
+     *
+     * @param resources the changes to coalesce, in the order they happened
+     *
+     * @return the coalesced changes
+     */
+    public static List<CmsPublishedResource> coalesce(Collection<CmsPublishedResource> resources) {
+
+        Map<Object, QueueEntry> entries = new LinkedHashMap<Object, QueueEntry>();
+        for (CmsPublishedResource resource : resources) {
+            add(entries, resource);
+        }
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(entries.size());
+        for (QueueEntry entry : entries.values()) {
+            expand(entry, result);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a change to the given queue entries, replacing an already queued change of the same resource.<p>
+     *
+     * @param entries the queue entries
+     * @param resource the changed resource
+     *
+     * @return <code>true</code> if an already queued change was replaced
+     */
+    private static boolean add(Map<Object, QueueEntry> entries, CmsPublishedResource resource) {
+
+        Object key = resource.getStructureId().isNullUUID() ? resource.getRootPath() : resource.getStructureId();
+        // remove the old entry, so the entry moves to the end of the queue
+        QueueEntry old = entries.remove(key);
+        QueueEntry entry = new QueueEntry(resource);
+        if (old != null) {
+            entry.m_outdatedPaths = old.m_outdatedPaths;
+            if (!old.m_resource.getRootPath().equals(resource.getRootPath())) {
+                if (entry.m_outdatedPaths == null) {
+                    entry.m_outdatedPaths = new LinkedHashSet<String>();
+                }
+                entry.m_outdatedPaths.add(old.m_resource.getRootPath());
+            }
+            if (entry.m_outdatedPaths != null) {
+                // the resource may have been moved back to a previous path
+                entry.m_outdatedPaths.remove(resource.getRootPath());
+            }
+        }
+        entries.put(key, entry);
+        return old != null;
+    }
+
+    /**
+     * Adds the resources to update for a queue entry to the given list.<p>
+     *
+     * @param entry the queue entry
+     * @param result the list to add the resources to
+     */
+    private static void expand(QueueEntry entry, List<CmsPublishedResource> result) {
+
+        CmsPublishedResource resource = entry.m_resource;
+        if (entry.m_outdatedPaths != null) {
+            for (String path : entry.m_outdatedPaths) {
+                // make sure the index documents with outdated paths are deleted
+                result.add(
+                    new CmsPublishedResource(
+                        resource.getStructureId(),
+                        resource.getResourceId(),
+                        resource.getPublishTag(),
+                        path,
+                        resource.getType(),
+                        resource.isFolder(),
+                        CmsResource.STATE_DELETED,
+                        resource.getSiblingCount()));
+            }
+        }
+        result.add(resource);
+    }
+
+    /**
+     * Adds the latest changes of the given resources to the queue.<p>
+     *
+     * @param resources the changed resources, in the order they were changed
+     */
+    public synchronized void add(Collection<CmsPublishedResource> resources) {
+
+        for (CmsPublishedResource resource : resources) {
+            m_queuedCount += 1;
+            if (add(m_entries, resource)) {
+                m_coalescedCount += 1;
+            }
+        }
+    }
+
+    /**
+     * Records the result of a finished update cycle and adapts the number of resources taken from the
+     * queue in the next cycles.<p>
+     *
+     * If the update took longer than half the update frequency, the batch size is halved.
+     * If a full batch was updated in less than a quarter of the update frequency, the batch size is doubled.<p>
+     *
+     * @param size the number of queue entries taken from the queue for the update, see {@link Batch#getPolledCount()}
+     * @param duration the duration of the update in milliseconds
+     * @param frequency the offline update frequency in milliseconds
+     */
+    public synchronized void cycleFinished(int size, long duration, long frequency) {
+
+        m_cycleCount += 1;
+        m_lastCycleSize = size;
+        m_lastCycleDuration = duration;
+        if (duration > (frequency / 2)) {
+            m_batchSize = Math.max(MIN_BATCH_SIZE, m_batchSize / 2);
+        } else if ((size >= m_batchSize) && (duration < (frequency / 4))) {
+            m_batchSize = Math.min(MAX_BATCH_SIZE, m_batchSize * 2);
+        }
+    }
+
+    /**
+     * Returns the number of resources currently taken from the queue in one update cycle.<p>
+     *
+     * @return the batch size
+     */
+    public synchronized int getBatchSize() {
+
+        return m_batchSize;
+    }
+
+    /**
+     * Returns the number of changes which replaced an already queued change of the same resource.<p>
+     *
+     * @return the number of coalesced changes
+     */
+    public synchronized long getCoalescedCount() {
+
+        return m_coalescedCount;
+    }
+
+    /**
+     * Returns the number of finished update cycles.<p>
+     *
+     * @return the number of finished update cycles
+     */
+    public synchronized long getCycleCount() {
+
+        return m_cycleCount;
+    }
+
+    /**
+     * Returns the duration of the last update cycle in milliseconds.<p>
+     *
+     * @return the duration of the last update cycle
+     */
+    public synchronized long getLastCycleDuration() {
+
+        return m_lastCycleDuration;
+    }
+
+    /**
+     * Returns the number of queue entries updated in the last update cycle.<p>
+     *
+     * @return the number of queue entries updated in the last update cycle
+     */
+    public synchronized int getLastCycleSize() {
+
+        return m_lastCycleSize;
+    }
+
+    /**
+     * Returns the number of changes added to the queue.<p>
+     *
+     * @return the number of changes added to the queue
+     */
+    public synchronized long getQueuedCount() {
+
+        return m_queuedCount;
+    }
+
+    /**
+     * Takes the next batch of resources from the queue.<p>
+     *
+     * The resources of the batch include deleted entries for outdated root paths.
+     * The batch is limited if the queue contained more entries than the batch size.<p>
+     *
+     * @return the batch of resources to update
+     */
+    public synchronized Batch poll() {
+
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(
+            Math.min(m_entries.size(), m_batchSize));
+        Iterator<QueueEntry> it = m_entries.values().iterator();
+        int count = 0;
+        while (it.hasNext() && (count < m_batchSize)) {
+            expand(it.next(), result);
+            it.remove();
+            count += 1;
+        }
+        return new Batch(result, count, it.hasNext());
+    }
+
+    /**
+     * Returns the number of resources waiting in the queue.<p>
+     *
+     * @return the number of queued resources
+     */
+    public synchronized int size() {
+
+        return m_entries.size();
+    }
+}
@@ -271,6 +271,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INDEX_ACCESS_FAILED_1 = "LOG_INDEX_ACCESS_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_INDEX_SEARCHER_REOPENED_3 = "LOG_INDEX_SEARCHER_REOPENED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INDEX_WRITER_MSG_CLOSE_2 = "LOG_INDEX_WRITER_MSG_CLOSE_2";
 
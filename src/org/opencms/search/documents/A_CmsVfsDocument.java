@@ -30,8 +30,13 @@ package org.opencms.search.documents;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeBinary;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.search.CmsOfflineExtractionCache;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.I_CmsSearchIndex;
 import org.opencms.search.extractors.I_CmsExtractionResult;
@@ -135,6 +140,20 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
                 content = index.getContentIfUnchanged(resource);
             }
 
+            CmsOfflineExtractionCache sharedCache = null;
+            String sharedKey = null;
+            if (content == null) {
+                // binary files are extracted only once for all offline indexes
+                sharedCache = getSharedExtractionCache(cms, resource);
+                if (sharedCache != null) {
+                    sharedKey = CmsOfflineExtractionCache.getKey(
+                        resource,
+                        isLocaleDependend() ? index.getLocaleForResource(cms, resource, null) : null,
+                        getName());
+                    content = sharedCache.get(sharedKey);
+                }
+            }
+
             if (content == null) {
                 // extraction result has not been attached to the resource
                 try {
@@ -146,6 +165,9 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
                         // save extracted content to the cache
                         cache.saveCacheObject(cacheName, content);
                     }
+                    if (sharedCache != null) {
+                        sharedCache.put(sharedKey, content);
+                    }
                 } catch (CmsIndexNoContentException e) {
                     // there was no content found for the resource
                     LOG.info(
@@ -220,6 +242,29 @@ public abstract class A_CmsVfsDocument implements I_CmsDocumentFactory {
         m_cache = cache;
     }
 
+    /**
+     * Returns the cache for sharing the extraction result of the given resource between the offline indexes.<p>
+     *
+     * Only the extraction results of binary and plain text files are shared, since these depend on the file
+     * content alone. In the online project, <code>null</code> is returned.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param resource the resource to extract the content from
+     *
+     * @return the cache for sharing the extraction result, or <code>null</code>
+     */
+    protected CmsOfflineExtractionCache getSharedExtractionCache(CmsObject cms, CmsResource resource) {
+
+        if (cms.getRequestContext().getCurrentProject().isOnlineProject() || (OpenCms.getSearchManager() == null)) {
+            return null;
+        }
+        I_CmsResourceType type = OpenCms.getResourceManager().getResourceType(resource);
+        if ((type instanceof CmsResourceTypeBinary) || (type instanceof CmsResourceTypePlain)) {
+            return OpenCms.getSearchManager().getOfflineExtractionCache();
+        }
+        return null;
+    }
+
     /**
      * Logs content extraction for the specified resource and index.<p>
      *
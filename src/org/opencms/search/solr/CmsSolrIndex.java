@@ -139,6 +139,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** Constant for additional parameter to set the maximal number of a result, the select handler should return. */
     public static final String SOLR_HANDLER_MAX_ALLOWED_RESULTS_AT_ALL = "handle.solr.maxAllowedResultsAtAll";
 
+    /** Constant for additional parameter to set the maximal size in bytes of the documents buffered by the writer. */
+    public static final String SOLR_WRITER_BATCH_BYTES = "search.solr.writerBatchBytes";
+
+    /** Constant for additional parameter to set the maximal number of documents buffered by the index writer. */
+    public static final String SOLR_WRITER_BATCH_SIZE = "search.solr.writerBatchSize";
+
     /** Constant for additional parameter to disable the select handler (except for debug mode). */
     private static final String SOLR_HANDLER_DISABLE_SELECT = "handle.solr.disableSelectHandler";
 
@@ -243,6 +249,12 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** The maximal number of results to process for search queries. */
     int m_maxProcessedResults = -2; // special value for not initialized.
 
+    /** The maximal estimated size in bytes of the documents buffered by the index writer. */
+    private long m_writerBatchBytes = CmsSolrIndexWriter.DEFAULT_BATCH_BYTES;
+
+    /** The maximal number of documents buffered by the index writer. */
+    private int m_writerBatchSize = CmsSolrIndexWriter.DEFAULT_BATCH_SIZE;
+
     /**
      * Default constructor.<p>
      */
@@ -366,6 +378,16 @@ public class CmsSolrIndex extends CmsSearchIndex {
                     }
                 }
                 break;
+            case SOLR_WRITER_BATCH_SIZE:
+                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                    m_writerBatchSize = CmsStringUtil.getIntValue(value.trim(), m_writerBatchSize, key);
+                }
+                break;
+            case SOLR_WRITER_BATCH_BYTES:
+                if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                    m_writerBatchBytes = CmsStringUtil.getLongValue(value.trim(), m_writerBatchBytes, key);
+                }
+                break;
             default:
                 super.addConfigurationParameter(key, value);
                 break;
@@ -607,6 +629,26 @@ public class CmsSolrIndex extends CmsSearchIndex {
         return m_postProcessor;
     }
 
+    /**
+     * Returns the maximal estimated size in bytes of the documents buffered by the index writer.<p>
+     *
+     * @return the maximal estimated size in bytes of the buffered documents
+     */
+    public long getWriterBatchBytes() {
+
+        return m_writerBatchBytes;
+    }
+
+    /**
+     * Returns the maximal number of documents buffered by the index writer.<p>
+     *
+     * @return the maximal number of buffered documents
+     */
+    public int getWriterBatchSize() {
+
+        return m_writerBatchSize;
+    }
+
     /**
      * @see org.opencms.search.CmsSearchIndex#initialize()
      */
@@ -38,31 +38,100 @@ import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.fields.CmsSearchField;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.common.SolrException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
 
 /**
  * Implements the index writer for the Solr server used by OpenCms.<p>
  *
+ * Updated and deleted documents are buffered and sent to the Solr server in batched update requests,
+ * when the number or the estimated size of the buffered documents exceeds the configured limits,
+ * and before the index is committed.<p>
+ *
  * @since 8.5.0
  */
 public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
 
+    /**
+     * A buffered document update.<p>
+     */
+    private static class PendingUpdate {
+
+        /** The estimated size of the documents in bytes. */
+        long m_bytes;
+
+        /** The Solr documents to add. */
+        List<SolrInputDocument> m_documents;
+
+        /** The structure id of the resource. */
+        String m_id;
+
+        /**
+         * Creates a new buffered document update.<p>
+         *
+         * @param id the structure id of the resource
+         * @param documents the Solr documents to add
+         */
+        PendingUpdate(String id, List<SolrInputDocument> documents) {
+
+            m_id = id;
+            m_documents = documents;
+            for (SolrInputDocument document : documents) {
+                m_bytes += getSize(document);
+            }
+        }
+    }
+
+    /** The default maximal estimated size in bytes of the buffered documents. */
+    public static final long DEFAULT_BATCH_BYTES = 10L * 1024 * 1024;
+
+    /** The default maximal number of buffered documents. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
     /** The log object for this class. */
     protected static final Log LOG = CmsLog.getLog(CmsSolrIndexWriter.class);
 
+    /** The maximal number of terms in a single delete query. */
+    private static final int MAX_DELETE_QUERY_TERMS = 500;
+
+    /** The maximal estimated size in bytes of the buffered documents. */
+    private long m_batchBytes = DEFAULT_BATCH_BYTES;
+
+    /** The maximal number of buffered documents. */
+    private int m_batchSize = DEFAULT_BATCH_SIZE;
+
     /** The time to wait before a commit is sent to the Solr index.  */
-    private int m_commitMs = new Long(
-        OpenCms.getSearchManager().getSolrServerConfiguration().getSolrCommitMs()).intValue();
+    private int m_commitMs;
 
     /** The Solr index. */
     private CmsSolrIndex m_index;
 
+    /** The estimated size in bytes of the buffered documents. */
+    private long m_pendingBytes;
+
+    /** The root paths of the buffered deleted resources, keyed by their structure id. */
+    private Map<String, String> m_pendingDeletes = new LinkedHashMap<String, String>();
+
+    /** The root paths of the updated resources, whose old documents must be deleted before the updates are added. */
+    private Set<String> m_pendingPaths = new LinkedHashSet<String>();
+
+    /** The buffered document updates, keyed by the root path of the resource. */
+    private Map<String, PendingUpdate> m_pendingUpdates = new LinkedHashMap<String, PendingUpdate>();
+
     /** The Solr client. */
     private SolrClient m_server;
 
@@ -88,9 +157,27 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
      */
     public CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index) {
 
+        this(
+            client,
+            index,
+            new Long(OpenCms.getSearchManager().getSolrServerConfiguration().getSolrCommitMs()).intValue());
+    }
+
+    /**
+     * Creates a new index writer with the given commit time.<p>
+     *
+     * @param client the Solr client to use
+     * @param index the OpenCms search index instance this writer to supposed to write to
+     * @param commitMs the time to wait before a commit is sent to the Solr index
+     */
+    CmsSolrIndexWriter(SolrClient client, CmsSolrIndex index, int commitMs) {
+
         m_index = index;
         m_server = client;
+        m_commitMs = commitMs;
         if (m_index != null) {
+            m_batchSize = m_index.getWriterBatchSize();
+            m_batchBytes = m_index.getWriterBatchBytes();
             LOG.info(
                 Messages.get().getBundle().key(
                     Messages.LOG_SOLR_WRITER_CREATE_2,
@@ -99,12 +186,64 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
         }
     }
 
+    /**
+     * Returns the estimated size of the given Solr document in bytes.<p>
+     *
+     * @param document the Solr document
+     *
+     * @return the estimated size in bytes
+     */
+    static long getSize(SolrInputDocument document) {
+
+        long size = 0;
+        for (SolrInputField field : document.values()) {
+            size += field.getName().length();
+            Collection<Object> values = field.getValues();
+            if (values != null) {
+                for (Object value : values) {
+                    size += String.valueOf(value).length();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns a query for documents having one of the given values in the given field.<p>
+     *
+     * @param field the field name
+     * @param values the values
+     *
+     * @return the query
+     */
+    static String getTermsQuery(String field, Collection<String> values) {
+
+        StringBuffer query = new StringBuffer(field.length() + 4 + (values.size() * 40));
+        query.append(field).append(":(");
+        Iterator<String> it = values.iterator();
+        while (it.hasNext()) {
+            query.append('"');
+            for (char c : it.next().toCharArray()) {
+                if ((c == '"') || (c == '\\')) {
+                    query.append('\\');
+                }
+                query.append(c);
+            }
+            query.append('"');
+            if (it.hasNext()) {
+                query.append(" OR ");
+            }
+        }
+        query.append(')');
+        return query.toString();
+    }
+
     /**
      * @see org.opencms.search.I_CmsIndexWriter#close()
      */
     public void close() {
 
-        // nothing to do here
+        flush();
     }
 
     /**
@@ -112,6 +251,7 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
      */
     public void commit() throws IOException {
 
+        flush();
         if ((m_server != null) && (m_index != null)) {
             try {
                 LOG.info(
@@ -129,9 +269,11 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     /**
      * @see org.opencms.search.solr.I_CmsSolrIndexWriter#deleteAllDocuments()
      */
-    public void deleteAllDocuments() throws IOException {
+    public synchronized void deleteAllDocuments() throws IOException {
 
         if ((m_server != null) && (m_index != null)) {
+            // the buffered changes are obsolete
+            clearPending();
             try {
                 LOG.info(
                     Messages.get().getBundle().key(
@@ -146,24 +288,92 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     }
 
     /**
+     * Buffers the deletion of the document, it is sent to the Solr server with the next batch.<p>
+     *
      * @see org.opencms.search.I_CmsIndexWriter#deleteDocument(org.opencms.db.CmsPublishedResource)
      */
-    public void deleteDocument(CmsPublishedResource resource) throws IOException {
+    public synchronized void deleteDocument(CmsPublishedResource resource) {
 
         if ((m_server != null) && (m_index != null)) {
+            LOG.info(
+                Messages.get().getBundle().key(
+                    Messages.LOG_SOLR_WRITER_DOC_DELETE_3,
+                    resource.getRootPath(),
+                    m_index.getName(),
+                    m_index.getPath()));
+            String id = resource.getStructureId().toString();
+            // a buffered update of the same resource must not be added after the deletion
+            Iterator<PendingUpdate> it = m_pendingUpdates.values().iterator();
+            while (it.hasNext()) {
+                PendingUpdate update = it.next();
+                if (update.m_id.equals(id)) {
+                    m_pendingBytes -= update.m_bytes;
+                    it.remove();
+                }
+            }
+            m_pendingDeletes.put(id, resource.getRootPath());
+            flushIfRequired();
+        }
+    }
+
+    /**
+     * Sends all buffered changes to the Solr server.<p>
+     *
+     * If a batched request fails, the changes are sent one by one, and the failures
+     * are logged for each resource.<p>
+     */
+    public synchronized void flush() {
+
+        if ((m_server == null) || (m_index == null) || (m_pendingPaths.isEmpty() && m_pendingDeletes.isEmpty())) {
+            return;
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_SOLR_WRITER_FLUSH_4,
+                    new Object[] {
+                        new Integer(m_pendingUpdates.size()),
+                        new Integer(m_pendingDeletes.size()),
+                        m_index.getName(),
+                        m_index.getPath()}));
+        }
+        try {
+            // the old documents must be deleted before the updated documents are added
             try {
-                LOG.info(
+                UpdateRequest request = new UpdateRequest();
+                addDeleteQueries(request, CmsSearchField.FIELD_ID, m_pendingDeletes.keySet());
+                addDeleteQueries(request, CmsSearchField.FIELD_PATH, m_pendingPaths);
+                request.setCommitWithin(m_commitMs);
+                request.process(m_server);
+            } catch (Exception e) {
+                LOG.warn(
                     Messages.get().getBundle().key(
-                        Messages.LOG_SOLR_WRITER_DOC_DELETE_3,
-                        resource.getRootPath(),
+                        Messages.LOG_SOLR_WRITER_BATCH_FAILED_2,
                         m_index.getName(),
-                        m_index.getPath()));
-                m_server.deleteByQuery("id:" + resource.getStructureId().toString(), m_commitMs);
-            } catch (SolrServerException e) {
-                throw new IOException(e.getLocalizedMessage(), e);
-            } catch (SolrException e) {
-                throw new IOException(e.getLocalizedMessage(), e);
+                        m_index.getPath()),
+                    e);
+                sendDeletesSeparately();
+            }
+            if (!m_pendingUpdates.isEmpty()) {
+                try {
+                    UpdateRequest request = new UpdateRequest();
+                    for (PendingUpdate update : m_pendingUpdates.values()) {
+                        request.add(update.m_documents);
+                    }
+                    request.setCommitWithin(m_commitMs);
+                    request.process(m_server);
+                } catch (Exception e) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_SOLR_WRITER_BATCH_FAILED_2,
+                            m_index.getName(),
+                            m_index.getPath()),
+                        e);
+                    sendUpdatesSeparately();
+                }
             }
+        } finally {
+            clearPending();
         }
     }
 
@@ -177,42 +387,81 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
     }
 
     /**
+     * Buffers the updated document, it is sent to the Solr server with the next batch.<p>
+     *
      * @see org.opencms.search.I_CmsIndexWriter#updateDocument(java.lang.String, org.opencms.search.I_CmsSearchDocument)
      */
-    public void updateDocument(String rootPath, I_CmsSearchDocument document) throws IOException {
+    public void updateDocument(String rootPath, I_CmsSearchDocument document) {
 
         if ((m_server != null) && (m_index != null)) {
 
             if (document.getDocument() != null) {
-                try {
-                    m_server.deleteByQuery("path:\"" + rootPath + "\"", m_commitMs);
-                } catch (Exception e1) {
-                    LOG.error(e1.getLocalizedMessage(), e1);
-                }
-                try {
-                    LOG.info(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_SOLR_WRITER_DOC_UPDATE_3,
-                            rootPath,
-                            m_index.getName(),
-                            m_index.getPath()));
-                    addDocumentInstances(document);
-                } catch (SolrServerException e) {
-                    throw new IOException(e.getLocalizedMessage(), e);
+                LOG.info(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_SOLR_WRITER_DOC_UPDATE_3,
+                        rootPath,
+                        m_index.getName(),
+                        m_index.getPath()));
+                SolrInputDocument inputDoc = (SolrInputDocument)document.getDocument();
+                String id = inputDoc.getFieldValue(CmsSearchField.FIELD_ID).toString();
+                PendingUpdate update = new PendingUpdate(id, createDocumentInstances(document));
+                synchronized (this) {
+                    PendingUpdate previous = m_pendingUpdates.remove(rootPath);
+                    if (previous != null) {
+                        m_pendingBytes -= previous.m_bytes;
+                    }
+                    // all documents with this path are deleted before the update is added
+                    m_pendingPaths.add(rootPath);
+                    m_pendingUpdates.put(rootPath, update);
+                    m_pendingBytes += update.m_bytes;
+                    flushIfRequired();
                 }
             }
         }
     }
 
     /**
-     * Adds Solr documents to the index for the {@link I_CmsSearchDocument}.
+     * Adds delete queries for the documents having one of the given values in the given field.<p>
+     *
+     * @param request the update request
+     * @param field the field name
+     * @param values the values
+     */
+    private void addDeleteQueries(UpdateRequest request, String field, Collection<String> values) {
+
+        List<String> chunk = new ArrayList<String>();
+        for (String value : values) {
+            chunk.add(value);
+            if (chunk.size() == MAX_DELETE_QUERY_TERMS) {
+                request.deleteByQuery(getTermsQuery(field, chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            request.deleteByQuery(getTermsQuery(field, chunk));
+        }
+    }
+
+    /**
+     * Clears the buffered changes.<p>
+     */
+    private void clearPending() {
+
+        m_pendingDeletes.clear();
+        m_pendingPaths.clear();
+        m_pendingUpdates.clear();
+        m_pendingBytes = 0;
+    }
+
+    /**
+     * Creates the Solr documents to add to the index for the {@link I_CmsSearchDocument}.
      * Documents for serial dates are added for each occurrence once with the date of the respective occurrence.
      * @param document the document for the indexed resource
-     * @throws SolrServerException thrown if adding the document to the index fails
-     * @throws IOException thrown if adding the document to the index fails
+     * @return the Solr documents to add to the index
      */
-    private void addDocumentInstances(I_CmsSearchDocument document) throws SolrServerException, IOException {
+    private List<SolrInputDocument> createDocumentInstances(I_CmsSearchDocument document) {
 
+        List<SolrInputDocument> result = new ArrayList<SolrInputDocument>();
         List<String> serialDates = document.getMultivaluedFieldAsStringList(CmsSearchField.FIELD_SERIESDATES);
         SolrInputDocument inputDoc = (SolrInputDocument)document.getDocument();
         String id = inputDoc.getFieldValue(CmsSearchField.FIELD_ID).toString();
@@ -250,12 +499,71 @@ public class CmsSolrIndexWriter implements I_CmsSolrIndexWriter {
                 //remove fields that should not be part of the index, but were used to transport extra-information on date series
                 inputDoc.removeField(CmsSearchField.FIELD_SERIESDATES_END);
                 inputDoc.removeField(CmsSearchField.FIELD_SERIESDATES_CURRENT_TILL);
-                m_server.add(inputDoc, m_commitMs);
+                result.add(inputDoc.deepCopy());
             }
         } else {
             inputDoc.setField(CmsSearchField.FIELD_SOLR_ID, id);
-            m_server.add(inputDoc, m_commitMs);
+            result.add(inputDoc);
+        }
+        return result;
+    }
+
+    /**
+     * Sends the buffered changes if the number or the estimated size of the buffered documents exceeds the limits.<p>
+     */
+    private void flushIfRequired() {
+
+        if (((m_pendingUpdates.size() + m_pendingDeletes.size()) >= m_batchSize) || (m_pendingBytes >= m_batchBytes)) {
+            flush();
         }
+    }
 
+    /**
+     * Sends the buffered deletions one by one.<p>
+     */
+    private void sendDeletesSeparately() {
+
+        for (Map.Entry<String, String> entry : m_pendingDeletes.entrySet()) {
+            try {
+                m_server.deleteByQuery(
+                    getTermsQuery(CmsSearchField.FIELD_ID, Collections.singletonList(entry.getKey())),
+                    m_commitMs);
+            } catch (Exception e) {
+                LOG.warn(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_IO_INDEX_DOCUMENT_DELETE_2,
+                        entry.getValue(),
+                        m_index.getName()),
+                    e);
+            }
+        }
+        for (String rootPath : m_pendingPaths) {
+            try {
+                m_server.deleteByQuery(
+                    getTermsQuery(CmsSearchField.FIELD_PATH, Collections.singletonList(rootPath)),
+                    m_commitMs);
+            } catch (Exception e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Sends the buffered updates one by one.<p>
+     */
+    private void sendUpdatesSeparately() {
+
+        for (Map.Entry<String, PendingUpdate> entry : m_pendingUpdates.entrySet()) {
+            try {
+                m_server.add(entry.getValue().m_documents, m_commitMs);
+            } catch (Exception e) {
+                LOG.warn(
+                    org.opencms.search.Messages.get().getBundle().key(
+                        org.opencms.search.Messages.LOG_IO_INDEX_DOCUMENT_UPDATE_2,
+                        entry.getKey(),
+                        m_index.getName()),
+                    e);
+            }
+        }
     }
 }
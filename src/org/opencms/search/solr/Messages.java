@@ -97,6 +97,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_SEARCH_EXECUTED_5 = "LOG_SOLR_SEARCH_EXECUTED_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_WRITER_BATCH_FAILED_2 = "LOG_SOLR_WRITER_BATCH_FAILED_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_SOLR_WRITER_COMMIT_2 = "LOG_SOLR_WRITER_COMMIT_2";
 
@@ -133,6 +136,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_HANDLER_TOO_MANY_RESULTS_REQUESTED_PER_PAGE_2 = "GUI_HANDLER_TOO_MANY_RESULTS_REQUESTED_PER_PAGE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_SOLR_WRITER_FLUSH_4 = "LOG_SOLR_WRITER_FLUSH_4";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.search.solr.messages";
 
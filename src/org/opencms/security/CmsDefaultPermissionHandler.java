@@ -43,8 +43,14 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsInitException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
@@ -55,6 +61,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
 
+    /** The minimum list size for which the permissions inherited from a folder are computed only once. */
+    public static final int INHERITED_PERMISSIONS_MIN_RESOURCES = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsDefaultPermissionHandler.class);
 
@@ -67,6 +76,49 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
     /** The class used for cache key generation. */
     private I_CmsCacheKey m_keyGenerator;
 
+    /**
+     * @see org.opencms.security.I_CmsPermissionHandler#filterPermissions(org.opencms.db.CmsDbContext, java.util.List, org.opencms.security.CmsPermissionSet, org.opencms.security.I_CmsPermissionHandler.LockCheck, org.opencms.file.CmsResourceFilter)
+     */
+    public List<CmsResource> filterPermissions(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        CmsPermissionSet requiredPermissions,
+        LockCheck checkLock,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        if (resources.size() < INHERITED_PERMISSIONS_MIN_RESOURCES) {
+            // for short lists the cached single checks are faster than reading the access control entries
+            return I_CmsPermissionHandler.super.filterPermissions(
+                dbc,
+                resources,
+                requiredPermissions,
+                checkLock,
+                filter);
+        }
+
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        // resources with access control entries of their own always need the full check
+        Set<CmsUUID> resourcesWithAces = m_driverManager.readResourcesWithAccessControlEntries(dbc, resources);
+        // the permissions inherited from a folder, computed once per folder for all resources of the list
+        Map<String, CmsPermissionSetCustom> inheritedPermissions = new HashMap<String, CmsPermissionSetCustom>();
+        for (CmsResource resource : resources) {
+            CmsPermissionCheckResult check;
+            if (resourcesWithAces.contains(resource.getResourceId())
+                || (CmsResource.getParentFolder(resource.getRootPath()) == null)) {
+                check = hasPermissions(dbc, resource, requiredPermissions, checkLock, filter);
+            } else if (!filter.isValid(dbc.getRequestContext(), resource)) {
+                check = I_CmsPermissionHandler.PERM_FILTERED;
+            } else {
+                check = checkPermissions(dbc, resource, requiredPermissions, checkLock, filter, inheritedPermissions);
+            }
+            if (check.isAllowed()) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.security.I_CmsPermissionHandler#hasPermissions(org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet, org.opencms.security.I_CmsPermissionHandler.LockCheck, org.opencms.file.CmsResourceFilter)
      */
@@ -96,6 +148,68 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             return cacheResult;
         }
 
+        CmsPermissionCheckResult result = checkPermissions(
+            dbc,
+            resource,
+            requiredPermissions,
+            checkLock,
+            filter,
+            null);
+        // if the resource is not locked by the current user, the permission error must not be cached
+        if ((result != I_CmsPermissionHandler.PERM_NOTLOCKED) && dbc.getProjectId().isNullUUID()) {
+            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @see org.opencms.security.I_CmsPermissionHandler#init(org.opencms.db.CmsDriverManager, CmsSystemConfiguration)
+     */
+    public void init(CmsDriverManager driverManager, CmsSystemConfiguration systemConfiguration) {
+
+        m_driverManager = driverManager;
+        m_securityManager = driverManager.getSecurityManager();
+
+        CmsCacheSettings settings = systemConfiguration.getCacheSettings();
+
+        String className = settings.getCacheKeyGenerator();
+        try {
+            // initialize the key generator
+            m_keyGenerator = (I_CmsCacheKey)Class.forName(className).newInstance();
+        } catch (Exception e) {
+            throw new CmsInitException(
+                org.opencms.main.Messages.get().container(
+                    org.opencms.main.Messages.ERR_CRITICAL_CLASS_CREATION_1,
+                    className),
+                e);
+        }
+    }
+
+    /**
+     * Checks the permissions of the current user on a resource that is valid according to the filter.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource on which permissions are required
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param checkLock the type of lock check to perform for write operations
+     * @param filter the resource filter to use
+     * @param inheritedPermissions the permissions inherited from the folders by resources without access control
+     *      entries of their own, or <code>null</code> if the resource may have access control entries
+     *
+     * @return the result of the permission check
+     *
+     * @throws CmsException in case of i/o errors (NOT because of insufficient permissions)
+     */
+    private CmsPermissionCheckResult checkPermissions(
+        CmsDbContext dbc,
+        CmsResource resource,
+        CmsPermissionSet requiredPermissions,
+        LockCheck checkLock,
+        CmsResourceFilter filter,
+        Map<String, CmsPermissionSetCustom> inheritedPermissions)
+    throws CmsException {
+
         int denied = 0;
 
         // if this is the online project, write is rejected
@@ -141,6 +255,9 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
         if (canIgnorePermissions) {
             // if the current user is administrator, anything is allowed
             permissions = new CmsPermissionSetCustom(~0);
+        } else if (inheritedPermissions != null) {
+            // the resource has no access control entries, so the permissions of its folder can be reused
+            permissions = getInheritedPermissions(dbc, resource, inheritedPermissions);
         } else {
             // otherwise, get the permissions from the access control list
             permissions = m_driverManager.getPermissions(dbc, resource, dbc.currentUser());
@@ -217,33 +334,41 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
                             permissions.getPermissionString()}));
             }
         }
-        if (dbc.getProjectId().isNullUUID()) {
-            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
-        }
-
         return result;
     }
 
     /**
-     * @see org.opencms.security.I_CmsPermissionHandler#init(org.opencms.db.CmsDriverManager, CmsSystemConfiguration)
+     * Returns the permissions of the current user on a resource without access control entries of its own.<p>
+     *
+     * The permissions are computed only once per parent folder and kind of resource.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the resource without access control entries
+     * @param inheritedPermissions the permissions already computed, by parent folder and kind of resource
+     *
+     * @return a copy of the permissions inherited from the parent folder of the resource
+     *
+     * @throws CmsException if something goes wrong
      */
-    public void init(CmsDriverManager driverManager, CmsSystemConfiguration systemConfiguration) {
-
-        m_driverManager = driverManager;
-        m_securityManager = driverManager.getSecurityManager();
-
-        CmsCacheSettings settings = systemConfiguration.getCacheSettings();
+    private CmsPermissionSetCustom getInheritedPermissions(
+        CmsDbContext dbc,
+        CmsResource resource,
+        Map<String, CmsPermissionSetCustom> inheritedPermissions)
+    throws CmsException {
 
-        String className = settings.getCacheKeyGenerator();
-        try {
-            // initialize the key generator
-            m_keyGenerator = (I_CmsCacheKey)Class.forName(className).newInstance();
-        } catch (Exception e) {
-            throw new CmsInitException(
-                org.opencms.main.Messages.get().container(
-                    org.opencms.main.Messages.ERR_CRITICAL_CLASS_CREATION_1,
-                    className),
-                e);
+        String parentFolder = CmsResource.getParentFolder(resource.getRootPath());
+        // files inherit all entries of their parent folder, folders only the inheriting ones
+        String key = (resource.isFolder() ? "+" : "-") + parentFolder;
+        CmsPermissionSetCustom permissions = inheritedPermissions.get(key);
+        if (permissions == null) {
+            permissions = m_driverManager.getInheritedPermissions(
+                dbc,
+                parentFolder,
+                resource.isFolder(),
+                dbc.currentUser());
+            inheritedPermissions.put(key, permissions);
         }
+        // the permissions are modified by the caller, so a copy is returned
+        return new CmsPermissionSetCustom(permissions);
     }
 }
@@ -35,6 +35,9 @@ import org.opencms.file.CmsResourceFilter;
 import org.opencms.main.CmsException;
 import org.opencms.util.A_CmsModeIntEnumeration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Permission handler interface.<p>
  *
@@ -134,6 +137,44 @@ public interface I_CmsPermissionHandler {
     /** Indicates a resource was not locked for a write / control operation. */
     CmsPermissionCheckResult PERM_NOTLOCKED = CmsPermissionCheckResult.NOTLOCKED;
 
+    /**
+     * Performs a non-blocking permission check on all resources of a list.<p>
+     *
+     * The result contains the resources of the list, in the same order, for which
+     * {@link #hasPermissions(CmsDbContext, CmsResource, CmsPermissionSet, LockCheck, CmsResourceFilter)}
+     * returns <code>{@link #PERM_ALLOWED}</code>.<p>
+     *
+     * The default implementation checks every resource on its own. This method is used for
+     * large result lists, so implementations should share the work that is the same for
+     * several resources of the list.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources to check
+     * @param requiredPermissions the set of permissions required for the operation
+     * @param checkLock the type of lock check to perform for write operations
+     * @param filter the resource filter to use
+     *
+     * @return the resources the user has sufficient permissions on for the requested operation
+     *
+     * @throws CmsException in case of i/o errors (NOT because of insufficient permissions)
+     */
+    default List<CmsResource> filterPermissions(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        CmsPermissionSet requiredPermissions,
+        LockCheck checkLock,
+        CmsResourceFilter filter)
+    throws CmsException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            if (hasPermissions(dbc, resource, requiredPermissions, checkLock, filter).isAllowed()) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * Performs a non-blocking permission check on a resource.<p>
      *
@@ -57,6 +57,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -74,6 +75,72 @@ import org.apache.commons.logging.Log;
  */
 public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler {
 
+    /**
+     * Writes the results of the export workers to the report.<p>
+     */
+    protected static class CmsExportReportHandler implements CmsStaticExportWorkerPool.I_CmsExportResultHandler {
+
+        /** The number of results written so far. */
+        private int m_count;
+
+        /** The report to write to. */
+        private I_CmsReport m_report;
+
+        /** The total number of resources to export. */
+        private int m_size;
+
+        /**
+         * Creates a new report handler.<p>
+         *
+         * @param report the report to write to
+         * @param size the total number of resources to export
+         */
+        public CmsExportReportHandler(I_CmsReport report, int size) {
+
+            m_report = report;
+            m_size = size;
+        }
+
+        /**
+         * @see org.opencms.staticexport.CmsStaticExportWorkerPool.I_CmsExportResultHandler#handleResult(java.lang.String, int, java.lang.Throwable)
+         */
+        public void handleResult(String name, int status, Throwable error) {
+
+            m_count++;
+            m_report.print(
+                org.opencms.report.Messages.get().container(
+                    org.opencms.report.Messages.RPT_SUCCESSION_2,
+                    new Integer(m_count),
+                    new Integer(m_size)),
+                I_CmsReport.FORMAT_NOTE);
+            m_report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+            m_report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, name));
+            m_report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            if (error != null) {
+                m_report.println(error);
+            } else if (status == HttpServletResponse.SC_OK) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if ((status == HttpServletResponse.SC_SEE_OTHER) || (status < 0)) {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                m_report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        new Integer(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        }
+    }
+
     /** Header field set-cookie constant. */
     private static final String HEADER_FIELD_SET_COOKIE = "Set-Cookie";
 
@@ -307,60 +374,51 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                     new Integer(publishedResources.size())));
         }
 
-        CmsStaticExportManager manager = OpenCms.getStaticExportManager();
+        final CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         List<CmsStaticExportData> resourcesToExport = new ArrayList<CmsStaticExportData>();
         boolean templatesFound = readNonTemplateResourcesToExport(cms, publishedResources, resourcesToExport);
 
-        int count = 1;
         int size = resourcesToExport.size();
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
         }
-        // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(
-                    Messages.get().getBundle().key(
-                        Messages.LOG_EXPORT_FILE_2,
-                        exportData.getVfsName(),
-                        exportData.getRfsName()));
-            }
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(
+            manager.getExportWorkers().intValue(),
+            new CmsExportReportHandler(report, size));
+        try {
+            // now do the export
+            Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
+            while (i.hasNext()) {
+                final CmsStaticExportData exportData = i.next();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_EXPORT_FILE_2,
+                            exportData.getVfsName(),
+                            exportData.getRfsName()));
+                }
+                // CmsObject instances are not thread safe, so each export uses its own copy
+                final CmsObject exportCms = OpenCms.initCmsObject(cms);
+                pool.submit(exportData.getRfsName(), new Callable<Integer>() {
 
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
+                    public Integer call() throws Exception {
 
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+                        int status = manager.export(null, null, exportCms, exportData);
+                        if (LOG.isInfoEnabled()) {
+                            Object[] arguments = new Object[] {
+                                exportData.getVfsName(),
+                                exportData.getRfsName(),
+                                new Integer(status)};
+                            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+                        }
+                        return new Integer(status);
+                    }
+                });
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+        } finally {
+            pool.shutdown();
         }
+        pool.writeStatistics(report);
 
         resourcesToExport = null;
 
@@ -611,7 +669,6 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         CmsStaticExportManager manager = OpenCms.getStaticExportManager();
         int size = publishedTemplateResources.size();
-        int count = 1;
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_TEMPLATES_1, new Integer(size)));
@@ -620,93 +677,82 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
+        final StringBuffer cookies = new StringBuffer();
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(
+            manager.getExportWorkers().intValue(),
+            new CmsExportReportHandler(report, size));
+        try {
+            // now loop through all of them and request them from the server
+            Iterator<String> i = publishedTemplateResources.iterator();
+            while (i.hasNext()) {
+                String rfsName = i.next();
+                CmsStaticExportData data = null;
                 try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(
-                            Messages.get().getBundle().key(
-                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                                new String[] {rfsName}));
+                    data = manager.getVfsNameInternal(cms, rfsName);
+                } catch (CmsVfsResourceNotFoundException e) {
+                    String rfsBaseName = rfsName;
+                    int pos = rfsName.lastIndexOf('_');
+                    if (pos >= 0) {
+                        rfsBaseName = rfsName.substring(0, pos);
+                    }
+                    try {
+                        data = manager.getVfsNameInternal(cms, rfsBaseName);
+                    } catch (CmsVfsResourceNotFoundException e2) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info(
+                                Messages.get().getBundle().key(
+                                    Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                                    new String[] {rfsName}));
+                        }
                     }
                 }
-            }
-            if (data != null) {
+                if (data == null) {
+                    // no valid resource found for rfs name (already deleted), skip it
+                    continue;
+                }
                 data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
-            }
 
-            try {
-                CmsResource resource = data.getResource();
+                // the detail pages of a resource are exported before the resource itself,
+                // both in the same task so that this order is kept when exporting in parallel
+                final List<CmsStaticExportData> exports = new ArrayList<CmsStaticExportData>();
                 try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(
+                        cms,
+                        data.getResource());
                     for (String detailPageUri : detailPages) {
                         String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
-                            data.getVfsName(),
-                            altRfsName,
-                            data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
+                        exports.add(
+                            new CmsStaticExportData(
+                                data.getVfsName(),
+                                altRfsName,
+                                data.getResource(),
+                                data.getParameters()));
                     }
                 } catch (CmsException e) {
                     LOG.error(e.getLocalizedMessage(), e);
                 }
+                exports.add(data);
+
+                pool.submit(rfsName, new Callable<Integer>() {
+
+                    public Integer call() throws Exception {
 
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
+                        int status = -1;
+                        for (CmsStaticExportData export : exports) {
+                            status = exportTemplateResource(export, cookies);
+                        }
+                        return new Integer(status);
+                    }
+                });
+                if (cookies.length() == 0) {
+                    // the first request creates the session, wait for it before sending any other request
+                    pool.awaitPending();
                 }
-            } catch (IOException e) {
-                report.println(e);
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well
-            Thread.yield();
+        } finally {
+            pool.shutdown();
         }
+        pool.writeStatistics(report);
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
@@ -166,15 +166,14 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
         String targetSiteRoot = targetSite.getSiteRoot();
         String originalVfsName = vfsName;
         String detailPage = null;
+        String detailPageRootPath = null;
         CmsResource detailContent = null;
+        String rootVfsName = vfsName;
         try {
-            String rootVfsName;
             if (!vfsName.startsWith(targetSiteRoot)
                 && !vfsName.startsWith(CmsResource.VFS_FOLDER_SYSTEM + "/")
                 && !OpenCms.getSiteManager().startsWithShared(vfsName)) {
                 rootVfsName = CmsStringUtil.joinPaths(targetSiteRoot, vfsName);
-            } else {
-                rootVfsName = vfsName;
             }
             if (!rootVfsName.startsWith(CmsWorkplace.VFS_PATH_WORKPLACE)) {
                 // never use the ADE manager for workplace links, to be sure the workplace stays usable in case of configuration errors
@@ -182,6 +181,7 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
                 detailPage = finder.getDetailPage(cms, rootVfsName, cms.getRequestContext().getUri(), targetDetailPage);
             }
             if (detailPage != null) {
+                detailPageRootPath = detailPage;
                 CmsSite detailPageSite = OpenCms.getSiteManager().getSiteForRootPath(detailPage);
                 if (detailPageSite != null) {
                     targetSite = detailPageSite;
@@ -248,7 +248,11 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
                         parameters = uriParamPair.getSecond();
                     }
                     // cache export base URI
-                    exportManager.cacheOnlineLink(cacheKey, uriBaseName);
+                    exportManager.cacheOnlineLink(
+                        cacheKey,
+                        uriBaseName,
+                        false,
+                        cms.getRequestContext().addSiteRoot(oriUri));
                 }
                 // use relative links only on pages that get exported
                 useRelativeLinks = uriBaseName.startsWith(
@@ -286,8 +290,13 @@ public class CmsDefaultLinkSubstitutionHandler implements I_CmsLinkSubstitutionH
                 } finally {
                     cms.getRequestContext().setSiteRoot(storedSiteRoot);
                 }
-                // cache the result
-                exportManager.cacheOnlineLink(cacheKey, resultLink);
+                // cache the result, links calculated with a detail page also depend on the detail page
+                exportManager.cacheOnlineLink(
+                    cacheKey,
+                    resultLink,
+                    !rootVfsName.startsWith(CmsWorkplace.VFS_PATH_WORKPLACE),
+                    rootVfsName,
+                    detailPageRootPath);
             }
 
             // now check for the secure settings
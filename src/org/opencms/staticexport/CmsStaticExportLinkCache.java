@@ -0,0 +1,280 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.monitor.CmsMemoryMonitor;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded LRU cache for the link substitution results of the static export manager.<p>
+ *
+ * Every cached value records the root paths of the resources it was computed from. After a publish job,
+ * only the values depending on a published resource, or on a resource below a published folder, are removed.
+ * Values computed with a detail page are also removed when a sitemap or module configuration is published,
+ * and values cached without root paths are removed after every publish job.<p>
+ *
+ * @param <V> the type of the cached values
+ */
+public class CmsStaticExportLinkCache<V> {
+
+    /**
+     * A cached value together with the root paths it depends on.<p>
+     *
+     * @param <V> the type of the cached value
+     */
+    private static class CacheEntry<V> {
+
+        /** True if the value was computed with a detail page. */
+        boolean m_detail;
+
+        /** The root paths the value depends on, or null if not known. */
+        String[] m_paths;
+
+        /** The cached value. */
+        V m_value;
+
+        /**
+         * Creates a new entry.<p>
+         *
+         * @param value the cached value
+         * @param detail true if the value was computed with a detail page
+         * @param paths the root paths the value depends on, or null if not known
+         */
+        CacheEntry(V value, boolean detail, String[] paths) {
+
+            m_value = value;
+            m_detail = detail;
+            m_paths = paths;
+        }
+    }
+
+    /** The cached entries by key. */
+    private Map<String, CacheEntry<V>> m_entries;
+
+    /** The number of cache hits. */
+    private AtomicLong m_hits = new AtomicLong();
+
+    /** The maximum number of cached entries. */
+    private int m_maxSize;
+
+    /** The number of cache misses. */
+    private AtomicLong m_misses = new AtomicLong();
+
+    /**
+     * Creates a new link cache.<p>
+     *
+     * @param maxSize the maximum number of cached entries
+     */
+    public CmsStaticExportLinkCache(int maxSize) {
+
+        m_maxSize = maxSize;
+        m_entries = CmsMemoryMonitor.createLRUCacheMap(maxSize);
+    }
+
+    /**
+     * Removes all entries from the cache.<p>
+     */
+    public void clear() {
+
+        m_entries.clear();
+    }
+
+    /**
+     * Returns the cached value for the given key.<p>
+     *
+     * @param key the cache key
+     *
+     * @return the cached value, or null if there is none
+     */
+    public V get(String key) {
+
+        CacheEntry<V> entry = m_entries.get(key);
+        if (entry == null) {
+            m_misses.incrementAndGet();
+            return null;
+        }
+        m_hits.incrementAndGet();
+        return entry.m_value;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache since it was created.<p>
+     *
+     * @return the hit ratio, between 0 and 1
+     */
+    public double getHitRatio() {
+
+        long hits = m_hits.get();
+        long total = hits + m_misses.get();
+        return total == 0 ? 0 : (double)hits / total;
+    }
+
+    /**
+     * Returns the number of cache hits since the cache was created.<p>
+     *
+     * @return the number of cache hits
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the maximum number of cached entries.<p>
+     *
+     * @return the maximum number of cached entries
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of cache misses since the cache was created.<p>
+     *
+     * @return the number of cache misses
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Removes the entries which depend on the given published resources.<p>
+     *
+     * @param publishedResources the published resources
+     * @param detailConfigChanged true if a configuration defining detail pages was published
+     *
+     * @return the number of removed entries
+     */
+    public int invalidate(Collection<CmsPublishedResource> publishedResources, boolean detailConfigChanged) {
+
+        Set<String> paths = new HashSet<String>();
+        Set<String> folders = new HashSet<String>();
+        for (CmsPublishedResource pubRes : publishedResources) {
+            String path = pubRes.getRootPath();
+            paths.add(path);
+            if (pubRes.isFolder()) {
+                folders.add(CmsResource.isFolder(path) ? path : path + "/");
+            }
+        }
+        int removed = 0;
+        Iterator<CacheEntry<V>> it = m_entries.values().iterator();
+        while (it.hasNext()) {
+            CacheEntry<V> entry = it.next();
+            if ((entry.m_paths == null)
+                || (entry.m_detail && detailConfigChanged)
+                || dependsOn(entry.m_paths, paths, folders)) {
+                it.remove();
+                removed += 1;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Caches a value which is removed after every publish job.<p>
+     *
+     * @param key the cache key
+     * @param value the value to cache
+     */
+    public void put(String key, V value) {
+
+        m_entries.put(key, new CacheEntry<V>(value, false, null));
+    }
+
+    /**
+     * Caches a value together with the root paths of the resources it was computed from.<p>
+     *
+     * @param key the cache key
+     * @param value the value to cache
+     * @param detail true if the value was computed with a detail page
+     * @param paths the root paths the value depends on
+     */
+    public void put(String key, V value, boolean detail, String... paths) {
+
+        m_entries.put(key, new CacheEntry<V>(value, detail, paths));
+    }
+
+    /**
+     * Returns the number of cached entries.<p>
+     *
+     * @return the number of cached entries
+     */
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Returns the map holding the cache entries, used to register the cache with the memory monitor.<p>
+     *
+     * @return the map holding the cache entries
+     */
+    Map<String, ?> getEntryMap() {
+
+        return m_entries;
+    }
+
+    /**
+     * Checks if one of the given dependency paths is a published path or lies below a published folder.<p>
+     *
+     * @param dependencies the dependency root paths of an entry
+     * @param paths the published root paths
+     * @param folders the published folder root paths, with trailing slash
+     *
+     * @return true if the entry depends on a published resource
+     */
+    private boolean dependsOn(String[] dependencies, Set<String> paths, Set<String> folders) {
+
+        for (String dependency : dependencies) {
+            if (dependency == null) {
+                continue;
+            }
+            if (paths.contains(dependency) || folders.contains(dependency + "/")) {
+                return true;
+            }
+            String folder = CmsResource.getParentFolder(dependency);
+            while (folder != null) {
+                if (folders.contains(folder)) {
+                    return true;
+                }
+                folder = CmsResource.getParentFolder(folder);
+            }
+        }
+        return false;
+    }
+}
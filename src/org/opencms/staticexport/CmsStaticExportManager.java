@@ -27,9 +27,11 @@
 
 package org.opencms.staticexport;
 
+import org.opencms.ade.configuration.CmsADEManager;
 import org.opencms.ade.detailpage.CmsDetailPageUtil;
 import org.opencms.ade.detailpage.I_CmsDetailPageHandler;
 import org.opencms.db.CmsExportPoint;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
@@ -40,6 +42,7 @@ import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.i18n.CmsAcceptLanguageHeaderParser;
 import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
+import org.opencms.loader.CmsResourceManager;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsContextInfo;
 import org.opencms.main.CmsEvent;
@@ -49,7 +52,6 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSystemInfo;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
-import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsSecurityException;
@@ -69,6 +71,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -123,6 +128,12 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Name for the default work path. */
     public static final String EXPORT_DEFAULT_WORKPATH = CmsSystemInfo.FOLDER_WEBINF + "temp";
 
+    /** The default number of export workers used for the "after publish" export. */
+    public static final Integer EXPORT_DEFAULT_WORKERS = new Integer(1);
+
+    /** Suffix for the temporary files written before they are moved to their final export location. */
+    public static final String EXPORT_TEMP_FILE_SUFFIX = ".tmpexport";
+
     /** Flag value for links without parameters. */
     public static final int EXPORT_LINK_WITH_PARAMETER = 2;
 
@@ -135,6 +146,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Time given (in seconds) to the static export handler to finish a publish task. */
     public static final int HANDLER_FINISH_TIME = 60;
 
+    /** The default maximum number of entries in each of the link caches. */
+    public static final Integer LINK_CACHE_DEFAULT_SIZE = new Integer(2048);
+
     /**
      * If the property 'secure' is set to this value,
      * the resource will be delivered through http and https depending on the link source.
@@ -147,6 +161,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsStaticExportManager.class);
 
+    /** The resource type name of the sitemap master configuration. */
+    private static final String TYPE_SITEMAP_MASTER_CONFIG = "sitemap_master_config";
+
     /** HTTP header Accept-Charset. */
     private String m_acceptCharsetHeader;
 
@@ -157,16 +174,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     private CmsObject m_adminCms;
 
     /** Cache for the export links. */
-    private Map<String, Boolean> m_cacheExportLinks;
+    private CmsStaticExportLinkCache<Boolean> m_cacheExportLinks;
 
     /** Cache for the export uris. */
-    private Map<String, CmsStaticExportData> m_cacheExportUris;
+    private CmsStaticExportLinkCache<CmsStaticExportData> m_cacheExportUris;
 
     /** Cache for the online links. */
-    private Map<String, String> m_cacheOnlineLinks;
+    private CmsStaticExportLinkCache<String> m_cacheOnlineLinks;
 
     /** Cache for the secure links. */
-    private Map<String, String> m_cacheSecureLinks;
+    private CmsStaticExportLinkCache<String> m_cacheSecureLinks;
 
     /** OpenCms default charset header. */
     private String m_defaultAcceptCharsetHeader;
@@ -216,6 +233,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Handler class for static export. */
     private I_CmsStaticExportHandler m_handler;
 
+    /** The configured maximum number of entries in each of the link caches. */
+    private Integer m_linkCacheSize;
+
     /** The configured link substitution handler. */
     private I_CmsLinkSubstitutionHandler m_linkSubstitutionHandler;
 
@@ -255,6 +275,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The number of backups stored for the export folder. */
     private Integer m_staticExportBackups;
 
+    /** The number of worker threads used for the "after publish" export. */
+    private Integer m_staticExportWorkers;
+
     /** Indicates if the static export is enabled or disabled. */
     private boolean m_staticExportEnabled;
 
@@ -472,6 +495,23 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_cacheOnlineLinks.put(linkName, vfsName);
     }
 
+    /**
+     * Caches a calculated online link together with the root paths of the resources it depends on.<p>
+     *
+     * The cached link is only removed after a publish job if one of these resources, or one of their parent folders,
+     * was published. Links calculated with the detail page handler are also removed if a sitemap or module
+     * configuration was published.<p>
+     *
+     * @param linkName the link
+     * @param vfsName the name of the VFS resource
+     * @param detail <code>true</code> if the detail page handler was used to calculate the link
+     * @param rootPaths the root paths of the resources the link depends on
+     */
+    public void cacheOnlineLink(String linkName, String vfsName, boolean detail, String... rootPaths) {
+
+        m_cacheOnlineLinks.put(linkName, vfsName, detail, rootPaths);
+    }
+
     /**
      * Implements the CmsEvent interface,
      * the static export properties uses the events to clear
@@ -515,7 +555,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 synchronized (m_lockCmsEvent) {
                     getHandler().performEventPublishProject(publishHistoryId, report);
                 }
-                clearCaches(event);
+                invalidateCaches(event, publishHistoryId);
 
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(
@@ -1177,6 +1217,30 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return EXPORT_DEFAULT_WORKPATH;
     }
 
+    /**
+     * Returns the number of worker threads used for the "after publish" static export.<p>
+     *
+     * @return the number of worker threads
+     */
+    public Integer getExportWorkers() {
+
+        if (m_staticExportWorkers != null) {
+            return m_staticExportWorkers;
+        }
+        // if workers not configured set to default value
+        return EXPORT_DEFAULT_WORKERS;
+    }
+
+    /**
+     * Returns the configured number of worker threads, or <code>null</code> if not configured.<p>
+     *
+     * @return the configured number of worker threads
+     */
+    public Integer getExportWorkersForConfiguration() {
+
+        return m_staticExportWorkers;
+    }
+
     /**
      * Returns the configured static export handler class.<p>
      *
@@ -1192,6 +1256,30 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_handler;
     }
 
+    /**
+     * Returns the maximum number of entries in each of the link caches.<p>
+     *
+     * @return the maximum number of entries in each of the link caches
+     */
+    public Integer getLinkCacheSize() {
+
+        if (m_linkCacheSize != null) {
+            return m_linkCacheSize;
+        }
+        // if size not configured set to default value
+        return LINK_CACHE_DEFAULT_SIZE;
+    }
+
+    /**
+     * Returns the configured maximum number of entries in each link cache, or <code>null</code> if not configured.<p>
+     *
+     * @return the configured maximum number of entries in each of the link caches
+     */
+    public Integer getLinkCacheSizeForConfiguration() {
+
+        return m_linkCacheSize;
+    }
+
     /**
      * Returns the configured link substitution handler class.<p>
      *
@@ -1718,17 +1806,26 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
         }
 
-        m_cacheOnlineLinks = CmsMemoryMonitor.createLRUCacheMap(2048);
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheOnlineLinks", m_cacheOnlineLinks);
+        int linkCacheSize = getLinkCacheSize().intValue();
+        m_cacheOnlineLinks = new CmsStaticExportLinkCache<String>(linkCacheSize);
+        OpenCms.getMemoryMonitor().register(
+            this.getClass().getName() + ".m_cacheOnlineLinks",
+            m_cacheOnlineLinks.getEntryMap());
 
-        m_cacheExportUris = CmsMemoryMonitor.createLRUCacheMap(2048);
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportUris", m_cacheExportUris);
+        m_cacheExportUris = new CmsStaticExportLinkCache<CmsStaticExportData>(linkCacheSize);
+        OpenCms.getMemoryMonitor().register(
+            this.getClass().getName() + ".m_cacheExportUris",
+            m_cacheExportUris.getEntryMap());
 
-        m_cacheSecureLinks = CmsMemoryMonitor.createLRUCacheMap(2048);
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheSecureLinks", m_cacheSecureLinks);
+        m_cacheSecureLinks = new CmsStaticExportLinkCache<String>(linkCacheSize);
+        OpenCms.getMemoryMonitor().register(
+            this.getClass().getName() + ".m_cacheSecureLinks",
+            m_cacheSecureLinks.getEntryMap());
 
-        m_cacheExportLinks = CmsMemoryMonitor.createLRUCacheMap(2048);
-        OpenCms.getMemoryMonitor().register(this.getClass().getName() + ".m_cacheExportLinks", m_cacheExportLinks);
+        m_cacheExportLinks = new CmsStaticExportLinkCache<Boolean>(linkCacheSize);
+        OpenCms.getMemoryMonitor().register(
+            this.getClass().getName() + ".m_cacheExportLinks",
+            m_cacheExportLinks.getEntryMap());
 
         // register this object as event listener
         OpenCms.addCmsEventListener(
@@ -1819,6 +1916,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_OPTIMIZATION_1, getPlainExportOptimization()));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(Messages.INIT_EXPORT_TESTRESOURCE_1, getTestResource()));
+                CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EXPORT_WORKERS_1, getExportWorkers()));
+                CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_LINK_CACHE_SIZE_1, getLinkCacheSize()));
                 CmsLog.INIT.info(
                     Messages.get().getBundle().key(
                         Messages.INIT_LINKSUBSTITUTION_HANDLER_1,
@@ -1865,6 +1964,8 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
 
         boolean result = false;
+        String rootPath = CmsStringUtil.joinPaths(siteRoot, vfsName);
+        String detailRootPath = null;
         try {
             // static export must always be checked with the export users permissions,
             // not the current users permissions
@@ -1897,11 +1998,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                 // "export" value found, if it was "true" we export
                 result = Boolean.valueOf(exportValue).booleanValue();
             }
+            // for detail page URIs the result also depends on the detail content
+            detailRootPath = exportRes.getRootPath();
         } catch (CmsException e) {
             // no export required (probably security issues, e.g. no access for export user)
             LOG.debug(e.getLocalizedMessage(), e);
         }
-        getCacheExportLinks().put(cacheKey, Boolean.valueOf(result));
+        boolean detail = (detailRootPath != null)
+            && !CmsFileUtil.removeTrailingSeparator(detailRootPath).equals(
+                CmsFileUtil.removeTrailingSeparator(rootPath));
+        getCacheExportLinks().put(cacheKey, Boolean.valueOf(result), detail, rootPath, detailRootPath);
 
         return result;
     }
@@ -1961,6 +2067,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
 
         String cacheKey = OpenCms.getStaticExportManager().getCacheKey(cms.getRequestContext().getSiteRoot(), vfsName);
+        String rootPath = cms.getRequestContext().addSiteRoot(vfsName);
         String secureResource = OpenCms.getStaticExportManager().getCacheSecureLinks().get(cacheKey);
         if (secureResource == null) {
             CmsObject cmsForReadingProperties = cms;
@@ -1984,10 +2091,10 @@ public class CmsStaticExportManager implements I_CmsEventListener {
                     secureResource = "false";
                 }
                 // only cache result if read was successfull
-                OpenCms.getStaticExportManager().getCacheSecureLinks().put(cacheKey, secureResource);
+                OpenCms.getStaticExportManager().getCacheSecureLinks().put(cacheKey, secureResource, false, rootPath);
             } catch (CmsVfsResourceNotFoundException e) {
                 secureResource = SECURE_PROPERTY_VALUE_BOTH;
-                OpenCms.getStaticExportManager().getCacheSecureLinks().put(cacheKey, secureResource);
+                OpenCms.getStaticExportManager().getCacheSecureLinks().put(cacheKey, secureResource, false, rootPath);
             } catch (Exception e) {
                 // no secure link required (probably security issues, e.g. no access for current user)
                 // however other users may be allowed to read the resource, so the result can't be cached
@@ -2233,6 +2340,17 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_staticExportWorkPathConfigured = path;
     }
 
+    /**
+     * Sets the number of worker threads used for the "after publish" static export.<p>
+     *
+     * @param workers the number of worker threads
+     */
+    public void setExportWorkers(String workers) {
+
+        int value = Integer.parseInt(workers.trim());
+        m_staticExportWorkers = new Integer(Math.max(1, value));
+    }
+
     /**
      * Sets the link substitution handler class.<p>
      *
@@ -2248,6 +2366,17 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum number of entries in each of the link caches.<p>
+     *
+     * @param size the maximum number of entries in each of the link caches
+     */
+    public void setLinkCacheSize(String size) {
+
+        int value = Integer.parseInt(size.trim());
+        m_linkCacheSize = new Integer(Math.max(1, value));
+    }
+
     /**
      * Sets the static export handler class.<p>
      *
@@ -2457,7 +2586,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      *
      * @return the cacheExportLinks
      */
-    protected Map<String, Boolean> getCacheExportLinks() {
+    protected CmsStaticExportLinkCache<Boolean> getCacheExportLinks() {
 
         return m_cacheExportLinks;
     }
@@ -2467,7 +2596,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      *
      * @return the cacheSecureLinks
      */
-    protected Map<String, String> getCacheSecureLinks() {
+    protected CmsStaticExportLinkCache<String> getCacheSecureLinks() {
 
         return m_cacheSecureLinks;
     }
@@ -2548,10 +2677,12 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         if (data.getResource() != null) {
             siteRoot = OpenCms.getSiteManager().getSiteRoot(data.getResource().getRootPath());
         }
-        if (siteRoot != null) {
-            m_cacheExportUris.put(siteRoot + ":" + rfsName, data);
+        String cacheKey = siteRoot != null ? siteRoot + ":" + rfsName : rfsName;
+        if (data.getResource() != null) {
+            m_cacheExportUris.put(cacheKey, data, false, data.getResource().getRootPath());
         } else {
-            m_cacheExportUris.put(rfsName, data);
+            // 404 results are not related to a resource, they are removed after every publish job
+            m_cacheExportUris.put(cacheKey, data);
         }
 
         // this object comparison is safe, see caller method
@@ -2692,6 +2823,42 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return resolver.resolveMacros(path);
     }
 
+    /**
+     * Removes the entries depending on the resources of the given publish job from the link caches.<p>
+     *
+     * Falls back to {@link #clearCaches(CmsEvent)} if the published resources can not be read.<p>
+     *
+     * @param event the publish event
+     * @param publishHistoryId the publish history id of the publish job
+     */
+    protected void invalidateCaches(CmsEvent event, CmsUUID publishHistoryId) {
+
+        List<CmsPublishedResource> publishedResources;
+        try {
+            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+            publishedResources = cms.readPublishedResources(publishHistoryId);
+        } catch (CmsException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_READ_PUBLISHED_RESOURCES_FAILED_1, publishHistoryId),
+                e);
+            clearCaches(event);
+            return;
+        }
+        boolean detailConfigChanged = false;
+        for (CmsPublishedResource pubRes : publishedResources) {
+            if (isDetailPageConfiguration(pubRes)) {
+                detailConfigChanged = true;
+                break;
+            }
+        }
+        invalidateCache("m_cacheOnlineLinks", m_cacheOnlineLinks, publishedResources, detailConfigChanged);
+        invalidateCache("m_cacheExportUris", m_cacheExportUris, publishedResources, detailConfigChanged);
+        invalidateCache("m_cacheSecureLinks", m_cacheSecureLinks, publishedResources, detailConfigChanged);
+        invalidateCache("m_cacheExportLinks", m_cacheExportLinks, publishedResources, detailConfigChanged);
+        // the export names are read from the "exportname" property, which may have been changed by the publish job
+        m_exportnameResources = null;
+    }
+
     /**
      * Returns true if the rfs Name match against any of the defined export urls.<p>
      *
@@ -2932,11 +3099,25 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         createExportFolder(exportPath, rfsName);
         // generate export file instance and output stream
         File exportFile = new File(exportFileName);
-        // write new exported file content
+        // write new exported file content to a temporary file first and move it to the final location,
+        // so that concurrent readers (and concurrent export workers) never see a partially written file
+        File tempFile = new File(exportFileName + "." + new CmsUUID() + EXPORT_TEMP_FILE_SUFFIX);
         try {
-            FileOutputStream exportStream = new FileOutputStream(exportFile);
-            exportStream.write(content);
-            exportStream.close();
+            FileOutputStream exportStream = new FileOutputStream(tempFile);
+            try {
+                exportStream.write(content);
+            } finally {
+                exportStream.close();
+            }
+            try {
+                Files.move(
+                    tempFile.toPath(),
+                    exportFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), exportFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
 
             // log export success
             if (LOG.isInfoEnabled()) {
@@ -2948,6 +3129,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             }
 
         } catch (Throwable t) {
+            tempFile.delete();
             throw new CmsStaticExportException(
                 Messages.get().container(Messages.ERR_OUTPUT_STREAM_1, exportFileName),
                 t);
@@ -3026,4 +3208,50 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Removes the entries depending on the published resources from one of the link caches.<p>
+     *
+     * @param name the name of the cache, used for logging
+     * @param cache the cache
+     * @param publishedResources the published resources
+     * @param detailConfigChanged <code>true</code> if a configuration defining detail pages was published
+     */
+    private void invalidateCache(
+        String name,
+        CmsStaticExportLinkCache<?> cache,
+        List<CmsPublishedResource> publishedResources,
+        boolean detailConfigChanged) {
+
+        int removed = cache.invalidate(publishedResources, detailConfigChanged);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                Messages.get().getBundle().key(
+                    Messages.LOG_LINK_CACHE_INVALIDATED_5,
+                    new Object[] {
+                        name,
+                        Integer.valueOf(removed),
+                        Integer.valueOf(cache.size()),
+                        Long.valueOf(cache.getHits()),
+                        Long.valueOf(cache.getMisses())}));
+        }
+    }
+
+    /**
+     * Checks if a published resource is a configuration which may define detail pages.<p>
+     *
+     * @param pubRes the published resource
+     *
+     * @return <code>true</code> if the published resource is a sitemap or module configuration
+     */
+    private boolean isDetailPageConfiguration(CmsPublishedResource pubRes) {
+
+        if (pubRes.isFolder()) {
+            return false;
+        }
+        CmsResourceManager resourceManager = OpenCms.getResourceManager();
+        return resourceManager.matchResourceType(CmsADEManager.CONFIG_TYPE, pubRes.getType())
+            || resourceManager.matchResourceType(CmsADEManager.MODULE_CONFIG_TYPE, pubRes.getType())
+            || resourceManager.matchResourceType(TYPE_SITEMAP_MASTER_CONFIG, pubRes.getType());
+    }
 }
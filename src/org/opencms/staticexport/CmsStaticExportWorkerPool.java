@@ -0,0 +1,287 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.main.CmsLog;
+import org.opencms.report.I_CmsReport;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Bounded pool of worker threads used by the "after publish" static export.<p>
+ *
+ * Export targets are deduplicated by their RFS name. The results are handed back to the
+ * calling thread in submission order, so the report output keeps the same sequence as
+ * for a single threaded export. Only a limited number of exports are pending at any time,
+ * if the limit is reached the submitting thread waits for the oldest pending export.<p>
+ *
+ * If the pool is configured with a single worker, all exports are executed directly in the calling thread.<p>
+ */
+public class CmsStaticExportWorkerPool {
+
+    /**
+     * Callback used to write the result of a finished export to the report.<p>
+     */
+    public interface I_CmsExportResultHandler {
+
+        /**
+         * Handles the result of a finished export.<p>
+         *
+         * @param name the name of the export target
+         * @param status the HTTP status of the export, or <code>-1</code> if the export failed
+         * @param error the error that occurred, or <code>null</code>
+         */
+        void handleResult(String name, int status, Throwable error);
+    }
+
+    /**
+     * A pending export, with the start and end time used to compute the per target latency.<p>
+     */
+    private class PendingExport extends FutureTask<Integer> {
+
+        /** The name of the export target. */
+        String m_name;
+
+        /** The export duration in milliseconds. */
+        volatile long m_duration;
+
+        /**
+         * Creates a new pending export.<p>
+         *
+         * @param name the name of the export target
+         * @param task the export task, returning the HTTP status
+         */
+        PendingExport(String name, Callable<Integer> task) {
+
+            super(task);
+            m_name = name;
+        }
+
+        /**
+         * @see java.util.concurrent.FutureTask#run()
+         */
+        @Override
+        public void run() {
+
+            long start = System.currentTimeMillis();
+            try {
+                super.run();
+            } finally {
+                m_duration = System.currentTimeMillis() - start;
+            }
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStaticExportWorkerPool.class);
+
+    /** Counter for the created thread names. */
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /** The executor, <code>null</code> if only a single worker is used. */
+    private ExecutorService m_executor;
+
+    /** The number of failed exports. */
+    private int m_failed;
+
+    /** The maximum number of pending exports. */
+    private int m_maxPending;
+
+    /** The maximum latency of a single export in milliseconds. */
+    private long m_maxLatency;
+
+    /** The number of finished exports. */
+    private int m_count;
+
+    /** The pending exports, in submission order. */
+    private LinkedList<PendingExport> m_pending = new LinkedList<PendingExport>();
+
+    /** The handler for export results. */
+    private I_CmsExportResultHandler m_resultHandler;
+
+    /** The names of all export targets already submitted. */
+    private Set<String> m_submitted = new HashSet<String>();
+
+    /** The time the pool was created. */
+    private long m_startTime;
+
+    /** The sum of all export latencies in milliseconds. */
+    private long m_totalLatency;
+
+    /**
+     * Creates a new export worker pool.<p>
+     *
+     * @param workers the number of worker threads
+     * @param resultHandler the handler for the export results
+     */
+    public CmsStaticExportWorkerPool(int workers, I_CmsExportResultHandler resultHandler) {
+
+        m_resultHandler = resultHandler;
+        m_startTime = System.currentTimeMillis();
+        if (workers > 1) {
+            m_maxPending = workers * 4;
+            m_executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(
+                            r,
+                            "OpenCms: Static export worker " + THREAD_COUNTER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        } else {
+            m_maxPending = 1;
+        }
+    }
+
+    /**
+     * Waits for all pending exports to finish and hands their results to the result handler.<p>
+     *
+     * This must be called before exports are submitted that depend on the output of the pending exports.<p>
+     */
+    public void awaitPending() {
+
+        while (!m_pending.isEmpty()) {
+            finishOldest();
+        }
+    }
+
+    /**
+     * Waits for all pending exports and stops the worker threads.<p>
+     */
+    public void shutdown() {
+
+        try {
+            awaitPending();
+        } finally {
+            if (m_executor != null) {
+                m_executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Submits an export for the given target name.<p>
+     *
+     * If an export for the same target name has already been submitted to this pool, nothing is done.<p>
+     *
+     * @param name the name of the export target, usually the RFS name
+     * @param task the export task, returning the HTTP status of the export
+     *
+     * @return <code>true</code> if the export was submitted, <code>false</code> if it is a duplicate
+     */
+    public boolean submit(String name, Callable<Integer> task) {
+
+        if (!m_submitted.add(name)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_EXPORT_DUPLICATE_SKIPPED_1, name));
+            }
+            return false;
+        }
+        PendingExport export = new PendingExport(name, task);
+        if (m_executor == null) {
+            export.run();
+        } else {
+            m_executor.execute(export);
+        }
+        m_pending.add(export);
+        while (m_pending.size() >= m_maxPending) {
+            finishOldest();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the throughput and latency statistics of this pool to the given report.<p>
+     *
+     * @param report the report to write to
+     */
+    public void writeStatistics(I_CmsReport report) {
+
+        long duration = Math.max(1, System.currentTimeMillis() - m_startTime);
+        long throughput = (m_count * 1000L) / duration;
+        long avgLatency = m_count > 0 ? m_totalLatency / m_count : 0;
+        report.println(
+            Messages.get().container(
+                Messages.RPT_STATICEXPORT_STATISTICS_5,
+                new Object[] {
+                    new Integer(m_count),
+                    new Long(throughput),
+                    new Long(avgLatency),
+                    new Long(m_maxLatency),
+                    new Integer(m_failed)}),
+            I_CmsReport.FORMAT_NOTE);
+    }
+
+    /**
+     * Waits for the oldest pending export and hands its result to the result handler.<p>
+     */
+    private void finishOldest() {
+
+        PendingExport export = m_pending.removeFirst();
+        int status = -1;
+        Throwable error = null;
+        try {
+            status = export.get().intValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        }
+        m_count++;
+        m_totalLatency += export.m_duration;
+        m_maxLatency = Math.max(m_maxLatency, export.m_duration);
+        if (error != null) {
+            m_failed++;
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_FAILED_1, export.m_name), error);
+        }
+        m_resultHandler.handleResult(export.m_name, status, error);
+    }
+}
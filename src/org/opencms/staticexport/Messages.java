@@ -103,6 +103,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EXPORT_VFS_PREFIX_1 = "INIT_EXPORT_VFS_PREFIX_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EXPORT_WORKERS_1 = "INIT_EXPORT_WORKERS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_INVALID_HEADER_1 = "INIT_INVALID_HEADER_1";
 
@@ -112,6 +115,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LINKSUBSTITUTION_HANDLER_1 = "INIT_LINKSUBSTITUTION_HANDLER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_LINK_CACHE_SIZE_1 = "INIT_LINK_CACHE_SIZE_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SE_MANAGER_CREATED_0 = "INIT_SE_MANAGER_CREATED_0";
 
@@ -160,9 +166,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EVENT_PUBLISH_PROJECT_FINISHED_1 = "LOG_EVENT_PUBLISH_PROJECT_FINISHED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_DUPLICATE_SKIPPED_1 = "LOG_EXPORT_DUPLICATE_SKIPPED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_FILE_2 = "LOG_EXPORT_FILE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_EXPORT_FILE_FAILED_1 = "LOG_EXPORT_FILE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_EXPORT_FILE_STATUS_3 = "LOG_EXPORT_FILE_STATUS_3";
 
@@ -211,6 +223,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INVALID_PARAM_1 = "LOG_INVALID_PARAM_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LINK_CACHE_INVALIDATED_5 = "LOG_LINK_CACHE_INVALIDATED_5";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MALFORMED_URI_1 = "LOG_MALFORMED_URI_1";
 
@@ -235,6 +250,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_READING_CHANGED_RESOURCES_FAILED_1 = "LOG_READING_CHANGED_RESOURCES_FAILED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_READ_PUBLISHED_RESOURCES_FAILED_1 = "LOG_READ_PUBLISHED_RESOURCES_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_REQUEST_RESULT_3 = "LOG_REQUEST_RESULT_3";
 
@@ -331,6 +349,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_END_0 = "RPT_STATICEXPORT_NONTEMPLATE_RESOURCES_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_STATISTICS_5 = "RPT_STATICEXPORT_STATISTICS_5";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0";
 
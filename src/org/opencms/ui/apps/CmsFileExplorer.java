@@ -27,6 +27,7 @@
 
 package org.opencms.ui.apps;
 
+import org.opencms.db.CmsChildResourceIndex;
 import org.opencms.db.CmsUserSettings;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
@@ -651,6 +652,7 @@ I_CmsContextProvider, CmsFileTable.I_FolderSelectHandler {
 
         m_fileTable = new CmsFileTable(this);
         m_fileTable.setSizeFull();
+        m_fileTable.setLazyFill(true);
         m_fileTable.setMenuBuilder(new CmsResourceContextMenuBuilder());
         m_fileTable.setFolderSelectHandler(this);
         m_uploadArea = new CmsUploadAreaExtension(m_fileTable);
@@ -1090,8 +1092,8 @@ I_CmsContextProvider, CmsFileTable.I_FolderSelectHandler {
         m_searchField.clear();
         m_firstVisibleTableItemIndex = 0;
         try {
-            List<CmsResource> folderResources = cms.readResources(sitePath, FILES_N_FOLDERS, false);
-            m_fileTable.fillTable(cms, folderResources);
+            CmsResource folder = cms.readResource(sitePath, CmsResourceFilter.ALL);
+            m_fileTable.fillTable(cms, folder, FILES_N_FOLDERS, true);
         } catch (CmsException e) {
             CmsErrorDialog.showErrorDialog(e);
             LOG.error(e.getLocalizedMessage(), e);
@@ -1107,7 +1109,8 @@ I_CmsContextProvider, CmsFileTable.I_FolderSelectHandler {
 
         try {
             CmsResource currentFolderRes = A_CmsUI.getCmsObject().readResource(m_currentFolder, CmsResourceFilter.ALL);
-            boolean updateFolder = m_fileTable.getItemCount() < UPDATE_FOLDER_THRESHOLD;
+            boolean updateFolder = !m_fileTable.hasMorePages()
+                && (m_fileTable.getItemCount() < UPDATE_FOLDER_THRESHOLD);
             Set<CmsUUID> removeIds = new HashSet<CmsUUID>();
             for (CmsUUID id : ids) {
                 boolean remove = false;
@@ -1283,15 +1286,14 @@ I_CmsContextProvider, CmsFileTable.I_FolderSelectHandler {
             folderPath = folderPath.substring(cms.getRequestContext().getSiteRoot().length());
         }
         setPathInfo(folderPath);
-        List<CmsResource> childResources = cms.readResources(folder, FILES_N_FOLDERS, false);
-        m_fileTable.fillTable(cms, childResources, clearFilter);
-        boolean hasFolderChild = false;
-        for (CmsResource child : childResources) {
-            if (child.isFolder()) {
-                hasFolderChild = true;
-                break;
-            }
-        }
+        m_fileTable.fillTable(cms, folder, FILES_N_FOLDERS, clearFilter);
+        boolean hasFolderChild = !cms.getResourcesInFolder(
+            cms.getSitePath(folder),
+            FILES_N_FOLDERS.addRequireFolder(),
+            CmsChildResourceIndex.Order.ROOT_PATH,
+            false,
+            null,
+            1).isEmpty();
         m_treeContainer.setChildrenAllowed(folderId, hasFolderChild);
         String sitePath = folder.getRootPath().equals(cms.getRequestContext().getSiteRoot() + "/") ? "" : folderPath;
         String state = new StateBean(
@@ -1338,7 +1340,18 @@ I_CmsContextProvider, CmsFileTable.I_FolderSelectHandler {
             m_fileTable.saveFilters();
             m_fileTable.clearFilters();
             CmsResource folder = cms.readResource(m_currentFolder, FOLDERS);
-            List<CmsResource> childResources = cms.readResources(cms.getSitePath(folder), FILES_N_FOLDERS, false);
+            List<CmsResource> childResources = cms.getResourcesInFolder(
+                cms.getSitePath(folder),
+                FILES_N_FOLDERS,
+                CmsChildResourceIndex.Order.ROOT_PATH,
+                false,
+                null,
+                UPDATE_FOLDER_THRESHOLD + 1);
+            if (childResources.size() > UPDATE_FOLDER_THRESHOLD) {
+                // the folder has grown too large to update all items, so it is read again page by page
+                m_fileTable.fillTable(cms, folder, FILES_N_FOLDERS, false);
+                return;
+            }
             Set<CmsUUID> ids = new HashSet<CmsUUID>();
             for (CmsResource child : childResources) {
                 ids.add(child.getStructureId());
@@ -2182,6 +2182,36 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_SEARCHINDEX_INDEXSOURCE_SHOW_HELP_0 = "GUI_SEARCHINDEX_INDEXSOURCE_SHOW_HELP_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_BATCHSIZE_0 = "GUI_SEARCHINDEX_QUEUE_BATCHSIZE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_CAPTION_0 = "GUI_SEARCHINDEX_QUEUE_CAPTION_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_COALESCED_0 = "GUI_SEARCHINDEX_QUEUE_COALESCED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_CYCLES_0 = "GUI_SEARCHINDEX_QUEUE_CYCLES_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_EXTRACTION_0 = "GUI_SEARCHINDEX_QUEUE_EXTRACTION_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_EXTRACTION_2 = "GUI_SEARCHINDEX_QUEUE_EXTRACTION_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_LASTCYCLE_0 = "GUI_SEARCHINDEX_QUEUE_LASTCYCLE_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_LASTCYCLE_2 = "GUI_SEARCHINDEX_QUEUE_LASTCYCLE_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_QUEUED_0 = "GUI_SEARCHINDEX_QUEUE_QUEUED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String GUI_SEARCHINDEX_QUEUE_SIZE_0 = "GUI_SEARCHINDEX_QUEUE_SIZE_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String GUI_SEARCHINDEX_REBUILD_0 = "GUI_SEARCHINDEX_REBUILD_0";
 
@@ -27,21 +27,18 @@
 
 package org.opencms.ui.apps.cacheadmin;
 
-import com.alkacon.simapi.Simapi;
-
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.loader.CmsImageLoader;
+import org.opencms.loader.CmsImageScaler;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -86,6 +83,23 @@ public class CmsImageCacheHelper {
         init(cms, withVariations, showSize, statsOnly);
     }
 
+    /**
+     * Returns the dimensions of the given image, read from the image header.<p>
+     *
+     * @param content the image content
+     * @param path the path of the image (for error logging)
+     *
+     * @return a String representation of the dimensions, or an empty String if they can not be read
+     */
+    static String getDimensions(byte[] content, String path) {
+
+        CmsImageScaler scaler = new CmsImageScaler(content, path);
+        if (!scaler.isValid()) {
+            return "";
+        }
+        return "" + scaler.getWidth() + " x " + scaler.getHeight() + "px";
+    }
+
     /**
      * Returns all cached images.<p>
      *
@@ -230,9 +244,8 @@ public class CmsImageCacheHelper {
     private String getSingleSize(CmsObject cms, CmsResource res) {
 
         try {
-            BufferedImage img = Simapi.read(cms.readFile(res).getContents());
-            return "" + img.getWidth() + " x " + img.getHeight() + "px";
-        } catch (CmsException | IOException e) {
+            return getDimensions(cms.readFile(res).getContents(), res.getRootPath());
+        } catch (CmsException e) {
             return "";
         }
     }
@@ -323,8 +336,7 @@ public class CmsImageCacheHelper {
                 m_lengths.put(oName, "" + f.length() + " Bytes");
                 if (showSize) {
                     try {
-                        BufferedImage img = Simapi.read(f);
-                        m_sizes.put(oName, "" + img.getWidth() + " x " + img.getHeight() + "px");
+                        m_sizes.put(oName, getDimensions(CmsFileUtil.readFile(f), f.getPath()));
                     } catch (Throwable e) {
                         // ignore
                     }
@@ -337,8 +349,10 @@ public class CmsImageCacheHelper {
         oName += " (";
         if (showSize) {
             try {
-                BufferedImage img = Simapi.read(f);
-                oName += "" + img.getWidth() + " x " + img.getHeight() + "px - ";
+                String dimensions = getDimensions(CmsFileUtil.readFile(f), f.getPath());
+                if (dimensions.length() > 0) {
+                    oName += dimensions + " - ";
+                }
             } catch (Throwable e) {
                 // ignore
             }
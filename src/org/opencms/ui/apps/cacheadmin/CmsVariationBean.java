@@ -27,8 +27,6 @@
 
 package org.opencms.ui.apps.cacheadmin;
 
-import com.alkacon.simapi.Simapi;
-
 import org.opencms.file.CmsObject;
 import org.opencms.loader.CmsImageLoader;
 import org.opencms.main.CmsException;
@@ -36,7 +34,6 @@ import org.opencms.main.OpenCms;
 import org.opencms.ui.A_CmsUI;
 import org.opencms.util.CmsFileUtil;
 
-import java.awt.image.BufferedImage;
 import java.io.FileInputStream;
 import java.io.IOException;
 
@@ -79,8 +76,9 @@ public class CmsVariationBean {
     public String getDimensions() {
 
         try {
-            BufferedImage img = Simapi.read(IOUtils.toByteArray(new FileInputStream(m_variationPath)));
-            return "" + img.getWidth() + " x " + img.getHeight() + "px";
+            return CmsImageCacheHelper.getDimensions(
+                IOUtils.toByteArray(new FileInputStream(m_variationPath)),
+                m_variationPath);
         } catch (IOException e) {
             return "";
         }
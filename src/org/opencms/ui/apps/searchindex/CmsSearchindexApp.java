@@ -29,17 +29,21 @@ package org.opencms.ui.apps.searchindex;
 
 import org.opencms.main.OpenCms;
 import org.opencms.report.A_CmsReportThread;
+import org.opencms.search.CmsOfflineExtractionCache;
+import org.opencms.search.CmsSearchOfflineUpdateQueue;
 import org.opencms.search.I_CmsSearchIndex;
 import org.opencms.ui.A_CmsUI;
 import org.opencms.ui.CmsVaadinUtils;
 import org.opencms.ui.apps.A_CmsWorkplaceApp;
 import org.opencms.ui.apps.I_CmsCRUDApp;
 import org.opencms.ui.apps.Messages;
+import org.opencms.ui.components.CmsInfoButton;
 import org.opencms.ui.report.CmsReportWidget;
 import org.opencms.util.CmsStringUtil;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.vaadin.ui.Component;
 
@@ -57,6 +61,9 @@ public class CmsSearchindexApp extends A_CmsWorkplaceApp implements I_CmsCRUDApp
     /**Table. */
     protected CmsSearchIndexTable m_table;
 
+    /** The info button showing the state of the offline update queue. */
+    private CmsInfoButton m_queueInfoButton;
+
     /**
      * @see org.opencms.ui.apps.I_CmsCRUDApp#createElement(java.lang.Object)
      */
@@ -128,6 +135,15 @@ public class CmsSearchindexApp extends A_CmsWorkplaceApp implements I_CmsCRUDApp
     @Override
     protected Component getComponentForState(String state) {
 
+        if (m_queueInfoButton == null) {
+            m_queueInfoButton = new CmsInfoButton(getQueueInfoMap());
+            m_queueInfoButton.setWindowCaption(
+                CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_CAPTION_0));
+            m_queueInfoButton.setDescription(CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_CAPTION_0));
+            m_uiContext.addToolbarButton(m_queueInfoButton);
+        } else {
+            m_queueInfoButton.replaceData(getQueueInfoMap());
+        }
         m_rootLayout.setMainHeightFull(true);
         m_table = new CmsSearchIndexTable(this);
         m_table.loadTable();
@@ -155,4 +171,44 @@ public class CmsSearchindexApp extends A_CmsWorkplaceApp implements I_CmsCRUDApp
         thread.start();
         return new CmsReportWidget(thread);
     }
+
+    /**
+     * Returns the state of the offline update queue to show in the info button.<p>
+     *
+     * @return the state of the offline update queue
+     */
+    private Map<String, String> getQueueInfoMap() {
+
+        CmsSearchOfflineUpdateQueue queue = OpenCms.getSearchManager().getOfflineUpdateQueue();
+        CmsOfflineExtractionCache extractionCache = OpenCms.getSearchManager().getOfflineExtractionCache();
+        Map<String, String> infos = new LinkedHashMap<String, String>();
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_SIZE_0),
+            String.valueOf(queue.size()));
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_QUEUED_0),
+            String.valueOf(queue.getQueuedCount()));
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_COALESCED_0),
+            String.valueOf(queue.getCoalescedCount()));
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_BATCHSIZE_0),
+            String.valueOf(queue.getBatchSize()));
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_CYCLES_0),
+            String.valueOf(queue.getCycleCount()));
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_LASTCYCLE_0),
+            CmsVaadinUtils.getMessageText(
+                Messages.GUI_SEARCHINDEX_QUEUE_LASTCYCLE_2,
+                String.valueOf(queue.getLastCycleSize()),
+                String.valueOf(queue.getLastCycleDuration())));
+        infos.put(
+            CmsVaadinUtils.getMessageText(Messages.GUI_SEARCHINDEX_QUEUE_EXTRACTION_0),
+            CmsVaadinUtils.getMessageText(
+                Messages.GUI_SEARCHINDEX_QUEUE_EXTRACTION_2,
+                String.valueOf(extractionCache.getHits()),
+                String.valueOf(extractionCache.getMisses())));
+        return infos;
+    }
 }
@@ -30,6 +30,7 @@ package org.opencms.ui.apps.user;
 import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsUser;
+import org.opencms.file.CmsUserSearchParameters;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
@@ -338,6 +339,29 @@ public class CmsAccountsApp extends A_CmsWorkplaceApp implements I_CmsPrincipalS
             new CmsCssIcon(OpenCmsTheme.ICON_GROUP));
     }
 
+    /**
+     * Checks if the given app class selects the users of an organizational unit on its own,
+     * i.e. if it overrides {@link #getUsersWithoutAdditionalInfo(CmsObject, I_CmsOuTreeType, String, boolean)}.<p>
+     *
+     * @param appClass the app class
+     *
+     * @return true if the app class overrides the user list of the organizational units
+     */
+    static boolean isUserListCustomized(Class<? extends CmsAccountsApp> appClass) {
+
+        try {
+            return !CmsAccountsApp.class.equals(
+                appClass.getMethod(
+                    "getUsersWithoutAdditionalInfo",
+                    CmsObject.class,
+                    I_CmsOuTreeType.class,
+                    String.class,
+                    boolean.class).getDeclaringClass());
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
     /**
      * Adds additional properties for groups to a container.
      *
@@ -540,6 +564,41 @@ public class CmsAccountsApp extends A_CmsWorkplaceApp implements I_CmsPrincipalS
         return container;
     }
 
+    /**
+     * Gets the search parameters for reading the users of an organizational unit page by page.<p>
+     *
+     * The user table uses these parameters to let the database count, sort and filter the users instead of
+     * reading all of them with {@link #getUsersWithoutAdditionalInfo(CmsObject, I_CmsOuTreeType, String, boolean)}.
+     * In case an app overrides that method, null is returned here, so the user table keeps using the
+     * complete user list of the app. Such apps can override this method as well to have their users
+     * read page by page.<p>
+     *
+     * @param cms the CMS context
+     * @param type the tree type
+     * @param ou the OU path
+     * @param recursive true if users from sub-OUs should be retrieved
+     *
+     * @return the search parameters, or null if the users can not be read page by page
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsUserSearchParameters getUserSearchParameters(
+        CmsObject cms,
+        I_CmsOuTreeType type,
+        String ou,
+        boolean recursive)
+    throws CmsException {
+
+        if (isUserListCustomized(getClass())) {
+            return null;
+        }
+        CmsUserSearchParameters params = new CmsUserSearchParameters();
+        params.setOrganizationalUnit(OpenCms.getOrgUnitManager().readOrganizationalUnit(cms, ou));
+        params.setRecursiveOrgUnits(recursive);
+        params.setFilterCore(true);
+        return params;
+    }
+
     /**
      * Gets list of users for organizational unit.<p>
      *
@@ -1103,6 +1162,20 @@ public class CmsAccountsApp extends A_CmsWorkplaceApp implements I_CmsPrincipalS
         return DEFAULT_TREETYPES;
     }
 
+    /**
+     * Gets all currently visible user, including their additional infos.<p>
+     *
+     * @return List of CmsUser
+     */
+    protected List<CmsUser> getVisibleFullUser() {
+
+        if ((m_table instanceof CmsUserTable) && ((CmsUserTable)m_table).isPaged()) {
+            // read the user with their additional infos at once instead of reading every user again
+            return ((CmsUserTable)m_table).getVisibleFullUser();
+        }
+        return getFullUser(getVisibleUser());
+    }
+
     /**
      * Gets all currently visible user.<p>
      *
@@ -1217,7 +1290,7 @@ public class CmsAccountsApp extends A_CmsWorkplaceApp implements I_CmsPrincipalS
                 }
                 Window window = CmsBasicDialog.prepareWindow(DialogWidth.wide);
                 CmsUserCsvExportDialog dialog = new CmsUserCsvExportDialog(
-                    getFullUser(getVisibleUser()),
+                    getVisibleFullUser(),
                     m_stateBean.getPath(),
                     m_stateBean.getType(),
                     getElementName(m_stateBean),
@@ -1356,11 +1429,14 @@ public class CmsAccountsApp extends A_CmsWorkplaceApp implements I_CmsPrincipalS
                 CmsVaadinUtils.getMessageText(Messages.GUI_USERMANAGEMENT_COUNT_0),
                 String.valueOf(((Table)m_table).size()));
             try {
-                int count = getUsersWithoutAdditionalInfo(
+                CmsUserSearchParameters params = getUserSearchParameters(
                     m_cms,
                     m_stateBean.getType(),
                     m_stateBean.getPath(),
-                    true).size();
+                    true);
+                int count = params != null
+                ? (int)OpenCms.getOrgUnitManager().countUsers(m_cms, params)
+                : getUsersWithoutAdditionalInfo(m_cms, m_stateBean.getType(), m_stateBean.getPath(), true).size();
                 if (count > ((Table)m_table).size()) {
                     dataMap.put(
                         CmsVaadinUtils.getMessageText(Messages.GUI_USERMANAGEMENT_TOT_COUNT_0),
@@ -1373,7 +1449,7 @@ public class CmsAccountsApp extends A_CmsWorkplaceApp implements I_CmsPrincipalS
         } else {
             int size = ((Table)m_table).size();
             if (m_table instanceof CmsUserTable) {
-                size = ((CmsUserTable)m_table).getVisibleUser().size();
+                size = ((CmsUserTable)m_table).getVisibleUserCount();
             }
             m_infoButton.replaceData(
                 Collections.singletonMap(
@@ -0,0 +1,585 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ui.apps.user;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsUser;
+import org.opencms.file.CmsUserSearchParameters;
+import org.opencms.file.CmsUserSearchParameters.SortKey;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.ui.apps.user.CmsUserTable.TableProperty;
+import org.opencms.util.CmsUUID;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+import com.vaadin.v7.data.Container;
+import com.vaadin.v7.data.Item;
+import com.vaadin.v7.data.Property;
+import com.vaadin.v7.data.util.AbstractContainer;
+import com.vaadin.v7.data.util.IndexedContainer;
+
+/**
+ * Container for the user table which reads the users page by page from the database.<p>
+ *
+ * Counting, sorting and filtering is done by the database through {@link CmsUserSearchParameters}, and only the
+ * most recently used pages are kept in memory. The items of the loaded users are stored in an indexed container
+ * which also defines the container properties.<p>
+ */
+public class CmsPagedUserContainer extends AbstractContainer
+implements Container.Indexed, Container.Sortable, Container.ItemSetChangeNotifier {
+
+    /** The maximum number of pages kept in memory. */
+    public static final int MAX_CACHED_PAGES = 10;
+
+    /** The number of users read with one query. */
+    public static final int PAGE_SIZE = 100;
+
+    /** Log instance for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPagedUserContainer.class);
+
+    /** The sort keys for the sortable table properties. */
+    private static final Map<TableProperty, SortKey> SORT_KEYS = new LinkedHashMap<TableProperty, SortKey>();
+
+    /** The serial version id. */
+    private static final long serialVersionUID = -2781627468436924051L;
+
+    static {
+        SORT_KEYS.put(TableProperty.Name, SortKey.loginName);
+        SORT_KEYS.put(TableProperty.SystemName, SortKey.loginName);
+        SORT_KEYS.put(TableProperty.FullName, SortKey.fullName);
+        SORT_KEYS.put(TableProperty.OU, SortKey.orgUnit);
+        SORT_KEYS.put(TableProperty.LastLogin, SortKey.lastLogin);
+        SORT_KEYS.put(TableProperty.STATUS, SortKey.activated);
+    }
+
+    /** The CMS context. */
+    private CmsObject m_cms;
+
+    /** The cached number of users matching the search parameters, or null if not counted yet. */
+    private Integer m_count;
+
+    /** The indexes of all users read since the last refresh, by user id, including the users of evicted pages. */
+    private Map<CmsUUID, Integer> m_indexes = new HashMap<CmsUUID, Integer>();
+
+    /** The container holding the items of the loaded users. */
+    private IndexedContainer m_items;
+
+    /** The loaded pages, by page index, in the order of their last use. */
+    private LinkedHashMap<Integer, List<CmsUser>> m_pages = new LinkedHashMap<Integer, List<CmsUser>>(
+        16,
+        0.75f,
+        true);
+
+    /** The search parameters. */
+    private CmsUserSearchParameters m_params;
+
+    /** The user table used to fill the items. */
+    private CmsUserTable m_table;
+
+    /**
+     * Creates a new instance.<p>
+     *
+     * @param cms the CMS context
+     * @param table the user table used to fill the items
+     * @param items the container holding the items of the loaded users
+     * @param params the search parameters
+     */
+    public CmsPagedUserContainer(
+        CmsObject cms,
+        CmsUserTable table,
+        IndexedContainer items,
+        CmsUserSearchParameters params) {
+
+        m_cms = cms;
+        m_table = table;
+        m_items = items;
+        m_params = params;
+        m_params.setReadAdditionalInfo(false);
+        m_params.setCaseSensitive(false);
+        if (m_params.getSortKey() == null) {
+            m_params.setSorting(SortKey.loginName, true);
+        }
+    }
+
+    /**
+     * Reads all users matching the given search parameters, page by page.<p>
+     *
+     * The additional infos of the users are only read if enabled in the search parameters.<p>
+     *
+     * @param cms the CMS context
+     * @param params the search parameters
+     *
+     * @return all users matching the search parameters
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsUserSearchParameters#setReadAdditionalInfo(boolean)
+     */
+    public static List<CmsUser> readAllUsers(CmsObject cms, CmsUserSearchParameters params) throws CmsException {
+
+        if (params.getSortKey() == null) {
+            params.setSorting(SortKey.loginName, true);
+        }
+        List<CmsUser> result = new ArrayList<CmsUser>();
+        int page = 1;
+        List<CmsUser> users;
+        do {
+            params.setPaging(PAGE_SIZE, page);
+            users = OpenCms.getOrgUnitManager().searchUsers(cms, params);
+            result.addAll(users);
+            page += 1;
+        } while (users.size() == PAGE_SIZE);
+        return result;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#addContainerProperty(java.lang.Object, java.lang.Class, java.lang.Object)
+     */
+    public boolean addContainerProperty(Object propertyId, Class<?> type, Object defaultValue) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#addItem()
+     */
+    public Object addItem() {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#addItem(java.lang.Object)
+     */
+    public Item addItem(Object itemId) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#addItemAfter(java.lang.Object)
+     */
+    public Object addItemAfter(Object previousItemId) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#addItemAfter(java.lang.Object, java.lang.Object)
+     */
+    public Item addItemAfter(Object previousItemId, Object newItemId) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Indexed#addItemAt(int)
+     */
+    public Object addItemAt(int index) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Indexed#addItemAt(int, java.lang.Object)
+     */
+    public Item addItemAt(int index, Object newItemId) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.util.AbstractContainer#addItemSetChangeListener(com.vaadin.v7.data.Container.ItemSetChangeListener)
+     */
+    @Override
+    public void addItemSetChangeListener(Container.ItemSetChangeListener listener) {
+
+        super.addItemSetChangeListener(listener);
+    }
+
+    /**
+     * @see com.vaadin.v7.data.util.AbstractContainer#addListener(com.vaadin.v7.data.Container.ItemSetChangeListener)
+     */
+    @Deprecated
+    @Override
+    public void addListener(Container.ItemSetChangeListener listener) {
+
+        super.addListener(listener);
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#containsId(java.lang.Object)
+     */
+    public boolean containsId(Object itemId) {
+
+        return indexOfId(itemId) >= 0;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#firstItemId()
+     */
+    public Object firstItemId() {
+
+        return getIdByIndex(0);
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#getContainerProperty(java.lang.Object, java.lang.Object)
+     */
+    public Property<?> getContainerProperty(Object itemId, Object propertyId) {
+
+        Item item = getItem(itemId);
+        return item != null ? item.getItemProperty(propertyId) : null;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#getContainerPropertyIds()
+     */
+    public Collection<?> getContainerPropertyIds() {
+
+        return m_items.getContainerPropertyIds();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Indexed#getIdByIndex(int)
+     */
+    public Object getIdByIndex(int index) {
+
+        if ((index < 0) || (index >= size())) {
+            return null;
+        }
+        List<CmsUser> page = getPage(index / PAGE_SIZE);
+        int offset = index % PAGE_SIZE;
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#getItem(java.lang.Object)
+     */
+    public Item getItem(Object itemId) {
+
+        if (!(itemId instanceof CmsUser)) {
+            return null;
+        }
+        Item item = m_items.getItem(itemId);
+        if (item == null) {
+            item = m_items.addItem(itemId);
+            m_table.fillItem(item, (CmsUser)itemId);
+        }
+        return item;
+    }
+
+    /**
+     * Returns a list view of all item ids, which reads the pages on access.<p>
+     *
+     * @see com.vaadin.v7.data.Container#getItemIds()
+     */
+    public Collection<?> getItemIds() {
+
+        return new AbstractList<Object>() {
+
+            @Override
+            public Object get(int index) {
+
+                return getIdByIndex(index);
+            }
+
+            @Override
+            public int size() {
+
+                return CmsPagedUserContainer.this.size();
+            }
+        };
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Indexed#getItemIds(int, int)
+     */
+    public List<?> getItemIds(int startIndex, int numberOfItems) {
+
+        List<Object> result = new ArrayList<Object>();
+        int end = Math.min(startIndex + numberOfItems, size());
+        for (int i = startIndex; i < end; i++) {
+            Object id = getIdByIndex(i);
+            if (id == null) {
+                break;
+            }
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the search parameters.<p>
+     *
+     * @return the search parameters
+     */
+    public CmsUserSearchParameters getParameters() {
+
+        return m_params;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Sortable#getSortableContainerPropertyIds()
+     */
+    public Collection<?> getSortableContainerPropertyIds() {
+
+        return Collections.unmodifiableCollection(SORT_KEYS.keySet());
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#getType(java.lang.Object)
+     */
+    public Class<?> getType(Object propertyId) {
+
+        return m_items.getType(propertyId);
+    }
+
+    /**
+     * Returns the index of an item id, or -1 if the user has not been read since the last refresh.<p>
+     *
+     * The indexes are kept for the users of evicted pages as well, their pages are read again on access.<p>
+     *
+     * @see com.vaadin.v7.data.Container.Indexed#indexOfId(java.lang.Object)
+     */
+    public int indexOfId(Object itemId) {
+
+        if (!(itemId instanceof CmsUser)) {
+            return -1;
+        }
+        Integer index = m_indexes.get(((CmsUser)itemId).getId());
+        return index != null ? index.intValue() : -1;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#isFirstId(java.lang.Object)
+     */
+    public boolean isFirstId(Object itemId) {
+
+        return indexOfId(itemId) == 0;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#isLastId(java.lang.Object)
+     */
+    public boolean isLastId(Object itemId) {
+
+        int index = indexOfId(itemId);
+        return (index >= 0) && (index == (size() - 1));
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#lastItemId()
+     */
+    public Object lastItemId() {
+
+        return getIdByIndex(size() - 1);
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#nextItemId(java.lang.Object)
+     */
+    public Object nextItemId(Object itemId) {
+
+        int index = indexOfId(itemId);
+        return index >= 0 ? getIdByIndex(index + 1) : null;
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Ordered#prevItemId(java.lang.Object)
+     */
+    public Object prevItemId(Object itemId) {
+
+        int index = indexOfId(itemId);
+        return index > 0 ? getIdByIndex(index - 1) : null;
+    }
+
+    /**
+     * Discards the loaded pages and the count, and notifies the listeners.<p>
+     */
+    public void refresh() {
+
+        for (List<CmsUser> page : m_pages.values()) {
+            for (CmsUser user : page) {
+                m_items.removeItem(user);
+            }
+        }
+        m_pages.clear();
+        m_indexes.clear();
+        m_count = null;
+        fireItemSetChange();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#removeAllItems()
+     */
+    public boolean removeAllItems() {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#removeContainerProperty(java.lang.Object)
+     */
+    public boolean removeContainerProperty(Object propertyId) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#removeItem(java.lang.Object)
+     */
+    public boolean removeItem(Object itemId) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.util.AbstractContainer#removeItemSetChangeListener(com.vaadin.v7.data.Container.ItemSetChangeListener)
+     */
+    @Override
+    public void removeItemSetChangeListener(Container.ItemSetChangeListener listener) {
+
+        super.removeItemSetChangeListener(listener);
+    }
+
+    /**
+     * @see com.vaadin.v7.data.util.AbstractContainer#removeListener(com.vaadin.v7.data.Container.ItemSetChangeListener)
+     */
+    @Deprecated
+    @Override
+    public void removeListener(Container.ItemSetChangeListener listener) {
+
+        super.removeListener(listener);
+    }
+
+    /**
+     * Sets the search parameters and reloads the users.<p>
+     *
+     * The sort order and search filter of the current parameters are kept.<p>
+     *
+     * @param params the new search parameters
+     */
+    public void setParameters(CmsUserSearchParameters params) {
+
+        params.setReadAdditionalInfo(false);
+        params.setCaseSensitive(false);
+        params.setSorting(m_params.getSortKey(), m_params.isAscending());
+        params.setSearchFilter(m_params.getSearchFilter());
+        m_params = params;
+        refresh();
+    }
+
+    /**
+     * Sets the search filter and reloads the users.<p>
+     *
+     * @param searchFilter the search filter, matched against login name, first name and last name
+     */
+    public void setSearchFilter(String searchFilter) {
+
+        m_params.setSearchFilter(searchFilter);
+        refresh();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container#size()
+     */
+    public int size() {
+
+        if (m_count == null) {
+            try {
+                m_count = Integer.valueOf((int)OpenCms.getOrgUnitManager().countUsers(m_cms, m_params));
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                m_count = Integer.valueOf(0);
+            }
+        }
+        return m_count.intValue();
+    }
+
+    /**
+     * @see com.vaadin.v7.data.Container.Sortable#sort(java.lang.Object[], boolean[])
+     */
+    public void sort(Object[] propertyId, boolean[] ascending) {
+
+        for (int i = 0; i < propertyId.length; i++) {
+            SortKey key = SORT_KEYS.get(propertyId[i]);
+            if (key != null) {
+                m_params.setSorting(key, (i < ascending.length) ? ascending[i] : true);
+                refresh();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns a page of users, reading it from the database if it is not loaded.<p>
+     *
+     * @param pageIndex the zero based page index
+     *
+     * @return the users of the page
+     */
+    private List<CmsUser> getPage(int pageIndex) {
+
+        Integer key = Integer.valueOf(pageIndex);
+        List<CmsUser> page = m_pages.get(key);
+        if (page == null) {
+            m_params.setPaging(PAGE_SIZE, pageIndex + 1);
+            try {
+                page = OpenCms.getOrgUnitManager().searchUsers(m_cms, m_params);
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+                page = Collections.emptyList();
+            }
+            for (int i = 0; i < page.size(); i++) {
+                m_indexes.put(page.get(i).getId(), Integer.valueOf((pageIndex * PAGE_SIZE) + i));
+            }
+            m_pages.put(key, page);
+            if (m_pages.size() > MAX_CACHED_PAGES) {
+                Iterator<List<CmsUser>> it = m_pages.values().iterator();
+                for (CmsUser user : it.next()) {
+                    m_items.removeItem(user);
+                }
+                it.remove();
+            }
+        }
+        return page;
+    }
+}
@@ -30,6 +30,7 @@ package org.opencms.ui.apps.user;
 import org.opencms.db.CmsUserSettings;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsUser;
+import org.opencms.file.CmsUserSearchParameters;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSessionInfo;
@@ -844,6 +845,9 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
     /**Indexed container. */
     private IndexedContainer m_container;
 
+    /**Ids of the direct user of the role, read once for the indirect flags of a paged role table. */
+    private Set<CmsUUID> m_directRoleUsers;
+
     /**vaadin component.*/
     private VerticalLayout m_emptyLayout;
 
@@ -853,6 +857,15 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
     /** The available menu entries. */
     private List<I_CmsSimpleContextMenuEntry<Set<String>>> m_menuEntries;
 
+    /**Container reading the users page by page, or null if all users are read at once. */
+    private CmsPagedUserContainer m_pagedContainer;
+
+    /**Search parameters for reading the users page by page, or null if all users are read at once. */
+    private CmsUserSearchParameters m_searchParams;
+
+    /**Flag indicating if the indirect user are shown in a paged table. */
+    private boolean m_showIndirect;
+
     /**List of user. */
     private List<CmsUser> m_users;
 
@@ -882,11 +895,14 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
             m_indirects = new ArrayList<CmsUser>();
             if (m_type.isGroup()) {
                 m_group = m_cms.readGroup(groupID).getName();
-                m_users = m_cms.getUsersOfGroup(m_group, true);
+                m_searchParams = createSearchParameters(showAll);
                 m_fullyLoaded = true;
             }
             if (m_type.isRole()) {
                 m_group = CmsRole.valueOfId(groupID).forOrgUnit(ou).getFqn();
+                m_searchParams = createSearchParameters(showAll);
+            }
+            if (m_type.isRole() && (m_searchParams == null)) {
                 List<CmsUser> directs = OpenCms.getRoleManager().getUsersOfRole(
                     m_cms,
                     CmsRole.valueOfId(groupID).forOrgUnit(ou),
@@ -920,12 +936,15 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
         try {
             m_cms = getCmsObject();
             m_type = type;
-            List<CmsUser> directs = m_app.getUsersWithoutAdditionalInfo(m_cms, type, ou, false);
             m_indirects = new ArrayList<CmsUser>();
-            if (showAll) {
-                setAllUsers(directs);
-            } else {
-                m_users = directs;
+            m_searchParams = createSearchParameters(showAll);
+            if (m_searchParams == null) {
+                List<CmsUser> directs = m_app.getUsersWithoutAdditionalInfo(m_cms, type, ou, false);
+                if (showAll) {
+                    setAllUsers(directs);
+                } else {
+                    m_users = directs;
+                }
             }
             init(showAll);
         } catch (CmsException e) {
@@ -938,6 +957,11 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
      */
     public void filter(String data) {
 
+        if (m_pagedContainer != null) {
+            m_pagedContainer.setSearchFilter(CmsStringUtil.isNotEmptyOrWhitespaceOnly(data) ? data.trim() : null);
+            setVisibilities();
+            return;
+        }
         m_container.removeAllContainerFilters();
         if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(data)) {
             m_container.addContainerFilter(
@@ -970,12 +994,33 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
     }
 
     /**
-     * Gets currently visible user.
+     * Gets currently visible user, including their additional infos.<p>
+     *
+     * Paged tables read the user with their additional infos directly, so they do not have to be read again.<p>
+     *
+     * @return List of user
+     */
+    public List<CmsUser> getVisibleFullUser() {
+
+        if (m_pagedContainer != null) {
+            return readVisibleUser(true);
+        }
+        return m_app.getFullUser(getVisibleUser());
+    }
+
+    /**
+     * Gets currently visible user.<p>
+     *
+     * Paged tables read all visible user from the database, so use {@link #getVisibleUserCount()}
+     * if only the number of user is needed.<p>
      *
      * @return List of user
      */
     public List<CmsUser> getVisibleUser() {
 
+        if (m_pagedContainer != null) {
+            return readVisibleUser(false);
+        }
         if (!m_fullyLoaded) {
             return m_users;
         }
@@ -991,11 +1036,43 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
         return directs;
     }
 
+    /**
+     * Gets the number of currently visible user, without reading all of them if possible.<p>
+     *
+     * @return the number of visible user
+     */
+    public int getVisibleUserCount() {
+
+        if (m_pagedContainer != null) {
+            try {
+                return (int)OpenCms.getOrgUnitManager().countUsers(m_cms, createSearchParameters(m_showIndirect));
+            } catch (CmsException e) {
+                LOG.error("Unable to count user", e);
+                return 0;
+            }
+        }
+        return getVisibleUser().size();
+    }
+
+    /**
+     * Checks if the user of this table are read page by page.<p>
+     *
+     * @return true if the user are read page by page
+     */
+    public boolean isPaged() {
+
+        return m_pagedContainer != null;
+    }
+
     /**
      * @see org.opencms.ui.apps.user.I_CmsToggleTable#toggle(boolean)
      */
     public void toggle(boolean pressed) {
 
+        if (m_pagedContainer != null) {
+            fillContainer(pressed);
+            return;
+        }
         try {
 
             if (pressed && !m_fullyLoaded) {
@@ -1030,9 +1107,21 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
      */
     protected void fillContainer(boolean showIndirect) {
 
+        m_checkedUserPasswordReset = new HashSet<CmsUUID>();
+        if (m_pagedContainer != null) {
+            m_showIndirect = showIndirect;
+            m_directRoleUsers = null;
+            try {
+                m_searchParams = createSearchParameters(showIndirect);
+                m_pagedContainer.setParameters(m_searchParams);
+            } catch (CmsException e) {
+                LOG.error("Unable to read user", e);
+            }
+            setVisibilities();
+            return;
+        }
         m_container.removeAllContainerFilters();
         m_container.removeAllItems();
-        m_checkedUserPasswordReset = new HashSet<CmsUUID>();
         for (CmsUser user : m_users) {
             if (showIndirect || !m_indirects.contains(user)) {
                 addUserToContainer(m_container, user);
@@ -1065,7 +1154,7 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
         }
         item.getItemProperty(TableProperty.LastLogin).setValue(new Long(user.getLastlogin()));
         item.getItemProperty(TableProperty.Created).setValue(new Long(user.getDateCreated()));
-        item.getItemProperty(TableProperty.INDIRECT).setValue(new Boolean(m_indirects.contains(user)));
+        item.getItemProperty(TableProperty.INDIRECT).setValue(new Boolean(isIndirect(user)));
         item.getItemProperty(TableProperty.FROMOTHEROU).setValue(new Boolean(!user.getOuFqn().equals(m_ou)));
         item.getItemProperty(TableProperty.STATUS).setValue(getStatusInt(disabled, newUser));
     }
@@ -1086,7 +1175,12 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
             setColumnHeader(prop, prop.getName());
         }
         m_app.addUserContainerProperties(m_container);
-        setContainerDataSource(m_container);
+        if (m_searchParams != null) {
+            m_pagedContainer = new CmsPagedUserContainer(m_cms, this, m_container, m_searchParams);
+            setContainerDataSource(m_pagedContainer);
+        } else {
+            setContainerDataSource(m_container);
+        }
         setItemIconPropertyId(TableProperty.Icon);
         setRowHeaderMode(RowHeaderMode.ICON_ONLY);
 
@@ -1442,6 +1536,40 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
         return false;
     }
 
+    /**
+     * Creates the search parameters for reading the users of this table page by page.<p>
+     *
+     * Returns null if the users have to be read at once, i.e. if the indirect users have to be checked with
+     * {@link #isAllowedUser(CmsUser)}, or if the app does not provide search parameters for the OU.<p>
+     *
+     * @param showAll true if indirect users should be included
+     * @return the search parameters, or null
+     * @throws CmsException exception
+     */
+    private CmsUserSearchParameters createSearchParameters(boolean showAll) throws CmsException {
+
+        String currentOu = m_cms.getRequestContext().getOuFqn();
+        CmsUserSearchParameters params = null;
+        if (m_type.isGroup()) {
+            params = new CmsUserSearchParameters();
+            params.setGroup(m_cms.readGroup(m_group));
+        } else if (m_type.isRole()) {
+            if (CmsStringUtil.isEmpty(currentOu)) {
+                // join the role groups in the database instead of merging the user lists of all parent roles
+                CmsRole role = CmsRole.valueOfRoleName(m_group).forOrgUnit(m_ou);
+                params = new CmsUserSearchParameters();
+                if (showAll) {
+                    params.setAnyGroups(OpenCms.getRoleManager().getRoleGroups(m_cms, role, false));
+                } else {
+                    params.setGroup(m_cms.readGroup(role.getGroupName()));
+                }
+            }
+        } else if (m_ou.startsWith(currentOu)) {
+            params = m_app.getUserSearchParameters(m_cms, m_type, m_ou, showAll);
+        }
+        return params;
+    }
+
     /**
      * Gets list of indirect users to show.<p>
      *
@@ -1493,6 +1621,60 @@ public class CmsUserTable extends Table implements I_CmsFilterableTable, I_CmsTo
         return OpenCms.getRoleManager().getRolesOfUser(m_cms, user.getName(), m_ou, true, true, false).size() > 0;
     }
 
+    /**
+     * Checks if the given user is shown as indirect user.<p>
+     *
+     * @param user to be checked
+     * @return boolean
+     */
+    private boolean isIndirect(CmsUser user) {
+
+        if (m_searchParams == null) {
+            return m_indirects.contains(user);
+        }
+        if (m_type.isGroup()) {
+            return false;
+        }
+        if (m_type.isRole()) {
+            if (m_searchParams.getGroup() != null) {
+                return false;
+            }
+            if (m_directRoleUsers == null) {
+                // read the direct user of the role once instead of the roles of every shown user
+                m_directRoleUsers = new HashSet<CmsUUID>();
+                try {
+                    CmsUserSearchParameters params = createSearchParameters(false);
+                    params.setReadAdditionalInfo(false);
+                    for (CmsUser direct : CmsPagedUserContainer.readAllUsers(m_cms, params)) {
+                        m_directRoleUsers.add(direct.getId());
+                    }
+                } catch (CmsException e) {
+                    LOG.error("Unable to read user", e);
+                }
+            }
+            return !m_directRoleUsers.contains(user.getId());
+        }
+        return !user.getOuFqn().equals(m_ou);
+    }
+
+    /**
+     * Reads all currently visible user of a paged table.<p>
+     *
+     * @param readAdditionalInfo true if the additional infos of the user should be read
+     * @return List of user
+     */
+    private List<CmsUser> readVisibleUser(boolean readAdditionalInfo) {
+
+        try {
+            CmsUserSearchParameters params = createSearchParameters(m_showIndirect);
+            params.setReadAdditionalInfo(readAdditionalInfo);
+            return CmsPagedUserContainer.readAllUsers(m_cms, params);
+        } catch (CmsException e) {
+            LOG.error("Unable to read user", e);
+            return new ArrayList<CmsUser>();
+        }
+    }
+
     /**
      * Sets all user, including indirect user for roles.<p>
      *
@@ -55,12 +55,15 @@ import static org.opencms.ui.components.CmsResourceTableProperty.PROPERTY_USER_L
 import static org.opencms.ui.components.CmsResourceTableProperty.PROPERTY_USER_MODIFIED;
 
 import org.opencms.ade.sitemap.shared.CmsClientSitemapEntry;
+import org.opencms.db.CmsChildResourceIndex;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.lock.CmsLock;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
@@ -78,6 +81,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -91,7 +97,10 @@ import com.google.common.collect.Sets;
 import com.vaadin.event.dd.DropHandler;
 import com.vaadin.ui.CustomComponent;
 import com.vaadin.v7.data.Item;
+import com.vaadin.v7.data.Property;
 import com.vaadin.v7.data.util.IndexedContainer;
+import com.vaadin.v7.data.util.ObjectProperty;
+import com.vaadin.v7.data.util.PropertysetItem;
 import com.vaadin.v7.shared.ui.label.ContentMode;
 import com.vaadin.v7.ui.Label;
 import com.vaadin.v7.ui.Table;
@@ -246,6 +255,100 @@ public class CmsResourceTable extends CustomComponent {
 
     }
 
+    /**
+     * The children of a folder, which are read page by page in the sort order of the table.<p>
+     */
+    private static class FolderPages {
+
+        /** The last resource read, <code>null</code> before the first page has been read. */
+        private CmsResource m_after;
+
+        /** Flag indicating the pages are read in ascending order. */
+        private boolean m_ascending;
+
+        /** Flag indicating all pages have been read. */
+        private boolean m_complete;
+
+        /** The resource filter. */
+        private CmsResourceFilter m_filter;
+
+        /** The site path of the folder. */
+        private String m_folderPath;
+
+        /** The order the pages are read in. */
+        private CmsChildResourceIndex.Order m_order;
+
+        /** The table property the pages are sorted by. */
+        private Object m_sortPropertyId;
+
+        /**
+         * Creates a new instance.<p>
+         *
+         * @param folderPath the site path of the folder
+         * @param filter the resource filter
+         * @param sortPropertyId the table property the pages are sorted by, either the name or the date last modified
+         * @param ascending <code>true</code> to read the pages in ascending order
+         */
+        FolderPages(String folderPath, CmsResourceFilter filter, Object sortPropertyId, boolean ascending) {
+
+            m_folderPath = folderPath;
+            m_filter = filter;
+            m_sortPropertyId = sortPropertyId;
+            m_ascending = ascending;
+            m_order = PROPERTY_DATE_MODIFIED.equals(sortPropertyId)
+            ? CmsChildResourceIndex.Order.DATE_LAST_MODIFIED
+            : CmsChildResourceIndex.Order.ROOT_PATH;
+        }
+
+        /**
+         * Returns if all pages have been read.<p>
+         *
+         * @return <code>true</code> if all pages have been read
+         */
+        boolean isComplete() {
+
+            return m_complete;
+        }
+
+        /**
+         * Returns if the pages are read in the given sort order.<p>
+         *
+         * @param propertyId the properties to sort by
+         * @param ascending the sort directions
+         *
+         * @return <code>true</code> if the pages are read in the given sort order
+         */
+        boolean isSortedBy(Object[] propertyId, boolean[] ascending) {
+
+            return (propertyId.length == 1) && m_sortPropertyId.equals(propertyId[0]) && (ascending[0] == m_ascending);
+        }
+
+        /**
+         * Reads the next page.<p>
+         *
+         * @param cms the CMS context
+         *
+         * @return the resources of the page
+         *
+         * @throws CmsException if something goes wrong
+         */
+        List<CmsResource> readPage(CmsObject cms) throws CmsException {
+
+            List<CmsResource> page = cms.getResourcesInFolder(
+                m_folderPath,
+                m_filter,
+                m_order,
+                !m_ascending,
+                m_after,
+                FOLDER_PAGE_SIZE);
+            m_complete = page.size() < FOLDER_PAGE_SIZE;
+            if (!page.isEmpty()) {
+                m_after = page.get(page.size() - 1);
+            }
+            return page;
+        }
+    }
+
     /**
      * Provides item property values for additional table columns.<p>
      */
@@ -264,12 +367,105 @@ public class CmsResourceTable extends CustomComponent {
 
     /**
      * Extending the indexed container to make the number of un-filtered items available.<p>
+     *
+     * The container also keeps track of the items that have been filled lazily, that is only with their
+     * basic properties. The remaining properties of such an item are filled together with the following
+     * items of the current sort order as soon as any of them is read, e.g. when the item becomes visible.
+     * While the container is sorted, only the properties read for sorting are filled.<p>
      */
     protected static class ItemContainer extends IndexedContainer {
 
+        /**
+         * Item wrapper that fills the remaining properties of a lazily filled item before they are read.<p>
+         */
+        private class LazyItem implements Item {
+
+            /** The serial version id. */
+            private static final long serialVersionUID = 1L;
+
+            /** The wrapped item. */
+            private Item m_item;
+
+            /** The item id. */
+            private Object m_itemId;
+
+            /**
+             * Creates a new instance.<p>
+             *
+             * @param itemId the item id
+             * @param item the item to wrap
+             */
+            LazyItem(Object itemId, Item item) {
+
+                m_itemId = itemId;
+                m_item = item;
+            }
+
+            /**
+             * @see com.vaadin.v7.data.Item#addItemProperty(java.lang.Object, com.vaadin.v7.data.Property)
+             */
+            @SuppressWarnings("rawtypes")
+            public boolean addItemProperty(Object id, Property property) {
+
+                return m_item.addItemProperty(id, property);
+            }
+
+            /**
+             * @see com.vaadin.v7.data.Item#getItemProperty(java.lang.Object)
+             */
+            @SuppressWarnings("rawtypes")
+            public Property getItemProperty(Object id) {
+
+                loadLazyItem(m_itemId, id);
+                return m_item.getItemProperty(id);
+            }
+
+            /**
+             * @see com.vaadin.v7.data.Item#getItemPropertyIds()
+             */
+            public Collection<?> getItemPropertyIds() {
+
+                return m_item.getItemPropertyIds();
+            }
+
+            /**
+             * @see com.vaadin.v7.data.Item#removeItemProperty(java.lang.Object)
+             */
+            public boolean removeItemProperty(Object id) {
+
+                return m_item.removeItemProperty(id);
+            }
+        }
+
         /** The serial version id. */
         private static final long serialVersionUID = -2033722658471550506L;
 
+        /** The resources of the items that have only been filled with their basic properties, by item id. */
+        private Map<Object, CmsResource> m_lazyResources = new LinkedHashMap<Object, CmsResource>();
+
+        /** Flag indicating lazily filled items are currently being loaded. */
+        private boolean m_loading;
+
+        /** The properties already filled for sorting, by the id of the lazily filled item. */
+        private Map<Object, Set<Object>> m_sortProperties = new HashMap<Object, Set<Object>>();
+
+        /** Flag indicating the container is currently being sorted. */
+        private boolean m_sorting;
+
+        /** The table used to fill the lazily filled items. */
+        private CmsResourceTable m_table;
+
+        /**
+         * @see com.vaadin.v7.data.util.IndexedContainer#getContainerProperty(java.lang.Object, java.lang.Object)
+         */
+        @SuppressWarnings("rawtypes")
+        @Override
+        public Property getContainerProperty(Object itemId, Object propertyId) {
+
+            loadLazyItem(itemId, propertyId);
+            return super.getContainerProperty(itemId, propertyId);
+        }
+
         /**
          * @see com.vaadin.v7.data.util.IndexedContainer#getSortableContainerPropertyIds()
          */
@@ -283,6 +479,91 @@ public class CmsResourceTable extends CustomComponent {
             }
         }
 
+        /**
+         * @see com.vaadin.v7.data.util.IndexedContainer#removeAllItems()
+         */
+        @Override
+        public boolean removeAllItems() {
+
+            m_lazyResources.clear();
+            m_sortProperties.clear();
+            return super.removeAllItems();
+        }
+
+        /**
+         * @see com.vaadin.v7.data.util.IndexedContainer#removeItem(java.lang.Object)
+         */
+        @Override
+        public boolean removeItem(Object itemId) {
+
+            removeLazyResource(itemId);
+            return super.removeItem(itemId);
+        }
+
+        /**
+         * Sorts the container without filling the lazily filled items completely.<p>
+         *
+         * Only the properties the items are compared by are filled for the lazily filled items.
+         * Their remaining properties are still filled page by page as soon as they are read.<p>
+         *
+         * @see com.vaadin.v7.data.util.IndexedContainer#sort(java.lang.Object[], boolean[])
+         */
+        @Override
+        public void sort(Object[] propertyId, boolean[] ascending) {
+
+            if ((m_table != null) && (m_table.m_folderPages != null)) {
+                if (!m_table.m_folderPages.isSortedBy(propertyId, ascending)) {
+                    // the remaining pages would not follow the new sort order
+                    m_table.loadRemainingPages();
+                }
+            }
+            if (m_lazyResources.isEmpty()
+                || (m_table == null)
+                || BASIC_PROPERTIES.containsAll(Arrays.asList(propertyId))) {
+                super.sort(propertyId, ascending);
+                return;
+            }
+            m_sorting = true;
+            m_table.startFill(m_table.getLazyFillCms(), new ArrayList<CmsResource>(m_lazyResources.values()));
+            try {
+                super.sort(propertyId, ascending);
+            } finally {
+                m_sorting = false;
+                m_table.finishFill();
+            }
+        }
+
+        /**
+         * Loads all lazily filled items and all remaining pages before the container is filtered,
+         * since the filters may need any property.<p>
+         *
+         * @see com.vaadin.v7.data.util.AbstractInMemoryContainer#filterAll()
+         */
+        @Override
+        protected void filterAll() {
+
+            if (m_loading) {
+                // the container will be filtered once all items are loaded
+                return;
+            }
+            boolean morePages = (m_table != null) && (m_table.m_folderPages != null);
+            if ((morePages || !m_lazyResources.isEmpty()) && !getContainerFilters().isEmpty()) {
+                m_loading = true;
+                try {
+                    if (morePages) {
+                        m_table.loadRemainingPages();
+                        doSort();
+                    }
+                    while (!m_lazyResources.isEmpty()) {
+                        loadLazyItems(null);
+                    }
+                } finally {
+                    m_loading = false;
+                }
+            }
+            super.filterAll();
+        }
+
         /**
          * Returns the number of items in the container, not considering any filters.<p>
          *
@@ -292,6 +573,163 @@ public class CmsResourceTable extends CustomComponent {
 
             return getAllItemIds().size();
         }
+
+        /**
+         * @see com.vaadin.v7.data.util.IndexedContainer#getUnfilteredItem(java.lang.Object)
+         */
+        @Override
+        protected Item getUnfilteredItem(Object itemId) {
+
+            Item item = super.getUnfilteredItem(itemId);
+            if ((item != null) && m_lazyResources.containsKey(itemId)) {
+                return new LazyItem(itemId, item);
+            }
+            return item;
+        }
+
+        /**
+         * Marks the item with the given id as lazily filled.<p>
+         *
+         * @param itemId the item id
+         * @param resource the resource of the item
+         */
+        void addLazyResource(Object itemId, CmsResource resource) {
+
+            m_lazyResources.put(itemId, resource);
+        }
+
+        /**
+         * Returns the number of items that have not been filled completely yet.<p>
+         *
+         * @return the number of lazily filled items
+         */
+        int getLazyItemCount() {
+
+            return m_lazyResources.size();
+        }
+
+        /**
+         * Returns the item with the given id without loading its lazily filled properties,
+         * even if it is filtered out.<p>
+         *
+         * @param itemId the item id
+         *
+         * @return the item, or <code>null</code> if the container has no item with the given id
+         */
+        Item getItemNoLoad(Object itemId) {
+
+            return super.getUnfilteredItem(itemId);
+        }
+
+        /**
+         * Fills the remaining properties of the given item if it has been filled lazily
+         * and the property is not one of the basic properties.<p>
+         *
+         * @param itemId the item id
+         * @param propertyId the property id that is about to be read
+         */
+        void loadLazyItem(Object itemId, Object propertyId) {
+
+            if (!m_lazyResources.isEmpty()
+                && !BASIC_PROPERTIES.contains(propertyId)
+                && m_lazyResources.containsKey(itemId)) {
+                if (m_sorting) {
+                    loadSortProperty(itemId, propertyId);
+                } else {
+                    loadLazyItems(itemId);
+                }
+            }
+        }
+
+        /**
+         * Removes the lazy fill mark of the item with the given id.<p>
+         *
+         * @param itemId the item id
+         */
+        void removeLazyResource(Object itemId) {
+
+            m_lazyResources.remove(itemId);
+            m_sortProperties.remove(itemId);
+        }
+
+        /**
+         * Sets the table used to fill the lazily filled items.<p>
+         *
+         * @param table the table
+         */
+        void setTable(CmsResourceTable table) {
+
+            m_table = table;
+        }
+
+        /**
+         * Fills the remaining properties of a page of lazily filled items.<p>
+         *
+         * The page starts with the given item and continues with the following items of the current sort order.
+         * In case no item is given or the item is not visible, the page is taken from the remaining
+         * lazily filled items.<p>
+         *
+         * @param itemId the id of the first item of the page, may be <code>null</code>
+         */
+        private void loadLazyItems(Object itemId) {
+
+            List<CmsResource> page = new ArrayList<CmsResource>(LAZY_PAGE_SIZE);
+            int index = -1;
+            if (itemId != null) {
+                page.add(m_lazyResources.remove(itemId));
+                m_sortProperties.remove(itemId);
+                index = indexOfId(itemId);
+            }
+            if (index >= 0) {
+                for (int i = index + 1; (i < size()) && (page.size() < LAZY_PAGE_SIZE); i++) {
+                    Object id = getIdByIndex(i);
+                    CmsResource resource = m_lazyResources.remove(id);
+                    if (resource != null) {
+                        page.add(resource);
+                        m_sortProperties.remove(id);
+                    }
+                }
+            } else {
+                Iterator<Map.Entry<Object, CmsResource>> it = m_lazyResources.entrySet().iterator();
+                while (it.hasNext() && (page.size() < LAZY_PAGE_SIZE)) {
+                    Map.Entry<Object, CmsResource> entry = it.next();
+                    page.add(entry.getValue());
+                    m_sortProperties.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+            if (m_table != null) {
+                m_table.fillLazyItems(page);
+            }
+        }
+
+        /**
+         * Fills a single property of a lazily filled item while the container is sorted.<p>
+         *
+         * @param itemId the item id
+         * @param propertyId the property id that is about to be read
+         */
+        private void loadSortProperty(Object itemId, Object propertyId) {
+
+            Set<Object> filled = m_sortProperties.get(itemId);
+            if ((filled != null) && filled.contains(propertyId)) {
+                return;
+            }
+            Collection<?> filledNow = m_table.fillLazyProperty(
+                getItemNoLoad(itemId),
+                m_lazyResources.get(itemId),
+                propertyId);
+            if (filledNow == null) {
+                // the item has been filled completely
+                removeLazyResource(itemId);
+                return;
+            }
+            if (filled == null) {
+                filled = new HashSet<Object>();
+                m_sortProperties.put(itemId, filled);
+            }
+            filled.addAll(filledNow);
+        }
     }
 
     /** Flag to mark columns as initially collapsed.*/
@@ -300,6 +738,41 @@ public class CmsResourceTable extends CustomComponent {
     /** Flag to mark columns as invisible. */
     public static final int INVISIBLE = 2;
 
+    /** The properties that are filled immediately, even if the table items are filled lazily. */
+    static final Set<CmsResourceTableProperty> BASIC_PROPERTIES = Collections.unmodifiableSet(
+        Sets.newHashSet(
+            PROPERTY_RESOURCE_NAME,
+            PROPERTY_SITE_PATH,
+            PROPERTY_RESOURCE_TYPE,
+            PROPERTY_INTERNAL_RESOURCE_TYPE,
+            PROPERTY_IS_FOLDER,
+            PROPERTY_SIZE,
+            PROPERTY_DATE_MODIFIED,
+            PROPERTY_DATE_CREATED,
+            PROPERTY_DATE_RELEASED,
+            PROPERTY_DATE_EXPIRED,
+            PROPERTY_STATE));
+
+    /** The number of children read together, if the table is filled with the children of a folder page by page. */
+    static final int FOLDER_PAGE_SIZE = 200;
+
+    /** The number of lazily filled items that are loaded together. */
+    static final int LAZY_PAGE_SIZE = 50;
+
+    /** The properties filled from the navigation properties, which depend on each other. */
+    private static final Set<CmsResourceTableProperty> NAVIGATION_PROPERTIES = Collections.unmodifiableSet(
+        Sets.newHashSet(PROPERTY_NAVIGATION_TEXT, PROPERTY_NAVIGATION_POSITION, PROPERTY_IN_NAVIGATION));
+
+    /** The properties filled from the VFS properties of the resource. */
+    private static final Set<CmsResourceTableProperty> VFS_PROPERTY_COLUMNS = Collections.unmodifiableSet(
+        Sets.newHashSet(
+            PROPERTY_TITLE,
+            PROPERTY_NAVIGATION_TEXT,
+            PROPERTY_NAVIGATION_POSITION,
+            PROPERTY_IN_NAVIGATION,
+            PROPERTY_COPYRIGHT,
+            PROPERTY_CACHE));
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsResourceTable.class);
 
@@ -310,11 +783,49 @@ public class CmsResourceTable extends CustomComponent {
     protected ItemContainer m_container = new ItemContainer();
 
     /** The table used to display the resource data. */
-    protected Table m_fileTable = new Table();
+    protected Table m_fileTable = new Table() {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Reads the next page of children once the table has been scrolled close to the last item read.<p>
+         *
+         * @see com.vaadin.v7.ui.Table#changeVariables(java.lang.Object, java.util.Map)
+         */
+        @Override
+        public void changeVariables(Object source, Map<String, Object> variables) {
+
+            super.changeVariables(source, variables);
+            if ((m_folderPages != null)
+                && ((getCurrentPageFirstItemIndex() + getPageLength() + LAZY_PAGE_SIZE) >= m_container.size())) {
+                loadNextPage();
+                sort();
+            }
+        }
+    };
 
     /** Property provider for additional columns. */
     protected List<I_ResourcePropertyProvider> m_propertyProviders;
 
+    /** The children of the folder the table is filled with, as long as not all of them have been read. */
+    private FolderPages m_folderPages;
+
+    /** Flag indicating the table items should be filled lazily. */
+    private boolean m_lazyFill;
+
+    /** The CMS context used to load the lazily filled items. */
+    private CmsObject m_lazyFillCms;
+
+    /** The workplace locale used to load the lazily filled items. */
+    private Locale m_lazyFillLocale;
+
+    /** The lock states read together for the items filled together, by structure id. */
+    private Map<CmsUUID, CmsLock> m_locks;
+
+    /** The principal and project name cache used while filling items, shared by all items filled together. */
+    private Map<CmsUUID, String> m_nameCache;
+
     /**
      * Creates a new instance.<p>
      *
@@ -323,6 +834,7 @@ public class CmsResourceTable extends CustomComponent {
     public CmsResourceTable() {
 
         m_propertyProviders = new ArrayList<I_ResourcePropertyProvider>();
+        m_container.setTable(this);
         m_fileTable.setContainerDataSource(m_container);
         setCompositionRoot(m_fileTable);
         m_fileTable.setRowHeaderMode(RowHeaderMode.HIDDEN);
@@ -337,6 +849,31 @@ public class CmsResourceTable extends CustomComponent {
      */
     public static void fillItemDefault(Item resourceItem, CmsObject cms, CmsResource resource, Locale locale) {
 
+        fillItemDefault(resourceItem, cms, resource, locale, null, null);
+    }
+
+    /**
+     * Static helper method to initialize the 'standard' properties of a data item from a given resource.<p>
+     *
+     * @param resourceItem the resource item to fill
+     * @param cms the CMS context
+     * @param resource the resource
+     * @param locale the locale
+     * @param nameCache the cache for principal and project names shared by all items filled together,
+     *      may be <code>null</code>
+     * @param lock the lock state of the resource if it has already been read, may be <code>null</code>
+     *
+     * @see CmsResourceUtil#setNameCache(Map)
+     * @see CmsObject#getLocks(List)
+     */
+    public static void fillItemDefault(
+        Item resourceItem,
+        CmsObject cms,
+        CmsResource resource,
+        Locale locale,
+        Map<CmsUUID, String> nameCache,
+        CmsLock lock) {
+
         if (resource == null) {
             LOG.error("Error rendering item for 'null' resource");
             return;
@@ -350,18 +887,22 @@ public class CmsResourceTable extends CustomComponent {
             cms = A_CmsUI.getCmsObject();
             LOG.warn("CmsObject was 'null', using thread local CmsObject");
         }
+        fillItemBasic(resourceItem, cms, resource, locale);
         CmsResourceUtil resUtil = new CmsResourceUtil(cms, resource);
+        resUtil.setNameCache(nameCache);
+        resUtil.setLock(lock);
         Map<String, CmsProperty> resourceProps = null;
-        try {
-            List<CmsProperty> props = cms.readPropertyObjects(resource, false);
-            resourceProps = new HashMap<String, CmsProperty>();
-            for (CmsProperty prop : props) {
-                resourceProps.put(prop.getName(), prop);
+        if (!Collections.disjoint(resourceItem.getItemPropertyIds(), VFS_PROPERTY_COLUMNS)) {
+            try {
+                List<CmsProperty> props = cms.readPropertyObjects(resource, false);
+                resourceProps = new HashMap<String, CmsProperty>();
+                for (CmsProperty prop : props) {
+                    resourceProps.put(prop.getName(), prop);
+                }
+            } catch (CmsException e1) {
+                LOG.debug("Unable to read properties for resource '" + resource.getRootPath() + "'.", e1);
             }
-        } catch (CmsException e1) {
-            LOG.debug("Unable to read properties for resource '" + resource.getRootPath() + "'.", e1);
         }
-        I_CmsResourceType type = OpenCms.getResourceManager().getResourceType(resource);
         if (resourceItem.getItemProperty(PROPERTY_TYPE_ICON) != null) {
             resourceItem.getItemProperty(PROPERTY_TYPE_ICON).setValue(
                 new CmsResourceIcon(resUtil, resource.getState(), true));
@@ -399,14 +940,6 @@ public class CmsResourceTable extends CustomComponent {
                 Boolean.valueOf(resUtil.isReleasedAndNotExpired()));
         }
 
-        if (resourceItem.getItemProperty(PROPERTY_RESOURCE_NAME) != null) {
-            resourceItem.getItemProperty(PROPERTY_RESOURCE_NAME).setValue(resource.getName());
-        }
-
-        if (resourceItem.getItemProperty(PROPERTY_SITE_PATH) != null) {
-            resourceItem.getItemProperty(PROPERTY_SITE_PATH).setValue(cms.getSitePath(resource));
-        }
-
         if ((resourceItem.getItemProperty(PROPERTY_TITLE) != null) && (resourceProps != null)) {
             resourceItem.getItemProperty(PROPERTY_TITLE).setValue(
                 resourceProps.containsKey(CmsPropertyDefinition.PROPERTY_TITLE)
@@ -459,71 +992,22 @@ public class CmsResourceTable extends CustomComponent {
                 : "");
         }
 
-        if (resourceItem.getItemProperty(PROPERTY_RESOURCE_TYPE) != null) {
-            resourceItem.getItemProperty(PROPERTY_RESOURCE_TYPE).setValue(
-                CmsWorkplaceMessages.getResourceTypeName(locale, type.getTypeName()));
-        }
-
-        if (resourceItem.getItemProperty(PROPERTY_INTERNAL_RESOURCE_TYPE) != null) {
-            resourceItem.getItemProperty(PROPERTY_INTERNAL_RESOURCE_TYPE).setValue(type.getTypeName());
-        }
-
-        if (resourceItem.getItemProperty(PROPERTY_IS_FOLDER) != null) {
-            resourceItem.getItemProperty(PROPERTY_IS_FOLDER).setValue(Boolean.valueOf(resource.isFolder()));
-        }
-
-        if (resourceItem.getItemProperty(PROPERTY_SIZE) != null) {
-            if (resource.isFile()) {
-                resourceItem.getItemProperty(PROPERTY_SIZE).setValue(Integer.valueOf(resource.getLength()));
-            }
-        }
-
         if (resourceItem.getItemProperty(PROPERTY_PERMISSIONS) != null) {
             resourceItem.getItemProperty(PROPERTY_PERMISSIONS).setValue(resUtil.getPermissionString());
         }
 
-        if (resourceItem.getItemProperty(PROPERTY_DATE_MODIFIED) != null) {
-            resourceItem.getItemProperty(PROPERTY_DATE_MODIFIED).setValue(Long.valueOf(resource.getDateLastModified()));
-        }
-
         if (resourceItem.getItemProperty(PROPERTY_USER_MODIFIED) != null) {
             resourceItem.getItemProperty(PROPERTY_USER_MODIFIED).setValue(resUtil.getUserLastModified());
         }
 
-        if (resourceItem.getItemProperty(PROPERTY_DATE_CREATED) != null) {
-            resourceItem.getItemProperty(PROPERTY_DATE_CREATED).setValue(Long.valueOf(resource.getDateCreated()));
-        }
-
         if (resourceItem.getItemProperty(PROPERTY_USER_CREATED) != null) {
             resourceItem.getItemProperty(PROPERTY_USER_CREATED).setValue(resUtil.getUserCreated());
         }
 
-        if (resourceItem.getItemProperty(PROPERTY_DATE_RELEASED) != null) {
-            long release = resource.getDateReleased();
-            if (release != CmsResource.DATE_RELEASED_DEFAULT) {
-                resourceItem.getItemProperty(PROPERTY_DATE_RELEASED).setValue(Long.valueOf(release));
-            } else {
-                resourceItem.getItemProperty(PROPERTY_DATE_RELEASED).setValue(null);
-            }
-        }
-
-        if (resourceItem.getItemProperty(PROPERTY_DATE_EXPIRED) != null) {
-            long expire = resource.getDateExpired();
-            if (expire != CmsResource.DATE_EXPIRED_DEFAULT) {
-                resourceItem.getItemProperty(PROPERTY_DATE_EXPIRED).setValue(Long.valueOf(expire));
-            } else {
-                resourceItem.getItemProperty(PROPERTY_DATE_EXPIRED).setValue(null);
-            }
-        }
-
         if (resourceItem.getItemProperty(PROPERTY_STATE_NAME) != null) {
             resourceItem.getItemProperty(PROPERTY_STATE_NAME).setValue(resUtil.getStateName());
         }
 
-        if (resourceItem.getItemProperty(PROPERTY_STATE) != null) {
-            resourceItem.getItemProperty(PROPERTY_STATE).setValue(resource.getState());
-        }
-
         if (resourceItem.getItemProperty(PROPERTY_USER_LOCKED) != null) {
             resourceItem.getItemProperty(PROPERTY_USER_LOCKED).setValue(resUtil.getLockedByName());
         }
@@ -602,12 +1086,34 @@ public class CmsResourceTable extends CustomComponent {
     public void fillTable(CmsObject cms, List<CmsResource> resources, boolean clearFilter, boolean sort) {
 
         Locale wpLocale = OpenCms.getWorkplaceManager().getWorkplaceLocale(cms);
+        m_folderPages = null;
         m_container.removeAllItems();
         if (clearFilter) {
             m_container.removeAllContainerFilters();
         }
-        for (CmsResource resource : resources) {
-            fillItem(cms, resource, wpLocale);
+        // filtering would require all properties anyway, so only fill lazily if no filters are set
+        boolean lazy = m_lazyFill && m_container.getContainerFilters().isEmpty();
+        m_lazyFillCms = lazy ? cms : null;
+        m_lazyFillLocale = lazy ? wpLocale : null;
+        if (!lazy) {
+            startFill(cms, resources);
+        }
+        try {
+            for (CmsResource resource : resources) {
+                if (lazy) {
+                    String itemId = resource.getStructureId().toString();
+                    Item resourceItem = m_container.getItemNoLoad(itemId);
+                    if (resourceItem == null) {
+                        resourceItem = m_container.addItem(itemId);
+                    }
+                    fillItemBasic(resourceItem, cms, resource, wpLocale);
+                    m_container.addLazyResource(itemId, resource);
+                } else {
+                    fillItem(cms, resource, wpLocale);
+                }
+            }
+        } finally {
+            finishFill();
         }
         if (sort) {
             m_fileTable.sort();
@@ -615,6 +1121,58 @@ public class CmsResourceTable extends CustomComponent {
         clearSelection();
     }
 
+    /**
+     * Fills the resource table with the children of a folder.<p>
+     *
+     * In case the table items are filled lazily and the table is sorted by name or by the date last modified,
+     * only the first page of the children is read. The following pages are read as soon as the table is scrolled
+     * close to the last item read, or before the table is sorted differently or filtered.
+     * If the table is sorted by name, the sub folders are read completely and only the files are read page
+     * by page, since their names are sorted like their root paths.<p>
+     *
+     * @param cms the current CMS context
+     * @param folder the folder
+     * @param filter the filter for the children
+     * @param clearFilter <code>true</code> to clear the search filter
+     *
+     * @throws CmsException if reading the children fails
+     */
+    public void fillTable(CmsObject cms, CmsResource folder, CmsResourceFilter filter, boolean clearFilter)
+    throws CmsException {
+
+        if (clearFilter) {
+            m_container.removeAllContainerFilters();
+        }
+        Object sortPropertyId = m_fileTable.getSortContainerPropertyId();
+        if (!m_lazyFill
+            || !m_container.getContainerFilters().isEmpty()
+            || !(PROPERTY_RESOURCE_NAME.equals(sortPropertyId) || PROPERTY_DATE_MODIFIED.equals(sortPropertyId))) {
+            // either all children are needed anyway, or they can not be read in the sort order of the table
+            fillTable(cms, cms.readResources(folder, filter, false), clearFilter);
+            return;
+        }
+        String folderPath = cms.getSitePath(folder);
+        List<CmsResource> resources = new ArrayList<CmsResource>();
+        CmsResourceFilter pageFilter = filter;
+        if (PROPERTY_RESOURCE_NAME.equals(sortPropertyId)) {
+            resources.addAll(
+                cms.getResourcesInFolder(
+                    folderPath,
+                    filter.addRequireFolder(),
+                    CmsChildResourceIndex.Order.ROOT_PATH,
+                    false,
+                    null,
+                    0));
+            pageFilter = filter.addRequireFile();
+        }
+        FolderPages pages = new FolderPages(folderPath, pageFilter, sortPropertyId, m_fileTable.isSortAscending());
+        resources.addAll(pages.readPage(cms));
+        fillTable(cms, resources, clearFilter);
+        if (!pages.isComplete()) {
+            m_folderPages = pages;
+        }
+    }
+
     /**
      * Gets structure ids of resources for current folder in current sort order.<p>
      *
@@ -623,6 +1181,7 @@ public class CmsResourceTable extends CustomComponent {
     @SuppressWarnings("unchecked")
     public List<CmsUUID> getAllIds() {
 
+        loadAllPages();
         return itemIdsToUUIDs((List<String>)m_fileTable.getContainerDataSource().getItemIds());
     }
 
@@ -648,6 +1207,16 @@ public class CmsResourceTable extends CustomComponent {
         return new CmsUUID(itemId);
     }
 
+    /**
+     * Returns if the table has been filled with the children of a folder, of which not all pages have been read yet.<p>
+     *
+     * @return <code>true</code> if not all children of the folder have been read yet
+     */
+    public boolean hasMorePages() {
+
+        return m_folderPages != null;
+    }
+
     /**
      * Returns if the column with the given property id is visible and not collapsed.<p>
      *
@@ -676,6 +1245,7 @@ public class CmsResourceTable extends CustomComponent {
      */
     public void selectAll() {
 
+        loadAllPages();
         m_fileTable.setValue(m_fileTable.getItemIds());
     }
 
@@ -695,6 +1265,24 @@ public class CmsResourceTable extends CustomComponent {
         }
     }
 
+    /**
+     * Sets if the table items should be filled lazily.<p>
+     *
+     * In this case {@link #fillTable(CmsObject, List, boolean, boolean)} only sets the basic properties of the items,
+     * that do not require any further reads or permission checks. All other properties are filled page by page,
+     * as soon as they are displayed or otherwise accessed. Sorting by or filtering on such a property
+     * fills all remaining items.<p>
+     *
+     * Lazy filling does not use {@link #fillItem(CmsObject, CmsResource, Locale)}, so it should only be enabled
+     * for tables that do not override that method.<p>
+     *
+     * @param lazyFill <code>true</code> to fill the table items lazily
+     */
+    public void setLazyFill(boolean lazyFill) {
+
+        m_lazyFill = lazyFill;
+    }
+
     /**
      * Sets the table drag mode.<p>
      *
@@ -734,14 +1322,12 @@ public class CmsResourceTable extends CustomComponent {
      */
     protected void fillItem(CmsObject cms, CmsResource resource, Locale locale) {
 
+        m_container.removeLazyResource(resource.getStructureId().toString());
         Item resourceItem = m_container.getItem(resource.getStructureId().toString());
         if (resourceItem == null) {
             resourceItem = m_container.addItem(resource.getStructureId().toString());
         }
-        fillItemDefault(resourceItem, cms, resource, locale);
-        for (I_ResourcePropertyProvider provider : m_propertyProviders) {
-            provider.addItemProperties(resourceItem, cms, resource, locale);
-        }
+        fillItemProperties(resourceItem, cms, resource, locale);
     }
 
     /**
@@ -761,4 +1347,272 @@ public class CmsResourceTable extends CustomComponent {
         }
         return ids;
     }
+
+    /**
+     * Reads the next page of the children of the folder the table has been filled with, and adds their items.<p>
+     *
+     * The items are filled lazily and added at the end, the table needs to be sorted afterwards.<p>
+     */
+    void loadNextPage() {
+
+        if (m_folderPages == null) {
+            return;
+        }
+        CmsObject cms = getLazyFillCms();
+        List<CmsResource> page;
+        try {
+            page = m_folderPages.readPage(cms);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            m_folderPages = null;
+            return;
+        }
+        if (m_folderPages.isComplete()) {
+            m_folderPages = null;
+        }
+        Locale locale = getLazyFillLocale(cms);
+        for (CmsResource resource : page) {
+            String itemId = resource.getStructureId().toString();
+            // items added by an update in the meantime are kept
+            if (m_container.getItemNoLoad(itemId) == null) {
+                Item resourceItem = m_container.addItem(itemId);
+                fillItemBasic(resourceItem, cms, resource, locale);
+                m_container.addLazyResource(itemId, resource);
+            }
+        }
+    }
+
+    /**
+     * Initializes the basic properties of a data item from a given resource,
+     * that do not require any further reads or permission checks.<p>
+     *
+     * @param resourceItem the resource item to fill
+     * @param cms the CMS context
+     * @param resource the resource
+     * @param locale the locale
+     *
+     * @see #BASIC_PROPERTIES
+     */
+    private static void fillItemBasic(Item resourceItem, CmsObject cms, CmsResource resource, Locale locale) {
+
+        I_CmsResourceType type = OpenCms.getResourceManager().getResourceType(resource);
+
+        if (resourceItem.getItemProperty(PROPERTY_RESOURCE_NAME) != null) {
+            resourceItem.getItemProperty(PROPERTY_RESOURCE_NAME).setValue(resource.getName());
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_SITE_PATH) != null) {
+            resourceItem.getItemProperty(PROPERTY_SITE_PATH).setValue(cms.getSitePath(resource));
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_RESOURCE_TYPE) != null) {
+            resourceItem.getItemProperty(PROPERTY_RESOURCE_TYPE).setValue(
+                CmsWorkplaceMessages.getResourceTypeName(locale, type.getTypeName()));
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_INTERNAL_RESOURCE_TYPE) != null) {
+            resourceItem.getItemProperty(PROPERTY_INTERNAL_RESOURCE_TYPE).setValue(type.getTypeName());
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_IS_FOLDER) != null) {
+            resourceItem.getItemProperty(PROPERTY_IS_FOLDER).setValue(Boolean.valueOf(resource.isFolder()));
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_SIZE) != null) {
+            if (resource.isFile()) {
+                resourceItem.getItemProperty(PROPERTY_SIZE).setValue(Integer.valueOf(resource.getLength()));
+            }
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_DATE_MODIFIED) != null) {
+            resourceItem.getItemProperty(PROPERTY_DATE_MODIFIED).setValue(Long.valueOf(resource.getDateLastModified()));
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_DATE_CREATED) != null) {
+            resourceItem.getItemProperty(PROPERTY_DATE_CREATED).setValue(Long.valueOf(resource.getDateCreated()));
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_DATE_RELEASED) != null) {
+            long release = resource.getDateReleased();
+            if (release != CmsResource.DATE_RELEASED_DEFAULT) {
+                resourceItem.getItemProperty(PROPERTY_DATE_RELEASED).setValue(Long.valueOf(release));
+            } else {
+                resourceItem.getItemProperty(PROPERTY_DATE_RELEASED).setValue(null);
+            }
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_DATE_EXPIRED) != null) {
+            long expire = resource.getDateExpired();
+            if (expire != CmsResource.DATE_EXPIRED_DEFAULT) {
+                resourceItem.getItemProperty(PROPERTY_DATE_EXPIRED).setValue(Long.valueOf(expire));
+            } else {
+                resourceItem.getItemProperty(PROPERTY_DATE_EXPIRED).setValue(null);
+            }
+        }
+
+        if (resourceItem.getItemProperty(PROPERTY_STATE) != null) {
+            resourceItem.getItemProperty(PROPERTY_STATE).setValue(resource.getState());
+        }
+    }
+
+    /**
+     * Fills the properties of the given item, including the ones of the property providers.<p>
+     *
+     * @param resourceItem the resource item
+     * @param cms the cms context
+     * @param resource the resource
+     * @param locale the workplace locale
+     */
+    private void fillItemProperties(Item resourceItem, CmsObject cms, CmsResource resource, Locale locale) {
+
+        CmsLock lock = m_locks != null ? m_locks.get(resource.getStructureId()) : null;
+        fillItemDefault(resourceItem, cms, resource, locale, m_nameCache, lock);
+        for (I_ResourcePropertyProvider provider : m_propertyProviders) {
+            provider.addItemProperties(resourceItem, cms, resource, locale);
+        }
+    }
+
+    /**
+     * Fills the remaining properties of a page of lazily filled items.<p>
+     *
+     * The lock states are read in one call, and the principal and project names only once for the whole page.<p>
+     *
+     * @param resources the resources of the items to fill
+     */
+    private void fillLazyItems(List<CmsResource> resources) {
+
+        CmsObject cms = getLazyFillCms();
+        Locale locale = getLazyFillLocale(cms);
+        startFill(cms, resources);
+        try {
+            for (CmsResource resource : resources) {
+                Item resourceItem = m_container.getItemNoLoad(resource.getStructureId().toString());
+                if (resourceItem != null) {
+                    fillItemProperties(resourceItem, cms, resource, locale);
+                }
+            }
+        } finally {
+            finishFill();
+        }
+    }
+
+    /**
+     * Fills a single property of a lazily filled item, e.g. to sort the table by it.<p>
+     *
+     * The navigation properties depend on each other and are filled together.
+     * In case the table has property providers, the item is filled completely.<p>
+     *
+     * @param resourceItem the resource item
+     * @param resource the resource
+     * @param propertyId the property to fill
+     *
+     * @return the properties that have been filled, or <code>null</code> if the item has been filled completely
+     */
+    private Collection<?> fillLazyProperty(Item resourceItem, CmsResource resource, Object propertyId) {
+
+        CmsObject cms = getLazyFillCms();
+        Locale locale = getLazyFillLocale(cms);
+        if (!m_propertyProviders.isEmpty()) {
+            fillItemProperties(resourceItem, cms, resource, locale);
+            return null;
+        }
+        Set<Object> propertyIds = new HashSet<Object>();
+        if (NAVIGATION_PROPERTIES.contains(propertyId)) {
+            propertyIds.addAll(NAVIGATION_PROPERTIES);
+        } else {
+            propertyIds.add(propertyId);
+        }
+        propertyIds.retainAll(resourceItem.getItemPropertyIds());
+        PropertysetItem sortItem = new PropertysetItem();
+        for (Object id : propertyIds) {
+            sortItem.addItemProperty(id, new ObjectProperty<Object>(null, Object.class));
+        }
+        CmsLock lock = m_locks != null ? m_locks.get(resource.getStructureId()) : null;
+        fillItemDefault(sortItem, cms, resource, locale, m_nameCache, lock);
+        for (Object id : propertyIds) {
+            @SuppressWarnings("unchecked")
+            Property<Object> property = resourceItem.getItemProperty(id);
+            property.setValue(sortItem.getItemProperty(id).getValue());
+        }
+        return propertyIds;
+    }
+
+    /**
+     * Releases the lock states and names read for the items filled together.<p>
+     */
+    private void finishFill() {
+
+        m_locks = null;
+        m_nameCache = null;
+    }
+
+    /**
+     * Returns the CMS context used to fill the lazily filled items.<p>
+     *
+     * @return the CMS context
+     */
+    private CmsObject getLazyFillCms() {
+
+        return m_lazyFillCms != null ? m_lazyFillCms : A_CmsUI.getCmsObject();
+    }
+
+    /**
+     * Returns the workplace locale used to fill the lazily filled items.<p>
+     *
+     * @param cms the CMS context
+     *
+     * @return the workplace locale
+     */
+    private Locale getLazyFillLocale(CmsObject cms) {
+
+        return m_lazyFillLocale != null ? m_lazyFillLocale : OpenCms.getWorkplaceManager().getWorkplaceLocale(cms);
+    }
+
+    /**
+     * Reads all remaining pages of the children of the folder the table has been filled with, and sorts the table.<p>
+     */
+    private void loadAllPages() {
+
+        if (m_folderPages != null) {
+            loadRemainingPages();
+            m_fileTable.sort();
+        }
+    }
+
+    /**
+     * Reads all remaining pages of the children of the folder the table has been filled with.<p>
+     *
+     * The table needs to be sorted afterwards.<p>
+     */
+    private void loadRemainingPages() {
+
+        while (m_folderPages != null) {
+            loadNextPage();
+        }
+    }
+
+    /**
+     * Prepares filling the items of the given resources together.<p>
+     *
+     * The lock states of all resources are read in one call.
+     * The principal and project names are cached until {@link #finishFill()} is called.<p>
+     *
+     * @param cms the CMS context
+     * @param resources the resources of the items to fill
+     */
+    private void startFill(CmsObject cms, List<CmsResource> resources) {
+
+        m_nameCache = new HashMap<CmsUUID, String>();
+        m_locks = new HashMap<CmsUUID, CmsLock>();
+        try {
+            List<CmsLock> locks = cms.getLocks(resources);
+            for (int i = 0; i < resources.size(); i++) {
+                m_locks.put(resources.get(i).getStructureId(), locks.get(i));
+            }
+        } catch (CmsException e) {
+            // the lock states are read for every resource on its own
+            LOG.debug(e.getLocalizedMessage(), e);
+            m_locks.clear();
+        }
+    }
 }
@@ -213,6 +213,9 @@ public final class CmsResourceUtil {
     /** The message bundle for formatting dates, depends on the request locale. */
     private CmsMessages m_messages;
 
+    /** Optional cache for principal and project names by id, may be shared by several instances. */
+    private Map<CmsUUID, String> m_nameCache;
+
     /** Reference project resources cache. */
     private List<String> m_projectResources;
 
@@ -610,8 +613,7 @@ public final class CmsResourceUtil {
             // user
             lockedBy = getLock().getUserId().toString();
             try {
-                lockedBy = getCurrentOuRelativeName(
-                    CmsPrincipal.readPrincipalIncludingHistory(getCms(), getLock().getUserId()).getName());
+                lockedBy = getPrincipalName(getLock().getUserId());
             } catch (Throwable e) {
                 lockedBy = e.getMessage();
             }
@@ -653,11 +655,18 @@ public final class CmsResourceUtil {
                 // the resource is unlocked and unchanged
                 return "";
             }
-            try {
-                return getCurrentOuRelativeName(getCms().readProject(pId).getName());
-            } catch (CmsDbEntryNotFoundException e) {
-                return getCurrentOuRelativeName(getCms().readHistoryProject(pId).getName());
+            String name = m_nameCache != null ? m_nameCache.get(pId) : null;
+            if (name == null) {
+                try {
+                    name = getCurrentOuRelativeName(getCms().readProject(pId).getName());
+                } catch (CmsDbEntryNotFoundException e) {
+                    name = getCurrentOuRelativeName(getCms().readHistoryProject(pId).getName());
+                }
+                if (m_nameCache != null) {
+                    m_nameCache.put(pId, name);
+                }
             }
+            return name;
         } catch (Throwable e) {
             LOG.error(e.getLocalizedMessage(), e);
             return "";
@@ -1272,8 +1281,7 @@ public final class CmsResourceUtil {
 
         String user = m_resource.getUserCreated().toString();
         try {
-            user = getCurrentOuRelativeName(
-                CmsPrincipal.readPrincipalIncludingHistory(getCms(), m_resource.getUserCreated()).getName());
+            user = getPrincipalName(m_resource.getUserCreated());
         } catch (Throwable e) {
             LOG.info(e.getLocalizedMessage());
         }
@@ -1289,8 +1297,7 @@ public final class CmsResourceUtil {
 
         String user = m_resource.getUserLastModified().toString();
         try {
-            user = getCurrentOuRelativeName(
-                CmsPrincipal.readPrincipalIncludingHistory(getCms(), m_resource.getUserLastModified()).getName());
+            user = getPrincipalName(m_resource.getUserLastModified());
         } catch (Throwable e) {
             LOG.info(e.getLocalizedMessage());
         }
@@ -1388,6 +1395,32 @@ public final class CmsResourceUtil {
         m_messages = null;
     }
 
+    /**
+     * Sets the lock state of the resource, in case it has already been read together with the lock states
+     * of other resources.<p>
+     *
+     * @param lock the lock state of the resource, or <code>null</code> to read it when needed
+     *
+     * @see org.opencms.file.CmsObject#getLocks(List)
+     */
+    public void setLock(CmsLock lock) {
+
+        m_lock = lock;
+    }
+
+    /**
+     * Sets a cache for the names of the principals and projects displayed for the resource.<p>
+     *
+     * The same cache can be shared by several instances that are used to display a list of resources,
+     * so every user or project is only read once for the whole list.<p>
+     *
+     * @param nameCache the name cache, or <code>null</code> to read the names every time
+     */
+    public void setNameCache(Map<CmsUUID, String> nameCache) {
+
+        m_nameCache = nameCache;
+    }
+
     /**
      * Sets the project to use to check project state.<p>
      *
@@ -1481,6 +1514,28 @@ public final class CmsResourceUtil {
         return m_messages;
     }
 
+    /**
+     * Returns the current ou relative name of the principal with the given id.<p>
+     *
+     * @param principalId the principal id
+     *
+     * @return the name of the principal
+     *
+     * @throws CmsException if reading the principal fails
+     */
+    private String getPrincipalName(CmsUUID principalId) throws CmsException {
+
+        String name = m_nameCache != null ? m_nameCache.get(principalId) : null;
+        if (name == null) {
+            name = getCurrentOuRelativeName(
+                CmsPrincipal.readPrincipalIncludingHistory(getCms(), principalId).getName());
+            if (m_nameCache != null) {
+                m_nameCache.put(principalId, name);
+            }
+        }
+        return name;
+    }
+
     /**
      * Returns the reference project resources.<p>
      *
@@ -65,6 +65,11 @@ public final class AllTests {
         suite.addTest(TestSubscriptionManager.suite());
         suite.addTest(TestAliases.suite());
         suite.addTest(TestUrlNameMapping.suite());
+        suite.addTest(TestCmsRequestReadMemo.suite());
+        suite.addTest(TestCmsPublishClosure.suite());
+        suite.addTest(new TestSuite(TestCmsChildResourceIndex.class));
+        suite.addTest(new TestSuite(TestCmsPinnedConnection.class));
+        suite.addTest(new TestSuite(TestCmsDbPoolReplicas.class));
         // $JUnit-END$
         return suite;
     }
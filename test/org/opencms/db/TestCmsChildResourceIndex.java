@@ -0,0 +1,219 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests the index of online child resources.<p>
+ */
+public class TestCmsChildResourceIndex extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsChildResourceIndex(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that resources without release date are sorted by their date last modified.<p>
+     */
+    public void testDateReleasedFallback() {
+
+        CmsChildResourceIndex index = new CmsChildResourceIndex(10);
+        CmsResource a = createResource("/news/a.html", 50, CmsResource.DATE_RELEASED_DEFAULT);
+        CmsResource b = createResource("/news/b.html", 10, 40);
+        CmsResource c = createResource("/news/c.html", 20, 60);
+        index.put("/news/", Arrays.asList(a, b, c), index.getModCount());
+
+        assertEquals(Arrays.asList(b, a, c), index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_RELEASED));
+        assertEquals(50, CmsChildResourceIndex.getDate(a, CmsChildResourceIndex.Order.DATE_RELEASED));
+        assertEquals(40, CmsChildResourceIndex.getDate(b, CmsChildResourceIndex.Order.DATE_RELEASED));
+        assertEquals(10, CmsChildResourceIndex.getDate(b, CmsChildResourceIndex.Order.DATE_LAST_MODIFIED));
+    }
+
+    /**
+     * Tests that resources with the same date stay in ascending root path order in descending views.<p>
+     */
+    public void testDescendingTies() {
+
+        CmsChildResourceIndex index = new CmsChildResourceIndex(10);
+        CmsResource a = createResource("/news/a.html", 10, 200);
+        CmsResource b = createResource("/news/b.html", 10, 100);
+        CmsResource c = createResource("/news/c.html", 20, 200);
+        CmsResource d = createResource("/news/d.html", 200, CmsResource.DATE_RELEASED_DEFAULT);
+        index.put("/news/", Arrays.asList(d, c, b, a), index.getModCount());
+
+        assertEquals(
+            Arrays.asList(a, c, d, b),
+            index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_RELEASED, true));
+        assertEquals(
+            Arrays.asList(d, c, a, b),
+            index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_LAST_MODIFIED, true));
+        assertEquals(
+            Arrays.asList(d, c, b, a),
+            index.getChildren("/news/", CmsChildResourceIndex.Order.ROOT_PATH, true));
+
+        // the descending views are updated incrementally as well
+        CmsResource e = createResource("/news/0.html", 20, 200);
+        index.update(e);
+        assertEquals(
+            Arrays.asList(e, a, c, d, b),
+            index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_RELEASED, true));
+    }
+
+    /**
+     * Tests the incremental update of an indexed folder.<p>
+     */
+    public void testIncrementalUpdate() {
+
+        CmsChildResourceIndex index = new CmsChildResourceIndex(10);
+        CmsResource a = createResource("/news/a.html", 30, 100);
+        CmsResource b = createResource("/news/b.html", 10, 300);
+        index.put("/news/", Arrays.asList(a, b), index.getModCount());
+
+        // modify b and move a to another folder
+        CmsResource b2 = createResource(b.getStructureId(), "/news/b.html", 50, 300);
+        index.update(b2);
+        CmsResource a2 = createResource(a.getStructureId(), "/archive/a.html", 30, 100);
+        index.update(a2);
+        CmsResource c = createResource("/news/c.html", 40, 200);
+        index.update(c);
+
+        assertEquals(
+            Arrays.asList(c, b2),
+            index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_LAST_MODIFIED));
+        assertEquals(Arrays.asList(b2, c), index.getChildren("/news/", CmsChildResourceIndex.Order.ROOT_PATH));
+
+        index.remove(c.getStructureId());
+        assertEquals(Arrays.asList(b2), index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_RELEASED));
+        assertNull(index.getChildren("/archive/", CmsChildResourceIndex.Order.ROOT_PATH));
+    }
+
+    /**
+     * Tests that children read before a concurrent modification are not added to the index.<p>
+     */
+    public void testOutdatedPut() {
+
+        CmsChildResourceIndex index = new CmsChildResourceIndex(10);
+        long modCount = index.getModCount();
+        index.remove(new CmsUUID());
+        index.put("/news/", Arrays.asList(createResource("/news/a.html", 1, 1)), modCount);
+        assertNull(index.getChildren("/news/", CmsChildResourceIndex.Order.ROOT_PATH));
+    }
+
+    /**
+     * Tests paging through the sorted views.<p>
+     */
+    public void testPaging() {
+
+        CmsChildResourceIndex index = new CmsChildResourceIndex(10);
+        List<CmsResource> children = new ArrayList<CmsResource>();
+        for (int i = 0; i < 10; i++) {
+            children.add(createResource("/news/n" + i + ".html", 10 - i, 100 + i));
+        }
+        index.put("/news/", children, index.getModCount());
+
+        List<CmsResource> byReleased = index.getChildren("/news/", CmsChildResourceIndex.Order.DATE_RELEASED);
+        assertEquals(children.get(0), byReleased.get(0));
+        for (int i = 1; i < byReleased.size(); i++) {
+            assertTrue(byReleased.get(i - 1).getDateReleased() <= byReleased.get(i).getDateReleased());
+        }
+
+        CmsChildResourceIndex.Order order = CmsChildResourceIndex.Order.DATE_RELEASED;
+        List<CmsResource> byReleasedDesc = index.getChildren("/news/", order, true);
+        assertEquals(children.get(9), byReleasedDesc.get(0));
+        assertEquals(0, CmsChildResourceIndex.getPageStart(byReleased, order, false, null));
+        assertEquals(0, CmsChildResourceIndex.getPageStart(byReleasedDesc, order, true, null));
+        assertEquals(4, CmsChildResourceIndex.getPageStart(byReleased, order, false, byReleased.get(3)));
+        assertEquals(4, CmsChildResourceIndex.getPageStart(byReleasedDesc, order, true, byReleasedDesc.get(3)));
+
+        // the cursor resource may have been removed in the meantime
+        CmsResource removed = createResource("/news/n3x.html", 0, 100 + 6);
+        assertEquals(6, CmsChildResourceIndex.getPageStart(byReleased, order, false, removed));
+        assertEquals(3, CmsChildResourceIndex.getPageStart(byReleasedDesc, order, true, removed));
+    }
+
+    /**
+     * Creates a test resource.<p>
+     *
+     * @param structureId the structure id
+     * @param rootPath the root path
+     * @param dateLastModified the date last modified
+     * @param dateReleased the date released
+     *
+     * @return the test resource
+     */
+    private CmsResource createResource(CmsUUID structureId, String rootPath, long dateLastModified, long dateReleased) {
+
+        return new CmsResource(
+            structureId,
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsProject.ONLINE_PROJECT_ID,
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            dateLastModified,
+            CmsUUID.getNullUUID(),
+            dateReleased,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            dateLastModified,
+            0);
+    }
+
+    /**
+     * Creates a test resource with a new structure id.<p>
+     *
+     * @param rootPath the root path
+     * @param dateLastModified the date last modified
+     * @param dateReleased the date released
+     *
+     * @return the test resource
+     */
+    private CmsResource createResource(String rootPath, long dateLastModified, long dateReleased) {
+
+        return createResource(new CmsUUID(), rootPath, dateLastModified, dateReleased);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests the selection of read replica connections by the database pools.<p>
+ */
+public class TestCmsDbPoolReplicas extends OpenCmsTestCase {
+
+    /** The pools used by the test, by their pool url. */
+    private Map<String, CmsDbPoolV11> m_pools;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsDbPoolReplicas(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that a failed replica is skipped for the retry interval and the primary database is used
+     * if no replica is available.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedReplica() throws Exception {
+
+        CmsDbPoolV11 primary = createPools(0, 200, "replica1", "replica2");
+        CmsDbPoolV11 replica1 = m_pools.get("opencms:replica1");
+        CmsDbPoolV11 replica2 = m_pools.get("opencms:replica2");
+        replica1.close();
+
+        // the failed replica is skipped, the next one is used instead
+        for (int i = 0; i < 4; i++) {
+            assertEquals("replica2", readDatabaseName(primary.getReplicaConnection(m_pools)));
+        }
+        assertEquals(1, replica1.getReplicaFailures());
+        assertEquals(0, replica1.getReplicaReads());
+        assertFalse(replica1.isReplicaAvailable());
+        assertEquals(4, replica2.getReplicaReads());
+
+        // if no replica delivers a connection, the primary database has to be used
+        replica2.close();
+        assertNull(primary.getReplicaConnection(m_pools));
+        assertNull(primary.getReplicaConnection(m_pools));
+        assertEquals(1, replica1.getReplicaFailures());
+        assertEquals(1, replica2.getReplicaFailures());
+
+        // after the retry interval the replicas are tried again
+        Thread.sleep(300);
+        assertTrue(replica1.isReplicaAvailable());
+        assertNull(primary.getReplicaConnection(m_pools));
+        assertEquals(2, replica1.getReplicaFailures());
+        assertEquals(2, replica2.getReplicaFailures());
+    }
+
+    /**
+     * Tests that no replica is used during the maximum lag after an update of the online data.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMaxLag() throws Exception {
+
+        CmsDbPoolV11 primary = createPools(200, 30000, "replica1");
+        CmsDbPoolV11 replica = m_pools.get("opencms:replica1");
+        assertEquals("replica1", readDatabaseName(primary.getReplicaConnection(m_pools)));
+
+        primary.onlineDataUpdated();
+        assertNull(primary.getReplicaConnection(m_pools));
+        assertEquals(1, replica.getReplicaReads());
+
+        Thread.sleep(300);
+        assertEquals("replica1", readDatabaseName(primary.getReplicaConnection(m_pools)));
+        assertEquals(2, replica.getReplicaReads());
+        assertEquals(0, replica.getReplicaFailures());
+    }
+
+    /**
+     * Tests that a pool without replicas never delivers a replica connection.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testNoReplicas() throws Exception {
+
+        CmsDbPoolV11 primary = createPools(0, 30000);
+        assertTrue(primary.getReplicaPoolUrls().isEmpty());
+        assertNull(primary.getReplicaConnection(m_pools));
+    }
+
+    /**
+     * Tests that the replicas are used in turn.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRoundRobin() throws Exception {
+
+        CmsDbPoolV11 primary = createPools(0, 30000, "replica1", "replica2", "replica3");
+        assertEquals(3, primary.getReplicaPoolUrls().size());
+        String first = readDatabaseName(primary.getReplicaConnection(m_pools));
+        int start = Integer.parseInt(first.substring("replica".length())) - 1;
+        for (int i = 1; i < 7; i++) {
+            assertEquals(
+                "replica" + (((start + i) % 3) + 1),
+                readDatabaseName(primary.getReplicaConnection(m_pools)));
+        }
+        long reads = 0;
+        for (String url : primary.getReplicaPoolUrls()) {
+            CmsDbPoolV11 replica = m_pools.get(url);
+            assertTrue(replica.getReplicaReads() >= 2);
+            reads += replica.getReplicaReads();
+        }
+        assertEquals(7, reads);
+        assertEquals(0, primary.getReplicaReads());
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        if (m_pools != null) {
+            for (CmsDbPoolV11 pool : m_pools.values()) {
+                pool.close();
+            }
+            m_pools = null;
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Adds the configuration of a pool with its own in-memory database.<p>
+     *
+     * @param config the configuration to add to
+     * @param name the pool name, also used as database name
+     */
+    private void addPoolConfiguration(CmsParameterConfiguration config, String name) {
+
+        String prefix = "db.pool." + name + ".";
+        config.put(prefix + "jdbcDriver", "org.hsqldb.jdbc.JDBCDriver");
+        config.put(prefix + "jdbcUrl", "jdbc:hsqldb:mem:" + name);
+        config.put(prefix + "v11.username", "SA");
+        config.put(prefix + "v11.maximumPoolSize", "2");
+        config.put(prefix + "v11.connectionTimeout", "250");
+        config.put(prefix + "connects", "1");
+    }
+
+    /**
+     * Creates a primary pool and its replica pools, each with its own in-memory database.<p>
+     *
+     * @param maxLag the maximum lag of the replicas in milliseconds
+     * @param retry the retry interval for failed replicas in milliseconds
+     * @param replicas the names of the replica pools
+     *
+     * @return the primary pool
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsDbPoolV11 createPools(int maxLag, int retry, String... replicas) throws Exception {
+
+        CmsParameterConfiguration config = new CmsParameterConfiguration();
+        addPoolConfiguration(config, "primary");
+        for (String replica : replicas) {
+            addPoolConfiguration(config, replica);
+            config.add("db.pool.primary.replicas", replica);
+        }
+        config.put("db.pool.primary.replicas.maxLag", String.valueOf(maxLag));
+        config.put("db.pool.primary.replicas.retry", String.valueOf(retry));
+
+        m_pools = new HashMap<String, CmsDbPoolV11>();
+        CmsDbPoolV11 primary = new CmsDbPoolV11(config, "primary");
+        m_pools.put(primary.getPoolUrl(), primary);
+        for (String replica : replicas) {
+            CmsDbPoolV11 pool = new CmsDbPoolV11(config, replica);
+            m_pools.put(pool.getPoolUrl(), pool);
+        }
+        return primary;
+    }
+
+    /**
+     * Returns the name of the in-memory database of the given connection and closes the connection.<p>
+     *
+     * @param con the connection
+     *
+     * @return the database name
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String readDatabaseName(Connection con) throws Exception {
+
+        assertNotNull(con);
+        try {
+            String url = con.getMetaData().getURL();
+            return url.substring(url.lastIndexOf(':') + 1);
+        } finally {
+            con.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.db;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Tests the statement cache of pinned connections.<p>
+ */
+public class TestCmsPinnedConnection extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsPinnedConnection(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that released statements are reused and everything is closed with the pinned connection.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStatementCache() throws Exception {
+
+        Class.forName("org.hsqldb.jdbc.JDBCDriver");
+        Connection con = DriverManager.getConnection("jdbc:hsqldb:mem:pinned", "SA", "");
+        CmsPinnedConnection pinned = new CmsPinnedConnection(con, 1);
+        assertSame(pinned, CmsPinnedConnection.get(con));
+        assertSame(con, pinned.getConnection());
+
+        String sql = "VALUES (?)";
+        PreparedStatement first = pinned.prepareStatement(sql);
+        // a statement still in use is not handed out again
+        PreparedStatement second = pinned.prepareStatement(sql);
+        assertNotSame(first, second);
+        first.setInt(1, 42);
+        ResultSet res = first.executeQuery();
+        assertTrue(res.next());
+        assertEquals(42, res.getInt(1));
+        res.close();
+
+        assertTrue(pinned.releaseStatement(first));
+        // the cache already contains a statement for the SQL, so the second one is closed
+        assertTrue(pinned.releaseStatement(second));
+        assertTrue(second.isClosed());
+        assertSame(first, pinned.prepareStatement(sql));
+        assertEquals(2, pinned.getPrepares());
+        assertEquals(1, pinned.getStatementHits());
+        assertTrue(pinned.releaseStatement(first));
+
+        // the cache size is 1, so the eldest statement is closed
+        PreparedStatement other = pinned.prepareStatement("VALUES (1)");
+        assertTrue(pinned.releaseStatement(other));
+        assertTrue(first.isClosed());
+        assertFalse(other.isClosed());
+
+        // statements not prepared by the pinned connection have to be closed by the caller
+        PreparedStatement unpinned = con.prepareStatement(sql);
+        assertFalse(pinned.releaseStatement(unpinned));
+        unpinned.close();
+
+        pinned.close();
+        assertTrue(other.isClosed());
+        assertFalse(pinned.isOpen());
+        assertNull(CmsPinnedConnection.get(con));
+    }
+}
@@ -0,0 +1,505 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.lock.CmsLock;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that the publish closure read in bulk gives the same results as reading every resource on its own.<p>
+ */
+public class TestCmsPublishClosure extends OpenCmsTestCase {
+
+    /** The folder containing the resources used by the tests. */
+    private static final String FOLDER = "/publishclosure/";
+
+    /** The strong relation type configured for the tests. */
+    private static final String RELATION_TYPE = "TESTRELATION2";
+
+    /** The number of resources used by the tests, more than read with a single query. */
+    private static final int RESOURCE_COUNT = CmsSqlManager.IN_CONDITION_CHUNK_SIZE + 20;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsPublishClosure(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsPublishClosure.class.getName());
+
+        suite.addTest(new TestCmsPublishClosure("testRelatedResources"));
+        suite.addTest(new TestCmsPublishClosure("testRelationTargetPaths"));
+        suite.addTest(new TestCmsPublishClosure("testSiblings"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the related resources to publish are the same as when reading every relation on its own.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRelatedResources() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the related resources to publish are read in bulk correctly");
+
+        String base = FOLDER + "related/";
+        createFolder(cms, FOLDER);
+        createFolder(cms, base);
+        createFolder(cms, base + "targets/");
+        createFile(cms, base + "targets/changed.txt");
+        createFile(cms, base + "targets/unchanged.txt");
+        createFile(cms, base + "targets/locked.txt");
+        createFile(cms, base + "targets/missing.txt");
+        createFile(cms, base + "targets/replaced");
+        createFolder(cms, base + "sources/");
+        publish(cms, FOLDER);
+
+        List<CmsResource> sources = new ArrayList<CmsResource>();
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            sources.add(createFile(cms, base + "sources/source" + i + ".txt"));
+        }
+        // the parent folders of new targets are new as well
+        createFolder(cms, base + "newfolder/");
+        createFolder(cms, base + "newfolder/sub/");
+        createFile(cms, base + "newfolder/sub/new1.txt");
+        createFile(cms, base + "newfolder/sub/new2.txt");
+        createFile(cms, base + "newfolder/new3.txt");
+
+        String[] targets = new String[] {
+            "targets/changed.txt",
+            "targets/unchanged.txt",
+            "targets/locked.txt",
+            "targets/missing.txt",
+            "targets/replaced",
+            "newfolder/sub/new1.txt",
+            "newfolder/sub/new2.txt",
+            "newfolder/new3.txt"};
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            String source = base + "sources/source" + i + ".txt";
+            cms.addRelationToResource(source, base + targets[i % targets.length], RELATION_TYPE);
+            // relations to other resources of the publish list
+            String next = base + "sources/source" + ((i + 1) % RESOURCE_COUNT) + ".txt";
+            cms.addRelationToResource(source, next, RELATION_TYPE);
+        }
+
+        touch(cms, base + "targets/changed.txt");
+        touch(cms, base + "targets/locked.txt");
+        CmsObject otherCms = getOtherCms(cms);
+        otherCms.lockResource(base + "targets/locked.txt");
+
+        // the target is removed, so the relations point to a missing resource
+        cms.lockResource(base + "targets/missing.txt");
+        cms.deleteResource(base + "targets/missing.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        publish(cms, base + "targets/missing.txt");
+        // the target is replaced by a new folder, so the relations are resolved by their path
+        CmsResource replaced = cms.readResource(base + "targets/replaced");
+        cms.lockResource(base + "targets/replaced");
+        cms.deleteResource(base + "targets/replaced", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        publish(cms, base + "targets/replaced");
+        createFolder(cms, base + "targets/replaced/");
+        assertFalse(cms.existsResource(replaced.getStructureId(), CmsResourceFilter.ALL));
+
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(cms, sources, false);
+        Set<String> expected = getRelatedResourcesSingly(cms, publishList);
+        CmsPublishList related = OpenCms.getPublishManager().getRelatedResourcesToPublish(cms, publishList);
+        assertNotNull(related.getPublishClosure());
+        assertEquals(expected, getRootPaths(related.getAllResources()));
+
+        String siteRoot = cms.getRequestContext().getSiteRoot();
+        // the relations to the missing and the replaced target can not be resolved by their id
+        assertFalse(hasTarget(cms, sources.get(3), siteRoot + base + "targets/missing.txt"));
+        assertFalse(hasTarget(cms, sources.get(4), siteRoot + base + "targets/replaced"));
+        assertTrue(expected.contains(siteRoot + base + "targets/changed.txt"));
+        assertTrue(expected.contains(siteRoot + base + "targets/replaced/"));
+        assertTrue(expected.contains(siteRoot + base + "newfolder/"));
+        assertTrue(expected.contains(siteRoot + base + "newfolder/sub/"));
+        assertTrue(expected.contains(siteRoot + base + "newfolder/sub/new1.txt"));
+        assertFalse(expected.contains(siteRoot + base + "targets/unchanged.txt"));
+        assertFalse(expected.contains(siteRoot + base + "targets/locked.txt"));
+        assertFalse(expected.contains(siteRoot + base + "targets/"));
+        assertFalse(expected.contains(siteRoot + base + "sources/source0.txt"));
+
+        // the closure is attached to the related resources, so it can be used again by the following steps
+        CmsPublishList merged = OpenCms.getPublishManager().mergePublishLists(cms, publishList, related);
+        assertSame(related.getPublishClosure(), merged.getPublishClosure());
+    }
+
+    /**
+     * Tests that relation targets which are resolved by their path are found like with a single read,
+     * also if the path has a trailing slash.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testRelationTargetPaths() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that relation targets are resolved by their path like with a single read");
+
+        String base = FOLDER + "paths/";
+        createFolder(cms, FOLDER);
+        createFolder(cms, base);
+        createFolder(cms, base + "wasfolder/");
+        createFile(cms, base + "wasfile");
+        createFolder(cms, base + "folder/");
+        createFile(cms, base + "file.txt");
+        publish(cms, FOLDER);
+
+        CmsResource source = createFile(cms, base + "source.txt");
+        for (String target : new String[] {"wasfolder/", "wasfile", "folder/", "file.txt"}) {
+            cms.addRelationToResource(base + "source.txt", base + target, RELATION_TYPE);
+        }
+        // the folder is replaced by a file with the same name, and the file by a folder
+        cms.lockResource(base + "wasfolder/");
+        cms.deleteResource(base + "wasfolder/", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.lockResource(base + "wasfile");
+        cms.deleteResource(base + "wasfile", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        publish(cms, base + "wasfolder/");
+        publish(cms, base + "wasfile");
+        createFile(cms, base + "wasfolder");
+        createFolder(cms, base + "wasfile/");
+
+        CmsPublishClosure closure = new CmsPublishClosure(cms.getRequestContext().getCurrentProject().getUuid());
+        cms.loadPublishClosure(closure, Collections.singletonList(source));
+        List<CmsRelation> relations = closure.getRelations(source);
+        assertEquals(4, relations.size());
+        CmsObject rootCms = getRootCms(cms);
+        Map<String, String> targets = new HashMap<String, String>();
+        for (CmsRelation relation : relations) {
+            CmsResource target = closure.getRelationTarget(relation);
+            // the target read on its own
+            CmsResource expected = null;
+            if (rootCms.existsResource(relation.getTargetId(), CmsResourceFilter.ALL)) {
+                expected = rootCms.readResource(relation.getTargetId(), CmsResourceFilter.ALL);
+            } else if (rootCms.existsResource(relation.getTargetPath(), CmsResourceFilter.ALL)) {
+                expected = rootCms.readResource(relation.getTargetPath(), CmsResourceFilter.ALL);
+            }
+            assertEquals(relation.getTargetPath(), expected, target);
+            targets.put(relation.getTargetPath(), target != null ? target.getRootPath() : null);
+        }
+
+        String path = cms.getRequestContext().getSiteRoot() + base;
+        for (String target : new String[] {"wasfolder/", "wasfile"}) {
+            assertFalse(hasTarget(cms, source, path + target));
+        }
+        // a file is not found by a path with a trailing slash
+        assertTrue(targets.containsKey(path + "wasfolder/"));
+        assertNull(targets.get(path + "wasfolder/"));
+        // a folder is found by a path without a trailing slash
+        assertEquals(path + "wasfile/", targets.get(path + "wasfile"));
+        // the targets which were not replaced are found by their id
+        assertEquals(path + "folder/", targets.get(path + "folder/"));
+        assertEquals(path + "file.txt", targets.get(path + "file.txt"));
+    }
+
+    /**
+     * Tests that the siblings of the files to publish are read in bulk correctly.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSiblings() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the siblings of the files to publish are read in bulk correctly");
+
+        String base = FOLDER + "siblings/";
+        createFolder(cms, FOLDER);
+        createFolder(cms, base);
+        publish(cms, FOLDER);
+
+        List<CmsResource> files = new ArrayList<CmsResource>();
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            files.add(createFile(cms, base + "file" + i + ".txt"));
+            if ((i % 100) != 0) {
+                // some files have no siblings
+                cms.createSibling(base + "file" + i + ".txt", base + "sibling" + i + ".txt", null);
+            }
+        }
+        files = cms.readResources(base, CmsResourceFilter.ALL.addRequireFile(), false);
+        List<CmsResource> directFiles = new ArrayList<CmsResource>();
+        for (CmsResource file : files) {
+            if (file.getName().startsWith("file")) {
+                directFiles.add(file);
+            }
+        }
+
+        Set<String> expected = new TreeSet<String>();
+        for (CmsResource file : directFiles) {
+            for (CmsResource sibling : cms.readSiblings(file, CmsResourceFilter.ALL_MODIFIED)) {
+                expected.add(sibling.getRootPath());
+            }
+        }
+        assertEquals(files.size(), expected.size());
+        // more files have siblings than read with a single query
+        assertTrue((files.size() - directFiles.size()) > CmsSqlManager.IN_CONDITION_CHUNK_SIZE);
+
+        CmsPublishList withSiblings = OpenCms.getPublishManager().getPublishList(cms, directFiles, true);
+        assertEquals(expected, getRootPaths(withSiblings.getAllResources()));
+        CmsPublishList withoutSiblings = OpenCms.getPublishManager().getPublishList(cms, directFiles, false);
+        assertEquals(getRootPaths(directFiles), getRootPaths(withoutSiblings.getAllResources()));
+    }
+
+    /**
+     * Creates a file.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the file
+     *
+     * @return the created file
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsResource createFile(CmsObject cms, String path) throws Exception {
+
+        return cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), path.getBytes(), null);
+    }
+
+    /**
+     * Creates a folder if it does not exist yet.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the folder
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createFolder(CmsObject cms, String path) throws Exception {
+
+        if (!cms.existsResource(path, CmsResourceFilter.ALL)) {
+            cms.createResource(path, CmsResourceTypeFolder.getStaticTypeId());
+        }
+    }
+
+    /**
+     * Returns a context of another user in the same project.<p>
+     *
+     * @param cms the current users context
+     *
+     * @return the context of the other user
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOtherCms(CmsObject cms) throws Exception {
+
+        CmsObject otherCms = OpenCms.initCmsObject(cms);
+        otherCms.loginUser("test1", "test1");
+        otherCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        otherCms.getRequestContext().setSiteRoot(cms.getRequestContext().getSiteRoot());
+        return otherCms;
+    }
+
+    /**
+     * Computes the related resources to publish like before the publish closure was read in bulk,
+     * by reading every relation, relation target and parent folder on its own.<p>
+     *
+     * @param cms the current users context
+     * @param publishList the publish list
+     *
+     * @return the root paths of the related resources to publish
+     *
+     * @throws Exception if something goes wrong
+     */
+    private Set<String> getRelatedResourcesSingly(CmsObject cms, CmsPublishList publishList) throws Exception {
+
+        CmsObject rootCms = getRootCms(cms);
+        Set<CmsResource> publishResources = new HashSet<CmsResource>(publishList.getAllResources());
+        Map<String, CmsResource> relations = new HashMap<String, CmsResource>();
+        for (CmsResource resource : publishList.getAllResources()) {
+            for (CmsRelation relation : cms.getRelationsForResource(
+                resource,
+                CmsRelationFilter.TARGETS.filterStrong())) {
+                CmsResource target;
+                try {
+                    try {
+                        target = rootCms.readResource(relation.getTargetId(), CmsResourceFilter.ALL);
+                    } catch (CmsVfsResourceNotFoundException e) {
+                        target = rootCms.readResource(relation.getTargetPath(), CmsResourceFilter.ALL);
+                    }
+                } catch (CmsException e) {
+                    // ignore broken links
+                    continue;
+                }
+                CmsLock lock = cms.getLock(target);
+                if (!publishResources.contains(target)
+                    && !relations.containsKey(target.getRootPath())
+                    && !target.getState().isUnchanged()
+                    && lock.isLockableBy(cms.getRequestContext().getCurrentUser())) {
+
+                    relations.put(target.getRootPath(), target);
+                    String parentPath = CmsResource.getParentFolder(target.getRootPath());
+                    CmsResource parent = rootCms.readResource(parentPath, CmsResourceFilter.ALL);
+                    while ((parent != null) && parent.getState().isNew()) {
+                        if (!publishResources.contains(parent) && !relations.containsKey(parent.getRootPath())) {
+                            relations.put(parent.getRootPath(), parent);
+                        }
+                        parentPath = CmsResource.getParentFolder(parent.getRootPath());
+                        parent = parentPath != null ? rootCms.readResource(parentPath, CmsResourceFilter.ALL) : null;
+                    }
+                }
+            }
+        }
+        return new TreeSet<String>(relations.keySet());
+    }
+
+    /**
+     * Returns a context of the current user in the root site.<p>
+     *
+     * @param cms the current users context
+     *
+     * @return the context in the root site
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getRootCms(CmsObject cms) throws Exception {
+
+        CmsObject rootCms = OpenCms.initCmsObject(cms);
+        rootCms.getRequestContext().setSiteRoot("");
+        return rootCms;
+    }
+
+    /**
+     * Returns the sorted root paths of the given resources.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the sorted root paths
+     */
+    private Set<String> getRootPaths(List<CmsResource> resources) {
+
+        Set<String> result = new TreeSet<String>();
+        for (CmsResource resource : resources) {
+            result.add(resource.getRootPath());
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the target of the relation from the given source to the given path can be read by its id.<p>
+     *
+     * @param cms the current users context
+     * @param source the source of the relation
+     * @param targetPath the target path of the relation
+     *
+     * @return <code>true</code> if the target of the relation can be read by its id
+     *
+     * @throws Exception if something goes wrong
+     */
+    private boolean hasTarget(CmsObject cms, CmsResource source, String targetPath) throws Exception {
+
+        for (CmsRelation relation : cms.getRelationsForResource(source, CmsRelationFilter.TARGETS)) {
+            if (relation.getTargetPath().equals(targetPath)) {
+                return cms.existsResource(relation.getTargetId(), CmsResourceFilter.ALL);
+            }
+        }
+        fail("No relation to " + targetPath);
+        return false;
+    }
+
+    /**
+     * Publishes a resource with its sub resources and waits until the publish job has finished.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void publish(CmsObject cms, String path) throws Exception {
+
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
+
+    /**
+     * Changes the last modification date of a resource, so its state is changed.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the resource
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void touch(CmsObject cms, String path) throws Exception {
+
+        cms.lockResource(path);
+        cms.setDateLastModified(path, System.currentTimeMillis(), false);
+        cms.unlockResource(path);
+    }
+}
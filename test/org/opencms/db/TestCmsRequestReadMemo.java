@@ -0,0 +1,247 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the request scoped read memo.<p>
+ */
+public class TestCmsRequestReadMemo extends OpenCmsTestCase {
+
+    /** The file used by the tests. */
+    private static final String PATH = "/folder1/page1.html";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsRequestReadMemo(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsRequestReadMemo.class.getName());
+
+        suite.addTest(new TestCmsRequestReadMemo("testMemoHit"));
+        suite.addTest(new TestCmsRequestReadMemo("testInvalidationAfterWrite"));
+        suite.addTest(new TestCmsRequestReadMemo("testInvalidationAfterFlush"));
+        suite.addTest(new TestCmsRequestReadMemo("testUserAndProjectChange"));
+        suite.addTest(new TestCmsRequestReadMemo("testStatistics"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that flushing the caches of the memory monitor discards the memorized reads.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationAfterFlush() throws Exception {
+
+        CmsObject cms = OpenCms.initCmsObject(getCmsObject());
+        echo("Testing that a cache flush discards the memorized reads");
+
+        CmsRequestReadMemo memo = CmsRequestReadMemo.enable(cms.getRequestContext());
+        cms.readResource(PATH);
+        long misses = memo.getMisses();
+        cms.readResource(PATH);
+        assertEquals(misses, memo.getMisses());
+
+        OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.RESOURCE);
+        long hits = memo.getHits();
+        cms.readResource(PATH);
+        assertEquals(hits, memo.getHits());
+        assertTrue(memo.getMisses() > misses);
+
+        // caches that do not hold resource data keep the memorized reads
+        OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.XML_ENTITY_TEMP);
+        misses = memo.getMisses();
+        cms.readResource(PATH);
+        assertEquals(misses, memo.getMisses());
+        CmsRequestReadMemo.disable(cms.getRequestContext());
+    }
+
+    /**
+     * Tests that a write in the same request makes the new data visible.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInvalidationAfterWrite() throws Exception {
+
+        CmsObject cms = OpenCms.initCmsObject(getCmsObject());
+        echo("Testing that a write discards the memorized reads");
+
+        CmsRequestReadMemo.enable(cms.getRequestContext());
+        CmsProperty title = cms.readPropertyObject(PATH, CmsPropertyDefinition.PROPERTY_TITLE, false);
+        assertEquals(title, cms.readPropertyObject(PATH, CmsPropertyDefinition.PROPERTY_TITLE, false));
+        CmsResource resource = cms.readResource(PATH);
+
+        cms.lockResource(PATH);
+        cms.writePropertyObject(PATH, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "memo title", null));
+        assertEquals(
+            "memo title",
+            cms.readPropertyObject(PATH, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue());
+        assertTrue(resource.getState().isUnchanged());
+        assertTrue(cms.readResource(PATH).getState().isChanged());
+        cms.unlockResource(PATH);
+        CmsRequestReadMemo.disable(cms.getRequestContext());
+    }
+
+    /**
+     * Tests that repeated reads are answered from the memo.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMemoHit() throws Exception {
+
+        CmsObject cms = OpenCms.initCmsObject(getCmsObject());
+        echo("Testing that repeated reads are answered from the memo");
+
+        assertNull(CmsRequestReadMemo.getMemo(cms.getRequestContext()));
+        CmsRequestReadMemo memo = CmsRequestReadMemo.enable(cms.getRequestContext());
+        assertSame(memo, CmsRequestReadMemo.enable(cms.getRequestContext()));
+        assertSame(memo, CmsRequestReadMemo.getMemo(cms.getRequestContext()));
+
+        CmsResource first = cms.readResource(PATH);
+        cms.readPropertyObjects(PATH, true);
+        assertEquals(0, memo.getHits());
+        long misses = memo.getMisses();
+        assertTrue(misses > 0);
+
+        CmsResource second = cms.readResource(PATH);
+        cms.readPropertyObjects(PATH, true);
+        assertEquals(misses, memo.getMisses());
+        assertTrue(memo.getHits() > 0);
+        // the memo hands out copies of the resources
+        assertEquals(first, second);
+        assertNotSame(first, second);
+
+        assertSame(memo, CmsRequestReadMemo.disable(cms.getRequestContext()));
+        assertNull(CmsRequestReadMemo.getMemo(cms.getRequestContext()));
+    }
+
+    /**
+     * Tests that the hits and misses of a memo are added to the statistics of the memory monitor.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testStatistics() throws Exception {
+
+        CmsObject cms = OpenCms.initCmsObject(getCmsObject());
+        echo("Testing the read memo statistics of the memory monitor");
+
+        CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+        long hits = monitor.getReadMemoHits();
+        long misses = monitor.getReadMemoMisses();
+        CmsRequestReadMemo memo = CmsRequestReadMemo.enable(cms.getRequestContext());
+        cms.readResource(PATH);
+        cms.readResource(PATH);
+        CmsRequestReadMemo.disable(cms.getRequestContext());
+        assertEquals(hits + memo.getHits(), monitor.getReadMemoHits());
+        assertEquals(misses + memo.getMisses(), monitor.getReadMemoMisses());
+    }
+
+    /**
+     * Tests that the memo is not used after the user or project of the request context has changed.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testUserAndProjectChange() throws Exception {
+
+        CmsObject cms = OpenCms.initCmsObject(getCmsObject());
+        echo("Testing that the memo is bound to the user and project of the request");
+
+        CmsRequestReadMemo memo = CmsRequestReadMemo.enable(cms.getRequestContext());
+        cms.readResource(PATH);
+
+        // another project in the same request
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertNull(CmsRequestReadMemo.getMemo(cms.getRequestContext()));
+        long hits = memo.getHits();
+        long misses = memo.getMisses();
+        cms.readResource(PATH);
+        assertEquals(hits, memo.getHits());
+        assertEquals(misses, memo.getMisses());
+
+        // back in the project the memo was enabled for
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        assertSame(memo, CmsRequestReadMemo.getMemo(cms.getRequestContext()));
+        cms.readResource(PATH);
+        assertTrue(memo.getHits() > hits);
+
+        // another user in the same request
+        cms.loginUser("test1", "test1");
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        assertNull(CmsRequestReadMemo.getMemo(cms.getRequestContext()));
+        hits = memo.getHits();
+        misses = memo.getMisses();
+        cms.readResource(PATH);
+        assertEquals(hits, memo.getHits());
+        assertEquals(misses, memo.getMisses());
+        CmsRequestReadMemo.disable(cms.getRequestContext());
+    }
+}
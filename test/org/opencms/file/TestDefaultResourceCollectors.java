@@ -27,14 +27,19 @@
 
 package org.opencms.file;
 
+import org.opencms.db.CmsChildResourceIndex;
 import org.opencms.file.collectors.CmsDefaultResourceCollector;
 import org.opencms.file.collectors.I_CmsResourceCollector;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import junit.extensions.TestSetup;
@@ -70,6 +75,7 @@ public class TestDefaultResourceCollectors extends OpenCmsTestCase {
         suite.addTest(new TestDefaultResourceCollectors("testCollectSingleFile"));
         suite.addTest(new TestDefaultResourceCollectors("testCollectAllInFolder"));
         suite.addTest(new TestDefaultResourceCollectors("testCollectAllInFolderDateReleasedDesc"));
+        suite.addTest(new TestDefaultResourceCollectors("testReadResourcesSorted"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -206,4 +212,154 @@ public class TestDefaultResourceCollectors extends OpenCmsTestCase {
         res = (CmsResource)resources.get(1);
         assertEquals("/sites/default/folder1/file2", res.getRootPath());
     }
+
+    /**
+     * Tests that reading the first resources in a sort order returns the same resources, in the same order,
+     * as reading all resources and sorting them afterwards, also for resources with the same dates.<p>
+     *
+     * @throws Throwable if something goes wrong
+     */
+    public void testReadResourcesSorted() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that sorted and limited reads return the first resources of the full sorted list");
+
+        long day = 1000L * 60L * 60L * 24L;
+        long base = System.currentTimeMillis() - (10 * day);
+        // the site folder is new in this setup and can not be published, so use a folder below the root folder
+        cms.getRequestContext().setSiteRoot("/");
+        String folder = "/sorted/";
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        cms.createResource(folder + "sub/", CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < 40; i++) {
+            String path = folder + ((i % 2) == 0 ? "" : "sub/") + "file" + (i % 7) + "_" + i + ".txt";
+            cms.createResource(path, CmsResourceTypePlain.getStaticTypeId());
+            // only a few different dates, so many resources have the same date
+            cms.setDateLastModified(path, base + ((i % 4) * day), false);
+            if ((i % 3) != 0) {
+                // the other resources are sorted by their date last modified
+                cms.setDateReleased(path, base + ((i % 5) * day), false);
+            }
+        }
+        assertReadResourcesSorted(cms, folder);
+
+        cms.unlockResource(folder);
+        OpenCms.getPublishManager().publishResource(cms, folder);
+        OpenCms.getPublishManager().waitWhileRunning();
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        // the online project also reads the direct children from the child resource index
+        assertReadResourcesSorted(cms, folder);
+
+        I_CmsResourceCollector collector = new CmsDefaultResourceCollector();
+        List<CmsResource> expected = readAllSorted(
+            cms,
+            folder,
+            CmsResourceFilter.DEFAULT_FILES,
+            false,
+            CmsChildResourceIndex.Order.DATE_RELEASED,
+            true);
+        List<CmsResource> collected = collector.getResults(
+            cms,
+            "allInFolderDateReleasedDesc",
+            folder + "|" + CmsResourceTypePlain.getStaticTypeId() + "|5");
+        assertEquals(getRootPaths(expected.subList(0, 5)), getRootPaths(collected));
+    }
+
+    /**
+     * Asserts that the sorted and limited reads of the given folder match the sorted list of all resources.<p>
+     *
+     * @param cms the current cms context
+     * @param folder the folder to read
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void assertReadResourcesSorted(CmsObject cms, String folder) throws CmsException {
+
+        CmsResourceFilter filter = CmsResourceFilter.DEFAULT_FILES;
+        for (CmsChildResourceIndex.Order order : CmsChildResourceIndex.Order.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                for (boolean readTree : new boolean[] {false, true}) {
+                    List<CmsResource> expected = readAllSorted(cms, folder, filter, readTree, order, descending);
+                    assertTrue(expected.size() >= 20);
+                    for (int limit : new int[] {1, 3, 7, 0}) {
+                        List<CmsResource> result = cms.readResources(
+                            folder,
+                            filter,
+                            readTree,
+                            order,
+                            descending,
+                            limit);
+                        String message = order + (descending ? " desc" : " asc") + (readTree ? " tree" : "");
+                        List<CmsResource> first = limit > 0 ? expected.subList(0, limit) : expected;
+                        assertEquals(message + " limit " + limit, getRootPaths(first), getRootPaths(result));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the root paths of the given resources.<p>
+     *
+     * @param resources the resources
+     *
+     * @return the root paths
+     */
+    private List<String> getRootPaths(List<CmsResource> resources) {
+
+        List<String> result = new ArrayList<String>(resources.size());
+        for (CmsResource resource : resources) {
+            result.add(resource.getRootPath());
+        }
+        return result;
+    }
+
+    /**
+     * Reads all resources of a folder and sorts them like the collectors did before the sorted reads existed.<p>
+     *
+     * The resources are sorted by root path first, then with a stable sort by date,
+     * so resources with the same date stay in ascending root path order.<p>
+     *
+     * @param cms the current cms context
+     * @param folder the folder to read
+     * @param filter the resource filter
+     * @param readTree if the whole sub tree should be read
+     * @param order the sort order
+     * @param descending if the resources should be sorted in descending order
+     *
+     * @return the sorted resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsResource> readAllSorted(
+        CmsObject cms,
+        String folder,
+        CmsResourceFilter filter,
+        boolean readTree,
+        final CmsChildResourceIndex.Order order,
+        boolean descending)
+    throws CmsException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>(cms.readResources(folder, filter, readTree));
+        Collections.sort(result, I_CmsResource.COMPARE_ROOT_PATH);
+        if (order == CmsChildResourceIndex.Order.ROOT_PATH) {
+            if (descending) {
+                Collections.reverse(result);
+            }
+        } else if (descending && (order == CmsChildResourceIndex.Order.DATE_RELEASED)) {
+            Collections.sort(result, I_CmsResource.COMPARE_DATE_RELEASED);
+        } else {
+            final int direction = descending ? -1 : 1;
+            Collections.sort(result, new Comparator<CmsResource>() {
+
+                public int compare(CmsResource res1, CmsResource res2) {
+
+                    long date1 = CmsChildResourceIndex.getDate(res1, order);
+                    long date2 = CmsChildResourceIndex.getDate(res2, order);
+                    return direction * Long.compare(date1, date2);
+                }
+            });
+        }
+        return result;
+    }
 }
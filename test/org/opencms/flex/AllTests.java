@@ -59,7 +59,10 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsFlexCacheEntry.class));
+        suite.addTest(new TestSuite(TestCmsFlexBucketIndex.class));
+        suite.addTest(new TestSuite(TestCmsFlexDependencyIndex.class));
         suite.addTest(TestCmsFlexResponse.suite());
+        suite.addTest(TestCmsFlexCacheKey.suite());
         //$JUnit-END$
         return suite;
     }
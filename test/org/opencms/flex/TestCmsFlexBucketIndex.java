@@ -0,0 +1,126 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.flex.CmsFlexBucketConfiguration.BucketSet;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Tests for the CmsFlexBucketIndex.<p>
+ */
+public class TestCmsFlexBucketIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests that the index returns the same entries for deletion as matching all bucket sets.<p>
+     */
+    public void testEntriesForDeletion() {
+
+        CmsFlexBucketConfiguration config = createConfiguration();
+        CmsFlexBucketIndex index = new CmsFlexBucketIndex();
+        List<CmsFlexCacheEntry> entries = new ArrayList<CmsFlexCacheEntry>();
+        entries.add(createEntry(index, config.getBucketSet(Arrays.asList("/sites/default/news/a.html"))));
+        entries.add(createEntry(index, config.getBucketSet(Arrays.asList("/sites/default/events/b.html"))));
+        entries.add(
+            createEntry(
+                index,
+                config.getBucketSet(Arrays.asList("/sites/default/news/c.html", "/sites/default/events/d.html"))));
+        entries.add(createEntry(index, config.getBucketSet(Arrays.asList("/sites/default/other.html"))));
+        entries.add(createEntry(index, null));
+        assertEquals(entries.size(), index.size());
+
+        for (String path : new String[] {
+            "/sites/default/news/x.html",
+            "/sites/default/events/x.html",
+            "/sites/default/x.html"}) {
+            BucketSet publishSet = config.getBucketSet(Arrays.asList(path));
+            Set<CmsFlexCacheEntry> expected = new HashSet<CmsFlexCacheEntry>();
+            for (CmsFlexCacheEntry entry : entries) {
+                if (publishSet.matchForDeletion(entry.getBucketSet())) {
+                    expected.add(entry);
+                }
+            }
+            assertEquals(expected, index.getEntriesForDeletion(publishSet));
+        }
+    }
+
+    /**
+     * Tests that entries leaving the cache are removed from the index.<p>
+     */
+    public void testRemove() {
+
+        CmsFlexBucketConfiguration config = createConfiguration();
+        CmsFlexBucketIndex index = new CmsFlexBucketIndex();
+        BucketSet news = config.getBucketSet(Arrays.asList("/sites/default/news/a.html"));
+        CmsFlexCacheEntry entry = createEntry(index, news);
+        CmsFlexCacheEntry unbucketed = createEntry(index, null);
+        assertTrue(index.getMemorySize() > 0);
+
+        entry.removeFromLruCache();
+        unbucketed.removeFromLruCache();
+        assertEquals(0, index.size());
+        assertEquals(0, index.getMemorySize());
+        assertTrue(index.getEntriesForDeletion(news).isEmpty());
+    }
+
+    /**
+     * Creates a bucket configuration for the tests.<p>
+     *
+     * @return the bucket configuration
+     */
+    private CmsFlexBucketConfiguration createConfiguration() {
+
+        Properties props = new Properties();
+        props.setProperty("bucket.news", "/sites/default/news");
+        props.setProperty("bucket.events", "/sites/default/events");
+        return CmsFlexBucketConfiguration.loadFromProperties(props);
+    }
+
+    /**
+     * Creates a cache entry with the given bucket set and adds it to the index.<p>
+     *
+     * @param index the index
+     * @param bucketSet the bucket set
+     *
+     * @return the new entry
+     */
+    private CmsFlexCacheEntry createEntry(CmsFlexBucketIndex index, BucketSet bucketSet) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.setBucketSet(bucketSet);
+        entry.setBucketIndex(index);
+        index.add(entry);
+        return entry;
+    }
+}
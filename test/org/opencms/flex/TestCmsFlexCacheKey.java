@@ -0,0 +1,667 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.flex.TestCmsFlexResponse.RecordingMock;
+import org.opencms.flex.TestCmsFlexResponse.RequestStub;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import junit.extensions.TestSetup;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the matching of Flex cache keys against request keys.<p>
+ *
+ * The expected variations are the results of the matching implementation used before
+ * the variation building was optimized, so these tests make sure the optimized
+ * matching still creates the same variations for all cache directives.<p>
+ */
+public class TestCmsFlexCacheKey extends OpenCmsTestCase {
+
+    /**
+     * A request key with fixed values that does not need a real request.<p>
+     */
+    public static class StubRequestKey extends CmsFlexRequestKey {
+
+        /** The request attributes. */
+        Map<String, Object> m_attributes;
+
+        /** The element. */
+        String m_element;
+
+        /** The force absolute links flag. */
+        boolean m_forceAbsoluteLinks;
+
+        /** The request parameters. */
+        Map<String, String[]> m_params;
+
+        /** The server port. */
+        int m_port;
+
+        /** The request scheme. */
+        String m_scheme;
+
+        /** The session attributes, or <code>null</code> if there is no session. */
+        Map<String, Object> m_sessionAttributes;
+
+        /** The user name. */
+        String m_user;
+
+        /**
+         * Creates a new request key.<p>
+         *
+         * @param req the request used to initialize the base class
+         */
+        public StubRequestKey(HttpServletRequest req) {
+
+            super(req, "/index.html", true);
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getAttributes()
+         */
+        @Override
+        public Map<String, Object> getAttributes() {
+
+            return m_attributes;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getContainerElement()
+         */
+        @Override
+        public String getContainerElement() {
+
+            return "4711_tc_";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getDevice()
+         */
+        @Override
+        public String getDevice() {
+
+            return "desktop";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getElement()
+         */
+        @Override
+        public String getElement() {
+
+            return m_element;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getEncoding()
+         */
+        @Override
+        public String getEncoding() {
+
+            return "UTF-8";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getIp()
+         */
+        @Override
+        public String getIp() {
+
+            return "127.0.0.1";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getLocale()
+         */
+        @Override
+        public String getLocale() {
+
+            return "en";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getParams()
+         */
+        @Override
+        public Map<String, String[]> getParams() {
+
+            return m_params;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getPort()
+         */
+        @Override
+        public Integer getPort() {
+
+            return Integer.valueOf(m_port);
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getScheme()
+         */
+        @Override
+        public String getScheme() {
+
+            return m_scheme;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getSession()
+         */
+        @Override
+        public HttpSession getSession() {
+
+            if (m_sessionAttributes == null) {
+                return null;
+            }
+            RequestStub stub = new RequestStub();
+            stub.m_attributes.putAll(m_sessionAttributes);
+            return (HttpSession)Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class[] {HttpSession.class},
+                new RecordingMock(stub));
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getSite()
+         */
+        @Override
+        public String getSite() {
+
+            return "/sites/default";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getUri()
+         */
+        @Override
+        public String getUri() {
+
+            return "/sites/default/index.html";
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#getUser()
+         */
+        @Override
+        public String getUser() {
+
+            return m_user;
+        }
+
+        /**
+         * @see org.opencms.flex.CmsFlexRequestKey#isForceAbsoluteLinks()
+         */
+        @Override
+        public boolean isForceAbsoluteLinks() {
+
+            return m_forceAbsoluteLinks;
+        }
+    }
+
+    /**
+     * The cache directives with the expected variations for the first, second and third request key,
+     * as created by the previous matching implementation.<p>
+     */
+    private static final String[][] EXPECTED_VARIATIONS = {
+        {
+            "always",
+            "always",
+            "always",
+            "always"},
+        {
+            "never",
+            null,
+            null,
+            null},
+        {
+            "true",
+            "always",
+            "always",
+            "always"},
+        {
+            "false",
+            null,
+            null,
+            null},
+        {
+            "always;never",
+            null,
+            null,
+            null},
+        {
+            "uri",
+            "uri=(/sites/default/index.html);force-abs=(false);",
+            "uri=(/sites/default/index.html);force-abs=(false);",
+            "uri=(/sites/default/index.html);force-abs=(true);"},
+        {
+            "site",
+            "site=(/sites/default);force-abs=(false);",
+            "site=(/sites/default);force-abs=(false);",
+            "site=(/sites/default);force-abs=(true);"},
+        {
+            "element",
+            "element=(null);force-abs=(false);",
+            "element=(null);force-abs=(false);",
+            "element=(body);force-abs=(true);"},
+        {
+            "device",
+            "device=(desktop);force-abs=(false);",
+            "device=(desktop);force-abs=(false);",
+            "device=(desktop);force-abs=(true);"},
+        {
+            "container-element",
+            "container-element=(4711_tc_);force-abs=(false);",
+            "container-element=(4711_tc_);force-abs=(false);",
+            "container-element=(4711_tc_);force-abs=(true);"},
+        {
+            "locale",
+            "locale=(en);force-abs=(false);",
+            "locale=(en);force-abs=(false);",
+            "locale=(en);force-abs=(true);"},
+        {
+            "encoding",
+            "encoding=(UTF-8);force-abs=(false);",
+            "encoding=(UTF-8);force-abs=(false);",
+            "encoding=(UTF-8);force-abs=(true);"},
+        {
+            "ip",
+            "ip=(127.0.0.1);force-abs=(false);",
+            "ip=(127.0.0.1);force-abs=(false);",
+            "ip=(127.0.0.1);force-abs=(true);"},
+        {
+            "user",
+            "user=(Guest);force-abs=(false);",
+            "user=(Admin);force-abs=(false);",
+            "user=(Guest);force-abs=(true);"},
+        {
+            "uri;user",
+            "uri=(/sites/default/index.html);user=(Guest);force-abs=(false);",
+            "uri=(/sites/default/index.html);user=(Admin);force-abs=(false);",
+            "uri=(/sites/default/index.html);user=(Guest);force-abs=(true);"},
+        {
+            "params",
+            "params=(a=1,b=2,c=);force-abs=(false);",
+            "params=();force-abs=(false);",
+            "params=(b=5);force-abs=(true);"},
+        {
+            "params=(a,b)",
+            "params=(a=1,b=2);force-abs=(false);",
+            "params=();force-abs=(false);",
+            "params=(b=5);force-abs=(true);"},
+        {
+            "params=(b,z)",
+            "params=(b=2,);force-abs=(false);",
+            "params=();force-abs=(false);",
+            "params=(b=5,);force-abs=(true);"},
+        {
+            "params=(z)",
+            "params=();force-abs=(false);",
+            "params=();force-abs=(false);",
+            "params=();force-abs=(true);"},
+        {
+            "no-params",
+            null,
+            null,
+            null},
+        {
+            "no-params=(a)",
+            null,
+            null,
+            null},
+        {
+            "no-params=(z)",
+            null,
+            null,
+            null},
+        {
+            "uri;no-params",
+            null,
+            "uri=(/sites/default/index.html);force-abs=(false);",
+            null},
+        {
+            "uri;no-params=(c)",
+            null,
+            "uri=(/sites/default/index.html);force-abs=(false);",
+            "uri=(/sites/default/index.html);force-abs=(true);"},
+        {
+            "always;no-params",
+            null,
+            null,
+            null},
+        {
+            "attrs",
+            null,
+            null,
+            null},
+        {
+            "attrs=(x,y)",
+            "attrs=(x=foo,y=42);force-abs=(false);",
+            "attrs=();force-abs=(false);",
+            "attrs=(y=7);force-abs=(true);"},
+        {
+            "attrs=(y,z)",
+            "attrs=(y=42,);force-abs=(false);",
+            "attrs=();force-abs=(false);",
+            "attrs=(y=7,);force-abs=(true);"},
+        {
+            "no-attrs",
+            null,
+            null,
+            null},
+        {
+            "no-attrs=(x)",
+            null,
+            null,
+            null},
+        {
+            "always;no-attrs=(y)",
+            null,
+            null,
+            null},
+        {
+            "session=(s1,s2)",
+            "session=(s1=v1,s2=v2);force-abs=(false);",
+            null,
+            "session=(s2=w2);force-abs=(true);"},
+        {
+            "session=(s2)",
+            "session=(s2=v2);force-abs=(false);",
+            null,
+            "session=(s2=w2);force-abs=(true);"},
+        {
+            "session=(z)",
+            null,
+            null,
+            null},
+        {
+            "uri;session=(s1)",
+            "uri=(/sites/default/index.html);session=(s1=v1);force-abs=(false);",
+            "uri=(/sites/default/index.html);force-abs=(false);",
+            "uri=(/sites/default/index.html);force-abs=(true);"},
+        {
+            "schemes=(http)",
+            "schemes=(http);force-abs=(false);",
+            null,
+            null},
+        {
+            "schemes=(https)",
+            null,
+            "schemes=(https);force-abs=(false);",
+            "schemes=(https);force-abs=(true);"},
+        {
+            "ports=(80,443,8443)",
+            "ports=(80);force-abs=(false);",
+            "ports=(8443);force-abs=(false);",
+            "ports=(443);force-abs=(true);"},
+        {
+            "ports=(80)",
+            "ports=(80);force-abs=(false);",
+            null,
+            null},
+        {
+            "ports=(443,8443)",
+            null,
+            "ports=(8443);force-abs=(false);",
+            "ports=(443);force-abs=(true);"},
+        {
+            "timeout=10",
+            "timeout=(10);force-abs=(false);",
+            "timeout=(10);force-abs=(false);",
+            "timeout=(10);force-abs=(true);"},
+        {
+            "uri;timeout=10",
+            "uri=(/sites/default/index.html);timeout=(10);force-abs=(false);",
+            "uri=(/sites/default/index.html);timeout=(10);force-abs=(false);",
+            "uri=(/sites/default/index.html);timeout=(10);force-abs=(true);"},
+        {
+            "params;timeout=5",
+            "params=(a=1,b=2,c=);timeout=(5);force-abs=(false);",
+            "params=();timeout=(5);force-abs=(false);",
+            "params=(b=5);timeout=(5);force-abs=(true);"},
+        {
+            "session=(z);timeout=5",
+            "timeout=(5);force-abs=(false);",
+            "timeout=(5);force-abs=(false);",
+            "timeout=(5);force-abs=(true);"},
+        {
+            "uri;site;element;device;container-element;locale;encoding;ip;user;params;attrs;session=(s1,s2);"
+                + "schemes=(http,https);ports=(80,443,8443);timeout=60",
+            "uri=(/sites/default/index.html);site=(/sites/default);element=(null);device=(desktop);"
+                + "container-element=(4711_tc_);locale=(en);encoding=(UTF-8);ip=(127.0.0.1);user=(Guest);"
+                + "params=(a=1,b=2,c=);session=(s1=v1,s2=v2);schemes=(http);ports=(80);timeout=(60);"
+                + "force-abs=(false);",
+            "uri=(/sites/default/index.html);site=(/sites/default);element=(null);device=(desktop);"
+                + "container-element=(4711_tc_);locale=(en);encoding=(UTF-8);ip=(127.0.0.1);user=(Admin);params=();"
+                + "schemes=(https);ports=(8443);timeout=(60);force-abs=(false);",
+            "uri=(/sites/default/index.html);site=(/sites/default);element=(body);device=(desktop);"
+                + "container-element=(4711_tc_);locale=(en);encoding=(UTF-8);ip=(127.0.0.1);user=(Guest);"
+                + "params=(b=5);session=(s2=w2);schemes=(https);ports=(443);timeout=(60);force-abs=(true);"},
+        {
+            "uri;params=(a);no-attrs=(x);timeout=1",
+            null,
+            "uri=(/sites/default/index.html);params=();timeout=(1);force-abs=(false);",
+            "uri=(/sites/default/index.html);params=();timeout=(1);force-abs=(true);"},
+        {
+            "site;user;ports=(80)",
+            "site=(/sites/default);user=(Guest);ports=(80);force-abs=(false);",
+            null,
+            null},
+        {
+            "element;schemes=(http,https);ports=(443)",
+            null,
+            null,
+            "element=(body);schemes=(https);ports=(443);force-abs=(true);"}};
+
+    /** Servlet request used to initialize the request keys. */
+    private HttpServletRequest m_request;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCacheKey(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static TestSetup suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFlexCacheKey.class.getName());
+
+        suite.addTest(new TestCmsFlexCacheKey("testMatchRequestKey"));
+        suite.addTest(new TestCmsFlexCacheKey("testMatchRequestKeyRepeated"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that matching a cache key against different request keys creates the expected variations.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMatchRequestKey() throws Exception {
+
+        CmsFlexRequestKey[] keys = createRequestKeys();
+        for (String[] expected : EXPECTED_VARIATIONS) {
+            for (int i = 0; i < keys.length; i++) {
+                // use a new cache key for every request key so no previous match can influence the result
+                CmsFlexCacheKey cacheKey = new CmsFlexCacheKey("/index.html", expected[0], true);
+                assertEquals(
+                    "Variation for '" + expected[0] + "' and request key " + i,
+                    expected[i + 1],
+                    cacheKey.matchRequestKey(keys[i]));
+            }
+        }
+    }
+
+    /**
+     * Tests that matching the same cache key repeatedly against different request keys
+     * creates the expected variations.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMatchRequestKeyRepeated() throws Exception {
+
+        CmsFlexRequestKey[] keys = createRequestKeys();
+        for (String[] expected : EXPECTED_VARIATIONS) {
+            CmsFlexCacheKey cacheKey = new CmsFlexCacheKey("/index.html", expected[0], true);
+            for (int round = 0; round < 2; round++) {
+                for (int i = keys.length - 1; i >= 0; i--) {
+                    assertEquals(
+                        "Variation for '" + expected[0] + "' and request key " + i,
+                        expected[i + 1],
+                        cacheKey.matchRequestKey(keys[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Initializes a flex controller and the request used to create the request keys.<p>
+     *
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        m_request = (HttpServletRequest)Proxy.newProxyInstance(
+            Thread.currentThread().getContextClassLoader(),
+            new Class[] {HttpServletRequest.class},
+            new RecordingMock(new RequestStub()));
+        HttpServletResponse response = (HttpServletResponse)Proxy.newProxyInstance(
+            Thread.currentThread().getContextClassLoader(),
+            new Class[] {HttpServletResponse.class},
+            new RecordingMock());
+        CmsFlexController controller = new CmsFlexController(
+            cms,
+            null,
+            CmsFlexDummyLoader.getFlexCache(),
+            m_request,
+            response,
+            false,
+            true);
+        CmsFlexController.setController(m_request, controller);
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        super.tearDown();
+        m_request = null;
+    }
+
+    /**
+     * Creates the request keys to match the cache keys against.<p>
+     *
+     * The first key has parameters, attributes and a session, the second key has none of these,
+     * the third key only has some of them and forces absolute links.<p>
+     *
+     * @return the request keys
+     */
+    private CmsFlexRequestKey[] createRequestKeys() {
+
+        StubRequestKey full = new StubRequestKey(m_request);
+        full.m_user = "Guest";
+        full.m_scheme = "http";
+        full.m_port = 80;
+        full.m_params = new LinkedHashMap<String, String[]>();
+        full.m_params.put("a", new String[] {"1"});
+        full.m_params.put("b", new String[] {"2", "3"});
+        full.m_params.put("c", new String[] {""});
+        full.m_attributes = new LinkedHashMap<String, Object>();
+        full.m_attributes.put("x", "foo");
+        full.m_attributes.put("y", Integer.valueOf(42));
+        full.m_sessionAttributes = new HashMap<String, Object>();
+        full.m_sessionAttributes.put("s1", "v1");
+        full.m_sessionAttributes.put("s2", "v2");
+
+        StubRequestKey empty = new StubRequestKey(m_request);
+        empty.m_user = "Admin";
+        empty.m_scheme = "https";
+        empty.m_port = 8443;
+
+        StubRequestKey partial = new StubRequestKey(m_request);
+        partial.m_user = "Guest";
+        partial.m_element = "body";
+        partial.m_scheme = "https";
+        partial.m_port = 443;
+        partial.m_forceAbsoluteLinks = true;
+        partial.m_params = new LinkedHashMap<String, String[]>();
+        partial.m_params.put("b", new String[] {"5"});
+        partial.m_attributes = new LinkedHashMap<String, Object>();
+        partial.m_attributes.put("y", Integer.valueOf(7));
+        partial.m_sessionAttributes = new HashMap<String, Object>();
+        partial.m_sessionAttributes.put("s2", "w2");
+
+        return new CmsFlexRequestKey[] {full, empty, partial};
+    }
+}
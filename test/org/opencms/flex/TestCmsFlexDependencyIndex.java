@@ -0,0 +1,183 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Tests for the CmsFlexDependencyIndex.<p>
+ */
+public class TestCmsFlexDependencyIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests that only the entries depending on a published resource are returned for deletion.<p>
+     */
+    public void testEntriesForDeletion() {
+
+        CmsFlexDependencyIndex index = new CmsFlexDependencyIndex();
+        CmsUUID articleId = new CmsUUID();
+        CmsUUID siblingResourceId = new CmsUUID();
+
+        CmsFlexDependencies articleDeps = new CmsFlexDependencies();
+        articleDeps.addResource(createResource(articleId, new CmsUUID(), "/sites/default/news/a.xml"));
+        CmsFlexCacheEntry article = createEntry(index, articleDeps);
+
+        CmsFlexDependencies listDeps = new CmsFlexDependencies();
+        listDeps.addFolder("/sites/default/news/", false);
+        CmsFlexCacheEntry list = createEntry(index, listDeps);
+
+        CmsFlexDependencies treeDeps = new CmsFlexDependencies();
+        treeDeps.addFolder("/sites/default/", true);
+        CmsFlexCacheEntry tree = createEntry(index, treeDeps);
+
+        CmsFlexDependencies missingDeps = new CmsFlexDependencies();
+        missingDeps.addPath("/sites/default/events/new.xml");
+        CmsFlexCacheEntry missing = createEntry(index, missingDeps);
+
+        CmsFlexDependencies siblingDeps = new CmsFlexDependencies();
+        siblingDeps.addResource(createResource(new CmsUUID(), siblingResourceId, "/sites/other/s.xml"));
+        CmsFlexCacheEntry sibling = createEntry(index, siblingDeps);
+
+        CmsFlexCacheEntry untracked = createEntry(index, null);
+        assertEquals(6, index.size());
+
+        // the modified article
+        assertEquals(
+            new HashSet<CmsFlexCacheEntry>(Arrays.asList(article, list, tree, untracked)),
+            index.getEntriesForDeletion(
+                Collections.singletonList(publish(articleId, new CmsUUID(), "/sites/default/news/a.xml"))));
+        // a new resource at a path that was looked up before
+        assertEquals(
+            new HashSet<CmsFlexCacheEntry>(Arrays.asList(missing, tree, untracked)),
+            index.getEntriesForDeletion(
+                Collections.singletonList(publish(new CmsUUID(), new CmsUUID(), "/sites/default/events/new.xml"))));
+        // a sibling of a resource that was read
+        assertEquals(
+            new HashSet<CmsFlexCacheEntry>(Arrays.asList(sibling, untracked)),
+            index.getEntriesForDeletion(
+                Collections.singletonList(publish(new CmsUUID(), siblingResourceId, "/sites/other/t.xml"))));
+        // a resource nothing depends on
+        assertEquals(
+            Collections.singleton(untracked),
+            index.getEntriesForDeletion(
+                Collections.singletonList(publish(new CmsUUID(), new CmsUUID(), "/sites/other/x.xml"))));
+    }
+
+    /**
+     * Tests that entries leaving the cache are removed from the index.<p>
+     */
+    public void testRemove() {
+
+        CmsFlexDependencyIndex index = new CmsFlexDependencyIndex();
+        CmsUUID id = new CmsUUID();
+        CmsFlexDependencies deps = new CmsFlexDependencies();
+        deps.addResource(createResource(id, new CmsUUID(), "/sites/default/a.xml"));
+        deps.addFolder("/sites/default/", true);
+        CmsFlexCacheEntry entry = createEntry(index, deps);
+        CmsFlexCacheEntry untracked = createEntry(index, null);
+        assertTrue(index.getMemorySize() > 0);
+
+        entry.removeFromLruCache();
+        untracked.removeFromLruCache();
+        assertEquals(0, index.size());
+        assertEquals(0, index.getMemorySize());
+        assertTrue(
+            index.getEntriesForDeletion(
+                Collections.singletonList(publish(id, new CmsUUID(), "/sites/default/a.xml"))).isEmpty());
+    }
+
+    /**
+     * Creates a cache entry with the given dependencies and adds it to the index.<p>
+     *
+     * @param index the index
+     * @param dependencies the dependencies
+     *
+     * @return the new entry
+     */
+    private CmsFlexCacheEntry createEntry(CmsFlexDependencyIndex index, CmsFlexDependencies dependencies) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.setDependencies(dependencies);
+        entry.setDependencyIndex(index);
+        index.add(entry);
+        return entry;
+    }
+
+    /**
+     * Creates a test resource.<p>
+     *
+     * @param structureId the structure id
+     * @param resourceId the resource id
+     * @param rootPath the root path
+     *
+     * @return the test resource
+     */
+    private CmsResource createResource(CmsUUID structureId, CmsUUID resourceId, String rootPath) {
+
+        return new CmsResource(
+            structureId,
+            resourceId,
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_UNCHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param structureId the structure id
+     * @param resourceId the resource id
+     * @param rootPath the root path
+     *
+     * @return the published resource
+     */
+    private CmsPublishedResource publish(CmsUUID structureId, CmsUUID resourceId, String rootPath) {
+
+        return new CmsPublishedResource(createResource(structureId, resourceId, rootPath));
+    }
+}
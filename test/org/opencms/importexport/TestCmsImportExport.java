@@ -27,6 +27,7 @@
 
 package org.opencms.importexport;
 
+import org.opencms.db.CmsDriverManager;
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
@@ -61,6 +62,7 @@ import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceConfigurableFilter;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsDateUtil;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsResourceTranslator;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.CmsXmlEntityResolver;
@@ -73,9 +75,15 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -129,6 +137,9 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         suite.addTest(new TestCmsImportExport("testImportRelations"));
         suite.addTest(new TestCmsImportExport("testImportContentIssue"));
         suite.addTest(new TestCmsImportExport("testExportType"));
+        suite.addTest(new TestCmsImportExport("testExportParallel"));
+        suite.addTest(new TestCmsImportExport("testExportAbortRemovesManifest"));
+        suite.addTest(new TestCmsImportExport("testImportExportBulk"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -161,6 +172,72 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         return file;
     }
 
+    /**
+     * Tests that closing an aborted ZIP export removes the temporary manifest file from the export folder.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testExportAbortRemovesManifest() throws Exception {
+
+        echo("Testing that an aborted export removes the temporary manifest file.");
+        File exportFolder = new File(
+            OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf("packages/testExportAbort"));
+        File exportZip = new File(exportFolder, "testExportAbort.zip");
+        try {
+            CmsExportHelper helper = new CmsExportHelper(exportZip.getAbsolutePath(), false, false, 9);
+            // the manifest is buffered next to the ZIP file
+            assertEquals(2, exportFolder.list().length);
+            // abort the export before the manifest is written
+            helper.close();
+            assertEquals(Arrays.asList(exportZip.getName()), Arrays.asList(exportFolder.list()));
+        } finally {
+            CmsFileUtil.purgeDirectory(exportFolder);
+        }
+    }
+
+    /**
+     * Tests that an export reading the resources ahead in parallel writes the same ZIP file as a sequential export.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testExportParallel() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that a parallel export writes the same ZIP file as a sequential export.");
+        cms.getRequestContext().setSiteRoot("/sites/default/");
+
+        String sequentialZip = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/testExportSequential.zip");
+        String parallelZip = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/testExportParallel.zip");
+        try {
+            exportFolder(cms, "/", sequentialZip, 1);
+            exportFolder(cms, "/", parallelZip, 4);
+
+            Map<String, byte[]> sequentialEntries = readZipEntries(sequentialZip);
+            Map<String, byte[]> parallelEntries = readZipEntries(parallelZip);
+            assertTrue(sequentialEntries.size() > 10);
+            // the entries must be written in the same order
+            assertEquals(
+                new ArrayList<String>(sequentialEntries.keySet()),
+                new ArrayList<String>(parallelEntries.keySet()));
+            for (Map.Entry<String, byte[]> entry : sequentialEntries.entrySet()) {
+                String name = entry.getKey();
+                if (CmsImportExportManager.EXPORT_MANIFEST.equals(name)) {
+                    // the manifests only differ by the export date
+                    assertEquals(
+                        removeExportDate(new String(entry.getValue(), "UTF-8")),
+                        removeExportDate(new String(parallelEntries.get(name), "UTF-8")));
+                } else {
+                    assertTrue(name, Arrays.equals(entry.getValue(), parallelEntries.get(name)));
+                }
+            }
+        } finally {
+            deleteFile(sequentialZip);
+            deleteFile(parallelZip);
+        }
+    }
+
     public void testExportType() throws Exception {
 
         CmsObject cms = getCmsObject();
@@ -669,6 +746,62 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Tests that a folder which is exported, deleted and imported again in bulk mode is restored.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testImportExportBulk() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing a round trip of an export and an import in bulk mode.");
+        cms.getRequestContext().setSiteRoot("/sites/default/");
+
+        String folder = "/folder2/";
+        String zipExportFilename = OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(
+            "packages/testImportExportBulk.zip");
+        List<CmsResource> startResources = cms.readResources(folder, CmsResourceFilter.ALL, true);
+        assertFalse(startResources.isEmpty());
+        storeResources(cms, folder);
+        try {
+            exportFolder(cms, folder, zipExportFilename, 1);
+
+            // delete and publish the folder, so the import has to create all resources again
+            cms.lockResource(folder);
+            cms.deleteResource(folder, CmsResource.DELETE_PRESERVE_SIBLINGS);
+            cms.unlockResource(folder);
+            OpenCms.getPublishManager().publishResource(cms, folder);
+            OpenCms.getPublishManager().waitWhileRunning();
+            assertFalse(cms.existsResource(folder, CmsResourceFilter.ALL));
+
+            CmsImportParameters params = new CmsImportParameters(zipExportFilename, "/", true);
+            params.setBulkImport(true);
+            OpenCms.getImportExportManager().importData(
+                cms,
+                new CmsShellReport(cms.getRequestContext().getLocale()),
+                params);
+
+            // the bulk mode must not stay active after the import
+            assertNull(cms.getRequestContext().getAttribute(CmsDriverManager.ATTR_BULK_IMPORT));
+
+            // the caches are flushed at the end of the import, so all resources read with their imported state
+            assertResources(cms, folder, startResources);
+            OpenCmsTestResourceConfigurableFilter filter = new OpenCmsTestResourceConfigurableFilter(
+                OpenCmsTestResourceFilter.FILTER_IMPORTEXPORT);
+            // the imported resources are new and locked, and folders get a new resource id (also used by their ACEs)
+            filter.disableLockTest();
+            filter.disableStateTest();
+            filter.disableResourceIdTest();
+            filter.disableAceTest();
+            assertFilter(cms, folder, filter);
+            for (CmsResource resource : startResources) {
+                assertFilter(cms, cms.getSitePath(resource), filter);
+            }
+        } finally {
+            deleteFile(zipExportFilename);
+        }
+    }
+
     /**
      * Tests an overwriting import of VFS data.<p>
      *
@@ -2155,6 +2288,81 @@ public class TestCmsImportExport extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Exports a folder of the current site.<p>
+     *
+     * @param cms the cms context
+     * @param folder the folder to export
+     * @param zipFile the ZIP file to export to
+     * @param parallelism the number of threads reading the resources ahead of the export
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void exportFolder(CmsObject cms, String folder, String zipFile, int parallelism) throws Exception {
+
+        CmsVfsImportExportHandler vfsExportHandler = new CmsVfsImportExportHandler();
+        List<String> exportPaths = new ArrayList<String>(1);
+        exportPaths.add(folder);
+        CmsExportParameters params = new CmsExportParameters(
+            zipFile,
+            null,
+            true,
+            false,
+            false,
+            exportPaths,
+            false,
+            true,
+            0,
+            true,
+            false,
+            ExportMode.DEFAULT);
+        params.setParallelism(parallelism);
+        vfsExportHandler.setExportParams(params);
+        OpenCms.getImportExportManager().exportData(
+            cms,
+            vfsExportHandler,
+            new CmsShellReport(cms.getRequestContext().getLocale()));
+    }
+
+    /**
+     * Reads the entries of a ZIP file.<p>
+     *
+     * @param zipFile the ZIP file
+     *
+     * @return the entry contents keyed by the entry names, in the order of the ZIP file
+     *
+     * @throws IOException if something goes wrong
+     */
+    private Map<String, byte[]> readZipEntries(String zipFile) throws IOException {
+
+        Map<String, byte[]> result = new LinkedHashMap<String, byte[]>();
+        ZipFile zip = new ZipFile(zipFile);
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                result.put(entry.getName(), CmsFileUtil.readFully(zip.getInputStream(entry)));
+            }
+        } finally {
+            zip.close();
+        }
+        return result;
+    }
+
+    /**
+     * Removes the export date from a manifest.<p>
+     *
+     * @param manifest the manifest
+     *
+     * @return the manifest without the export date
+     */
+    private String removeExportDate(String manifest) {
+
+        return manifest.replaceAll(
+            "<" + CmsImportExportManager.N_DATE + ">[^<]*</" + CmsImportExportManager.N_DATE + ">",
+            "");
+    }
+
     /**
      * Convert a given timestamp from a String format to a long value.<p>
      *
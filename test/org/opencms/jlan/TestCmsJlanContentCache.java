@@ -0,0 +1,270 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jlan;
+
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Tests the content cache and the file buffers used by the JLAN server.<p>
+ */
+public class TestCmsJlanContentCache extends OpenCmsTestCase {
+
+    /** The id of the project used by the tests. */
+    private static final CmsUUID PROJECT_ID = new CmsUUID();
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJlanContentCache(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that a file version is only cached once per project and that other versions
+     * and removed or cleared contents are not returned.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testInvalidation() throws Exception {
+
+        CmsJlanContentCache cache = new CmsJlanContentCache(1024, 1024 * 1024);
+        CmsResource resource = createResource(new CmsUUID(), 100, 10);
+        CmsJlanContentCache.Content content = cache.put(PROJECT_ID, resource, createData(10, 1));
+        assertSame(content, cache.get(PROJECT_ID, resource));
+        // a second put of the same version returns the content already cached
+        assertSame(content, cache.put(PROJECT_ID, resource, createData(10, 2)));
+        assertEquals(1, cache.size());
+
+        // the same version read in another project is not shared
+        assertNull(cache.get(new CmsUUID(), resource));
+
+        // a new content date or length is a new version
+        CmsUUID resourceId = resource.getResourceId();
+        assertNull(cache.get(PROJECT_ID, createResource(resourceId, 101, 10)));
+        assertNull(cache.get(PROJECT_ID, createResource(resourceId, 100, 11)));
+        assertNotNull(cache.get(PROJECT_ID, createResource(resourceId, 100, 10)));
+
+        cache.remove(PROJECT_ID, resource);
+        assertNull(cache.get(PROJECT_ID, resource));
+        // a handle that already uses the removed content can still read it
+        assertEquals(1, readAll(content)[0]);
+
+        cache.put(PROJECT_ID, resource, createData(10, 3));
+        cache.clear();
+        assertNull(cache.get(PROJECT_ID, resource));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that contents from the mapping threshold are memory mapped.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMappedContent() throws Exception {
+
+        CmsJlanContentCache cache = new CmsJlanContentCache(64, 1024 * 1024);
+        byte[] small = createData(63, 1);
+        byte[] large = createData(64, 2);
+        CmsJlanContentCache.Content smallContent = cache.put(PROJECT_ID, createResource(new CmsUUID(), 1, 63), small);
+        CmsJlanContentCache.Content largeContent = cache.put(PROJECT_ID, createResource(new CmsUUID(), 1, 64), large);
+        assertFalse(smallContent.isMapped());
+        assertTrue(largeContent.isMapped());
+        assertTrue(Arrays.equals(small, readAll(smallContent)));
+        assertTrue(Arrays.equals(large, readAll(largeContent)));
+
+        // reads are independent of each other and limited by the content length
+        byte[] part = new byte[10];
+        assertEquals(10, largeContent.read(part, 10, 0, 50));
+        assertEquals(large[50], part[0]);
+        assertEquals(4, largeContent.read(part, 10, 0, 60));
+        assertEquals(-1, largeContent.read(part, 10, 0, 64));
+        assertTrue(Arrays.equals(large, readAll(largeContent)));
+    }
+
+    /**
+     * Tests that the total size of the cached contents is limited.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMaxSize() throws Exception {
+
+        CmsJlanContentCache cache = new CmsJlanContentCache(1024 * 1024, 1000);
+        for (int i = 0; i < 50; i++) {
+            cache.put(PROJECT_ID, createResource(new CmsUUID(), 1, 100), createData(100, i));
+        }
+        assertTrue(cache.size() <= 10);
+    }
+
+    /**
+     * Tests that file handles share the cached content until they are written to.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSharedContent() throws Exception {
+
+        CmsJlanContentCache cache = new CmsJlanContentCache(1024, 1024 * 1024);
+        CmsResource resource = createResource(new CmsUUID(), 100, 100);
+        byte[] data = createData(100, 1);
+        CmsJlanContentCache.Content content = cache.put(PROJECT_ID, resource, data);
+
+        CmsFileBuffer first = new CmsFileBuffer();
+        first.init(cache.get(PROJECT_ID, resource), cache.getMappingThreshold());
+        CmsFileBuffer second = new CmsFileBuffer();
+        second.init(cache.get(PROJECT_ID, resource), cache.getMappingThreshold());
+        assertSame(content, first.m_content);
+        assertSame(content, second.m_content);
+
+        first.seek(10);
+        first.write(new byte[] {-1, -2});
+        // the written handle works on a private copy, the other handle and the cache are unchanged
+        assertNull(first.m_content);
+        assertSame(content, second.m_content);
+        assertEquals(-1, first.getContents()[10]);
+        assertEquals(-2, first.getContents()[11]);
+        assertEquals(100, first.getLength());
+        assertTrue(Arrays.equals(data, second.getContents()));
+        assertTrue(Arrays.equals(data, readAll(cache.get(PROJECT_ID, resource))));
+        first.close();
+        second.close();
+    }
+
+    /**
+     * Tests that private copies from the spill threshold are written to a temporary file.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSpillToDisk() throws Exception {
+
+        CmsJlanContentCache cache = new CmsJlanContentCache(64, 1024 * 1024);
+        CmsResource resource = createResource(new CmsUUID(), 100, 60);
+        byte[] data = createData(60, 1);
+        CmsJlanContentCache.Content content = cache.put(PROJECT_ID, resource, data);
+
+        CmsFileBuffer buffer = new CmsFileBuffer();
+        buffer.init(content, cache.getMappingThreshold());
+        // a small modification is held in memory
+        buffer.seek(0);
+        buffer.write(new byte[] {-1});
+        assertNull(buffer.m_spill);
+        assertEquals(60, buffer.getLength());
+
+        // growing beyond the threshold moves the copy to a temporary file
+        buffer.seek(60);
+        buffer.write(createData(10, 2));
+        assertNotNull(buffer.m_spill);
+        File spillFile = buffer.m_spillFile;
+        assertTrue(spillFile.exists());
+        assertEquals(70, buffer.getLength());
+        byte[] contents = buffer.getContents();
+        assertEquals(-1, contents[0]);
+        assertEquals(data[1], contents[1]);
+        assertEquals(2, contents[60]);
+        byte[] part = new byte[5];
+        assertEquals(5, buffer.read(part, 5, 0, 65));
+        assertEquals(7, part[0]);
+
+        buffer.truncate(30);
+        assertEquals(30, buffer.getLength());
+        assertTrue(Arrays.equals(data, readAll(content)));
+
+        buffer.close();
+        assertFalse(spillFile.exists());
+    }
+
+    /**
+     * Creates test data.<p>
+     *
+     * @param length the data length
+     * @param start the value of the first byte, the following bytes are incremented by one
+     *
+     * @return the test data
+     */
+    private byte[] createData(int length, int start) {
+
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte)(start + i);
+        }
+        return data;
+    }
+
+    /**
+     * Creates a file resource.<p>
+     *
+     * @param resourceId the resource id
+     * @param dateContent the content date
+     * @param length the content length
+     *
+     * @return the file resource
+     */
+    private CmsResource createResource(CmsUUID resourceId, long dateContent, int length) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            resourceId,
+            "/test.txt",
+            CmsResourceTypePlain.getStaticTypeId(),
+            false,
+            0,
+            PROJECT_ID,
+            CmsResource.STATE_UNCHANGED,
+            dateContent,
+            CmsUUID.getNullUUID(),
+            dateContent,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            length,
+            dateContent,
+            0);
+    }
+
+    /**
+     * Reads a complete content.<p>
+     *
+     * @param content the content
+     *
+     * @return the content data
+     */
+    private byte[] readAll(CmsJlanContentCache.Content content) {
+
+        byte[] data = new byte[content.getLength()];
+        content.read(data, data.length, 0, 0);
+        return data;
+    }
+}
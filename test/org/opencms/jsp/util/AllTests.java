@@ -65,6 +65,7 @@ public final class AllTests {
         suite.addTest(TestCmsStringTemplateResolver.suite());
         suite.addTest(TestCmsJspDateSeriesBean.suite());
         suite.addTest(TestCmsJspInstanceDateBean.suite());
+        suite.addTest(new TestSuite(TestCmsJspUserAgentCache.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,85 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp.util;
+
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Tests the cache for the classification of user agents.<p>
+ */
+public class TestCmsJspUserAgentCache extends OpenCmsTestCase {
+
+    /** User agent of a mobile phone. */
+    private static final String UA_PHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 12_0 like Mac OS X) "
+        + "AppleWebKit/605.1.15 (KHTML, like Gecko) Version/12.0 Mobile/15E148 Safari/604.1";
+
+    /** User agent of a tablet. */
+    private static final String UA_TABLET = "Mozilla/5.0 (iPad; CPU OS 12_0 like Mac OS X) AppleWebKit/605.1.15 "
+        + "(KHTML, like Gecko) Version/12.0 Mobile/15E148 Safari/604.1";
+
+    /** User agent of a desktop browser. */
+    private static final String UA_DESKTOP = "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:68.0) "
+        + "Gecko/20100101 Firefox/68.0";
+
+    /**
+     * Tests that the cached results match the uncached detection.<p>
+     */
+    public void testDetection() {
+
+        CmsJspUserAgentCache cache = new CmsJspUserAgentCache(10);
+        for (String agent : new String[] {UA_PHONE, UA_TABLET, UA_DESKTOP, null}) {
+            UAgentInfo info = new UAgentInfo(agent, "text/html");
+            CmsJspUserAgentCache.UserAgent userAgent = cache.get(agent, "text/html");
+            assertEquals(info.detectMobileQuick(), userAgent.isMobile());
+            assertEquals(info.getIsTierTablet(), userAgent.isTablet());
+        }
+        assertTrue(cache.get(UA_PHONE, null).isMobile());
+        assertTrue(cache.get(UA_TABLET, null).isTablet());
+        assertFalse(cache.get(UA_TABLET, null).isMobile());
+        assertFalse(cache.get(UA_DESKTOP, null).isMobile());
+    }
+
+    /**
+     * Tests the statistics and the size limit of the cache.<p>
+     */
+    public void testStatistics() {
+
+        CmsJspUserAgentCache cache = new CmsJspUserAgentCache(2);
+        CmsJspUserAgentCache.UserAgent first = cache.get(UA_PHONE, null);
+        assertSame(first, cache.get(UA_PHONE, null));
+        cache.get(UA_DESKTOP, null);
+        assertEquals(2, cache.getDistinctAgents());
+        assertEquals(3, cache.getRequestCount());
+        assertEquals(1.0 / 3, cache.getHitRate(), 0.001);
+
+        cache.get(UA_TABLET, null);
+        assertTrue(cache.getDistinctAgents() <= 2);
+        cache.clear();
+        assertEquals(0, cache.getDistinctAgents());
+    }
+}
@@ -110,6 +110,43 @@ public class TestCmsImageScaler extends OpenCmsTestCase {
         assertTrue(image.isDownScaleRequired(downScaler));
     }
 
+    /**
+     * Tests reading the image metadata from the image header.<p>
+     *
+     * @throws Exception in case the test fails
+     */
+    public void testImageMetadata() throws Exception {
+
+        String img01 = "org/opencms/loader/img_01.jpg";
+        CmsImageMetadata metadata = CmsImageMetadata.read(CmsFileUtil.readFile(img01), img01);
+        assertNotNull(metadata);
+        assertEquals(800, metadata.getWidth());
+        assertEquals(600, metadata.getHeight());
+        assertEquals(CmsImageMetadata.ORIENTATION_NORMAL, metadata.getOrientation());
+        assertFalse(metadata.isTransposed());
+
+        String img02 = "org/opencms/loader/img_02.gif";
+        metadata = CmsImageMetadata.read(CmsFileUtil.readFile(img02), img02);
+        assertNotNull(metadata);
+        assertEquals(480, metadata.getWidth());
+        assertEquals(643, metadata.getHeight());
+        assertNull(metadata.getSubjectLocation());
+
+        // reading only the dimensions skips the EXIF data
+        metadata = CmsImageMetadata.readDimensions(CmsFileUtil.readFile(img01), img01);
+        assertNotNull(metadata);
+        assertEquals(800, metadata.getWidth());
+        assertEquals(600, metadata.getHeight());
+        assertEquals(CmsImageMetadata.ORIENTATION_NORMAL, metadata.getOrientation());
+        assertNull(metadata.getSubjectLocation());
+
+        // content which is no image can neither be read from the header nor be decoded
+        byte[] noImage = "no image".getBytes("UTF-8");
+        assertNull(CmsImageMetadata.read(noImage, "noimage.jpg"));
+        assertNull(CmsImageMetadata.readDimensions(noImage, "noimage.jpg"));
+        assertFalse(new CmsImageScaler(noImage, "noimage.jpg").isValid());
+    }
+
     /**
      * Tests the image scaling type 5.<p>
      *
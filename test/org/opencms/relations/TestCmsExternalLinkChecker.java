@@ -0,0 +1,195 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.relations;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the external link checker against a local HTTP server.<p>
+ */
+public class TestCmsExternalLinkChecker extends OpenCmsTestCase {
+
+    /** The number of requests received by the server. */
+    AtomicInteger m_received = new AtomicInteger();
+
+    /** The local HTTP server. */
+    private HttpServer m_server;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsExternalLinkChecker(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that repeated checks of the same URL are answered from the cache.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCache() throws Exception {
+
+        CmsExternalLinkChecker checker = new CmsExternalLinkChecker(2, 0, 60000, 5000);
+        try {
+            URL url = getUrl("/ok");
+            assertTrue(checker.check(url));
+            assertTrue(checker.submit(url).get().booleanValue());
+            assertEquals(1, m_received.get());
+            assertEquals(1, checker.getCacheHits());
+        } finally {
+            checker.shutdown();
+        }
+        // a checker without cache requests the URL again
+        checker = new CmsExternalLinkChecker(2, 0, 0, 5000);
+        try {
+            assertTrue(checker.check(getUrl("/ok")));
+            assertEquals(2, m_received.get());
+        } finally {
+            checker.shutdown();
+        }
+    }
+
+    /**
+     * Tests the results of the link checks.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCheck() throws Exception {
+
+        CmsExternalLinkChecker checker = new CmsExternalLinkChecker(4, 0, 0, 5000);
+        try {
+            assertTrue(checker.submit(getUrl("/ok")).get().booleanValue());
+            assertTrue(checker.submit(getUrl("/redirect")).get().booleanValue());
+            assertFalse(checker.submit(getUrl("/missing")).get().booleanValue());
+            // HEAD is not supported, checked again with GET
+            assertTrue(checker.submit(getUrl("/nohead")).get().booleanValue());
+            assertEquals(5, checker.getRequests());
+            // other protocols are not checked
+            assertTrue(checker.check(new URL("ftp://localhost/file.txt")));
+            assertFalse(checker.check(new URL("http://localhost:1/unreachable")));
+        } finally {
+            checker.shutdown();
+        }
+    }
+
+    /**
+     * Tests that concurrent requests to the same host are spaced by the host interval.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testHostInterval() throws Exception {
+
+        CmsExternalLinkChecker checker = new CmsExternalLinkChecker(4, 100, 0, 5000);
+        try {
+            long start = System.currentTimeMillis();
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(checker.submit(getUrl("/ok?" + i)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get().booleanValue());
+            }
+            assertTrue((System.currentTimeMillis() - start) >= 300);
+            assertEquals(4, m_received.get());
+        } finally {
+            checker.shutdown();
+        }
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        CmsExternalLinkChecker.clearCache();
+        m_server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        m_server.createContext("/", new HttpHandler() {
+
+            public void handle(HttpExchange exchange) throws IOException {
+
+                m_received.incrementAndGet();
+                String path = exchange.getRequestURI().getPath();
+                int status = 200;
+                if ("/redirect".equals(path)) {
+                    exchange.getResponseHeaders().add("Location", "/ok");
+                    status = 301;
+                } else if ("/missing".equals(path)) {
+                    status = 404;
+                } else if ("/nohead".equals(path) && "HEAD".equals(exchange.getRequestMethod())) {
+                    status = 405;
+                }
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        m_server.start();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        m_server.stop(0);
+        CmsExternalLinkChecker.clearCache();
+        super.tearDown();
+    }
+
+    /**
+     * Returns the URL of the given path on the local server.<p>
+     *
+     * @param path the path
+     *
+     * @return the URL
+     *
+     * @throws Exception if the URL is invalid
+     */
+    private URL getUrl(String path) throws Exception {
+
+        return new URL("http://127.0.0.1:" + m_server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.relations;
+
+import org.opencms.db.CmsPublishList;
+import org.opencms.db.generic.CmsSqlManager;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the relation system validator.<p>
+ */
+public class TestCmsRelationSystemValidator extends OpenCmsTestCase {
+
+    /** The folder containing the resources used by the tests. */
+    private static final String FOLDER = "/relationvalidator/";
+
+    /** The strong relation type configured for the tests. */
+    private static final String RELATION_TYPE = "TESTRELATION2";
+
+    /** The number of link sources, more than read with a single query. */
+    private static final int SOURCE_COUNT = CmsSqlManager.IN_CONDITION_CHUNK_SIZE + 20;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsRelationSystemValidator(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsRelationSystemValidator.class.getName());
+
+        suite.addTest(new TestCmsRelationSystemValidator("testValidateInBulk"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that validating the relations with bulk reads finds the same broken links
+     * as reading the relations of every resource on its own.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testValidateInBulk() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the relations are validated in bulk like with single reads");
+
+        createFolder(cms, FOLDER);
+        createFolder(cms, FOLDER + "targets/");
+        createFolder(cms, FOLDER + "sources/");
+        createFolder(cms, FOLDER + "unchanged/");
+        String[] targets = new String[] {
+            "targets/kept.txt",
+            "targets/deleted.txt",
+            "targets/missing.txt",
+            "targets/replaced",
+            "targets/new.txt"};
+        for (int i = 0; i < (targets.length - 1); i++) {
+            createFile(cms, FOLDER + targets[i]);
+        }
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            String source = FOLDER + "sources/source" + i + ".txt";
+            createFile(cms, source);
+            cms.addRelationToResource(source, FOLDER + targets[i % (targets.length - 1)], RELATION_TYPE);
+        }
+        for (int i = 0; i < 5; i++) {
+            // link sources which are not published again
+            String source = FOLDER + "unchanged/source" + i + ".txt";
+            createFile(cms, source);
+            cms.addRelationToResource(source, FOLDER + "targets/deleted.txt", RELATION_TYPE);
+        }
+        publish(cms, FOLDER);
+
+        // the missing target is removed, so the relations point to a resource that neither exists nor gets published
+        cms.lockResource(FOLDER + "targets/missing.txt");
+        cms.deleteResource(FOLDER + "targets/missing.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        publish(cms, FOLDER + "targets/missing.txt");
+        // the replaced target is a folder now, so the relations can only be resolved by their path
+        cms.lockResource(FOLDER + "targets/replaced");
+        cms.deleteResource(FOLDER + "targets/replaced", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        publish(cms, FOLDER + "targets/replaced");
+        createFolder(cms, FOLDER + "targets/replaced/");
+        publish(cms, FOLDER + "targets/replaced/");
+
+        // all sources are changed, and some of them link to a new target that gets published as well
+        createFile(cms, FOLDER + "targets/new.txt");
+        cms.lockResource(FOLDER + "sources/");
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            String source = FOLDER + "sources/source" + i + ".txt";
+            cms.setDateLastModified(source, System.currentTimeMillis(), false);
+            if ((i % 10) == 0) {
+                cms.addRelationToResource(source, FOLDER + "targets/new.txt", RELATION_TYPE);
+            }
+        }
+        // the deleted target still has incoming links from the online project, except from a deleted source
+        cms.lockResource(FOLDER + "targets/deleted.txt");
+        cms.deleteResource(FOLDER + "targets/deleted.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.deleteResource(FOLDER + "sources/source1.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+
+        CmsPublishList publishList = OpenCms.getPublishManager().getPublishList(cms);
+        assertTrue(publishList.getAllResources().size() > SOURCE_COUNT);
+
+        Map<String, List<String>> bulk = validate(cms, publishList);
+        cms.getRequestContext().setAttribute(CmsRelationSystemValidator.ATTR_VALIDATE_SINGLY, Boolean.TRUE);
+        Map<String, List<String>> single;
+        try {
+            single = validate(cms, publishList);
+        } finally {
+            cms.getRequestContext().removeAttribute(CmsRelationSystemValidator.ATTR_VALIDATE_SINGLY);
+        }
+        assertEquals(single, bulk);
+
+        String path = cms.getRequestContext().getSiteRoot() + FOLDER;
+        // the links to the missing target and to the deleted target are broken
+        assertTrue(bulk.containsKey(path + "sources/source2.txt"));
+        assertTrue(bulk.containsKey(path + "sources/source5.txt"));
+        // the deleted target is still linked from the sources which are not published again
+        assertEquals(5, bulk.get(path + "targets/deleted.txt").size());
+        // the links to the kept, the new and the replaced target are valid, and deleted sources are not checked
+        assertFalse(bulk.containsKey(path + "sources/source0.txt"));
+        assertFalse(bulk.containsKey(path + "sources/source1.txt"));
+        assertFalse(bulk.containsKey(path + "sources/source3.txt"));
+        assertFalse(bulk.containsKey(path + "sources/source20.txt"));
+        assertEquals(2 * (SOURCE_COUNT / 4), bulk.size());
+    }
+
+    /**
+     * Creates a file.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the file
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createFile(CmsObject cms, String path) throws Exception {
+
+        cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), path.getBytes(), null);
+    }
+
+    /**
+     * Creates a folder if it does not exist yet.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the folder
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createFolder(CmsObject cms, String path) throws Exception {
+
+        if (!cms.existsResource(path, CmsResourceFilter.ALL)) {
+            cms.createResource(path, CmsResourceTypeFolder.getStaticTypeId());
+        }
+    }
+
+    /**
+     * Publishes a resource with its sub resources and waits until the publish job has finished.<p>
+     *
+     * @param cms the current users context
+     * @param path the path of the resource to publish
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void publish(CmsObject cms, String path) throws Exception {
+
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+    }
+
+    /**
+     * Validates the relations of the given publish list.<p>
+     *
+     * @param cms the current users context
+     * @param publishList the publish list
+     *
+     * @return the broken relations as strings, keyed by the root paths of the resources
+     *
+     * @throws Exception if something goes wrong
+     */
+    private Map<String, List<String>> validate(CmsObject cms, CmsPublishList publishList) throws Exception {
+
+        Map<String, List<String>> result = new TreeMap<String, List<String>>();
+        for (Map.Entry<String, List<CmsRelation>> entry : OpenCms.getPublishManager().validateRelations(
+            cms,
+            publishList,
+            null).entrySet()) {
+            List<String> relations = new ArrayList<String>();
+            for (CmsRelation relation : entry.getValue()) {
+                relations.add(relation.toString());
+            }
+            result.put(entry.getKey(), relations);
+        }
+        return result;
+    }
+}
@@ -60,6 +60,7 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsScheduler.class));
         suite.addTest(TestCmsSchedulerInSystem.suite());
+        suite.addTest(TestCmsCreateImageSizeJob.suite());
         //$JUnit-END$
         return suite;
     }
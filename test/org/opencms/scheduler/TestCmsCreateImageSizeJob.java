@@ -0,0 +1,157 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.scheduler;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.main.OpenCms;
+import org.opencms.scheduler.jobs.CmsCreateImageSizeJob;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the scheduled job calculating the image size information.<p>
+ */
+public class TestCmsCreateImageSizeJob extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsCreateImageSizeJob(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsCreateImageSizeJob.class.getName());
+
+        suite.addTest(new TestCmsCreateImageSizeJob("testIncrementalAfterLockedImage"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that an image which could not be processed by an incremental run is processed by the next run.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testIncrementalAfterLockedImage() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that an image locked during an incremental run is processed by the next run");
+
+        // scheduled jobs run in the root site by default
+        cms.getRequestContext().setSiteRoot("/");
+        String path = "/sites/default/folder1/image1.gif";
+        CmsCreateImageSizeJob job = new CmsCreateImageSizeJob();
+        Map<String, String> incremental = new HashMap<String, String>();
+        incremental.put(CmsCreateImageSizeJob.PARAM_INCREMENTAL, Boolean.TRUE.toString());
+
+        // a complete run creates the image size information of all images
+        job.launch(cms, Collections.<String, String> emptyMap());
+        String size = readImageSize(cms, path);
+        assertNotNull(size);
+
+        // change the content after the complete run and write outdated image size information
+        Thread.sleep(10);
+        cms.lockResource(path);
+        cms.writeFile(cms.readFile(path));
+        cms.writePropertyObject(path, new CmsProperty(CmsPropertyDefinition.PROPERTY_IMAGE_SIZE, "w:1,h:1", null));
+        cms.unlockResource(path);
+
+        // the image is locked by another user during the next run, so it can not be updated
+        CmsObject otherCms = OpenCms.initCmsObject(cms);
+        otherCms.loginUser("test1", "test1");
+        otherCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        otherCms.lockResource(path);
+        job.launch(cms, incremental);
+        assertEquals("w:1,h:1", readImageSize(cms, path));
+
+        // the content has not changed since the last run, but the image failed in it
+        otherCms.unlockResource(path);
+        job.launch(cms, incremental);
+        assertEquals(size, readImageSize(cms, path));
+
+        // images processed successfully are skipped by the next incremental run
+        cms.lockResource(path);
+        cms.writePropertyObject(path, new CmsProperty(CmsPropertyDefinition.PROPERTY_IMAGE_SIZE, "w:2,h:2", null));
+        cms.unlockResource(path);
+        job.launch(cms, incremental);
+        assertEquals("w:2,h:2", readImageSize(cms, path));
+    }
+
+    /**
+     * Reads the image size information of an image.<p>
+     *
+     * @param cms the current users context
+     * @param path the image path
+     *
+     * @return the image size information
+     *
+     * @throws Exception if something goes wrong
+     */
+    private String readImageSize(CmsObject cms, String path) throws Exception {
+
+        return cms.readPropertyObject(path, CmsPropertyDefinition.PROPERTY_IMAGE_SIZE, false).getValue();
+    }
+}
@@ -59,6 +59,8 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsSearchUtils.class));
+        suite.addTest(new TestSuite(TestCmsSearchOfflineUpdateQueue.class));
+        suite.addTest(new TestSuite(TestCmsOfflineExtractionCache.class));
         suite.addTest(TestCmsSearch.suite());
         suite.addTest(TestCmsSearchOffline.suite());
         suite.addTest(TestCmsSearchFields.suite());
@@ -0,0 +1,91 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.search.extractors.CmsExtractionResult;
+import org.opencms.search.extractors.I_CmsExtractionResult;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Map;
+
+/**
+ * Tests for the cache of extraction results shared by the offline indexes.<p>
+ */
+public class TestCmsOfflineExtractionCache extends OpenCmsTestCase {
+
+    /**
+     * Tests that the hits and misses of the cache are counted.<p>
+     */
+    public void testHitsAndMisses() {
+
+        CmsOfflineExtractionCache cache = new CmsOfflineExtractionCache();
+        I_CmsExtractionResult result = new CmsExtractionResult("some content");
+        assertNull(cache.get("a"));
+        cache.put("a", result);
+        cache.put("b", null);
+        assertSame(result, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+    }
+
+    /**
+     * Tests that the cache is bounded by the number of characters of the cached extraction results.<p>
+     */
+    public void testWeightBound() {
+
+        long maxWeight = 10000;
+        CmsOfflineExtractionCache cache = new CmsOfflineExtractionCache(maxWeight);
+        StringBuffer content = new StringBuffer();
+        for (int i = 0; i < 100; i++) {
+            content.append('x');
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, new CmsExtractionResult(content.toString()));
+        }
+        assertTrue(cache.size() > 0);
+        assertTrue(cache.size() < 1000);
+        long weight = 0;
+        for (Map.Entry<String, I_CmsExtractionResult> entry : cache.getCacheMap().entrySet()) {
+            weight += CmsOfflineExtractionCache.getWeight(entry.getKey(), entry.getValue());
+        }
+        assertTrue(weight <= maxWeight);
+
+        // a single result larger than the cache is not kept
+        for (int i = 0; i < 200; i++) {
+            content.append(content.substring(0, 100));
+        }
+        cache.put("large", new CmsExtractionResult(content.toString()));
+        assertNull(cache.get("large"));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for the coalescing offline search index update queue.<p>
+ */
+public class TestCmsSearchOfflineUpdateQueue extends OpenCmsTestCase {
+
+    /**
+     * Tests that the batch size adapts to the duration of the update cycles.<p>
+     */
+    public void testAdaptiveBatchSize() {
+
+        CmsSearchOfflineUpdateQueue queue = new CmsSearchOfflineUpdateQueue();
+        int size = queue.getBatchSize();
+        queue.cycleFinished(10, 9000, 15000);
+        assertEquals(size / 2, queue.getBatchSize());
+        queue.cycleFinished(size / 2, 100, 15000);
+        assertEquals(size, queue.getBatchSize());
+        // a cycle which did not use the full batch does not increase the batch size
+        queue.cycleFinished(10, 100, 15000);
+        assertEquals(size, queue.getBatchSize());
+        for (int i = 0; i < 20; i++) {
+            queue.cycleFinished(1, 14000, 15000);
+        }
+        assertEquals(CmsSearchOfflineUpdateQueue.MIN_BATCH_SIZE, queue.getBatchSize());
+    }
+
+    /**
+     * Tests that repeated changes of a resource are merged into its latest change.<p>
+     */
+    public void testCoalescing() {
+
+        CmsUUID id = new CmsUUID();
+        CmsSearchOfflineUpdateQueue queue = new CmsSearchOfflineUpdateQueue();
+        queue.add(
+            Arrays.asList(
+                published(id, "/sites/default/a.html", CmsResource.STATE_NEW),
+                published(new CmsUUID(), "/sites/default/b.html", CmsResource.STATE_CHANGED),
+                published(id, "/sites/default/a.html", CmsResource.STATE_CHANGED),
+                published(id, "/sites/default/a.html", CmsResource.STATE_DELETED)));
+        assertEquals(2, queue.size());
+        assertEquals(4, queue.getQueuedCount());
+        assertEquals(2, queue.getCoalescedCount());
+
+        List<CmsPublishedResource> result = queue.poll().getResources();
+        assertEquals(2, result.size());
+        assertEquals("/sites/default/b.html", result.get(0).getRootPath());
+        assertEquals("/sites/default/a.html", result.get(1).getRootPath());
+        assertTrue(result.get(1).getState().isDeleted());
+        assertEquals(0, queue.size());
+    }
+
+    /**
+     * Tests that the documents for the outdated paths of a moved resource are deleted.<p>
+     */
+    public void testMovedResource() {
+
+        CmsUUID id = new CmsUUID();
+        List<CmsPublishedResource> result = CmsSearchOfflineUpdateQueue.coalesce(
+            Arrays.asList(
+                published(id, "/sites/default/a.html", CmsResource.STATE_CHANGED),
+                published(id, "/sites/default/b.html", CmsResource.STATE_CHANGED),
+                published(id, "/sites/default/c.html", CmsResource.STATE_CHANGED),
+                published(id, "/sites/default/b.html", CmsResource.STATE_CHANGED)));
+        assertEquals(3, result.size());
+        assertEquals("/sites/default/a.html", result.get(0).getRootPath());
+        assertTrue(result.get(0).getState().isDeleted());
+        assertEquals("/sites/default/c.html", result.get(1).getRootPath());
+        assertTrue(result.get(1).getState().isDeleted());
+        assertEquals("/sites/default/b.html", result.get(2).getRootPath());
+        assertFalse(result.get(2).getState().isDeleted());
+    }
+
+    /**
+     * Tests that a batch is only reported as limited if entries are left in the queue.<p>
+     */
+    public void testPollLimit() {
+
+        CmsSearchOfflineUpdateQueue queue = new CmsSearchOfflineUpdateQueue();
+        int batchSize = queue.getBatchSize();
+        queue.add(publishedList(batchSize));
+        CmsSearchOfflineUpdateQueue.Batch batch = queue.poll();
+        assertEquals(batchSize, batch.getPolledCount());
+        assertEquals(batchSize, batch.getResources().size());
+        assertFalse(batch.isLimited());
+        assertEquals(0, queue.size());
+
+        queue.add(publishedList(batchSize + 1));
+        batch = queue.poll();
+        assertEquals(batchSize, batch.getPolledCount());
+        assertTrue(batch.isLimited());
+        batch = queue.poll();
+        assertEquals(1, batch.getPolledCount());
+        assertFalse(batch.isLimited());
+        assertTrue(queue.poll().getResources().isEmpty());
+
+        // the deleted entries for outdated paths are not counted as polled entries
+        CmsUUID id = new CmsUUID();
+        queue.add(
+            Arrays.asList(
+                published(id, "/sites/default/a.html", CmsResource.STATE_CHANGED),
+                published(id, "/sites/default/b.html", CmsResource.STATE_CHANGED)));
+        batch = queue.poll();
+        assertEquals(1, batch.getPolledCount());
+        assertEquals(2, batch.getResources().size());
+        assertFalse(batch.isLimited());
+    }
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param structureId the structure id
+     * @param rootPath the root path
+     * @param state the resource state
+     *
+     * @return the published resource
+     */
+    private CmsPublishedResource published(CmsUUID structureId, String rootPath, CmsResourceState state) {
+
+        return new CmsPublishedResource(structureId, new CmsUUID(), 1, rootPath, 1, false, state, 1);
+    }
+
+    /**
+     * Creates a list of changed published resources with different structure ids.<p>
+     *
+     * @param count the number of published resources
+     *
+     * @return the published resources
+     */
+    private List<CmsPublishedResource> publishedList(int count) {
+
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(published(new CmsUUID(), "/sites/default/file" + i + ".html", CmsResource.STATE_CHANGED));
+        }
+        return result;
+    }
+}
@@ -126,6 +126,7 @@ public final class AllTests {
         suite.addTest(TestSolrSearch.suite());
         suite.addTest(TestCmsSolrCollector.suite());
         suite.addTest(TestSolrSerialDateIndexing.suite());
+        suite.addTest(new TestSuite(TestCmsSolrIndexWriter.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,346 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search.solr;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsResource;
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+
+/**
+ * Tests the buffering of the Solr index writer.<p>
+ */
+public class TestCmsSolrIndexWriter extends OpenCmsTestCase {
+
+    /**
+     * Solr client recording the operations of the requests it receives.<p>
+     */
+    private static class TestSolrClient extends SolrClient {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = 1L;
+
+        /** The ids of the documents which can not be added. */
+        Set<String> m_brokenIds = new HashSet<String>();
+
+        /** Signals if requests with more than one operation fail. */
+        boolean m_failBatches;
+
+        /** The operations of the successful requests. */
+        List<List<String>> m_requests = new ArrayList<List<String>>();
+
+        /**
+         * @see org.apache.solr.client.solrj.SolrClient#close()
+         */
+        @Override
+        public void close() {
+
+            // nothing to close
+        }
+
+        /**
+         * @see org.apache.solr.client.solrj.SolrClient#request(org.apache.solr.client.solrj.SolrRequest, java.lang.String)
+         */
+        @Override
+        public NamedList<Object> request(SolrRequest request, String collection)
+        throws SolrServerException, IOException {
+
+            UpdateRequest update = (UpdateRequest)request;
+            List<String> operations = new ArrayList<String>();
+            if (update.getDeleteQuery() != null) {
+                for (String query : update.getDeleteQuery()) {
+                    operations.add("delete " + query);
+                }
+            }
+            if (update.getDocuments() != null) {
+                for (SolrInputDocument document : update.getDocuments()) {
+                    String id = String.valueOf(document.getFieldValue(CmsSearchField.FIELD_SOLR_ID));
+                    if (m_brokenIds.contains(id)) {
+                        throw new SolrServerException("Broken document " + id);
+                    }
+                    operations.add("add " + id);
+                }
+            }
+            if (m_failBatches && (operations.size() > 1)) {
+                throw new SolrServerException("Batch failed");
+            }
+            m_requests.add(operations);
+            return new NamedList<Object>();
+        }
+    }
+
+    /** The content used to give the documents a size. */
+    private static final String CONTENT = new String(new char[300]).replace('\0', 'x');
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSolrIndexWriter(String arg0) {
+
+        super(arg0, false);
+    }
+
+    /**
+     * Tests that the buffered changes are sent if the number or the size of the documents exceeds the limits.<p>
+     */
+    public void testBatchLimits() {
+
+        TestSolrClient client = new TestSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 3, 1000);
+        update(writer, new CmsUUID().toString(), "/a.txt");
+        delete(writer, new CmsUUID().toString(), "/b.txt");
+        assertEquals(0, client.m_requests.size());
+        update(writer, new CmsUUID().toString(), "/c.txt");
+        assertEquals(2, client.m_requests.size());
+
+        client = new TestSolrClient();
+        writer = createWriter(client, 100, 1000);
+        String id = new CmsUUID().toString();
+        update(writer, id, "/a.txt");
+        update(writer, new CmsUUID().toString(), "/b.txt");
+        // the size of a deleted document is not buffered any longer
+        delete(writer, id, "/a.txt");
+        update(writer, new CmsUUID().toString(), "/c.txt");
+        assertEquals(0, client.m_requests.size());
+        update(writer, new CmsUUID().toString(), "/d.txt");
+        assertEquals(2, client.m_requests.size());
+        assertEquals(3, client.m_requests.get(1).size());
+    }
+
+    /**
+     * Tests that many deletions are sent with several queries.<p>
+     */
+    public void testChunkedDeletes() {
+
+        assertEquals(
+            "path:(\"/a\\\"b.txt\" OR \"/c\\\\d.txt\")",
+            CmsSolrIndexWriter.getTermsQuery("path", Arrays.asList("/a\"b.txt", "/c\\d.txt")));
+
+        TestSolrClient client = new TestSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 10000, Long.MAX_VALUE);
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 1200; i++) {
+            String id = new CmsUUID().toString();
+            ids.add(id);
+            delete(writer, id, "/file" + i + ".txt");
+        }
+        writer.flush();
+        assertEquals(1, client.m_requests.size());
+        List<String> operations = client.m_requests.get(0);
+        assertEquals(
+            Arrays.asList(
+                "delete " + CmsSolrIndexWriter.getTermsQuery(CmsSearchField.FIELD_ID, ids.subList(0, 500)),
+                "delete " + CmsSolrIndexWriter.getTermsQuery(CmsSearchField.FIELD_ID, ids.subList(500, 1000)),
+                "delete " + CmsSolrIndexWriter.getTermsQuery(CmsSearchField.FIELD_ID, ids.subList(1000, 1200))),
+            operations);
+    }
+
+    /**
+     * Tests that a deletion drops the buffered update of the same resource.<p>
+     */
+    public void testDeleteDropsPendingUpdate() {
+
+        TestSolrClient client = new TestSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 100, Long.MAX_VALUE);
+        String id1 = new CmsUUID().toString();
+        String id2 = new CmsUUID().toString();
+        update(writer, id1, "/a.txt");
+        update(writer, id2, "/b.txt");
+        delete(writer, id1, "/a.txt");
+        writer.flush();
+
+        assertEquals(2, client.m_requests.size());
+        assertEquals(
+            Arrays.asList(
+                "delete id:(\"" + id1 + "\")",
+                "delete path:(\"/a.txt\" OR \"/b.txt\")"),
+            client.m_requests.get(0));
+        assertEquals(Arrays.asList("add " + id2), client.m_requests.get(1));
+    }
+
+    /**
+     * Tests that the changes are sent one by one if a batch fails.<p>
+     */
+    public void testFallbackToSingleSends() {
+
+        TestSolrClient client = new TestSolrClient();
+        client.m_failBatches = true;
+        CmsSolrIndexWriter writer = createWriter(client, 100, Long.MAX_VALUE);
+        String id1 = new CmsUUID().toString();
+        String id2 = new CmsUUID().toString();
+        String id3 = new CmsUUID().toString();
+        String id4 = new CmsUUID().toString();
+        client.m_brokenIds.add(id2);
+        update(writer, id1, "/a.txt");
+        update(writer, id2, "/b.txt");
+        update(writer, id3, "/c.txt");
+        delete(writer, id4, "/d.txt");
+        writer.flush();
+
+        List<List<String>> expected = new ArrayList<List<String>>();
+        expected.add(Arrays.asList("delete id:(\"" + id4 + "\")"));
+        expected.add(Arrays.asList("delete path:(\"/a.txt\")"));
+        expected.add(Arrays.asList("delete path:(\"/b.txt\")"));
+        expected.add(Arrays.asList("delete path:(\"/c.txt\")"));
+        // the broken document is skipped, the other documents are added
+        expected.add(Arrays.asList("add " + id1));
+        expected.add(Arrays.asList("add " + id3));
+        assertEquals(expected, client.m_requests);
+
+        // nothing is buffered any longer
+        writer.flush();
+        assertEquals(expected, client.m_requests);
+    }
+
+    /**
+     * Tests that the changes are sent in the order they were made across several batches.<p>
+     */
+    public void testOrderingAcrossFlushes() {
+
+        TestSolrClient client = new TestSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 2, Long.MAX_VALUE);
+        String id1 = new CmsUUID().toString();
+        String id2 = new CmsUUID().toString();
+        update(writer, id1, "/a.txt");
+        update(writer, id2, "/b.txt");
+        delete(writer, id1, "/a.txt");
+        update(writer, id1, "/a.txt");
+        delete(writer, id2, "/b.txt");
+        writer.flush();
+
+        List<List<String>> expected = new ArrayList<List<String>>();
+        expected.add(Arrays.asList("delete path:(\"/a.txt\" OR \"/b.txt\")"));
+        expected.add(Arrays.asList("add " + id1, "add " + id2));
+        expected.add(Arrays.asList("delete id:(\"" + id1 + "\")", "delete path:(\"/a.txt\")"));
+        expected.add(Arrays.asList("add " + id1));
+        expected.add(Arrays.asList("delete id:(\"" + id2 + "\")"));
+        assertEquals(expected, client.m_requests);
+    }
+
+    /**
+     * Tests that an update after a buffered deletion of the same resource is added after the deletion.<p>
+     */
+    public void testUpdateAfterDelete() {
+
+        TestSolrClient client = new TestSolrClient();
+        CmsSolrIndexWriter writer = createWriter(client, 100, Long.MAX_VALUE);
+        String id = new CmsUUID().toString();
+        delete(writer, id, "/a.txt");
+        update(writer, id, "/a.txt");
+        writer.flush();
+
+        List<List<String>> expected = new ArrayList<List<String>>();
+        expected.add(Arrays.asList("delete id:(\"" + id + "\")", "delete path:(\"/a.txt\")"));
+        expected.add(Arrays.asList("add " + id));
+        assertEquals(expected, client.m_requests);
+    }
+
+    /**
+     * Creates an index writer for a test index.<p>
+     *
+     * @param client the Solr client
+     * @param batchSize the maximal number of buffered documents
+     * @param batchBytes the maximal size of the buffered documents
+     *
+     * @return the index writer
+     */
+    private CmsSolrIndexWriter createWriter(SolrClient client, int batchSize, long batchBytes) {
+
+        CmsSolrIndex index = new CmsSolrIndex();
+        index.setName("Writer test");
+        index.setPath("writertest");
+        index.addConfigurationParameter(CmsSolrIndex.SOLR_WRITER_BATCH_SIZE, String.valueOf(batchSize));
+        index.addConfigurationParameter(CmsSolrIndex.SOLR_WRITER_BATCH_BYTES, String.valueOf(batchBytes));
+        return new CmsSolrIndexWriter(client, index, 0);
+    }
+
+    /**
+     * Buffers the deletion of a resource.<p>
+     *
+     * @param writer the index writer
+     * @param id the structure id of the resource
+     * @param rootPath the root path of the resource
+     */
+    private void delete(CmsSolrIndexWriter writer, String id, String rootPath) {
+
+        CmsResource resource = new CmsResource(
+            new CmsUUID(id),
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsProject.ONLINE_PROJECT_ID,
+            CmsResource.STATE_DELETED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+        writer.deleteDocument(new CmsPublishedResource(resource));
+    }
+
+    /**
+     * Buffers the update of a resource.<p>
+     *
+     * @param writer the index writer
+     * @param id the structure id of the resource
+     * @param rootPath the root path of the resource
+     */
+    private void update(CmsSolrIndexWriter writer, String id, String rootPath) {
+
+        SolrInputDocument document = new SolrInputDocument();
+        document.addField(CmsSearchField.FIELD_ID, id);
+        document.addField(CmsSearchField.FIELD_PATH, rootPath);
+        document.addField(CmsSearchField.FIELD_CONTENT, CONTENT);
+        writer.updateDocument(rootPath, new CmsSolrDocument(document));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.security;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the permission check of large resource lists.<p>
+ */
+public class TestCmsFilterPermissions extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFilterPermissions(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFilterPermissions.class.getName());
+
+        suite.addTest(new TestCmsFilterPermissions("testFilterLargeList"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that filtering a list with more resources than checked in a single query
+     * gives the same result as checking every resource on its own.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFilterLargeList() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the permission check of a list with inherited, overridden and denied entries");
+
+        String base = "/filterpermissions/";
+        cms.createResource(base, CmsResourceTypeFolder.getStaticTypeId());
+        // all entries are inherited from the parent folder
+        createFiles(cms, base + "inherited/", 250);
+        // the user is denied to read the folder and everything below it
+        createFiles(cms, base + "denied/", 250);
+        cms.chacc(base + "denied/", I_CmsPrincipal.PRINCIPAL_USER, "test1", "-r+i");
+        // every fifth file overrides the denied entry of its folder
+        for (int i = 0; i < 250; i += 5) {
+            cms.chacc(base + "denied/file" + i + ".txt", I_CmsPrincipal.PRINCIPAL_USER, "test1", "+r");
+        }
+        // the entry of the folder is not inherited, the folder is denied but its files are not
+        createFiles(cms, base + "folderonly/", 100);
+        cms.chacc(base + "folderonly/", I_CmsPrincipal.PRINCIPAL_USER, "test1", "-r");
+        // a sub folder allows reading below a denied folder again
+        createFiles(cms, base + "denied/allowed/", 50);
+        cms.chacc(base + "denied/allowed/", I_CmsPrincipal.PRINCIPAL_USER, "test1", "+r+i");
+
+        List<CmsResource> all = cms.readResources(base, CmsResourceFilter.ALL, true);
+        assertTrue(all.size() > (CmsDefaultPermissionHandler.INHERITED_PERMISSIONS_MIN_RESOURCES + 150));
+
+        CmsObject userCms = OpenCms.initCmsObject(cms);
+        userCms.loginUser("test1", "test1");
+        userCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        userCms.getRequestContext().setSiteRoot(cms.getRequestContext().getSiteRoot());
+
+        // the expected result of the single checks
+        List<String> expected = new ArrayList<String>();
+        for (CmsResource resource : all) {
+            if (userCms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, true, CmsResourceFilter.ALL)) {
+                expected.add(resource.getRootPath());
+            }
+        }
+        assertTrue(expected.size() > 0);
+        assertTrue(expected.size() < all.size());
+
+        // the list is filtered by the bulk check
+        List<String> filtered = new ArrayList<String>();
+        for (CmsResource resource : userCms.readResources(base, CmsResourceFilter.ALL, true)) {
+            filtered.add(resource.getRootPath());
+        }
+        assertEquals(expected, filtered);
+    }
+
+    /**
+     * Creates a folder with the given number of files.<p>
+     *
+     * @param cms the current users context
+     * @param folder the folder to create
+     * @param count the number of files to create
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createFiles(CmsObject cms, String folder, int count) throws Exception {
+
+        cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < count; i++) {
+            cms.createResource(
+                folder + "file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                ("content " + i).getBytes(),
+                null);
+        }
+    }
+}
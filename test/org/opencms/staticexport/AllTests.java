@@ -64,6 +64,8 @@ public final class AllTests {
         suite.addTest(TestSecure.suite());
         suite.addTest(TestCmsExternalLinksValidator.suite());
         suite.addTest(TestExportScaledImage.suite());
+        suite.addTest(TestCmsStaticExportWorkerPool.suite());
+        suite.addTest(new TestSuite(TestCmsStaticExportLinkCache.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,134 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for the dependency tracking link cache of the static export manager.<p>
+ */
+public class TestCmsStaticExportLinkCache extends OpenCmsTestCase {
+
+    /**
+     * Tests that entries of detail pages are only removed if a detail page configuration was published.<p>
+     */
+    public void testDetailInvalidation() {
+
+        CmsStaticExportLinkCache<String> cache = new CmsStaticExportLinkCache<String>(100);
+        cache.put("detail", "/news/article/", true, "/sites/default/.content/article.xml", "/sites/default/news/");
+        cache.put("plain", "/about.html", false, "/sites/default/about.html");
+
+        assertEquals(0, cache.invalidate(publishedFiles("/sites/default/other.html"), false));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.invalidate(publishedFiles("/sites/default/.content/.config"), true));
+        assertNull(cache.get("detail"));
+        assertEquals("/about.html", cache.get("plain"));
+    }
+
+    /**
+     * Tests that the hits and misses are counted.<p>
+     */
+    public void testHitCount() {
+
+        CmsStaticExportLinkCache<String> cache = new CmsStaticExportLinkCache<String>(100);
+        cache.put("a", "/a.html", false, "/sites/default/a.html");
+        assertEquals("/a.html", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    /**
+     * Tests that only the entries depending on the published resources are removed.<p>
+     */
+    public void testPathInvalidation() {
+
+        CmsStaticExportLinkCache<String> cache = new CmsStaticExportLinkCache<String>(100);
+        cache.put("a", "/a.html", false, "/sites/default/a.html");
+        cache.put("b", "/b.html", false, "/sites/default/b.html");
+        cache.put("c", "/folder/c.html", false, "/sites/default/folder/c.html");
+        cache.put("d", "/folder/", false, "/sites/default/folder");
+        cache.put("untracked", "/x.html");
+
+        assertEquals(2, cache.invalidate(publishedFiles("/sites/default/a.html"), false));
+        assertNull(cache.get("a"));
+        assertNull(cache.get("untracked"));
+        assertEquals("/b.html", cache.get("b"));
+
+        // publishing a folder removes the entries of the folder and of all resources below it
+        List<CmsPublishedResource> folder = Collections.singletonList(published("/sites/default/folder/", true));
+        assertEquals(2, cache.invalidate(folder, false));
+        assertNull(cache.get("c"));
+        assertNull(cache.get("d"));
+        assertEquals("/b.html", cache.get("b"));
+    }
+
+    /**
+     * Creates a published resource.<p>
+     *
+     * @param rootPath the root path
+     * @param folder true if the published resource is a folder
+     *
+     * @return the published resource
+     */
+    private CmsPublishedResource published(String rootPath, boolean folder) {
+
+        return new CmsPublishedResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            1,
+            rootPath,
+            1,
+            folder,
+            CmsResource.STATE_CHANGED,
+            1);
+    }
+
+    /**
+     * Creates a list of published files.<p>
+     *
+     * @param rootPaths the root paths of the files
+     *
+     * @return the published files
+     */
+    private List<CmsPublishedResource> publishedFiles(String... rootPaths) {
+
+        List<CmsPublishedResource> result = new ArrayList<CmsPublishedResource>();
+        for (String rootPath : rootPaths) {
+            result.add(published(rootPath, false));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.core.appender.OpenCmsTestLogAppender;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests for the static export worker pool.<p>
+ */
+public class TestCmsStaticExportWorkerPool extends OpenCmsTestCase {
+
+    /**
+     * Result handler collecting the names and states of the finished exports.<p>
+     */
+    private static class ResultCollector implements CmsStaticExportWorkerPool.I_CmsExportResultHandler {
+
+        /** The collected errors. */
+        List<Throwable> m_errors = new ArrayList<Throwable>();
+
+        /** The collected names. */
+        List<String> m_names = new ArrayList<String>();
+
+        /** The collected states. */
+        List<Integer> m_states = new ArrayList<Integer>();
+
+        /**
+         * @see org.opencms.staticexport.CmsStaticExportWorkerPool.I_CmsExportResultHandler#handleResult(java.lang.String, int, java.lang.Throwable)
+         */
+        public void handleResult(String name, int status, Throwable error) {
+
+            m_names.add(name);
+            m_states.add(Integer.valueOf(status));
+            if (error != null) {
+                m_errors.add(error);
+            }
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStaticExportWorkerPool(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsStaticExportWorkerPool.class.getName());
+
+        suite.addTest(new TestCmsStaticExportWorkerPool("testDeduplication"));
+        suite.addTest(new TestCmsStaticExportWorkerPool("testFailure"));
+        suite.addTest(new TestCmsStaticExportWorkerPool("testResultOrder"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that duplicate export targets are only exported once.<p>
+     */
+    public void testDeduplication() {
+
+        ResultCollector collector = new ResultCollector();
+        final AtomicInteger calls = new AtomicInteger();
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(4, collector);
+        Callable<Integer> task = new Callable<Integer>() {
+
+            public Integer call() {
+
+                calls.incrementAndGet();
+                return Integer.valueOf(200);
+            }
+        };
+        assertTrue(pool.submit("/a.html", task));
+        assertTrue(pool.submit("/b.html", task));
+        assertFalse(pool.submit("/a.html", task));
+        pool.shutdown();
+        assertEquals(2, calls.get());
+        assertEquals(2, collector.m_names.size());
+    }
+
+    /**
+     * Tests that failures are reported without stopping the other exports.<p>
+     */
+    public void testFailure() {
+
+        ResultCollector collector = new ResultCollector();
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(2, collector);
+        // the failed export is logged as an error, ensure the test still continues
+        OpenCmsTestLogAppender.setBreakOnError(false);
+        pool.submit("/fail.html", new Callable<Integer>() {
+
+            public Integer call() throws Exception {
+
+                throw new IllegalStateException("test");
+            }
+        });
+        pool.submit("/ok.html", new Callable<Integer>() {
+
+            public Integer call() {
+
+                return Integer.valueOf(200);
+            }
+        });
+        pool.shutdown();
+        // reset log to stop test on error
+        OpenCmsTestLogAppender.setBreakOnError(true);
+        assertEquals(1, collector.m_errors.size());
+        assertTrue(collector.m_errors.get(0) instanceof IllegalStateException);
+        assertEquals(Integer.valueOf(-1), collector.m_states.get(0));
+        assertEquals(Integer.valueOf(200), collector.m_states.get(1));
+    }
+
+    /**
+     * Tests that results are handed back in submission order, regardless of the order in which the exports finish.<p>
+     */
+    public void testResultOrder() {
+
+        ResultCollector collector = new ResultCollector();
+        CmsStaticExportWorkerPool pool = new CmsStaticExportWorkerPool(4, collector);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) {
+            final int delay = (50 - i) % 7;
+            String name = "/page" + i + ".html";
+            expected.add(name);
+            pool.submit(name, new Callable<Integer>() {
+
+                public Integer call() throws Exception {
+
+                    Thread.sleep(delay);
+                    return Integer.valueOf(200);
+                }
+            });
+        }
+        pool.shutdown();
+        assertEquals(expected, collector.m_names);
+        assertTrue(collector.m_errors.isEmpty());
+    }
+}
@@ -119,6 +119,8 @@ public final class AllTests {
         suite.addTest(org.opencms.staticexport.AllTests.suite());
         suite.addTest(org.opencms.synchronize.AllTests.suite());
         suite.addTest(org.opencms.ui.apps.AllTests.suite());
+        suite.addTest(org.opencms.ui.apps.user.AllTests.suite());
+        suite.addTest(org.opencms.ui.components.AllTests.suite());
         suite.addTest(org.opencms.util.AllTests.suite());
         suite.addTest(org.opencms.widgets.AllTests.suite());
         suite.addTest(org.opencms.workplace.AllTests.suite());
@@ -127,6 +129,7 @@ public final class AllTests {
         suite.addTest(org.opencms.xml.content.AllTests.suite());
         suite.addTest(org.opencms.xml.page.AllTests.suite());
         suite.addTest(org.opencms.repository.AllTests.suite());
+        suite.addTest(org.opencms.jlan.AllTests.suite());
         suite.addTest(org.opencms.ugc.AllTests.suite());
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -0,0 +1,283 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ui.apps.user;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsUser;
+import org.opencms.file.CmsUserSearchParameters;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.ui.apps.user.CmsUserTable.TableProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.vaadin.v7.data.util.IndexedContainer;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the user container of the accounts app which reads the users page by page.<p>
+ */
+public class TestCmsPagedUserContainer extends OpenCmsTestCase {
+
+    /**
+     * App which selects the users of the organizational units on its own.<p>
+     */
+    public static class CustomizedApp extends CmsAccountsApp {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @see org.opencms.ui.apps.user.CmsAccountsApp#getUsersWithoutAdditionalInfo(org.opencms.file.CmsObject, org.opencms.ui.apps.user.I_CmsOuTreeType, java.lang.String, boolean)
+         */
+        @Override
+        public List<CmsUser> getUsersWithoutAdditionalInfo(
+            CmsObject cms,
+            I_CmsOuTreeType type,
+            String ou,
+            boolean recursive)
+        throws CmsException {
+
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * App which does not change the selection of the users.<p>
+     */
+    public static class DefaultApp extends CmsAccountsApp {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** The number of users used by the tests, more than fit into the cached pages. */
+    private static final int USER_COUNT = (CmsPagedUserContainer.MAX_CACHED_PAGES * CmsPagedUserContainer.PAGE_SIZE)
+        + 50;
+
+    /** The prefix of the names of the users used by the tests. */
+    private static final String USER_PREFIX = "pageduser";
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsPagedUserContainer(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsPagedUserContainer.class.getName());
+
+        suite.addTest(new TestCmsPagedUserContainer("testCustomizedUserList"));
+        suite.addTest(new TestCmsPagedUserContainer("testPaging"));
+        suite.addTest(new TestCmsPagedUserContainer("testSortAndFilter"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that apps which select the users on their own are not read page by page.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testCustomizedUserList() throws Exception {
+
+        echo("Testing the detection of apps which select the users on their own");
+
+        assertFalse(CmsAccountsApp.isUserListCustomized(CmsAccountsApp.class));
+        assertFalse(CmsAccountsApp.isUserListCustomized(DefaultApp.class));
+        assertTrue(CmsAccountsApp.isUserListCustomized(CustomizedApp.class));
+    }
+
+    /**
+     * Tests that the container delivers all users in order, also after their pages have been evicted.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPaging() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the users are read page by page");
+
+        List<String> expected = createUsers(cms);
+        CmsPagedUserContainer container = createContainer(cms);
+        assertEquals(USER_COUNT, container.size());
+        CmsUser first = (CmsUser)container.getIdByIndex(0);
+        CmsUser second = (CmsUser)container.getIdByIndex(1);
+
+        List<String> names = new ArrayList<String>();
+        for (Object itemId : container.getItemIds()) {
+            names.add(((CmsUser)itemId).getName());
+        }
+        assertEquals(expected, names);
+        assertEquals(names, getNames(CmsPagedUserContainer.readAllUsers(cms, createParameters(cms))));
+
+        // the first page has been evicted, but the index of its users is still known
+        assertEquals(0, container.indexOfId(first));
+        assertTrue(container.containsId(first));
+        assertTrue(container.isFirstId(first));
+        assertEquals(second, container.nextItemId(first));
+        assertEquals(first, container.prevItemId(second));
+        assertTrue(container.isLastId(container.lastItemId()));
+
+        // users not read since the last refresh are unknown
+        container.refresh();
+        assertEquals(-1, container.indexOfId(first));
+        assertEquals(-1, container.indexOfId("no user"));
+    }
+
+    /**
+     * Tests that the container is sorted and filtered by the database.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSortAndFilter() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the users are sorted and filtered by the database");
+
+        List<String> expected = createUsers(cms);
+        CmsPagedUserContainer container = createContainer(cms);
+        container.sort(new Object[] {TableProperty.Name}, new boolean[] {false});
+        Collections.reverse(expected);
+        assertEquals(expected.subList(0, 150), getNames(container.getItemIds(0, 150)));
+
+        container.setSearchFilter(USER_PREFIX + "000");
+        assertEquals(10, container.size());
+        // the sort order is kept
+        assertEquals(USER_PREFIX + "0009", ((CmsUser)container.firstItemId()).getName());
+        assertEquals(USER_PREFIX + "0000", ((CmsUser)container.lastItemId()).getName());
+    }
+
+    /**
+     * Creates a container for the users of the tests.<p>
+     *
+     * @param cms the current users context
+     *
+     * @return the container
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsPagedUserContainer createContainer(CmsObject cms) throws Exception {
+
+        // the table is only needed to fill the items, which are not read by the tests
+        return new CmsPagedUserContainer(cms, null, new IndexedContainer(), createParameters(cms));
+    }
+
+    /**
+     * Creates the search parameters for the users of the tests.<p>
+     *
+     * @param cms the current users context
+     *
+     * @return the search parameters
+     *
+     * @throws Exception if something goes wrong
+     */
+    private CmsUserSearchParameters createParameters(CmsObject cms) throws Exception {
+
+        CmsUserSearchParameters params = new CmsUserSearchParameters();
+        params.setOrganizationalUnit(OpenCms.getOrgUnitManager().readOrganizationalUnit(cms, ""));
+        params.setFilterCore(true);
+        params.setSearchFilter(USER_PREFIX);
+        params.setReadAdditionalInfo(false);
+        return params;
+    }
+
+    /**
+     * Creates the users used by the tests if they do not exist yet.<p>
+     *
+     * @param cms the current users context
+     *
+     * @return the names of the users in ascending order
+     *
+     * @throws Exception if something goes wrong
+     */
+    private List<String> createUsers(CmsObject cms) throws Exception {
+
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            names.add(USER_PREFIX + String.format("%04d", Integer.valueOf(i)));
+        }
+        if (OpenCms.getOrgUnitManager().countUsers(cms, createParameters(cms)) == 0) {
+            for (String name : names) {
+                cms.createUser(name, "password", "", null);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns the names of the given users.<p>
+     *
+     * @param users the users
+     *
+     * @return the user names
+     */
+    private List<String> getNames(List<?> users) {
+
+        List<String> names = new ArrayList<String>();
+        for (Object user : users) {
+            names.add(((CmsUser)user).getName());
+        }
+        return names;
+    }
+}
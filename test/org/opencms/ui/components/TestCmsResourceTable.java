@@ -0,0 +1,436 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH & Co. KG (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH & Co. KG, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ui.components;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.vaadin.v7.data.Container.Filter;
+import com.vaadin.v7.data.Item;
+import com.vaadin.v7.data.util.filter.Or;
+import com.vaadin.v7.data.util.filter.SimpleStringFilter;
+import com.vaadin.v7.ui.Label;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the lazy filling of the resource table.<p>
+ */
+public class TestCmsResourceTable extends OpenCmsTestCase {
+
+    /** The number of files used by the tests. */
+    private static final int FILE_COUNT = 120;
+
+    /** The folder containing the files used by the tests. */
+    private static final String FOLDER = "/resourcetable/";
+
+    /** The number of files used by the paging test, more than fit into two pages. */
+    private static final int PAGED_FILE_COUNT = (2 * CmsResourceTable.FOLDER_PAGE_SIZE) + 50;
+
+    /** The folder containing the files used by the paging test. */
+    private static final String PAGED_FOLDER = "/resourcetablepaged/";
+
+    /** The sub folders of the folder used by the paging test. */
+    private static final String[] PAGED_SUB_FOLDERS = new String[] {"Asub/", "file300/", "zsub/"};
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsResourceTable(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsResourceTable.class.getName());
+
+        suite.addTest(new TestCmsResourceTable("testLazyFill"));
+        suite.addTest(new TestCmsResourceTable("testLazySort"));
+        suite.addTest(new TestCmsResourceTable("testPagedFill"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the lazily filled items have the same values as the items filled immediately.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLazyFill() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that lazily filled items equal the items filled immediately");
+
+        createFiles(cms);
+        List<CmsResource> resources = cms.readResources(FOLDER, CmsResourceFilter.ALL, false);
+        assertEquals(FILE_COUNT, resources.size());
+        CmsResourceTable eager = createTable(false);
+        eager.fillTable(cms, resources);
+        CmsResourceTable lazy = createTable(true);
+        lazy.fillTable(cms, resources);
+        assertEquals(FILE_COUNT, lazy.m_container.getLazyItemCount());
+
+        // reading an item fills the following page
+        String firstId = resources.get(0).getStructureId().toString();
+        lazy.m_container.getItem(firstId).getItemProperty(CmsResourceTableProperty.PROPERTY_TITLE).getValue();
+        assertEquals(FILE_COUNT - CmsResourceTable.LAZY_PAGE_SIZE, lazy.m_container.getLazyItemCount());
+
+        assertItemsEqual(eager, lazy, resources);
+        assertEquals(0, lazy.m_container.getLazyItemCount());
+    }
+
+    /**
+     * Tests that sorting by a lazily filled property keeps the remaining properties unfilled.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testLazySort() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that sorting by a lazily filled property does not fill the items completely");
+
+        createFiles(cms);
+        List<CmsResource> resources = cms.readResources(FOLDER, CmsResourceFilter.ALL, false);
+        Object[] sortProperties = new Object[] {CmsResourceTableProperty.PROPERTY_TITLE};
+        boolean[] ascending = new boolean[] {true};
+        CmsResourceTable eager = createTable(false);
+        eager.fillTable(cms, resources);
+        eager.m_container.sort(sortProperties, ascending);
+        CmsResourceTable lazy = createTable(true);
+        lazy.fillTable(cms, resources);
+        lazy.m_container.sort(sortProperties, ascending);
+
+        assertEquals(FILE_COUNT, lazy.m_container.getLazyItemCount());
+        assertEquals(eager.m_container.getItemIds(), lazy.m_container.getItemIds());
+        List<?> sorted = lazy.m_container.getItemIds();
+        assertFalse(
+            resources.get(0).getStructureId().toString().equals(sorted.get(0))
+                && resources.get(1).getStructureId().toString().equals(sorted.get(1)));
+
+        // sorting by the navigation position fills the navigation properties together
+        sortProperties = new Object[] {CmsResourceTableProperty.PROPERTY_NAVIGATION_POSITION};
+        eager.m_container.sort(sortProperties, ascending);
+        lazy.m_container.sort(sortProperties, ascending);
+        assertEquals(FILE_COUNT, lazy.m_container.getLazyItemCount());
+        assertEquals(eager.m_container.getItemIds(), lazy.m_container.getItemIds());
+
+        // the items filled partially for sorting are completed once they are read
+        List<CmsResource> reversed = new ArrayList<CmsResource>(resources);
+        Collections.reverse(reversed);
+        assertItemsEqual(eager, lazy, reversed);
+        assertEquals(0, lazy.m_container.getLazyItemCount());
+    }
+
+    /**
+     * Tests that the children of a folder are read page by page in the sort order of the table.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPagedFill() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that the children of a folder are read page by page in the sort order of the table");
+
+        createPagedFiles(cms);
+        CmsResource folder = cms.readResource(PAGED_FOLDER);
+        List<CmsResource> resources = cms.readResources(PAGED_FOLDER, CmsResourceFilter.DEFAULT, false);
+        int total = PAGED_FILE_COUNT + PAGED_SUB_FOLDERS.length;
+        assertEquals(total, resources.size());
+        Set<String> fileIds = new HashSet<String>();
+        for (CmsResource resource : resources) {
+            if (resource.isFile()) {
+                fileIds.add(resource.getStructureId().toString());
+            }
+        }
+
+        // sorted by name, the folders are read completely and the files page by page
+        for (boolean ascending : new boolean[] {true, false}) {
+            CmsResourceTable eager = createTable(false);
+            setSort(eager, CmsResourceTableProperty.PROPERTY_RESOURCE_NAME, ascending);
+            eager.fillTable(cms, resources);
+            CmsResourceTable paged = createTable(true);
+            setSort(paged, CmsResourceTableProperty.PROPERTY_RESOURCE_NAME, ascending);
+            paged.fillTable(cms, folder, CmsResourceFilter.DEFAULT, true);
+            assertTrue(paged.hasMorePages());
+            assertEquals(PAGED_SUB_FOLDERS.length + CmsResourceTable.FOLDER_PAGE_SIZE, paged.getItemCount());
+            assertPagedOrder(eager, paged, fileIds);
+            paged.loadNextPage();
+            paged.m_fileTable.sort();
+            assertTrue(paged.hasMorePages());
+            assertEquals(PAGED_SUB_FOLDERS.length + (2 * CmsResourceTable.FOLDER_PAGE_SIZE), paged.getItemCount());
+            assertPagedOrder(eager, paged, fileIds);
+            paged.loadNextPage();
+            paged.m_fileTable.sort();
+            assertFalse(paged.hasMorePages());
+            assertEquals(eager.m_container.getItemIds(), paged.m_container.getItemIds());
+        }
+
+        // sorted by the date last modified, all children are read page by page
+        CmsResourceTable eager = createTable(false);
+        setSort(eager, CmsResourceTableProperty.PROPERTY_DATE_MODIFIED, false);
+        eager.fillTable(cms, resources);
+        CmsResourceTable paged = createTable(true);
+        setSort(paged, CmsResourceTableProperty.PROPERTY_DATE_MODIFIED, false);
+        paged.fillTable(cms, folder, CmsResourceFilter.DEFAULT, true);
+        assertTrue(paged.hasMorePages());
+        assertEquals(
+            eager.m_container.getItemIds().subList(0, CmsResourceTable.FOLDER_PAGE_SIZE),
+            paged.m_container.getItemIds());
+
+        // sorting by another column reads the remaining pages first
+        setSort(eager, CmsResourceTableProperty.PROPERTY_TITLE, true);
+        setSort(paged, CmsResourceTableProperty.PROPERTY_TITLE, true);
+        assertFalse(paged.hasMorePages());
+        assertEquals(eager.m_container.getItemIds(), paged.m_container.getItemIds());
+
+        // filtering reads the remaining pages first
+        eager = createTable(false);
+        setSort(eager, CmsResourceTableProperty.PROPERTY_RESOURCE_NAME, true);
+        eager.fillTable(cms, resources);
+        paged = createTable(true);
+        setSort(paged, CmsResourceTableProperty.PROPERTY_RESOURCE_NAME, true);
+        paged.fillTable(cms, folder, CmsResourceFilter.DEFAULT, true);
+        assertTrue(paged.hasMorePages());
+        // the folder read with the first page is sorted after the files read later
+        Filter filter = new Or(
+            new SimpleStringFilter(CmsResourceTableProperty.PROPERTY_RESOURCE_NAME, "file4", true, true),
+            new SimpleStringFilter(CmsResourceTableProperty.PROPERTY_RESOURCE_NAME, "zsub", true, true));
+        eager.m_container.addContainerFilter(filter);
+        paged.m_container.addContainerFilter(filter);
+        assertFalse(paged.hasMorePages());
+        assertEquals(total, paged.getItemCount());
+        assertEquals(62, paged.m_container.size());
+        assertEquals(eager.m_container.getItemIds(), paged.m_container.getItemIds());
+    }
+
+    /**
+     * Asserts the items of both tables have the same values.<p>
+     *
+     * @param expected the table with the expected values
+     * @param actual the table to check
+     * @param resources the resources of the items to compare, in the order they are read
+     */
+    private void assertItemsEqual(CmsResourceTable expected, CmsResourceTable actual, List<CmsResource> resources) {
+
+        for (CmsResource resource : resources) {
+            String itemId = resource.getStructureId().toString();
+            Item expectedItem = expected.m_container.getItem(itemId);
+            Item actualItem = actual.m_container.getItem(itemId);
+            for (Object propertyId : expected.m_container.getContainerPropertyIds()) {
+                Object expectedValue = expectedItem.getItemProperty(propertyId).getValue();
+                Object actualValue = actualItem.getItemProperty(propertyId).getValue();
+                if (expectedValue instanceof Label) {
+                    expectedValue = ((Label)expectedValue).getValue();
+                    actualValue = ((Label)actualValue).getValue();
+                }
+                assertEquals(resource.getRootPath() + " " + propertyId, expectedValue, actualValue);
+            }
+        }
+    }
+
+    /**
+     * Asserts the items of a table filled page by page are in the same order as in the completely filled table,
+     * and that the paged items read so far are the first ones of the completely filled table.<p>
+     *
+     * @param expected the completely filled table
+     * @param actual the table filled page by page
+     * @param pagedIds the ids of the items which are read page by page
+     */
+    private void assertPagedOrder(CmsResourceTable expected, CmsResourceTable actual, Collection<String> pagedIds) {
+
+        List<?> actualIds = actual.m_container.getItemIds();
+        List<Object> expectedIds = new ArrayList<Object>();
+        List<Object> expectedPaged = new ArrayList<Object>();
+        List<Object> actualPaged = new ArrayList<Object>();
+        for (Object id : expected.m_container.getItemIds()) {
+            if (actualIds.contains(id)) {
+                expectedIds.add(id);
+            }
+            if (pagedIds.contains(id)) {
+                expectedPaged.add(id);
+            }
+        }
+        for (Object id : actualIds) {
+            if (pagedIds.contains(id)) {
+                actualPaged.add(id);
+            }
+        }
+        assertEquals(expectedIds, actualIds);
+        assertEquals(expectedPaged.subList(0, actualPaged.size()), actualPaged);
+    }
+
+    /**
+     * Creates the files used by the tests, with different properties and lock states, if they do not exist yet.<p>
+     *
+     * @param cms the current users context
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createFiles(CmsObject cms) throws Exception {
+
+        if (cms.existsResource(FOLDER)) {
+            return;
+        }
+        cms.createResource(FOLDER, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < FILE_COUNT; i++) {
+            List<CmsProperty> properties = new ArrayList<CmsProperty>();
+            // the titles are not in the order of the file names
+            properties.add(
+                new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "title " + ((i * 37) % FILE_COUNT), null));
+            if ((i % 3) == 0) {
+                properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "nav " + i, null));
+            }
+            if ((i % 6) == 0) {
+                properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, String.valueOf(i), null));
+            }
+            cms.createResource(
+                FOLDER + "file" + i + ".txt",
+                CmsResourceTypePlain.getStaticTypeId(),
+                ("content " + i).getBytes(),
+                properties);
+        }
+        cms.unlockResource(FOLDER);
+
+        // some files are locked by the current user, some by another user
+        CmsObject otherCms = OpenCms.initCmsObject(cms);
+        otherCms.loginUser("test1", "test1");
+        otherCms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+        otherCms.getRequestContext().setSiteRoot(cms.getRequestContext().getSiteRoot());
+        for (int i = 0; i < (FILE_COUNT - 1); i += 7) {
+            cms.lockResource(FOLDER + "file" + i + ".txt");
+            otherCms.lockResource(FOLDER + "file" + (i + 1) + ".txt");
+        }
+    }
+
+    /**
+     * Creates the sub folders and the files used by the paging test, with different dates and titles.<p>
+     *
+     * @param cms the current users context
+     *
+     * @throws Exception if something goes wrong
+     */
+    private void createPagedFiles(CmsObject cms) throws Exception {
+
+        cms.createResource(PAGED_FOLDER, CmsResourceTypeFolder.getStaticTypeId());
+        for (String subFolder : PAGED_SUB_FOLDERS) {
+            cms.createResource(PAGED_FOLDER + subFolder, CmsResourceTypeFolder.getStaticTypeId());
+        }
+        long date = System.currentTimeMillis() - (PAGED_FILE_COUNT * 1000L);
+        for (int i = 0; i < PAGED_FILE_COUNT; i++) {
+            // the file names are not all lower case, and the dates and titles are not in the order of the names
+            String path = PAGED_FOLDER + ((i % 5) == 0 ? "File" : "file") + i + ".txt";
+            List<CmsProperty> properties = new ArrayList<CmsProperty>();
+            properties.add(
+                new CmsProperty(
+                    CmsPropertyDefinition.PROPERTY_TITLE,
+                    "title " + ((i * 37) % PAGED_FILE_COUNT),
+                    null));
+            cms.createResource(path, CmsResourceTypePlain.getStaticTypeId(), path.getBytes(), properties);
+            cms.setDateLastModified(path, date + (((i * 7) % PAGED_FILE_COUNT) * 1000L), false);
+        }
+        cms.unlockResource(PAGED_FOLDER);
+    }
+
+    /**
+     * Creates a table with the default columns.<p>
+     *
+     * The type icon column is left out, since the icons can not be compared.<p>
+     *
+     * @param lazyFill <code>true</code> to fill the items lazily
+     *
+     * @return the table
+     */
+    private CmsResourceTable createTable(boolean lazyFill) {
+
+        CmsResourceTable table = new CmsResourceTable();
+        for (CmsResourceTableProperty prop : CmsResourceTableProperty.defaultProperties()) {
+            if (!CmsResourceTableProperty.PROPERTY_TYPE_ICON.equals(prop)) {
+                table.m_container.addContainerProperty(prop, prop.getColumnType(), prop.getDefaultValue());
+            }
+        }
+        table.setLazyFill(lazyFill);
+        return table;
+    }
+
+    /**
+     * Sorts a table by the given column.<p>
+     *
+     * @param table the table
+     * @param propertyId the column to sort by
+     * @param ascending <code>true</code> to sort in ascending order
+     */
+    private void setSort(CmsResourceTable table, CmsResourceTableProperty propertyId, boolean ascending) {
+
+        table.m_fileTable.setSortContainerPropertyId(propertyId);
+        table.m_fileTable.setSortAscending(ascending);
+        table.m_fileTable.sort();
+    }
+}